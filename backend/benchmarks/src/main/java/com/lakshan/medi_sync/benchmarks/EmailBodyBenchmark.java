@@ -0,0 +1,42 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.service.EmailService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the reminder email body, done once per due reminder by the nightly
+ * job. Types and dates vary so the concatenation cannot be folded away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailBodyBenchmark {
+
+    private static final RecordType[] TYPES = RecordType.values();
+
+    private EmailService emailService;
+    private LocalDate[] dueDates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        emailService = new EmailService(null, null);
+        dueDates = new LocalDate[365];
+        for (int i = 0; i < dueDates.length; i++) {
+            dueDates[i] = LocalDate.of(2025, 1, 1).plusDays(i);
+        }
+    }
+
+    @Benchmark
+    public String reminderBody() {
+        int i = next++ & Integer.MAX_VALUE;
+        return emailService.buildEmailBody(TYPES[i % TYPES.length], dueDates[i % dueDates.length]);
+    }
+}
@@ -0,0 +1,181 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.lakshan.medi_sync.MediSyncApplication;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.UserRepository;
+import com.lakshan.medi_sync.service.ExportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /users/{id}/export} for one user with {@code rows} records,
+ * spread over the six types, each with its report, so the export has twice
+ * as many lines plus the user. The database is a file-backed H2 so that the
+ * rows do not sit on the JVM heap, and the fork runs with a 256 MB heap:
+ * an export that held its rows in memory would run out of it at a million.
+ * <p>
+ * Every megabyte of output the heap is collected and its live size sampled,
+ * which adds about a full GC per megabyte to the score. The largest sample
+ * is printed after each iteration and should be about the same for both row
+ * counts. Add {@code -prof gc} for the bytes allocated per export, which
+ * grow with the rows but are all short-lived.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class ExportBenchmark {
+
+    private static final Path DATABASE = Path.of("target", "export-benchmark");
+
+    /** Value columns of each record table, filled from the row number {@code x}. */
+    private static final Map<RecordType, String[][]> COLUMNS = Map.of(
+            RecordType.FASTING_BLOOD_SUGAR, new String[][]{
+                    {"fbs_level", "70 + MOD(x * 7, 90)"}},
+            RecordType.BLOOD_PRESSURE, new String[][]{
+                    {"systolic", "100 + MOD(x, 60)"},
+                    {"diastolic", "60 + MOD(x, 40)"},
+                    {"bp_level", "(100 + MOD(x, 60)) || '/' || (60 + MOD(x, 40))"}},
+            RecordType.FULL_BLOOD_COUNT, new String[][]{
+                    {"haemoglobin", "11 + MOD(x, 60) / 10.0"},
+                    {"total_leucocyte_count", "4000 + MOD(x * 13, 7000)"},
+                    {"platelet_count", "150000 + MOD(x * 17, 300000)"}},
+            RecordType.LIPID_PROFILE, new String[][]{
+                    {"total_cholesterol", "150 + MOD(x, 100)"},
+                    {"hdl", "35 + MOD(x, 40)"},
+                    {"ldl", "80 + MOD(x, 90)"},
+                    {"vldl", "10 + MOD(x, 30)"},
+                    {"triglycerides", "80 + MOD(x * 3, 150)"}},
+            RecordType.LIVER_PROFILE, new String[][]{
+                    {"protein_total_serum", "6 + MOD(x, 25) / 10.0"},
+                    {"albumin_serum", "3.5 + MOD(x, 15) / 10.0"},
+                    {"bilirubin_total_serum", "0.3 + MOD(x, 9) / 10.0"},
+                    {"sgpt", "10 + MOD(x, 45)"}},
+            RecordType.URINE_REPORT, new String[][]{
+                    {"color", "'Yellow'"},
+                    {"appearance", "'Clear'"},
+                    {"protein", "'Nil'"},
+                    {"sugar", "'Nil'"},
+                    {"specific_gravity", "1.005 + MOD(x, 25) / 1000.0"}});
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ExportService exportService;
+    private int userId;
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FileSystemUtils.deleteRecursively(DATABASE.toFile());
+        context = new SpringApplicationBuilder(MediSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:./" + DATABASE + "/db;MODE=PostgreSQL;"
+                                + "DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        // The migrations are PostgreSQL-only; build the schema from the entities
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--resend.api.key=benchmarks",
+                        "--reminders.cron=-",
+                        "--logging.level.root=WARN",
+                        "--spring.main.banner-mode=off");
+        exportService = context.getBean(ExportService.class);
+
+        User user = SampleData.user(1);
+        user.setId(0);
+        userId = context.getBean(UserRepository.class).save(user).getId();
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(DATABASE.toFile());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        out.count = 0;
+        out.maxLiveHeap = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounts() {
+        System.out.printf("%n%,d rows: %,d gzipped bytes, live heap at most %,d KB%n",
+                rows, out.count, out.maxLiveHeap / 1024);
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        exportService.writeExport(userId, out);
+        return out.count;
+    }
+
+    /** Records with set-based SQL, then one report per record. */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        RecordType[] types = RecordType.values();
+        int id = 1;
+        for (RecordType type : types) {
+            int count = rows / types.length + (type.ordinal() < rows % types.length ? 1 : 0);
+            StringBuilder columns = new StringBuilder();
+            StringBuilder values = new StringBuilder();
+            for (String[] column : COLUMNS.get(type)) {
+                columns.append(", ").append(column[0]);
+                values.append(", ").append(column[1]);
+            }
+            jdbcTemplate.update("insert into " + type.getTableName() + " (id, user_id, test_date" + columns + ") " +
+                    "select " + id + " + x, " + userId + ", DATEADD(DAY, -MOD(x, 3650), DATE '2025-01-01')" + values +
+                    " from system_range(0, " + (count - 1) + ") r(x)");
+            jdbcTemplate.update("insert into reports (id, report_date, user_id, " + type.getCode() + "_id) " +
+                    "select id, test_date, user_id, id from " + type.getTableName());
+            id += count;
+        }
+    }
+
+    /** Discards the export, sampling the live heap every {@link #SAMPLE_BYTES}. */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private static final long SAMPLE_BYTES = 1024 * 1024;
+
+        private long count;
+        private long maxLiveHeap;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int bytes) {
+            long before = count;
+            count += bytes;
+            if (count / SAMPLE_BYTES != before / SAMPLE_BYTES) {
+                System.gc();
+                long live = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+                maxLiveHeap = Math.max(maxLiveHeap, live);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.lakshan.medi_sync.analysis.HealthAnalyzer;
+import com.lakshan.medi_sync.analysis.HealthRules;
+import com.lakshan.medi_sync.dto.LipidProfileView;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classification throughput of the analysis rules. Scores are per reading,
+ * so ops/s reads directly as readings classified per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HealthAnalysisBenchmark {
+
+    private static final int READINGS = 100_000;
+
+    private double[] fbsLevels;
+    private double[] ldlLevels;
+    private LipidProfileView[] lipidProfiles;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        fbsLevels = new double[READINGS];
+        ldlLevels = new double[READINGS];
+        lipidProfiles = new LipidProfileView[READINGS];
+        LocalDate testDate = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < READINGS; i++) {
+            fbsLevels[i] = random.nextDouble(50, 200);
+            ldlLevels[i] = random.nextDouble(60, 220);
+            lipidProfiles[i] = new LipidProfileView(i, testDate,
+                    random.nextDouble(150, 280), random.nextDouble(30, 80), ldlLevels[i],
+                    random.nextDouble(10, 40), random.nextDouble(80, 600), null, 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public void fastingBloodSugar(Blackhole blackhole) {
+        for (double level : fbsLevels) {
+            blackhole.consume(HealthRules.analyzeFBS(level));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public void ldl(Blackhole blackhole) {
+        for (double level : ldlLevels) {
+            blackhole.consume(HealthRules.analyzeLDL(level));
+        }
+    }
+
+    /** All four lipid metrics plus the per-record result objects. */
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public void lipidProfileRecord(Blackhole blackhole) {
+        for (LipidProfileView profile : lipidProfiles) {
+            blackhole.consume(HealthAnalyzer.analyze(profile, "female"));
+        }
+    }
+}
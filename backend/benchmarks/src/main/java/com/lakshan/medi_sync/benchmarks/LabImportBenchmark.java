@@ -0,0 +1,152 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.MediSyncApplication;
+import com.lakshan.medi_sync.dto.LabImportResult;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.labimport.FhirBundleReader;
+import com.lakshan.medi_sync.labimport.Hl7v2Reader;
+import com.lakshan.medi_sync.labimport.RecordAssembler;
+import com.lakshan.medi_sync.labimport.RecordSink;
+import com.lakshan.medi_sync.repository.UserRepository;
+import com.lakshan.medi_sync.service.LabImportService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing synthetic lab files of {@code messages} results, one record each
+ * across 100 users and all six record types, as HL7 v2 messages or as one
+ * FHIR Bundle. {@code parse} is the streaming readers and record assembly on
+ * their own; {@code importFile} is the whole import through
+ * {@link LabImportService}, writing chunks to an in-memory H2 database in a
+ * Spring context as {@code RepositoryBenchmark} does. Scores are per file;
+ * divide {@code messages} by the score for records per millisecond. The file
+ * sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class LabImportBenchmark {
+
+    private static final int USERS = 100;
+
+    @Param({"1000", "10000"})
+    private int messages;
+
+    @Param({"hl7", "fhir"})
+    private String format;
+
+    private byte[] file;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = format.equals("hl7")
+                ? SampleData.hl7Messages(messages, USERS, 42)
+                : SampleData.fhirBundle(messages, USERS, 42);
+        objectMapper = new ObjectMapper();
+        System.out.printf("%n%d messages as %s: %d bytes%n", messages, format, file.length);
+    }
+
+    @Benchmark
+    public int parse(Blackhole blackhole) throws IOException {
+        RecordSink sink = new RecordSink() {
+            @Override
+            public void record(int source, HealthRecord record) {
+                blackhole.consume(record);
+            }
+
+            @Override
+            public void reject(int source, String message) {
+                throw new IllegalStateException("Synthetic message " + source + " rejected: " + message);
+            }
+        };
+        RecordAssembler assembler = new RecordAssembler(sink);
+        ByteArrayInputStream in = new ByteArrayInputStream(file);
+        if (format.equals("hl7")) {
+            return new Hl7v2Reader(new InputStreamReader(in, StandardCharsets.UTF_8), assembler, sink).read();
+        }
+        return new FhirBundleReader(objectMapper.createParser(in), assembler, sink).read();
+    }
+
+    @Benchmark
+    public LabImportResult importFile(Database database) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(file);
+        LabImportResult result = format.equals("hl7")
+                ? database.labImportService.importHl7(in, StandardCharsets.UTF_8)
+                : database.labImportService.importFhir(in);
+        if (result.inserted() != messages) {
+            throw new IllegalStateException("Imported " + result.inserted() + " of " + messages + ": " + result.errors());
+        }
+        return result;
+    }
+
+    /**
+     * The database {@code importFile} writes to. Its records are deleted
+     * before each import, which would otherwise replace the ones the last
+     * import stored rather than insert them.
+     */
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        private ConfigurableApplicationContext context;
+        private LabImportService labImportService;
+        private JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(MediSyncApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--spring.datasource.url=jdbc:h2:mem:labimport;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                    + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            // The migrations are PostgreSQL-only; build the schema from the entities
+                            "--spring.flyway.enabled=false",
+                            "--spring.jpa.hibernate.ddl-auto=create",
+                            "--spring.jpa.show-sql=false",
+                            "--resend.api.key=benchmarks",
+                            "--reminders.cron=-",
+                            "--logging.level.root=WARN",
+                            "--spring.main.banner-mode=off");
+            labImportService = context.getBean(LabImportService.class);
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            for (int id = 1; id <= USERS; id++) {
+                User user = SampleData.user(id);
+                user.setId(0);
+                userRepository.save(user);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void deleteRecords() {
+            jdbcTemplate.update("delete from reports");
+            for (RecordType type : RecordType.values()) {
+                jdbcTemplate.update("delete from " + type.getTableName());
+            }
+            jdbcTemplate.update("delete from user_health_summary");
+            jdbcTemplate.update("delete from metric_aggregates");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+}
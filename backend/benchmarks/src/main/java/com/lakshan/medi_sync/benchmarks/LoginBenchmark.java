@@ -0,0 +1,79 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.lakshan.medi_sync.controller.UserController;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.service.UserService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of {@code POST /users/login}: input validation, the email
+ * format check and the SHA-256 comparison, with the user lookup answered from
+ * memory. The last two benchmarks split that cost into its parts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private UserController controller;
+    private User goodLogin;
+    private User wrongPassword;
+    private User badEmail;
+
+    @Setup
+    public void setUp() {
+        User stored = SampleData.user(1);
+        stored.setPassword(DigestUtils.sha256Hex(PASSWORD));
+        controller = new UserController(new UserService(null, null, null, null) {
+            @Override
+            public User getUserByEmail(String email) {
+                return stored;
+            }
+        });
+        goodLogin = login(stored.getEmail(), PASSWORD);
+        wrongPassword = login(stored.getEmail(), "not the password");
+        badEmail = login("not an email", PASSWORD);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> success() {
+        return controller.login(goodLogin);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> wrongPassword() {
+        return controller.login(wrongPassword);
+    }
+
+    /** Rejected by the format check before any hashing. */
+    @Benchmark
+    public ResponseEntity<?> malformedEmail() {
+        return controller.login(badEmail);
+    }
+
+    @Benchmark
+    public boolean emailFormatOnly() {
+        return goodLogin.getEmail().matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    }
+
+    @Benchmark
+    public String sha256Only() {
+        return DigestUtils.sha256Hex(goodLogin.getPassword());
+    }
+
+    private static User login(String email, String password) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(password);
+        return user;
+    }
+}
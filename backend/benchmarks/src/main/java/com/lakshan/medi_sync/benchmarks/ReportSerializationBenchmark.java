@@ -0,0 +1,79 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.lakshan.medi_sync.entity.Report;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding the report lists behind {@code GET /reports/getReportsByUserId} in
+ * each format the API negotiates, with mappers configured the way Spring Boot
+ * configures the ones the controllers use. {@code reportListGzip} adds the
+ * gzip pass the server applies for clients that accept it. Scores are per
+ * list; the bytes each combination puts on the wire are printed once per
+ * trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportSerializationBenchmark {
+
+    /** A new user, a typical user after a few years, and a heavy one. */
+    @Param({"10", "100", "1000"})
+    private int reports;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private List<Report> reportList;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+        reportList = SampleData.reports(reports, 42);
+
+        byte[] plain = reportList();
+        System.out.printf("%n%d reports as %s: %d bytes, %d gzipped%n",
+                reports, format, plain.length, gzip(plain).length);
+    }
+
+    @Benchmark
+    public byte[] reportList() throws IOException {
+        return objectMapper.writeValueAsBytes(reportList);
+    }
+
+    @Benchmark
+    public byte[] reportListGzip() throws IOException {
+        return gzip(objectMapper.writeValueAsBytes(reportList));
+    }
+
+    /** Tomcat compresses with the JDK deflater at its default level, as here. */
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshan.medi_sync.MediSyncApplication;
+import com.lakshan.medi_sync.dto.BulkRecordItem;
+import com.lakshan.medi_sync.dto.FastingBloodSugarView;
+import com.lakshan.medi_sync.entity.*;
+import com.lakshan.medi_sync.repository.FastingBloodSugarRepository;
+import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
+import com.lakshan.medi_sync.service.BulkRecordService;
+import com.lakshan.medi_sync.service.FastingBloodSugarService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository round trips through the real Spring context: transaction, JDBC
+ * on an in-memory H2 database in PostgreSQL mode, and entity or projection
+ * mapping. H2 answers without a network hop, so these scores are the
+ * application's share of a request; a PostgreSQL round trip comes on top.
+ * Each benchmark method forks its own context, so the write benchmark does
+ * not grow the tables the read benchmarks see. The Hibernate and Spring Data
+ * call paths take far longer to compile than the other benchmarks, hence the
+ * long warmup; with less, the scores mostly measure the JIT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    /** Records of each type for the benchmarked user, so six times as many reports. */
+    @Param({"10", "100"})
+    private int recordsPerType;
+
+    private ConfigurableApplicationContext context;
+    private ReportRepository reportRepository;
+    private FastingBloodSugarRepository fbsRepository;
+    private UserRepository userRepository;
+    private FastingBloodSugarService fbsService;
+    private User user;
+    private int nextTestDay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MediSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmarks;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        // The migrations are PostgreSQL-only; build the schema from the entities
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--resend.api.key=benchmarks",
+                        "--reminders.cron=-",
+                        "--logging.level.root=WARN",
+                        "--spring.main.banner-mode=off");
+        reportRepository = context.getBean(ReportRepository.class);
+        fbsRepository = context.getBean(FastingBloodSugarRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        fbsService = context.getBean(FastingBloodSugarService.class);
+
+        // A second user's records share the tables, so the queries have rows to skip
+        user = seedUser(1);
+        seedUser(2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /** {@code GET /reports/getReportsByUserId}: reports with their records and user in one query. */
+    @Benchmark
+    public List<Report> reportsByUser() {
+        return reportRepository.findByUserId(user.getId());
+    }
+
+    /** {@code GET /fbs/getFastingBloodSugarRecordsByUserId}: the projection the list endpoints serve. */
+    @Benchmark
+    public List<FastingBloodSugarView> fbsViewsByUser() {
+        return fbsRepository.findViewsByUserId(user.getId());
+    }
+
+    /** The same rows as managed entities, for comparison with the projection. */
+    @Benchmark
+    public List<FastingBloodSugar> fbsEntitiesByUser() {
+        return fbsRepository.findByUserId(user.getId());
+    }
+
+    /** The lookup behind login, without the user cache in front of it. */
+    @Benchmark
+    public Optional<User> userByEmail() {
+        return userRepository.findByEmail(user.getEmail());
+    }
+
+    /** {@code POST /fbs/addFastingBloodSugarRecord}: record, report, trend buckets and summary in one transaction. */
+    @Benchmark
+    public FastingBloodSugar addFbsRecord() {
+        FastingBloodSugar record = new FastingBloodSugar();
+        record.setUser(user);
+        record.setTestDate(LocalDate.of(2030, 1, 1).plusDays(nextTestDay++));
+        record.setFbsLevel(95);
+        fbsService.addNewFastingBloodSugarRecord(record);
+        return record;
+    }
+
+    private User seedUser(int id) {
+        User template = SampleData.user(id);
+        template.setId(0);
+        User saved = userRepository.save(template);
+
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        SplittableRandom random = new SplittableRandom(id);
+        int records = recordsPerType * RecordType.values().length;
+        List<BulkRecordItem> items = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            HealthRecord record = SampleData.record(saved, i, random);
+            ObjectNode json = objectMapper.valueToTree(record);
+            json.putObject("user").put("id", saved.getId());
+            items.add(new BulkRecordItem(RecordType.of(record).getCode(), json));
+        }
+        context.getBean(BulkRecordService.class).ingest(items);
+        return saved;
+    }
+}
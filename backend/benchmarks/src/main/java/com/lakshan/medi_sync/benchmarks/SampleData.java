@@ -0,0 +1,206 @@
+package com.lakshan.medi_sync.benchmarks;
+
+import com.lakshan.medi_sync.entity.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Fully populated users, records and reports with plausible values, cycling
+ * through all six record types so each benchmark sees the mix the app serves.
+ */
+final class SampleData {
+
+    private static final LocalDate FIRST_TEST = LocalDate.of(2022, 1, 1);
+
+    private SampleData() {
+    }
+
+    static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Benchmark User " + id);
+        user.setEmail("bench" + id + "@example.com");
+        user.setPassword("5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8");
+        user.setDateOfBirth(LocalDate.of(1980, 5, 17));
+        user.setGender(id % 2 == 0 ? "Male" : "Female");
+        user.setHeight(172);
+        user.setWeight(74.5);
+        user.setBloodGroup("O+");
+        return user;
+    }
+
+    /** The {@code index}-th record of a user's history: types rotate, dates move forward a week at a time. */
+    static HealthRecord record(User user, int index, SplittableRandom random) {
+        LocalDate testDate = FIRST_TEST.plusWeeks(index);
+        String imageUrl = "https://storage.example.com/records/" + user.getId() + "/" + index + ".jpg";
+        RecordType type = RecordType.values()[index % RecordType.values().length];
+        switch (type) {
+            case FASTING_BLOOD_SUGAR -> {
+                FastingBloodSugar fbs = new FastingBloodSugar();
+                fbs.setFbsLevel(random.nextDouble(70, 160));
+                fbs.setTestDate(testDate);
+                return fill(fbs, user, imageUrl);
+            }
+            case BLOOD_PRESSURE -> {
+                BloodPressure bp = new BloodPressure();
+                bp.setBpLevel(random.nextInt(100, 160) + "/" + random.nextInt(60, 100));
+                bp.setTestDate(testDate);
+                return fill(bp, user, imageUrl);
+            }
+            case FULL_BLOOD_COUNT -> {
+                FullBloodCount fbc = new FullBloodCount();
+                fbc.setHaemoglobin(random.nextDouble(11, 17));
+                fbc.setTotalLeucocyteCount(random.nextDouble(4000, 11000));
+                fbc.setPlateletCount(random.nextDouble(150000, 450000));
+                fbc.setTestDate(testDate);
+                return fill(fbc, user, imageUrl);
+            }
+            case LIPID_PROFILE -> {
+                LipidProfile lipid = new LipidProfile();
+                lipid.setTotalCholesterol(random.nextDouble(150, 280));
+                lipid.setHdl(random.nextDouble(30, 80));
+                lipid.setLdl(random.nextDouble(60, 220));
+                lipid.setVldl(random.nextDouble(10, 40));
+                lipid.setTriglycerides(random.nextDouble(80, 400));
+                lipid.setTestDate(testDate);
+                return fill(lipid, user, imageUrl);
+            }
+            case LIVER_PROFILE -> {
+                LiverProfile liver = new LiverProfile();
+                liver.setProteinTotalSerum(random.nextDouble(6, 8.5));
+                liver.setAlbuminSerum(random.nextDouble(3.4, 5.4));
+                liver.setBilirubinTotalSerum(random.nextDouble(0.1, 1.5));
+                liver.setSgpt(random.nextDouble(7, 60));
+                liver.setTestDate(testDate);
+                return fill(liver, user, imageUrl);
+            }
+            default -> {
+                UrineReport urine = new UrineReport();
+                urine.setColor("Pale yellow");
+                urine.setAppearance("Clear");
+                urine.setProtein("Nil");
+                urine.setSugar("Nil");
+                urine.setSpecificGravity(random.nextDouble(1.005, 1.030));
+                urine.setTestDate(testDate);
+                return fill(urine, user, imageUrl);
+            }
+        }
+    }
+
+    /** Reports as {@code GET /reports/getReportsByUserId} returns them, each with its record and user. */
+    static List<Report> reports(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        User user = user(1);
+        List<Report> reports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Report report = Report.forRecord(record(user, i, random));
+            report.setId(i + 1);
+            reports.add(report);
+        }
+        return reports;
+    }
+
+    /**
+     * A partner lab's HL7 v2 file: {@code count} ORU^R01 messages, each with
+     * the results of one {@link #record} for a user between 1 and
+     * {@code users}, plus a haematocrit result that is not imported.
+     */
+    static byte[] hl7Messages(int count, int users, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder file = new StringBuilder(count * 600);
+        for (int i = 0; i < count; i++) {
+            HealthRecord record = record(user(i % users + 1), i / users, random);
+            String date = record.getTestDate().format(DateTimeFormatter.BASIC_ISO_DATE);
+            file.append("MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|").append(date).append("0830||ORU^R01|M")
+                    .append(i).append("|P|2.5.1\r");
+            file.append("PID|1||").append(record.getUser().getId()).append("^^^MEDISYNC^MR||Benchmark^User\r");
+            file.append("OBR|1|||").append(RecordType.of(record).getCode()).append("^Panel^L|||").append(date)
+                    .append("0800\r");
+            int set = 0;
+            for (String[] result : results(record)) {
+                file.append("OBX|").append(++set).append('|').append(result[1] == null ? "ST" : "NM").append('|')
+                        .append(result[0]).append("^^LN||").append(result[2]).append('|')
+                        .append(result[1] == null ? "" : result[1]).append("|||||F\r");
+            }
+            file.append("OBX|").append(++set).append("|NM|4544-3^Hematocrit^LN||42.1|%|||||F\r\n");
+        }
+        return file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The same results as {@link #hl7Messages}, one Observation per result in one FHIR Bundle. */
+    static byte[] fhirBundle(int count, int users, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder file = new StringBuilder(count * 2000);
+        file.append("{\"resourceType\":\"Bundle\",\"type\":\"collection\",\"entry\":[");
+        for (int i = 0; i < count; i++) {
+            HealthRecord record = record(user(i % users + 1), i / users, random);
+            for (String[] result : results(record)) {
+                if (file.charAt(file.length() - 1) == '}') {
+                    file.append(',');
+                }
+                file.append("{\"resource\":{\"resourceType\":\"Observation\",\"status\":\"final\",")
+                        .append("\"code\":{\"coding\":[{\"system\":\"http://loinc.org\",\"code\":\"")
+                        .append(result[0]).append("\"}]},\"subject\":{\"reference\":\"Patient/")
+                        .append(record.getUser().getId()).append("\"},\"effectiveDateTime\":\"")
+                        .append(record.getTestDate()).append("T08:00:00Z\",");
+                if (result[1] == null) {
+                    file.append("\"valueString\":\"").append(result[2]).append("\"}}");
+                } else {
+                    file.append("\"valueQuantity\":{\"value\":").append(result[2]).append(",\"code\":\"")
+                            .append(result[1]).append("\"}}}");
+                }
+            }
+        }
+        file.append("]}");
+        return file.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** A record as lab results: LOINC code, UCUM unit (null for text) and value, in the units labs report. */
+    private static List<String[]> results(HealthRecord record) {
+        List<String[]> results = new ArrayList<>(5);
+        if (record instanceof FastingBloodSugar fbs) {
+            results.add(result("1558-6", "mg/dL", fbs.getFbsLevel()));
+        } else if (record instanceof BloodPressure bp) {
+            results.add(result("8480-6", "mm[Hg]", bp.getSystolic()));
+            results.add(result("8462-4", "mm[Hg]", bp.getDiastolic()));
+        } else if (record instanceof FullBloodCount fbc) {
+            results.add(result("718-7", "g/dL", fbc.getHaemoglobin()));
+            results.add(result("6690-2", "10*3/uL", fbc.getTotalLeucocyteCount() / 1000));
+            results.add(result("777-3", "10*3/uL", fbc.getPlateletCount() / 1000));
+        } else if (record instanceof LipidProfile lipid) {
+            results.add(result("2093-3", "mmol/L", lipid.getTotalCholesterol() / 38.67));
+            results.add(result("2085-9", "mmol/L", lipid.getHdl() / 38.67));
+            results.add(result("13457-7", "mmol/L", lipid.getLdl() / 38.67));
+            results.add(result("13458-5", "mmol/L", lipid.getVldl() / 38.67));
+            results.add(result("2571-8", "mmol/L", lipid.getTriglycerides() / 88.57));
+        } else if (record instanceof LiverProfile liver) {
+            results.add(result("2885-2", "g/dL", liver.getProteinTotalSerum()));
+            results.add(result("1751-7", "g/dL", liver.getAlbuminSerum()));
+            results.add(result("1975-2", "mg/dL", liver.getBilirubinTotalSerum()));
+            results.add(result("1742-6", "U/L", liver.getSgpt()));
+        } else if (record instanceof UrineReport urine) {
+            results.add(new String[]{"5778-6", null, urine.getColor()});
+            results.add(new String[]{"5767-9", null, urine.getAppearance()});
+            results.add(new String[]{"20454-5", null, urine.getProtein()});
+            results.add(new String[]{"25428-4", null, urine.getSugar()});
+            results.add(result("5811-5", "1", urine.getSpecificGravity()));
+        }
+        return results;
+    }
+
+    private static String[] result(String loinc, String unit, double value) {
+        return new String[]{loinc, unit, String.format(Locale.ROOT, "%.3f", value)};
+    }
+
+    private static <T extends HealthRecord> T fill(T record, User user, String imageUrl) {
+        record.setUser(user);
+        record.setImageUrl(imageUrl);
+        return record;
+    }
+}
@@ -0,0 +1,92 @@
+package com.lakshan.medi_sync.loadtest;
+
+import com.lakshan.medi_sync.analysis.Metric;
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * The shape of the synthetic data, shared by the seeder and the traffic so
+ * requests can address seeded rows without looking them up.
+ * <p>
+ * Users have ids {@code 1..users}. Each user has {@code recordsPerUser}
+ * records, one a month ending this month, with the record types taking turns.
+ * Within a record table the rows are laid out user by user, so a user's
+ * records of one type have consecutive ids.
+ */
+record Dataset(int users, int recordsPerUser, YearMonth lastMonth) {
+
+    static final String PASSWORD = "loadtest";
+
+    static Dataset of(int users, int recordsPerUser) {
+        if (users < 1 || recordsPerUser < RecordType.values().length) {
+            throw new IllegalArgumentException("Need at least one user and one record of each type per user");
+        }
+        return new Dataset(users, recordsPerUser, YearMonth.now());
+    }
+
+    /** How many records of {@code type} each user has. */
+    int perUser(RecordType type) {
+        int offset = type.ordinal();
+        int types = RecordType.values().length;
+        return (recordsPerUser - offset + types - 1) / types;
+    }
+
+    long rows(RecordType type) {
+        return (long) users * perUser(type);
+    }
+
+    long totalRecords() {
+        long total = 0;
+        for (RecordType type : RecordType.values()) {
+            total += rows(type);
+        }
+        return total;
+    }
+
+    /** Id of the user's {@code index}-th record of {@code type}, oldest first. */
+    int recordId(RecordType type, int userId, int index) {
+        return (userId - 1) * perUser(type) + index + 1;
+    }
+
+    /** Month of the user's {@code index}-th record of {@code type}; the day depends on the user. */
+    YearMonth month(RecordType type, int index) {
+        int position = index * RecordType.values().length + type.ordinal();
+        return firstMonth().plusMonths(position);
+    }
+
+    LocalDate testDate(RecordType type, int userId, int index) {
+        return month(type, index).atDay(1 + userId % 28);
+    }
+
+    YearMonth firstMonth() {
+        return lastMonth.minusMonths(recordsPerUser - 1);
+    }
+
+    /** Seeded databases are reused across runs, keyed by their shape. */
+    String fileName() {
+        return "seed-" + users + "u-" + recordsPerUser + "r-" + lastMonth;
+    }
+
+    /** Plausible range of a seeded or generated reading; null for blood pressure, which is parsed from bpLevel. */
+    static double[] range(Metric metric) {
+        return switch (metric) {
+            case FBS_LEVEL -> new double[]{70, 160};
+            case HAEMOGLOBIN -> new double[]{10.5, 17.5};
+            case TOTAL_LEUCOCYTE_COUNT -> new double[]{3500, 12000};
+            case PLATELET_COUNT -> new double[]{140000, 450000};
+            case TOTAL_CHOLESTEROL -> new double[]{140, 290};
+            case HDL -> new double[]{30, 85};
+            case LDL -> new double[]{60, 220};
+            case VLDL -> new double[]{8, 45};
+            case TRIGLYCERIDES -> new double[]{70, 420};
+            case PROTEIN_TOTAL_SERUM -> new double[]{5.8, 8.6};
+            case ALBUMIN_SERUM -> new double[]{3.2, 5.4};
+            case BILIRUBIN_TOTAL_SERUM -> new double[]{0.1, 1.6};
+            case SGPT -> new double[]{7, 70};
+            case SPECIFIC_GRAVITY -> new double[]{1.005, 1.030};
+            case SYSTOLIC, DIASTOLIC -> null;
+        };
+    }
+}
@@ -0,0 +1,333 @@
+package com.lakshan.medi_sync.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lakshan.medi_sync.MediSyncApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Boots the backend against an H2 database in PostgreSQL mode, seeded with a
+ * synthetic {@link Dataset}, and drives closed-loop HTTP traffic at it: each
+ * client sends a request, waits for the answer and sends the next. The mix
+ * covers every controller (see {@link Traffic}). Every statement gets a
+ * simulated network delay (see {@link SimulatedLatency}).
+ * <p>
+ * The database lives in files under {@code target/loadtest-data}. Seeding is
+ * done once per dataset shape and the result reused, because millions of
+ * records take minutes to generate; each run works on a fresh copy of it.
+ * After a schema change, delete the directory or run {@code mvn clean}.
+ * <p>
+ * {@code --mode=compare} runs the same load on platform threads and then on the
+ * {@code virtual-threads} profile, each in a fresh application with the same
+ * Hikari pool size, and prints the two side by side.
+ * <p>
+ * Options (defaults in brackets): {@code --mode} platform|virtual|compare [compare],
+ * {@code --clients} [400], {@code --warmup} [PT10S], {@code --duration} [PT30S],
+ * {@code --pool} Hikari maximumPoolSize [5], {@code --db-latency} [PT0.002S],
+ * {@code --users} [2000], {@code --records-per-user} [12], {@code --reseed} [false],
+ * {@code --skip} comma-separated operations to leave out of the mix, e.g. {@code export,bulk} [none].
+ */
+public final class LoadTest {
+
+    private static final Path DATA_DIR = Path.of("target", "loadtest-data").toAbsolutePath();
+    private static final Path RESULT_FILE = Path.of("target", "loadtest-result.json");
+    private static final String H2_OPTIONS =
+            ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;CACHE_SIZE=262144";
+
+    private LoadTest() {
+    }
+
+    record Options(List<String> modes, int clients, Duration warmup, Duration duration,
+                   int pool, Duration dbLatency, Dataset dataset, boolean reseed, Set<Traffic.Operation> skipped) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value but got " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            String mode = values.getOrDefault("mode", "compare");
+            Set<Traffic.Operation> skipped = EnumSet.noneOf(Traffic.Operation.class);
+            for (String label : values.getOrDefault("skip", "").split(",")) {
+                if (!label.isBlank()) {
+                    skipped.add(Traffic.Operation.fromLabel(label.trim()));
+                }
+            }
+            return new Options(
+                    mode.equals("compare") ? List.of("platform", "virtual") : List.of(mode),
+                    Integer.parseInt(values.getOrDefault("clients", "400")),
+                    Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                    Duration.parse(values.getOrDefault("duration", "PT30S")),
+                    Integer.parseInt(values.getOrDefault("pool", "5")),
+                    Duration.parse(values.getOrDefault("db-latency", "PT0.002S")),
+                    Dataset.of(
+                            Integer.parseInt(values.getOrDefault("users", "2000")),
+                            Integer.parseInt(values.getOrDefault("records-per-user", "12"))),
+                    Boolean.parseBoolean(values.getOrDefault("reseed", "false")),
+                    skipped
+            );
+        }
+    }
+
+    record Result(String mode, int clients, int pool, int users, long records, long requests, long errors,
+                  double throughput, double p50Millis, double p90Millis, double p99Millis, double maxMillis,
+                  double meanConnectionWaitMillis, double maxConnectionWaitMillis, List<EndpointResult> endpoints) {
+    }
+
+    record EndpointResult(String operation, long requests, long errors, double p50Millis, double p99Millis) {
+    }
+
+    /** One client's requests: latency in nanoseconds, negative for errors, and which operation it was. */
+    private record Samples(long[] latencies, byte[] operations, int count) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Path seeded = seed(options);
+        List<Result> results = new ArrayList<>();
+        for (String mode : options.modes()) {
+            results.add(run(mode, options, seeded));
+        }
+
+        for (Result r : results) {
+            System.out.printf("%n[%s] %-22s %10s %8s %9s %9s%n", r.mode(), "operation", "requests", "errors", "p50 ms", "p99 ms");
+            for (EndpointResult e : r.endpoints()) {
+                System.out.printf("[%s] %-22s %10d %8d %9.1f %9.1f%n",
+                        r.mode(), e.operation(), e.requests(), e.errors(), e.p50Millis(), e.p99Millis());
+            }
+        }
+        System.out.printf("%n%-9s %8s %10s %8s %9s %9s %9s %9s %11s%n",
+                "mode", "clients", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms", "hikari ms");
+        for (Result r : results) {
+            System.out.printf("%-9s %8d %10d %8d %9.0f %9.1f %9.1f %9.1f %11.2f%n",
+                    r.mode(), r.clients(), r.requests(), r.errors(), r.throughput(),
+                    r.p50Millis(), r.p99Millis(), r.maxMillis(), r.meanConnectionWaitMillis());
+        }
+
+        Files.createDirectories(RESULT_FILE.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(RESULT_FILE.toFile(), results);
+        System.out.println("\nResults written to " + RESULT_FILE);
+    }
+
+    /**
+     * Creates the schema from the entities and seeds it, unless a database of
+     * the same shape is already there. Seeds under a temporary name so an
+     * interrupted run is not mistaken for a finished one.
+     *
+     * @return the seeded database, without H2's {@code .mv.db} suffix
+     */
+    private static Path seed(Options options) throws Exception {
+        Dataset dataset = options.dataset();
+        Path seeded = DATA_DIR.resolve(dataset.fileName());
+        if (Files.exists(file(seeded)) && !options.reseed()) {
+            System.out.printf("Reusing %s%n", file(seeded));
+            return seeded;
+        }
+
+        Files.createDirectories(DATA_DIR);
+        Path partial = DATA_DIR.resolve(dataset.fileName() + "-partial");
+        Files.deleteIfExists(file(partial));
+        System.out.printf("Seeding %,d users with %,d records each%n", dataset.users(), dataset.recordsPerUser());
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MediSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(appArgs(partial, "create", 1, options.dbLatency()).toArray(String[]::new))) {
+            new Seeder(new JdbcTemplate(context.getBean(DataSource.class)), dataset).seed();
+        }
+        Files.move(file(partial), file(seeded), StandardCopyOption.REPLACE_EXISTING);
+        return seeded;
+    }
+
+    private static Result run(String mode, Options options, Path seeded) throws Exception {
+        Path database = DATA_DIR.resolve("run-" + mode);
+        Files.copy(file(seeded), file(database), StandardCopyOption.REPLACE_EXISTING);
+
+        // A stale seed from before a schema change fails here rather than mid-run
+        List<String> args = appArgs(database, "validate", options.pool(), options.dbLatency());
+        args.add("--server.port=0");
+        // Tomcat's default of 8192 would queue the rest of 10k clients in the accept backlog
+        args.add("--server.tomcat.max-connections=" + Math.max(8192, options.clients() + 100));
+        if (mode.equals("virtual")) {
+            args.add("--spring.profiles.active=virtual-threads");
+        } else if (!mode.equals("platform")) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+
+        System.out.printf("[%s] starting%n", mode);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                MediSyncApplication.class, SimulatedLatency.class).run(args.toArray(String[]::new))) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            Traffic traffic = new Traffic(port, options.dataset(), options.skipped());
+            context.getBean(SimulatedLatency.class).start();
+
+            System.out.printf("[%s] warming up for %s%n", mode, options.warmup());
+            drive(traffic, options.clients(), options.warmup());
+
+            Timer acquire = context.getBean(MeterRegistry.class).find("hikaricp.connections.acquire").timer();
+            long acquireCount = acquire == null ? 0 : acquire.count();
+            double acquireNanos = acquire == null ? 0 : acquire.totalTime(TimeUnit.NANOSECONDS);
+
+            System.out.printf("[%s] measuring for %s%n", mode, options.duration());
+            List<Samples> samples = drive(traffic, options.clients(), options.duration());
+
+            long waits = acquire == null ? 0 : acquire.count() - acquireCount;
+            double meanWait = waits == 0 ? 0 : (acquire.totalTime(TimeUnit.NANOSECONDS) - acquireNanos) / waits / 1e6;
+            double maxWait = acquire == null ? 0 : acquire.max(TimeUnit.MILLISECONDS);
+            return summarize(mode, options, samples, meanWait, maxWait);
+        } finally {
+            Files.deleteIfExists(file(database));
+        }
+    }
+
+    private static List<String> appArgs(Path database, String ddl, int pool, Duration dbLatency) {
+        return new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:file:" + database + H2_OPTIONS,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.hikari.maximum-pool-size=" + pool,
+                "--spring.datasource.hikari.minimum-idle=" + pool,
+                // The migrations are PostgreSQL-only; the schema comes from the entities
+                "--spring.flyway.enabled=false",
+                "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                "--spring.jpa.show-sql=false",
+                "--resend.api.key=loadtest",
+                "--reminders.cron=-",
+                "--logging.level.com.lakshan.medi_sync=WARN",
+                "--loadtest.db-latency=" + dbLatency
+        ));
+    }
+
+    private static Path file(Path database) {
+        return Path.of(database + ".mv.db");
+    }
+
+    /** Runs {@code clients} closed-loop clients for {@code duration}. */
+    private static List<Samples> drive(Traffic traffic, int clients, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Samples>> futures = new ArrayList<>(clients);
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    byte[] operations = new byte[1024];
+                    int count = 0;
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Traffic.Operation operation = traffic.next(random);
+                        HttpRequest request = traffic.request(operation, random);
+                        long started = System.nanoTime();
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 400;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long elapsed = System.nanoTime() - started;
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                            operations = Arrays.copyOf(operations, count * 2);
+                        }
+                        latencies[count] = ok ? elapsed : -elapsed;
+                        operations[count++] = (byte) operation.ordinal();
+                    }
+                    return new Samples(latencies, operations, count);
+                }));
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+        }
+        List<Samples> samples = new ArrayList<>(clients);
+        for (Future<Samples> future : futures) {
+            samples.add(future.get());
+        }
+        return samples;
+    }
+
+    private static Result summarize(String mode, Options options, List<Samples> samples,
+                                    double meanConnectionWaitMillis, double maxConnectionWaitMillis) {
+        Traffic.Operation[] operations = Traffic.Operation.values();
+        int total = 0;
+        int[] perOperation = new int[operations.length];
+        for (Samples client : samples) {
+            total += client.count();
+            for (int i = 0; i < client.count(); i++) {
+                perOperation[client.operations()[i]]++;
+            }
+        }
+
+        long[] all = new long[total];
+        long[][] byOperation = new long[operations.length][];
+        long[] errorsByOperation = new long[operations.length];
+        for (int o = 0; o < operations.length; o++) {
+            byOperation[o] = new long[perOperation[o]];
+        }
+        int[] filled = new int[operations.length];
+        long errors = 0;
+        int n = 0;
+        for (Samples client : samples) {
+            for (int i = 0; i < client.count(); i++) {
+                long sample = client.latencies()[i];
+                int o = client.operations()[i];
+                if (sample < 0) {
+                    errors++;
+                    errorsByOperation[o]++;
+                }
+                all[n++] = Math.abs(sample);
+                byOperation[o][filled[o]++] = Math.abs(sample);
+            }
+        }
+
+        List<EndpointResult> endpoints = new ArrayList<>(operations.length);
+        for (int o = 0; o < operations.length; o++) {
+            Arrays.sort(byOperation[o]);
+            endpoints.add(new EndpointResult(operations[o].label(), byOperation[o].length, errorsByOperation[o],
+                    percentile(byOperation[o], 0.50), percentile(byOperation[o], 0.99)));
+        }
+        Arrays.sort(all);
+        return new Result(
+                mode,
+                options.clients(),
+                options.pool(),
+                options.dataset().users(),
+                options.dataset().totalRecords(),
+                total,
+                errors,
+                total / (options.duration().toNanos() / 1e9),
+                percentile(all, 0.50),
+                percentile(all, 0.90),
+                percentile(all, 0.99),
+                all.length == 0 ? 0 : all[all.length - 1] / 1e6,
+                meanConnectionWaitMillis,
+                maxConnectionWaitMillis,
+                endpoints
+        );
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,157 @@
+package com.lakshan.medi_sync.loadtest;
+
+import com.lakshan.medi_sync.analysis.Metric;
+import com.lakshan.medi_sync.entity.RecordType;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fills an empty schema with a {@link Dataset} using set-based H2 SQL, a chunk
+ * of users per statement. Going through the services would take hours for
+ * millions of records, so the tables the write paths maintain alongside the
+ * records (reports, trend buckets, health summaries) are derived here from the
+ * inserted rows instead, the same way the services would fill them.
+ */
+final class Seeder {
+
+    private static final int USERS_PER_CHUNK = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dataset dataset;
+
+    Seeder(JdbcTemplate jdbcTemplate, Dataset dataset) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataset = dataset;
+    }
+
+    void seed() {
+        long started = System.nanoTime();
+        String password = DigestUtils.sha256Hex(Dataset.PASSWORD);
+        forEachChunk("users", (from, to) -> jdbcTemplate.update(
+                "insert into users (id, name, email, pwd, dob, gender, height, weight, blood_group) " +
+                "select u.x, 'Load User ' || u.x, 'load' || u.x || '@example.com', '" + password + "', " +
+                "DATEADD(DAY, -(6570 + MOD(u.x * 37, 21900)), CURRENT_DATE), " +
+                "CASE MOD(u.x, 2) WHEN 0 THEN 'Male' ELSE 'Female' END, " +
+                "150 + MOD(u.x * 7, 45), 50 + MOD(u.x * 11, 55), " +
+                "CASE MOD(u.x, 4) WHEN 0 THEN 'O+' WHEN 1 THEN 'A+' WHEN 2 THEN 'B+' ELSE 'AB-' END " +
+                "from system_range(" + from + ", " + to + ") u(x)"));
+        jdbcTemplate.execute("alter table users alter column id restart with " + (dataset.users() + 1));
+
+        long reportOffset = 0;
+        for (RecordType type : RecordType.values()) {
+            int perUser = dataset.perUser(type);
+            String table = type.getTableName();
+            long offset = reportOffset;
+            forEachChunk(table, (from, to) -> {
+                jdbcTemplate.update(insertRecords(type, perUser, from, to));
+                jdbcTemplate.update(
+                        "insert into reports (id, report_date, user_id, " + type.getCode() + "_id) " +
+                        "select id + " + offset + ", test_date, user_id, id from " + table +
+                        " where user_id between " + from + " and " + to);
+                for (Metric metric : Metric.of(type)) {
+                    jdbcTemplate.update(insertBuckets(metric, from, to));
+                }
+                jdbcTemplate.update(insertSummaries(type, perUser, from, to));
+            });
+            jdbcTemplate.execute("alter sequence " + table + "_id_seq restart with " + (dataset.rows(type) + 51));
+            reportOffset += dataset.rows(type);
+        }
+        jdbcTemplate.execute("alter sequence reports_id_seq restart with " + (reportOffset + 51));
+
+        System.out.printf("Seeded %,d users and %,d records in %.0f s%n",
+                dataset.users(), dataset.totalRecords(), (System.nanoTime() - started) / 1e9);
+    }
+
+    private interface Chunk {
+        void insert(int from, int to);
+    }
+
+    private void forEachChunk(String what, Chunk chunk) {
+        for (int from = 1; from <= dataset.users(); from += USERS_PER_CHUNK) {
+            int to = Math.min(dataset.users(), from + USERS_PER_CHUNK - 1);
+            chunk.insert(from, to);
+            if (to % (USERS_PER_CHUNK * 10) == 0 || to == dataset.users()) {
+                System.out.printf("  %s: %,d of %,d users%n", what, to, dataset.users());
+            }
+        }
+    }
+
+    /** One row per user and index; values are spread over a plausible range by a cheap hash. */
+    private String insertRecords(RecordType type, int perUser, int from, int to) {
+        List<String> columns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        switch (type) {
+            case BLOOD_PRESSURE -> {
+                String systolic = "100 + MOD(u.x * 7 + j.x * 13, 60)";
+                String diastolic = "60 + MOD(u.x * 11 + j.x * 5, 40)";
+                columns.addAll(List.of("bp_level", "systolic", "diastolic"));
+                values.addAll(List.of("CAST(" + systolic + " AS VARCHAR) || '/' || CAST(" + diastolic + " AS VARCHAR)",
+                        systolic, diastolic));
+            }
+            case URINE_REPORT -> {
+                columns.addAll(List.of("color", "appearance", "protein", "sugar"));
+                values.addAll(List.of("'Pale yellow'", "'Clear'",
+                        "CASE WHEN MOD(u.x + j.x, 9) = 0 THEN 'Trace' ELSE 'Nil' END", "'Nil'"));
+            }
+            default -> {
+            }
+        }
+        for (Metric metric : Metric.of(type)) {
+            double[] range = Dataset.range(metric);
+            if (range != null) {
+                columns.add(column(metric));
+                values.add(String.format(Locale.ROOT, "ROUND(%s + MOD(u.x * 7919 + j.x * 104729 + %d, 1000) * %s / 1000.0, 3)",
+                        range[0], metric.ordinal() * 31, range[1] - range[0]));
+            }
+        }
+        return "insert into " + type.getTableName() + " (id, user_id, test_date, " + String.join(", ", columns) + ") " +
+                "select (u.x - 1) * " + perUser + " + j.x + 1, u.x, " +
+                "DATEADD(DAY, MOD(u.x, 28), DATEADD(MONTH, j.x * " + RecordType.values().length + " + " + type.ordinal() +
+                ", DATE '" + dataset.firstMonth().atDay(1) + "')), " + String.join(", ", values) + " " +
+                "from system_range(" + from + ", " + to + ") u(x), system_range(0, " + (perUser - 1) + ") j(x)";
+    }
+
+    /** One reading per user and month, since a user has at most one record of a type in a month. */
+    private String insertBuckets(Metric metric, int from, int to) {
+        return "insert into metric_aggregates (user_id, metric, bucket, n, sum_x, sum_xx, sum_t, sum_tt, sum_tx) " +
+                "select user_id, '" + metric.getCode() + "', DATEADD(DAY, 1 - EXTRACT(DAY FROM test_date), test_date), " +
+                "1, x, x * x, t, t * t, t * x from (" +
+                "select user_id, test_date, CAST(" + value(metric, "r") + " AS DOUBLE PRECISION) x, " +
+                "CAST(DATEDIFF(DAY, DATE '2000-01-01', test_date) AS DOUBLE PRECISION) t " +
+                "from " + metric.getRecordType().getTableName() + " r " +
+                "where user_id between " + from + " and " + to + ")";
+    }
+
+    /** A user's newest two records of a type are the last two ids of their run. */
+    private String insertSummaries(RecordType type, int perUser, int from, int to) {
+        String table = type.getTableName();
+        return "insert into user_health_summary (user_id, record_type, record_count, " +
+                "latest_record_id, latest_test_date, latest_values, " +
+                "previous_record_id, previous_test_date, previous_values) " +
+                "select l.user_id, '" + type.getCode() + "', " + perUser + ", l.id, l.test_date, " + json(type, "l") + ", " +
+                "p.id, p.test_date, CASE WHEN p.id IS NULL THEN NULL ELSE " + json(type, "p") + " END " +
+                "from " + table + " l left join " + table + " p on p.id = l.id - 1 and p.user_id = l.user_id " +
+                "where l.user_id between " + from + " and " + to + " and MOD(l.id - 1, " + perUser + ") = " + (perUser - 1);
+    }
+
+    private static String json(RecordType type, String alias) {
+        List<String> entries = new ArrayList<>();
+        for (Metric metric : Metric.of(type)) {
+            entries.add("'" + metric.getCode() + "': CAST(" + value(metric, alias) + " AS DOUBLE PRECISION)");
+        }
+        return "JSON_OBJECT(" + String.join(", ", entries) + ")";
+    }
+
+    private static String value(Metric metric, String alias) {
+        return alias + "." + column(metric);
+    }
+
+    /** Metric codes are the entity field names; the columns are their snake case. */
+    private static String column(Metric metric) {
+        return metric.getCode().replaceAll("([A-Z])", "_$1").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,82 @@
+package com.lakshan.medi_sync.loadtest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Adds a fixed delay to every statement execution and commit, standing in for
+ * the network round trip to a real PostgreSQL server. An in-memory database
+ * answers in microseconds, which would hide exactly the blocking that the
+ * thread model changes. Off until {@link #start()} so seeding runs at full speed.
+ */
+public class SimulatedLatency implements BeanPostProcessor {
+
+    private final long latencyNanos;
+    private volatile boolean active;
+
+    public SimulatedLatency(@Value("${loadtest.db-latency:PT0.002S}") Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    public void start() {
+        active = latencyNanos > 0;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayed(Connection.class, super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return delayed(Connection.class, super.getConnection(username, password));
+                }
+            };
+        }
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T delayed(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute") || name.equals("commit")) {
+                pause();
+            }
+            Object result = invoke(target, method, args);
+            if (name.startsWith("prepare") || name.equals("createStatement")) {
+                return delayed((Class<Object>) method.getReturnType(), result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private void pause() throws InterruptedException {
+        if (active) {
+            Thread.sleep(Duration.ofNanos(latencyNanos));
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
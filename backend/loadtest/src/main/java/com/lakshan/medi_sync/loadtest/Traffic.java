@@ -0,0 +1,200 @@
+package com.lakshan.medi_sync.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshan.medi_sync.analysis.Metric;
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The request mix: every controller, 80% reads and 20% writes, against a
+ * random seeded user. Weights are percentages of all requests. Record
+ * endpoints pick a random record type. Nothing is deleted, so every seeded id
+ * stays valid for the whole run.
+ */
+final class Traffic {
+
+    enum Operation {
+        REPORTS(15),
+        LIST_RECORDS(12),
+        PAGE_RECORDS(8),
+        GET_RECORD(6),
+        SUMMARY(8),
+        TRENDS(6),
+        INSIGHTS(5),
+        TIMELINE(5),
+        GET_USER(5),
+        LOGIN(5),
+        ALL_RECORDS_PAGE(2),
+        USERS_PAGE(1),
+        EXPORT(2),
+        ADD_RECORD(10),
+        UPDATE_RECORD(5),
+        UPDATE_USER(2),
+        BULK(2),
+        ADD_USER(1);
+
+        /** Percent of requests, before any operations are skipped. */
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        /** The name used in {@code --skip} and in the results, e.g. {@code add-record}. */
+        String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+
+        static Operation fromLabel(String label) {
+            for (Operation operation : values()) {
+                if (operation.label().equals(label)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + label);
+        }
+    }
+
+    private static final RecordType[] TYPES = RecordType.values();
+    private static final Metric[] METRICS = Metric.values();
+    private static final int BULK_RECORDS = 5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger newUsers = new AtomicInteger();
+    private final String base;
+    private final Dataset dataset;
+    private final Operation[] byWeight;
+
+    /** Skipped operations are left out and the others keep their relative weights. */
+    Traffic(int port, Dataset dataset, Set<Operation> skipped) {
+        this.base = "http://localhost:" + port;
+        this.dataset = dataset;
+        List<Operation> weighted = new ArrayList<>(100);
+        for (Operation operation : Operation.values()) {
+            if (!skipped.contains(operation)) {
+                weighted.addAll(Collections.nCopies(operation.weight, operation));
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("Every operation is skipped");
+        }
+        this.byWeight = weighted.toArray(Operation[]::new);
+    }
+
+    Operation next(ThreadLocalRandom random) {
+        return byWeight[random.nextInt(byWeight.length)];
+    }
+
+    HttpRequest request(Operation operation, ThreadLocalRandom random) {
+        int userId = 1 + random.nextInt(dataset.users());
+        RecordType type = TYPES[random.nextInt(TYPES.length)];
+        String records = "/" + type.getTableName() + "/";
+        String entity = type.getEntityClass().getSimpleName();
+        return switch (operation) {
+            case REPORTS -> get("/reports/getReportsByUserId/" + userId);
+            case LIST_RECORDS -> get(records + "get" + entity + "RecordsByUserId/" + userId);
+            case PAGE_RECORDS -> get(records + "get" + entity + "RecordsPageByUserId/" + userId + "?size=5");
+            case GET_RECORD -> get(records + "get" + entity + "Record/"
+                    + dataset.recordId(type, userId, random.nextInt(dataset.perUser(type))));
+            case SUMMARY -> get("/users/" + userId + "/summary");
+            case TRENDS -> get("/users/" + userId + "/trends?metric=" + METRICS[random.nextInt(METRICS.length)].getCode());
+            case INSIGHTS -> get("/users/" + userId + "/insights");
+            case TIMELINE -> get("/users/" + userId + "/timeline");
+            case GET_USER -> get("/users/getUser/" + userId);
+            case LOGIN -> send("POST", "/users/login", objectMapper.createObjectNode()
+                    .put("email", email(userId))
+                    .put("password", Dataset.PASSWORD));
+            case ALL_RECORDS_PAGE -> get(records + "getAll" + entity + "Records?size=20");
+            case USERS_PAGE -> get("/users/getAllUsers?size=20");
+            case EXPORT -> get("/users/" + userId + "/export");
+            case ADD_RECORD -> send("POST", records + "add" + entity + "Record",
+                    record(type, userId, LocalDate.now(), random));
+            case UPDATE_RECORD -> {
+                // A corrected reading: same record, same date, new values
+                int index = random.nextInt(dataset.perUser(type));
+                ObjectNode record = record(type, userId, dataset.testDate(type, userId, index), random);
+                record.put("id", dataset.recordId(type, userId, index));
+                yield send("PUT", records + "update" + entity + "Record", record);
+            }
+            case UPDATE_USER -> send("PUT", "/users/updateUser", user(userId, email(userId), random));
+            case BULK -> {
+                ArrayNode items = objectMapper.createArrayNode();
+                for (int i = 0; i < BULK_RECORDS; i++) {
+                    RecordType itemType = TYPES[random.nextInt(TYPES.length)];
+                    items.addObject()
+                            .put("type", itemType.getCode())
+                            .set("record", record(itemType, userId, LocalDate.now().minusDays(i), random));
+                }
+                yield send("POST", "/records/bulk", items);
+            }
+            case ADD_USER -> send("POST", "/users/addUser",
+                    user(0, "new" + newUsers.incrementAndGet() + "@example.com", random));
+        };
+    }
+
+    private ObjectNode record(RecordType type, int userId, LocalDate testDate, ThreadLocalRandom random) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("testDate", testDate.toString());
+        record.putObject("user").put("id", userId);
+        switch (type) {
+            case BLOOD_PRESSURE -> record.put("bpLevel", random.nextInt(100, 160) + "/" + random.nextInt(60, 100));
+            case URINE_REPORT -> record
+                    .put("color", "Pale yellow")
+                    .put("appearance", "Clear")
+                    .put("protein", "Nil")
+                    .put("sugar", "Nil");
+            default -> {
+            }
+        }
+        for (Metric metric : Metric.of(type)) {
+            double[] range = Dataset.range(metric);
+            if (range != null) {
+                record.put(metric.getCode(), Math.round(random.nextDouble(range[0], range[1]) * 1000) / 1000.0);
+            }
+        }
+        return record;
+    }
+
+    private ObjectNode user(int id, String email, ThreadLocalRandom random) {
+        ObjectNode user = objectMapper.createObjectNode();
+        if (id != 0) {
+            user.put("id", id);
+        }
+        return user
+                .put("name", "Load User " + (id == 0 ? email : id))
+                .put("email", email)
+                .put("password", Dataset.PASSWORD)
+                .put("dateOfBirth", LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)).toString())
+                .put("gender", random.nextBoolean() ? "Male" : "Female")
+                .put("height", random.nextInt(150, 195))
+                .put("weight", random.nextInt(50, 105))
+                .put("bloodGroup", List.of("O+", "A+", "B+", "AB-").get(random.nextInt(4)));
+    }
+
+    private static String email(int userId) {
+        return "load" + userId + "@example.com";
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).build();
+    }
+
+    private HttpRequest send(String method, String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(base + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
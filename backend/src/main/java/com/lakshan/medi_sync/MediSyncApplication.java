@@ -2,10 +2,14 @@ package com.lakshan.medi_sync;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableAsync
+@ConfigurationPropertiesScan
+@EnableScheduling
+@EnableCaching
 public class MediSyncApplication {
 
     public static void main(String[] args) {
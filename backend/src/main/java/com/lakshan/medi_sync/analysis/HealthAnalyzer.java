@@ -0,0 +1,98 @@
+package com.lakshan.medi_sync.analysis;
+
+import com.lakshan.medi_sync.dto.*;
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.lakshan.medi_sync.analysis.HealthRules.*;
+
+/**
+ * Applies {@link HealthRules} to every metric of a record that has a rule.
+ * Metrics without one (VLDL, total serum protein, urine colour and
+ * appearance) are left out.
+ */
+public final class HealthAnalyzer {
+
+    private HealthAnalyzer() {
+    }
+
+    public static RecordInsight analyze(FastingBloodSugarView record) {
+        return RecordInsight.of(RecordType.FASTING_BLOOD_SUGAR, record.id(), record.testDate(), List.of(
+                new MetricInsight("fbsLevel", record.fbsLevel(), analyzeFBS(record.fbsLevel()))
+        ));
+    }
+
+    public static RecordInsight analyze(BloodPressureView record) {
+        String bpLevel = record.bpLevel();
+        int systolic = record.systolic() == null ? 0 : record.systolic();
+        int diastolic = record.diastolic() == null ? 0 : record.diastolic();
+        return RecordInsight.of(RecordType.BLOOD_PRESSURE, record.id(), record.testDate(), List.of(
+                new MetricInsight("bpLevel", bpLevel, analyzeBloodPressure(bpLevel, systolic, diastolic)),
+                new MetricInsight("systolic", systolic, analyzeSystolic(systolic)),
+                new MetricInsight("diastolic", diastolic, analyzeDiastolic(diastolic))
+        ));
+    }
+
+    public static RecordInsight analyze(FullBloodCountView record, String gender) {
+        return RecordInsight.of(RecordType.FULL_BLOOD_COUNT, record.id(), record.testDate(), List.of(
+                new MetricInsight("haemoglobin", record.haemoglobin(), analyzeHaemoglobin(record.haemoglobin(), gender)),
+                new MetricInsight("totalLeucocyteCount", record.totalLeucocyteCount(), analyzeWBC(record.totalLeucocyteCount())),
+                new MetricInsight("plateletCount", record.plateletCount(), analyzePlatelets(record.plateletCount()))
+        ));
+    }
+
+    public static RecordInsight analyze(LipidProfileView record, String gender) {
+        return RecordInsight.of(RecordType.LIPID_PROFILE, record.id(), record.testDate(), List.of(
+                new MetricInsight("totalCholesterol", record.totalCholesterol(), analyzeTotalCholesterol(record.totalCholesterol())),
+                new MetricInsight("hdl", record.hdl(), analyzeHDL(record.hdl(), gender)),
+                new MetricInsight("ldl", record.ldl(), analyzeLDL(record.ldl())),
+                new MetricInsight("triglycerides", record.triglycerides(), analyzeTriglycerides(record.triglycerides()))
+        ));
+    }
+
+    public static RecordInsight analyze(LiverProfileView record) {
+        return RecordInsight.of(RecordType.LIVER_PROFILE, record.id(), record.testDate(), List.of(
+                new MetricInsight("albuminSerum", record.albuminSerum(), analyzeAlbumin(record.albuminSerum())),
+                new MetricInsight("bilirubinTotalSerum", record.bilirubinTotalSerum(), analyzeBilirubin(record.bilirubinTotalSerum())),
+                new MetricInsight("sgpt", record.sgpt(), analyzeSGPT(record.sgpt()))
+        ));
+    }
+
+    public static RecordInsight analyze(UrineReportView record) {
+        List<MetricInsight> metrics = new ArrayList<>(3);
+        if (record.protein() != null) {
+            metrics.add(new MetricInsight("protein", record.protein(), analyzeUrineProtein(record.protein())));
+        }
+        if (record.sugar() != null) {
+            metrics.add(new MetricInsight("sugar", record.sugar(), analyzeUrineSugar(record.sugar())));
+        }
+        metrics.add(new MetricInsight("specificGravity", record.specificGravity(), analyzeSpecificGravity(record.specificGravity())));
+        return RecordInsight.of(RecordType.URINE_REPORT, record.id(), record.testDate(), metrics);
+    }
+
+    /** Systolic part of "120/80", or 0 when it cannot be read, as in the app. */
+    public static int systolicOf(String bpLevel) {
+        int slash = bpLevel == null ? -1 : bpLevel.indexOf('/');
+        return slash < 0 ? 0 : parseOrZero(bpLevel.substring(0, slash));
+    }
+
+    /** Diastolic part of "120/80", or 0 when it cannot be read, as in the app. */
+    public static int diastolicOf(String bpLevel) {
+        int slash = bpLevel == null ? -1 : bpLevel.indexOf('/');
+        if (slash < 0) {
+            return 0;
+        }
+        int end = bpLevel.indexOf('/', slash + 1);
+        return parseOrZero(end < 0 ? bpLevel.substring(slash + 1) : bpLevel.substring(slash + 1, end));
+    }
+
+    private static int parseOrZero(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
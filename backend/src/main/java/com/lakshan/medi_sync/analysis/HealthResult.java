@@ -0,0 +1,24 @@
+package com.lakshan.medi_sync.analysis;
+
+/**
+ * How one reading was classified, with the advice shown to the user. The
+ * wording matches the app's {@code HealthAnalysis} so both sides agree.
+ */
+public record HealthResult(HealthStatus status, String statusText, String recommendation) {
+
+    public static HealthResult low(String recommendation) {
+        return new HealthResult(HealthStatus.LOW, HealthStatus.LOW.getText(), recommendation);
+    }
+
+    public static HealthResult normal(String recommendation) {
+        return new HealthResult(HealthStatus.NORMAL, HealthStatus.NORMAL.getText(), recommendation);
+    }
+
+    public static HealthResult high(String recommendation) {
+        return new HealthResult(HealthStatus.HIGH, HealthStatus.HIGH.getText(), recommendation);
+    }
+
+    public static HealthResult abnormal(String recommendation) {
+        return new HealthResult(HealthStatus.ABNORMAL, HealthStatus.ABNORMAL.getText(), recommendation);
+    }
+}
@@ -0,0 +1,281 @@
+package com.lakshan.medi_sync.analysis;
+
+import java.util.Locale;
+
+/**
+ * The reference ranges used to classify lab readings, ported from the app's
+ * {@code HealthAnalysis} (frontend/lib/utils/health_analysis.dart). Each rule
+ * is a {@link ThresholdTable} built once when the class loads; keep the two in
+ * step when a range changes.
+ */
+public final class HealthRules {
+
+    // ============= Blood Pressure =============
+
+    static final ThresholdTable SYSTOLIC = ThresholdTable.builder()
+            .below(90, HealthResult.low(
+                    "Blood pressure is low. Consider consulting a doctor if you feel dizzy or fatigued."))
+            .atMost(120, HealthResult.normal(
+                    "Systolic blood pressure is optimal. Keep maintaining a healthy lifestyle."))
+            .atMost(139, HealthResult.high(
+                    "Prehypertension. Consider lifestyle changes like reducing salt and exercising."))
+            .otherwise(HealthResult.abnormal(
+                    "Hypertension detected. Please consult a healthcare provider."));
+
+    static final ThresholdTable DIASTOLIC = ThresholdTable.builder()
+            .below(60, HealthResult.low(
+                    "Diastolic is low. Monitor and consult if symptoms persist."))
+            .atMost(80, HealthResult.normal(
+                    "Diastolic blood pressure is optimal."))
+            .atMost(89, HealthResult.high(
+                    "Prehypertension. Lifestyle modifications recommended."))
+            .otherwise(HealthResult.abnormal(
+                    "High diastolic pressure. Medical attention recommended."));
+
+    // ============= Fasting Blood Sugar =============
+
+    static final ThresholdTable FBS = ThresholdTable.builder()
+            .below(70, HealthResult.low(
+                    "Blood sugar is low (hypoglycemia). Eat something and monitor closely."))
+            .atMost(100, HealthResult.normal(
+                    "Fasting blood sugar is normal. Maintain healthy eating habits."))
+            .atMost(125, HealthResult.high(
+                    "Prediabetic range. Consider dietary changes and exercise."))
+            .otherwise(HealthResult.abnormal(
+                    "Diabetic range. Please consult a healthcare provider for proper management."));
+
+    // ============= Full Blood Count =============
+
+    private static final HealthResult HAEMOGLOBIN_LOW = HealthResult.low(
+            "Low hemoglobin may indicate anemia. Consider iron-rich foods and consult doctor.");
+    private static final HealthResult HAEMOGLOBIN_NORMAL = HealthResult.normal(
+            "Hemoglobin level is within normal range.");
+    private static final HealthResult HAEMOGLOBIN_HIGH = HealthResult.high(
+            "High hemoglobin. Stay hydrated and consult if persistent.");
+
+    static final ThresholdTable HAEMOGLOBIN_MALE = ThresholdTable.builder()
+            .below(13.5, HAEMOGLOBIN_LOW)
+            .atMost(17.5, HAEMOGLOBIN_NORMAL)
+            .otherwise(HAEMOGLOBIN_HIGH);
+
+    static final ThresholdTable HAEMOGLOBIN_FEMALE = ThresholdTable.builder()
+            .below(12.0, HAEMOGLOBIN_LOW)
+            .atMost(15.5, HAEMOGLOBIN_NORMAL)
+            .otherwise(HAEMOGLOBIN_HIGH);
+
+    static final ThresholdTable WBC = ThresholdTable.builder()
+            .below(4000, HealthResult.low(
+                    "Low WBC count. May indicate weakened immunity. Consult a doctor."))
+            .atMost(11000, HealthResult.normal(
+                    "White blood cell count is normal. Immune system is healthy."))
+            .otherwise(HealthResult.high(
+                    "High WBC count may indicate infection or inflammation. Monitor and consult."));
+
+    static final ThresholdTable PLATELETS = ThresholdTable.builder()
+            .below(150000, HealthResult.low(
+                    "Low platelet count. May cause bleeding issues. Consult a doctor."))
+            .atMost(400000, HealthResult.normal(
+                    "Platelet count is within normal range."))
+            .otherwise(HealthResult.high(
+                    "High platelet count. Monitor and consult a healthcare provider."));
+
+    // ============= Lipid Profile =============
+
+    static final ThresholdTable TOTAL_CHOLESTEROL = ThresholdTable.builder()
+            .below(200, HealthResult.normal(
+                    "Total cholesterol is desirable. Keep up healthy habits."))
+            .atMost(239, HealthResult.high(
+                    "Borderline high cholesterol. Consider dietary changes."))
+            .otherwise(HealthResult.abnormal(
+                    "High cholesterol. Medical attention and lifestyle changes recommended."));
+
+    private static final HealthResult HDL_LOW = HealthResult.low(
+            "Low HDL (good cholesterol). Exercise and healthy fats can help increase it.");
+    private static final HealthResult HDL_ACCEPTABLE = HealthResult.normal(
+            "HDL level is acceptable. Consider increasing through exercise.");
+    private static final HealthResult HDL_EXCELLENT = HealthResult.normal(
+            "Excellent HDL level. Provides protection against heart disease.");
+
+    static final ThresholdTable HDL_MALE = ThresholdTable.builder()
+            .below(40, HDL_LOW)
+            .below(60, HDL_ACCEPTABLE)
+            .otherwise(HDL_EXCELLENT);
+
+    static final ThresholdTable HDL_FEMALE = ThresholdTable.builder()
+            .below(50, HDL_LOW)
+            .below(60, HDL_ACCEPTABLE)
+            .otherwise(HDL_EXCELLENT);
+
+    static final ThresholdTable LDL = ThresholdTable.builder()
+            .below(100, HealthResult.normal(
+                    "Optimal LDL level. Great for heart health."))
+            .atMost(129, HealthResult.normal(
+                    "Near optimal LDL. Maintain current lifestyle."))
+            .atMost(159, HealthResult.high(
+                    "Borderline high LDL. Consider reducing saturated fat intake."))
+            .atMost(189, HealthResult.high(
+                    "High LDL. Lifestyle changes and possibly medication needed."))
+            .otherwise(HealthResult.abnormal(
+                    "Very high LDL. Medical intervention recommended."));
+
+    static final ThresholdTable TRIGLYCERIDES = ThresholdTable.builder()
+            .below(150, HealthResult.normal(
+                    "Triglyceride level is normal."))
+            .atMost(199, HealthResult.high(
+                    "Borderline high triglycerides. Limit sugar and refined carbs."))
+            .atMost(499, HealthResult.high(
+                    "High triglycerides. Dietary changes and exercise recommended."))
+            .otherwise(HealthResult.abnormal(
+                    "Very high triglycerides. Medical attention needed."));
+
+    // ============= Liver Profile =============
+
+    static final ThresholdTable SGPT = ThresholdTable.builder()
+            .below(7, HealthResult.low(
+                    "SGPT is low, which is usually not a concern."))
+            .atMost(56, HealthResult.normal(
+                    "SGPT (ALT) is within normal range. Liver function appears healthy."))
+            .atMost(100, HealthResult.high(
+                    "Mildly elevated SGPT. Monitor and avoid alcohol."))
+            .otherwise(HealthResult.abnormal(
+                    "Significantly elevated SGPT. Consult a doctor immediately."));
+
+    static final ThresholdTable BILIRUBIN = ThresholdTable.builder()
+            .atMost(1.2, HealthResult.normal(
+                    "Bilirubin level is normal."))
+            .atMost(2.5, HealthResult.high(
+                    "Mildly elevated bilirubin. Monitor for jaundice symptoms."))
+            .otherwise(HealthResult.abnormal(
+                    "High bilirubin. May indicate liver issues. Consult a doctor."));
+
+    static final ThresholdTable ALBUMIN = ThresholdTable.builder()
+            .below(3.5, HealthResult.low(
+                    "Low albumin may indicate liver or kidney issues. Consult a doctor."))
+            .atMost(5.0, HealthResult.normal(
+                    "Albumin level is normal. Liver protein synthesis is healthy."))
+            .otherwise(HealthResult.high(
+                    "Elevated albumin. Often due to dehydration. Stay hydrated."));
+
+    // ============= Urine Report =============
+
+    private static final HealthResult URINE_PROTEIN_NONE = HealthResult.normal(
+            "No protein in urine. Kidney function appears normal.");
+    private static final HealthResult URINE_PROTEIN_TRACE = HealthResult.normal(
+            "Trace protein detected. Usually not significant. Monitor.");
+    private static final HealthResult URINE_PROTEIN_PRESENT = HealthResult.abnormal(
+            "Protein in urine detected. May indicate kidney issues. Consult a doctor.");
+
+    private static final HealthResult URINE_SUGAR_NONE = HealthResult.normal(
+            "No sugar in urine. Glucose metabolism appears normal.");
+    private static final HealthResult URINE_SUGAR_PRESENT = HealthResult.abnormal(
+            "Sugar detected in urine. May indicate diabetes. Check blood sugar.");
+
+    static final ThresholdTable SPECIFIC_GRAVITY = ThresholdTable.builder()
+            .below(1.005, HealthResult.low(
+                    "Low specific gravity. May indicate overhydration or kidney issues."))
+            .atMost(1.030, HealthResult.normal(
+                    "Urine concentration is within normal range."))
+            .otherwise(HealthResult.high(
+                    "High specific gravity. May indicate dehydration. Drink more water."));
+
+    private HealthRules() {
+    }
+
+    public static HealthResult analyzeSystolic(int systolic) {
+        return SYSTOLIC.classify(systolic);
+    }
+
+    public static HealthResult analyzeDiastolic(int diastolic) {
+        return DIASTOLIC.classify(diastolic);
+    }
+
+    /**
+     * The worse of the systolic and diastolic results, reworded to quote the
+     * reading as entered.
+     */
+    public static HealthResult analyzeBloodPressure(String bpLevel, int systolic, int diastolic) {
+        HealthStatus status = SYSTOLIC.classify(systolic).status().worse(DIASTOLIC.classify(diastolic).status());
+        return switch (status) {
+            case ABNORMAL -> HealthResult.abnormal(
+                    "Blood pressure is " + bpLevel + ". Please consult a doctor.");
+            case HIGH -> HealthResult.high(
+                    "Blood pressure is elevated at " + bpLevel + ". Monitor and consider lifestyle changes.");
+            case LOW -> HealthResult.low(
+                    "Blood pressure is low at " + bpLevel + ". Stay hydrated and monitor symptoms.");
+            case NORMAL -> HealthResult.normal(
+                    "Blood pressure " + bpLevel + " is within normal range. Keep it up!");
+        };
+    }
+
+    public static HealthResult analyzeFBS(double fbsLevel) {
+        return FBS.classify(fbsLevel);
+    }
+
+    public static HealthResult analyzeHaemoglobin(double value, String gender) {
+        return (isMale(gender) ? HAEMOGLOBIN_MALE : HAEMOGLOBIN_FEMALE).classify(value);
+    }
+
+    public static HealthResult analyzeWBC(double count) {
+        return WBC.classify(count);
+    }
+
+    public static HealthResult analyzePlatelets(double count) {
+        return PLATELETS.classify(count);
+    }
+
+    public static HealthResult analyzeTotalCholesterol(double value) {
+        return TOTAL_CHOLESTEROL.classify(value);
+    }
+
+    public static HealthResult analyzeHDL(double value, String gender) {
+        return (isMale(gender) ? HDL_MALE : HDL_FEMALE).classify(value);
+    }
+
+    public static HealthResult analyzeLDL(double value) {
+        return LDL.classify(value);
+    }
+
+    public static HealthResult analyzeTriglycerides(double value) {
+        return TRIGLYCERIDES.classify(value);
+    }
+
+    public static HealthResult analyzeSGPT(double value) {
+        return SGPT.classify(value);
+    }
+
+    public static HealthResult analyzeBilirubin(double value) {
+        return BILIRUBIN.classify(value);
+    }
+
+    public static HealthResult analyzeAlbumin(double value) {
+        return ALBUMIN.classify(value);
+    }
+
+    public static HealthResult analyzeUrineProtein(String protein) {
+        if (isNegative(protein)) {
+            return URINE_PROTEIN_NONE;
+        }
+        return "trace".equalsIgnoreCase(protein.trim()) ? URINE_PROTEIN_TRACE : URINE_PROTEIN_PRESENT;
+    }
+
+    public static HealthResult analyzeUrineSugar(String sugar) {
+        return isNegative(sugar) ? URINE_SUGAR_NONE : URINE_SUGAR_PRESENT;
+    }
+
+    public static HealthResult analyzeSpecificGravity(double sg) {
+        return SPECIFIC_GRAVITY.classify(sg);
+    }
+
+    /** The app treats anything other than "male" with the female ranges. */
+    private static boolean isMale(String gender) {
+        return gender != null && gender.trim().toLowerCase(Locale.ROOT).equals("male");
+    }
+
+    private static boolean isNegative(String value) {
+        if (value == null) {
+            return false;
+        }
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        return lower.equals("negative") || lower.equals("nil") || lower.equals("-");
+    }
+}
@@ -0,0 +1,33 @@
+package com.lakshan.medi_sync.analysis;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Severity of a reading, from best to worst for the purpose of combining
+ * several readings: {@code NORMAL < LOW < HIGH < ABNORMAL}.
+ */
+public enum HealthStatus {
+    NORMAL("Normal"),
+    LOW("Low"),
+    HIGH("High"),
+    ABNORMAL("Abnormal");
+
+    private final String text;
+
+    HealthStatus(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @JsonValue
+    public String code() {
+        return name().toLowerCase();
+    }
+
+    public HealthStatus worse(HealthStatus other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+}
@@ -0,0 +1,86 @@
+package com.lakshan.medi_sync.analysis;
+
+import com.lakshan.medi_sync.entity.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The numeric readings that can be trended, each tied to the record type and
+ * field it comes from. The code is the entity field name and is what the API
+ * and {@code metric_aggregates} use.
+ */
+public enum Metric {
+
+    FBS_LEVEL("fbsLevel", RecordType.FASTING_BLOOD_SUGAR, r -> ((FastingBloodSugar) r).getFbsLevel()),
+    SYSTOLIC("systolic", RecordType.BLOOD_PRESSURE, r -> orNaN(((BloodPressure) r).getSystolic())),
+    DIASTOLIC("diastolic", RecordType.BLOOD_PRESSURE, r -> orNaN(((BloodPressure) r).getDiastolic())),
+    HAEMOGLOBIN("haemoglobin", RecordType.FULL_BLOOD_COUNT, r -> ((FullBloodCount) r).getHaemoglobin()),
+    TOTAL_LEUCOCYTE_COUNT("totalLeucocyteCount", RecordType.FULL_BLOOD_COUNT, r -> ((FullBloodCount) r).getTotalLeucocyteCount()),
+    PLATELET_COUNT("plateletCount", RecordType.FULL_BLOOD_COUNT, r -> ((FullBloodCount) r).getPlateletCount()),
+    TOTAL_CHOLESTEROL("totalCholesterol", RecordType.LIPID_PROFILE, r -> ((LipidProfile) r).getTotalCholesterol()),
+    HDL("hdl", RecordType.LIPID_PROFILE, r -> ((LipidProfile) r).getHdl()),
+    LDL("ldl", RecordType.LIPID_PROFILE, r -> ((LipidProfile) r).getLdl()),
+    VLDL("vldl", RecordType.LIPID_PROFILE, r -> ((LipidProfile) r).getVldl()),
+    TRIGLYCERIDES("triglycerides", RecordType.LIPID_PROFILE, r -> ((LipidProfile) r).getTriglycerides()),
+    PROTEIN_TOTAL_SERUM("proteinTotalSerum", RecordType.LIVER_PROFILE, r -> ((LiverProfile) r).getProteinTotalSerum()),
+    ALBUMIN_SERUM("albuminSerum", RecordType.LIVER_PROFILE, r -> ((LiverProfile) r).getAlbuminSerum()),
+    BILIRUBIN_TOTAL_SERUM("bilirubinTotalSerum", RecordType.LIVER_PROFILE, r -> ((LiverProfile) r).getBilirubinTotalSerum()),
+    SGPT("sgpt", RecordType.LIVER_PROFILE, r -> ((LiverProfile) r).getSgpt()),
+    SPECIFIC_GRAVITY("specificGravity", RecordType.URINE_REPORT, r -> ((UrineReport) r).getSpecificGravity());
+
+    private static final Map<RecordType, List<Metric>> BY_TYPE = new EnumMap<>(RecordType.class);
+
+    static {
+        for (RecordType type : RecordType.values()) {
+            BY_TYPE.put(type, new ArrayList<>());
+        }
+        for (Metric metric : values()) {
+            BY_TYPE.get(metric.recordType).add(metric);
+        }
+        BY_TYPE.replaceAll((type, metrics) -> List.copyOf(metrics));
+    }
+
+    private final String code;
+    private final RecordType recordType;
+    private final ToDoubleFunction<HealthRecord> extractor;
+
+    Metric(String code, RecordType recordType, ToDoubleFunction<HealthRecord> extractor) {
+        this.code = code;
+        this.recordType = recordType;
+        this.extractor = extractor;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public RecordType getRecordType() {
+        return recordType;
+    }
+
+    /** The reading from a record of this metric's type, or NaN when it has none. */
+    public double valueOf(HealthRecord record) {
+        return extractor.applyAsDouble(record);
+    }
+
+    public static List<Metric> of(RecordType type) {
+        return BY_TYPE.get(type);
+    }
+
+    public static Metric fromCode(String code) {
+        for (Metric metric : values()) {
+            if (metric.code.equalsIgnoreCase(code)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric: " + code);
+    }
+
+    private static double orNaN(Integer value) {
+        return value == null ? Double.NaN : value;
+    }
+}
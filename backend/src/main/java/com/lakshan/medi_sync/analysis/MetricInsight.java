@@ -0,0 +1,7 @@
+package com.lakshan.medi_sync.analysis;
+
+/**
+ * One classified reading within a record, e.g. the LDL of a lipid profile.
+ */
+public record MetricInsight(String metric, Object value, HealthResult result) {
+}
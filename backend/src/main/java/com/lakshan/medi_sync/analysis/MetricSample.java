@@ -0,0 +1,9 @@
+package com.lakshan.medi_sync.analysis;
+
+import java.time.LocalDate;
+
+/**
+ * One reading of one metric, as it is folded into the trend aggregates.
+ */
+public record MetricSample(int userId, Metric metric, LocalDate testDate, double value) {
+}
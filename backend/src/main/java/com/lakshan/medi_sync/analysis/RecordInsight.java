@@ -0,0 +1,27 @@
+package com.lakshan.medi_sync.analysis;
+
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The analysis of one lab record. {@code status} is the worst status among
+ * its metrics.
+ */
+public record RecordInsight(
+        RecordType type,
+        int recordId,
+        LocalDate testDate,
+        HealthStatus status,
+        List<MetricInsight> metrics
+) {
+
+    static RecordInsight of(RecordType type, int recordId, LocalDate testDate, List<MetricInsight> metrics) {
+        HealthStatus status = HealthStatus.NORMAL;
+        for (MetricInsight metric : metrics) {
+            status = status.worse(metric.result().status());
+        }
+        return new RecordInsight(type, recordId, testDate, status, metrics);
+    }
+}
@@ -0,0 +1,78 @@
+package com.lakshan.medi_sync.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A numeric decision table: ordered upper bounds, each with the result for
+ * values up to it, and a result for everything above the last bound. Tables
+ * are built once and hold only primitive arrays and shared results, so
+ * classifying a value is a short scan with no allocation.
+ */
+public final class ThresholdTable {
+
+    private final double[] bounds;
+    private final boolean[] inclusive;
+    private final HealthResult[] results;
+    private final HealthResult otherwise;
+
+    private ThresholdTable(double[] bounds, boolean[] inclusive, HealthResult[] results, HealthResult otherwise) {
+        this.bounds = bounds;
+        this.inclusive = inclusive;
+        this.results = results;
+        this.otherwise = otherwise;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public HealthResult classify(double value) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (inclusive[i] ? value <= bounds[i] : value < bounds[i]) {
+                return results[i];
+            }
+        }
+        return otherwise;
+    }
+
+    public static final class Builder {
+
+        private final List<Double> bounds = new ArrayList<>();
+        private final List<Boolean> inclusive = new ArrayList<>();
+        private final List<HealthResult> results = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /** Values strictly below {@code bound}. */
+        public Builder below(double bound, HealthResult result) {
+            return add(bound, false, result);
+        }
+
+        /** Values up to and including {@code bound}. */
+        public Builder atMost(double bound, HealthResult result) {
+            return add(bound, true, result);
+        }
+
+        public ThresholdTable otherwise(HealthResult result) {
+            double[] b = new double[bounds.size()];
+            boolean[] in = new boolean[inclusive.size()];
+            for (int i = 0; i < b.length; i++) {
+                b[i] = bounds.get(i);
+                in[i] = inclusive.get(i);
+            }
+            return new ThresholdTable(b, in, results.toArray(new HealthResult[0]), result);
+        }
+
+        private Builder add(double bound, boolean isInclusive, HealthResult result) {
+            if (!bounds.isEmpty() && bound < bounds.get(bounds.size() - 1)) {
+                throw new IllegalArgumentException("Bounds must be in ascending order");
+            }
+            bounds.add(bound);
+            inclusive.add(isInclusive);
+            results.add(result);
+            return this;
+        }
+    }
+}
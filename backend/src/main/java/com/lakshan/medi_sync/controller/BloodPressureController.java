@@ -1,11 +1,19 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.BloodPressureView;
 import com.lakshan.medi_sync.entity.BloodPressure;
+import com.lakshan.medi_sync.entity.RecordType;
 import com.lakshan.medi_sync.service.BloodPressureService;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.List;
 
 @RestController
@@ -13,10 +21,12 @@ import java.util.List;
 public class BloodPressureController {
 
     private final BloodPressureService bpService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public BloodPressureController(BloodPressureService bpService) {
+    public BloodPressureController(BloodPressureService bpService, RecordVersionService versionService) {
         this.bpService = bpService;
+        this.versionService = versionService;
     }
 
     @PostMapping("/addBloodPressureRecord")
@@ -26,8 +36,11 @@ public class BloodPressureController {
     }
 
     @GetMapping("/getAllBloodPressureRecords")
-    public List<BloodPressure> getAllBloodPressureRecords() {
-        return bpService.getAllBloodPressureRecords();
+    public CursorPage<BloodPressureView> getAllBloodPressureRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return bpService.getBloodPressureRecordsPage(cursor, size);
     }
 
     @GetMapping("/getBloodPressureRecord/{id}")
@@ -36,8 +49,39 @@ public class BloodPressureController {
     }
 
     @GetMapping("/getBloodPressureRecordsByUserId/{userId}")
-    public List<BloodPressure> getBloodPressureRecordsByUserId(@PathVariable int userId) {
-        return bpService.getBloodPressureRecordsByUserId(userId);
+    public List<BloodPressureView> getBloodPressureRecordsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.BLOOD_PRESSURE))) {
+            return null;
+        }
+        return bpService.getBloodPressureRecordsByUserId(userId, from, to);
+    }
+
+    @GetMapping("/getBloodPressureRecordsPageByUserId/{userId}")
+    public CursorPage<BloodPressureView> getBloodPressureRecordsPageByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.BLOOD_PRESSURE))) {
+            return null;
+        }
+        return bpService.getBloodPressureRecordsPageByUserId(userId, cursor, size);
+    }
+
+    @GetMapping("/getBloodPressureRecordsBySystolic")
+    public CursorPage<BloodPressureView> getBloodPressureRecordsBySystolic(
+            @RequestParam int min,
+            @RequestParam(defaultValue = "P90D") Period window,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return bpService.getBloodPressureRecordsBySystolic(min, window, LocalDate.now(), cursor, size);
     }
 
     @PutMapping("/updateBloodPressureRecord")
@@ -0,0 +1,26 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.BulkIngestResult;
+import com.lakshan.medi_sync.dto.BulkRecordItem;
+import com.lakshan.medi_sync.service.BulkRecordService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/records")
+public class BulkRecordController {
+
+    private final BulkRecordService bulkRecordService;
+
+    @Autowired
+    public BulkRecordController(BulkRecordService bulkRecordService) {
+        this.bulkRecordService = bulkRecordService;
+    }
+
+    @PostMapping("/bulk")
+    public BulkIngestResult addRecords(@RequestBody List<BulkRecordItem> items) {
+        return bulkRecordService.ingest(items);
+    }
+}
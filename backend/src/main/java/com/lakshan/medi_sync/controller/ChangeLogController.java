@@ -0,0 +1,23 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.UserChanges;
+import com.lakshan.medi_sync.service.ChangeLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/users")
+public class ChangeLogController {
+
+    private final ChangeLogService changeLogService;
+
+    @Autowired
+    public ChangeLogController(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+    }
+
+    @GetMapping("/{id}/changes")
+    public UserChanges getChanges(@PathVariable int id, @RequestParam(required = false) String since) {
+        return changeLogService.getChanges(id, since);
+    }
+}
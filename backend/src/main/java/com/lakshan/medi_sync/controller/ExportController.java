@@ -0,0 +1,39 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.service.ExportService;
+import com.lakshan.medi_sync.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/users")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ExportService exportService;
+    private final UserService userService;
+
+    @Autowired
+    public ExportController(ExportService exportService, UserService userService) {
+        this.exportService = exportService;
+        this.userService = userService;
+    }
+
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportUser(@PathVariable int id) {
+        // Fail before the response is committed rather than part-way through the stream.
+        userService.getUserById(id);
+
+        StreamingResponseBody body = out -> exportService.writeExport(id, out);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"medisync-user-" + id + ".ndjson\"")
+                .body(body);
+    }
+}
@@ -1,11 +1,18 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.FastingBloodSugarView;
 import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.RecordType;
 import com.lakshan.medi_sync.service.FastingBloodSugarService;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,10 +20,12 @@ import java.util.List;
 public class FastingBloodSugarController {
 
     private final FastingBloodSugarService fbsService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public FastingBloodSugarController(FastingBloodSugarService fbsService) {
+    public FastingBloodSugarController(FastingBloodSugarService fbsService, RecordVersionService versionService) {
         this.fbsService = fbsService;
+        this.versionService = versionService;
     }
 
     @PostMapping("/addFastingBloodSugarRecord")
@@ -28,8 +37,11 @@ public class FastingBloodSugarController {
     }
 
     @GetMapping("/getAllFastingBloodSugarRecords")
-    public List<FastingBloodSugar> getAllFastingBloodSugarRecords() {
-        return fbsService.getAllFastingBloodSugarRecords();
+    public CursorPage<FastingBloodSugarView> getAllFastingBloodSugarRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return fbsService.getFastingBloodSugarRecordsPage(cursor, size);
     }
 
     @GetMapping("/getFastingBloodSugarRecord/{id}")
@@ -38,8 +50,29 @@ public class FastingBloodSugarController {
     }
 
     @GetMapping("/getFastingBloodSugarRecordsByUserId/{userId}")
-    public List<FastingBloodSugar> getFastingBloodSugarRecordsByUserId(@PathVariable int userId) {
-        return fbsService.getFastingBloodSugarRecordsByUserId(userId);
+    public List<FastingBloodSugarView> getFastingBloodSugarRecordsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.FASTING_BLOOD_SUGAR))) {
+            return null;
+        }
+        return fbsService.getFastingBloodSugarRecordsByUserId(userId, from, to);
+    }
+
+    @GetMapping("/getFastingBloodSugarRecordsPageByUserId/{userId}")
+    public CursorPage<FastingBloodSugarView> getFastingBloodSugarRecordsPageByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.FASTING_BLOOD_SUGAR))) {
+            return null;
+        }
+        return fbsService.getFastingBloodSugarRecordsPageByUserId(userId, cursor, size);
     }
 
     @PutMapping("/updateFastingBloodSugarRecord")
@@ -1,11 +1,18 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.FullBloodCountView;
 import com.lakshan.medi_sync.entity.FullBloodCount;
+import com.lakshan.medi_sync.entity.RecordType;
 import com.lakshan.medi_sync.service.FullBloodCountService;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,10 +20,12 @@ import java.util.List;
 public class FullBloodCountController {
 
     private final FullBloodCountService fbcService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public FullBloodCountController(FullBloodCountService fbcService) {
+    public FullBloodCountController(FullBloodCountService fbcService, RecordVersionService versionService) {
         this.fbcService = fbcService;
+        this.versionService = versionService;
     }
 
     @PostMapping("/addFullBloodCountRecord")
@@ -28,8 +37,11 @@ public class FullBloodCountController {
     }
 
     @GetMapping("/getAllFullBloodCountRecords")
-    public List<FullBloodCount> getAllFullBloodCountRecords() {
-        return fbcService.getAllFullBloodCountRecords();
+    public CursorPage<FullBloodCountView> getAllFullBloodCountRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return fbcService.getFullBloodCountRecordsPage(cursor, size);
     }
 
     @GetMapping("/getFullBloodCountRecord/{id}")
@@ -38,8 +50,29 @@ public class FullBloodCountController {
     }
 
     @GetMapping("/getFullBloodCountRecordsByUserId/{userId}")
-    public List<FullBloodCount> getFullBloodCountRecordsByUserId(@PathVariable int userId) {
-        return fbcService.getFullBloodCountRecordsByUserId(userId);
+    public List<FullBloodCountView> getFullBloodCountRecordsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.FULL_BLOOD_COUNT))) {
+            return null;
+        }
+        return fbcService.getFullBloodCountRecordsByUserId(userId, from, to);
+    }
+
+    @GetMapping("/getFullBloodCountRecordsPageByUserId/{userId}")
+    public CursorPage<FullBloodCountView> getFullBloodCountRecordsPageByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.FULL_BLOOD_COUNT))) {
+            return null;
+        }
+        return fbcService.getFullBloodCountRecordsPageByUserId(userId, cursor, size);
     }
 
     @PutMapping("/updateFullBloodCountRecord")
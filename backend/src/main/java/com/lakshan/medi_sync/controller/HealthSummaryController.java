@@ -0,0 +1,23 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.UserHealthSummary;
+import com.lakshan.medi_sync.service.HealthSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/users")
+public class HealthSummaryController {
+
+    private final HealthSummaryService summaryService;
+
+    @Autowired
+    public HealthSummaryController(HealthSummaryService summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    @GetMapping("/{id}/summary")
+    public UserHealthSummary getSummary(@PathVariable int id) {
+        return summaryService.getSummary(id);
+    }
+}
@@ -0,0 +1,163 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.dto.Thumbnails;
+import com.lakshan.medi_sync.service.ImageService;
+import com.lakshan.medi_sync.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+public class ImageController {
+
+    /** Image URLs are content-addressed, so a response never goes stale; private because these are health records. */
+    private static final String CACHE_FOREVER = "private, max-age=31536000, immutable";
+
+    /** Below this, a plain copy is cheaper than setting up sendfile (the size Tomcat's DefaultServlet uses). */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageService imageService;
+    private final ThumbnailService thumbnailService;
+
+    @Autowired
+    public ImageController(ImageService imageService, ThumbnailService thumbnailService) {
+        this.imageService = imageService;
+        this.thumbnailService = thumbnailService;
+    }
+
+    @PostMapping(path = "/records/{type}/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, String>> uploadImage(
+            @PathVariable String type,
+            @PathVariable int id,
+            @RequestParam("file") MultipartFile file
+    ) throws IOException {
+        String imageUrl = imageService.upload(RecordType.fromCode(type), id, file);
+        return ResponseEntity.created(URI.create(imageUrl)).body(Map.of("imageUrl", imageUrl));
+    }
+
+    /**
+     * Serves a stored image with single-range support, or with {@code size}
+     * one of its {@link Thumbnails#SIZES thumbnails}. Where the connector
+     * supports it, Tomcat sends the file with sendfile and the bytes never
+     * pass through the heap; small files and other containers get a chunked
+     * {@link FileChannel#transferTo} to the response stream.
+     */
+    @GetMapping("/images/{type}/{id}/{fileName}")
+    public void getImage(
+            @PathVariable String type,
+            @PathVariable int id,
+            @PathVariable String fileName,
+            @RequestParam(required = false) Integer size,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        // Browsers must not second-guess the stored type of an uploaded file
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        Optional<Path> found = imageService.find(type, id, fileName);
+        if (found.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path path = found.get();
+        String etag = ImageService.hashOf(path);
+        if (size != null) {
+            if (!Thumbnails.SIZES.contains(size)) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Thumbnail sizes are " + Thumbnails.SIZES);
+                return;
+            }
+            Optional<Path> thumbnail = thumbnailService.thumbnail(path, size);
+            if (thumbnail.isEmpty()) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            if (!thumbnail.get().equals(path)) {
+                path = thumbnail.get();
+                etag += "-" + size;
+            }
+        }
+        send(path, "\"" + etag + "\"", request, response);
+    }
+
+    private void send(Path path, String etag, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        long length = path.toFile().length();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(ImageService.contentTypeOf(path));
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Several ranges would need a multipart body; answering with the whole file is allowed
+            if (ranges.size() == 1) {
+                HttpRange requested = ranges.get(0);
+                if (length == 0 || requested.getRangeStart(length) >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = requested.getRangeStart(length);
+                end = requested.getRangeEnd(length);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
+    }
+}
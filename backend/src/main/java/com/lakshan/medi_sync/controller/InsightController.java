@@ -0,0 +1,23 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.UserInsights;
+import com.lakshan.medi_sync.service.InsightService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/users")
+public class InsightController {
+
+    private final InsightService insightService;
+
+    @Autowired
+    public InsightController(InsightService insightService) {
+        this.insightService = insightService;
+    }
+
+    @GetMapping("/{id}/insights")
+    public UserInsights getInsights(@PathVariable int id) {
+        return insightService.getInsights(id);
+    }
+}
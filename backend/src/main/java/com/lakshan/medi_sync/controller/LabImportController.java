@@ -0,0 +1,40 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.LabImportResult;
+import com.lakshan.medi_sync.service.LabImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lab result files from partner labs. The body is read as a stream, never
+ * buffered whole, so files of several gigabytes can be posted directly.
+ */
+@RestController
+@RequestMapping("/records/import")
+public class LabImportController {
+
+    private final LabImportService labImportService;
+
+    @Autowired
+    public LabImportController(LabImportService labImportService) {
+        this.labImportService = labImportService;
+    }
+
+    @PostMapping(consumes = {"x-application/hl7-v2+er7", "application/hl7-v2"})
+    public LabImportResult importHl7(InputStream body, HttpServletRequest request) throws IOException {
+        String encoding = request.getCharacterEncoding();
+        Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        return labImportService.importHl7(body, charset);
+    }
+
+    @PostMapping(consumes = {"application/fhir+json", "application/fhir+ndjson"})
+    public LabImportResult importFhir(InputStream body) throws IOException {
+        return labImportService.importFhir(body);
+    }
+}
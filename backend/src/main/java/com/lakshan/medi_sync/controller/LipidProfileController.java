@@ -1,11 +1,18 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.LipidProfileView;
 import com.lakshan.medi_sync.entity.LipidProfile;
+import com.lakshan.medi_sync.entity.RecordType;
 import com.lakshan.medi_sync.service.LipidProfileService;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,10 +20,12 @@ import java.util.List;
 public class LipidProfileController {
 
     private final LipidProfileService lipidService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public LipidProfileController(LipidProfileService lipidService) {
+    public LipidProfileController(LipidProfileService lipidService, RecordVersionService versionService) {
         this.lipidService = lipidService;
+        this.versionService = versionService;
     }
 
     @PostMapping("/addLipidProfileRecord")
@@ -26,8 +35,11 @@ public class LipidProfileController {
     }
 
     @GetMapping("/getAllLipidProfileRecords")
-    public List<LipidProfile> getAllLipidProfileRecords() {
-        return lipidService.getAllLipidProfileRecords();
+    public CursorPage<LipidProfileView> getAllLipidProfileRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return lipidService.getLipidProfileRecordsPage(cursor, size);
     }
 
     @GetMapping("/getLipidProfileRecord/{id}")
@@ -36,8 +48,29 @@ public class LipidProfileController {
     }
 
     @GetMapping("/getLipidProfileRecordsByUserId/{userId}")
-    public List<LipidProfile> getLipidProfileRecordsByUserId(@PathVariable int userId) {
-        return lipidService.getLipidProfileRecordsByUserId(userId);
+    public List<LipidProfileView> getLipidProfileRecordsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.LIPID_PROFILE))) {
+            return null;
+        }
+        return lipidService.getLipidProfileRecordsByUserId(userId, from, to);
+    }
+
+    @GetMapping("/getLipidProfileRecordsPageByUserId/{userId}")
+    public CursorPage<LipidProfileView> getLipidProfileRecordsPageByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.LIPID_PROFILE))) {
+            return null;
+        }
+        return lipidService.getLipidProfileRecordsPageByUserId(userId, cursor, size);
     }
 
     @PutMapping("/updateLipidProfileRecord")
@@ -1,11 +1,18 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.LiverProfileView;
 import com.lakshan.medi_sync.entity.LiverProfile;
+import com.lakshan.medi_sync.entity.RecordType;
 import com.lakshan.medi_sync.service.LiverProfileService;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,10 +20,12 @@ import java.util.List;
 public class LiverProfileController {
 
     private final LiverProfileService liverService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public LiverProfileController(LiverProfileService liverService) {
+    public LiverProfileController(LiverProfileService liverService, RecordVersionService versionService) {
         this.liverService = liverService;
+        this.versionService = versionService;
     }
 
     @PostMapping("/addLiverProfileRecord")
@@ -26,8 +35,11 @@ public class LiverProfileController {
     }
 
     @GetMapping("/getAllLiverProfileRecords")
-    public List<LiverProfile> getAllLiverProfileRecords() {
-        return liverService.getAllLiverProfileRecords();
+    public CursorPage<LiverProfileView> getAllLiverProfileRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return liverService.getLiverProfileRecordsPage(cursor, size);
     }
 
     @GetMapping("/getLiverProfileRecord/{id}")
@@ -36,8 +48,29 @@ public class LiverProfileController {
     }
 
     @GetMapping("/getLiverProfileRecordsByUserId/{userId}")
-    public List<LiverProfile> getLiverProfileRecordsByUserId(@PathVariable int userId) {
-        return liverService.getLiverProfileRecordsByUserId(userId);
+    public List<LiverProfileView> getLiverProfileRecordsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.LIVER_PROFILE))) {
+            return null;
+        }
+        return liverService.getLiverProfileRecordsByUserId(userId, from, to);
+    }
+
+    @GetMapping("/getLiverProfileRecordsPageByUserId/{userId}")
+    public CursorPage<LiverProfileView> getLiverProfileRecordsPageByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.LIVER_PROFILE))) {
+            return null;
+        }
+        return liverService.getLiverProfileRecordsPageByUserId(userId, cursor, size);
     }
 
     @PutMapping("/updateLiverProfileRecord")
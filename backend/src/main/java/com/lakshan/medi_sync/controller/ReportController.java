@@ -1,11 +1,15 @@
 package com.lakshan.medi_sync.controller;
 
 import com.lakshan.medi_sync.entity.Report;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import com.lakshan.medi_sync.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,15 +17,25 @@ import java.util.List;
 public class ReportController {
 
     private final ReportService reportService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, RecordVersionService versionService) {
         this.reportService = reportService;
+        this.versionService = versionService;
     }
 
     @GetMapping("/getReportsByUserId/{userId}")
-    public List<Report> getReportsByUserId(@PathVariable int userId) {
-        return reportService.getReportsByUserId(userId);
+    public List<Report> getReportsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.reportsEtag(userId))) {
+            return null;
+        }
+        return reportService.getReportsByUserId(userId, from, to);
     }
 
     @PutMapping("/updateReport")
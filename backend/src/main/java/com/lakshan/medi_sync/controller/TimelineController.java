@@ -0,0 +1,23 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.PatientTimeline;
+import com.lakshan.medi_sync.service.TimelineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/users")
+public class TimelineController {
+
+    private final TimelineService timelineService;
+
+    @Autowired
+    public TimelineController(TimelineService timelineService) {
+        this.timelineService = timelineService;
+    }
+
+    @GetMapping("/{id}/timeline")
+    public PatientTimeline getTimeline(@PathVariable int id) {
+        return timelineService.getTimeline(id);
+    }
+}
@@ -0,0 +1,30 @@
+package com.lakshan.medi_sync.controller;
+
+import com.lakshan.medi_sync.dto.MetricTrend;
+import com.lakshan.medi_sync.service.TrendService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+@RestController
+@RequestMapping("/users")
+public class TrendController {
+
+    private final TrendService trendService;
+
+    @Autowired
+    public TrendController(TrendService trendService) {
+        this.trendService = trendService;
+    }
+
+    @GetMapping("/{id}/trends")
+    public MetricTrend getTrend(
+            @PathVariable int id,
+            @RequestParam String metric,
+            @RequestParam(defaultValue = "P12M") Period window
+    ) {
+        return trendService.getTrend(id, metric, window, LocalDate.now());
+    }
+}
@@ -1,11 +1,18 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.UrineReportView;
 import com.lakshan.medi_sync.entity.UrineReport;
+import com.lakshan.medi_sync.entity.RecordType;
 import com.lakshan.medi_sync.service.UrineReportService;
+import com.lakshan.medi_sync.service.RecordVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -13,10 +20,12 @@ import java.util.List;
 public class UrineReportController {
 
     private final UrineReportService urineService;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public UrineReportController(UrineReportService urineService) {
+    public UrineReportController(UrineReportService urineService, RecordVersionService versionService) {
         this.urineService = urineService;
+        this.versionService = versionService;
     }
 
     @PostMapping("/addUrineReportRecord")
@@ -26,8 +35,11 @@ public class UrineReportController {
     }
 
     @GetMapping("/getAllUrineReportRecords")
-    public List<UrineReport> getAllUrineReportRecords() {
-        return urineService.getAllUrineReportRecords();
+    public CursorPage<UrineReportView> getAllUrineReportRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return urineService.getUrineReportRecordsPage(cursor, size);
     }
 
     @GetMapping("/getUrineReportRecord/{id}")
@@ -36,8 +48,29 @@ public class UrineReportController {
     }
 
     @GetMapping("/getUrineReportRecordsByUserId/{userId}")
-    public List<UrineReport> getUrineReportRecordsByUserId(@PathVariable int userId) {
-        return urineService.getUrineReportRecordsByUserId(userId);
+    public List<UrineReportView> getUrineReportRecordsByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.URINE_REPORT))) {
+            return null;
+        }
+        return urineService.getUrineReportRecordsByUserId(userId, from, to);
+    }
+
+    @GetMapping("/getUrineReportRecordsPageByUserId/{userId}")
+    public CursorPage<UrineReportView> getUrineReportRecordsPageByUserId(
+            @PathVariable int userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(versionService.etag(userId, RecordType.URINE_REPORT))) {
+            return null;
+        }
+        return urineService.getUrineReportRecordsPageByUserId(userId, cursor, size);
     }
 
     @PutMapping("/updateUrineReportRecord")
@@ -1,5 +1,6 @@
 package com.lakshan.medi_sync.controller;
 
+import com.lakshan.medi_sync.dto.CursorPage;
 import com.lakshan.medi_sync.entity.User;
 import com.lakshan.medi_sync.service.UserService;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -7,8 +8,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/users")
 public class UserController {
@@ -54,8 +53,11 @@ public class UserController {
         return null;
     }
     @GetMapping("/getAllUsers")
-    public List<User> getUsers(){
-        return userService.getAllUsers();
+    public CursorPage<User> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ){
+        return userService.getUsersPage(cursor, size);
     }
 
     @GetMapping("/getUser/{id}")
@@ -0,0 +1,14 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+public record BloodPressureView(
+        int id,
+        LocalDate testDate,
+        String bpLevel,
+        Integer systolic,
+        Integer diastolic,
+        String imageUrl,
+        Integer userId
+) implements RecordView {
+}
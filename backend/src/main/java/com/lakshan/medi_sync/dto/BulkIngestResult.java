@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk upload. Items listed in {@code errors} were skipped;
+ * every other item was inserted together with its report.
+ */
+public record BulkIngestResult(int received, int inserted, List<BulkItemError> errors) {
+}
@@ -0,0 +1,7 @@
+package com.lakshan.medi_sync.dto;
+
+/**
+ * Why the item at {@code index} of a bulk upload was rejected.
+ */
+public record BulkItemError(int index, String message) {
+}
@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One entry of a bulk upload. {@code type} is a {@link com.lakshan.medi_sync.entity.RecordType}
+ * code and {@code record} is the same JSON the single-record add endpoint accepts.
+ */
+public record BulkRecordItem(String type, JsonNode record) {
+}
@@ -0,0 +1,22 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+/**
+ * An inclusive range of dates from a {@code ?from=&to=} query. An open end is
+ * replaced by a date far enough out to take in every record, so the query is
+ * always a plain range on the {@code (user_id, test_date)} index.
+ */
+public record DateRange(LocalDate from, LocalDate to) {
+
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    public static DateRange of(LocalDate from, LocalDate to) {
+        DateRange range = new DateRange(from == null ? EARLIEST : from, to == null ? LATEST : to);
+        if (range.from.isAfter(range.to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return range;
+    }
+}
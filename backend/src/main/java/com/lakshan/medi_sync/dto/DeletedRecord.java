@@ -0,0 +1,8 @@
+package com.lakshan.medi_sync.dto;
+
+/**
+ * A record or report to drop from a synced copy. {@code type} is a record
+ * type code or {@code report}.
+ */
+public record DeletedRecord(String type, int id) {
+}
@@ -0,0 +1,12 @@
+package com.lakshan.medi_sync.dto;
+
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.time.LocalDate;
+
+/**
+ * A user whose latest test of {@code type} was on {@code lastTestDate} and
+ * who should take the next one by {@code dueDate}.
+ */
+public record DueReminder(int userId, String email, RecordType type, LocalDate lastTestDate, LocalDate dueDate) {
+}
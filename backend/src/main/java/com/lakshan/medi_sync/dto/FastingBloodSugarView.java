@@ -0,0 +1,12 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+public record FastingBloodSugarView(
+        int id,
+        LocalDate testDate,
+        double fbsLevel,
+        String imageUrl,
+        Integer userId
+) implements RecordView {
+}
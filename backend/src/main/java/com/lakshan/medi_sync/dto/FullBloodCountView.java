@@ -0,0 +1,14 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+public record FullBloodCountView(
+        int id,
+        LocalDate testDate,
+        double haemoglobin,
+        double totalLeucocyteCount,
+        double plateletCount,
+        String imageUrl,
+        Integer userId
+) implements RecordView {
+}
@@ -0,0 +1,25 @@
+package com.lakshan.medi_sync.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a lab result import. {@code messages} counts HL7 messages or
+ * FHIR entries; {@code ignored} counts observations of tests we do not store.
+ * {@code replaced} counts records that took the place of one already stored,
+ * or read earlier in the file, for the same user, type and day.
+ * Every rejection is counted in {@code rejected}, but only the first
+ * {@link #MAX_ERRORS} are listed, each under the message or entry it came
+ * from.
+ */
+public record LabImportResult(
+        int messages,
+        long observations,
+        long ignored,
+        long inserted,
+        long replaced,
+        long rejected,
+        List<BulkItemError> errors
+) {
+
+    public static final int MAX_ERRORS = 100;
+}
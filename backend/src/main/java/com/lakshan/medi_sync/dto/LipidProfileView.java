@@ -0,0 +1,16 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+public record LipidProfileView(
+        int id,
+        LocalDate testDate,
+        double totalCholesterol,
+        double hdl,
+        double ldl,
+        double vldl,
+        double triglycerides,
+        String imageUrl,
+        Integer userId
+) implements RecordView {
+}
@@ -0,0 +1,15 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+public record LiverProfileView(
+        int id,
+        LocalDate testDate,
+        double proteinTotalSerum,
+        double albuminSerum,
+        double bilirubinTotalSerum,
+        double sgpt,
+        String imageUrl,
+        Integer userId
+) implements RecordView {
+}
@@ -0,0 +1,28 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Summary of one metric over a window of whole months ending with the current
+ * month. Statistics that need more readings than the window has are null.
+ *
+ * @param slopePerMonth least-squares change per 30.44 days
+ * @param previousMean  mean over the window of the same length just before this one
+ * @param change        {@code mean - previousMean}
+ * @param direction     "up", "down" or "flat", from the sign of the slope
+ */
+public record MetricTrend(
+        int userId,
+        String metric,
+        int months,
+        LocalDate from,
+        LocalDate to,
+        long count,
+        Double mean,
+        Double standardDeviation,
+        Double slopePerMonth,
+        Double previousMean,
+        Double change,
+        String direction
+) {
+}
@@ -0,0 +1,9 @@
+package com.lakshan.medi_sync.dto;
+
+import java.util.List;
+
+/**
+ * Every lab record a user has, newest test first, in one payload.
+ */
+public record PatientTimeline(int userId, List<TimelineEntry> entries) {
+}
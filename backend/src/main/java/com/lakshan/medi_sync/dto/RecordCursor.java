@@ -0,0 +1,36 @@
+package com.lakshan.medi_sync.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a record list ordered by {@code (testDate desc, id desc)}, with
+ * undated records first as PostgreSQL sorts them. An undated record's cursor
+ * has a null {@code testDate}. The encoded form is opaque to clients so the
+ * key can change without breaking them.
+ */
+public record RecordCursor(LocalDate testDate, int id) {
+
+    public static RecordCursor of(RecordView view) {
+        return new RecordCursor(view.testDate(), view.id());
+    }
+
+    public String encode() {
+        String raw = (testDate == null ? "" : testDate.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecordCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new RecordCursor(
+                    separator == 0 ? null : LocalDate.parse(raw.substring(0, separator)),
+                    Integer.parseInt(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.lakshan.medi_sync.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * A lab record as returned by list endpoints: the record's own columns plus
+ * the owner's id, without the owning user embedded in every row.
+ */
+public interface RecordView {
+
+    int id();
+
+    LocalDate testDate();
+
+    String imageUrl();
+
+    /** Sized copies of the image for list screens, so they need not load the full scan. */
+    @JsonProperty("thumbnailUrls")
+    default Map<Integer, String> thumbnailUrls() {
+        return Thumbnails.urlsFor(imageUrl());
+    }
+
+    /** Null for a record whose owner was never set; the column is nullable. */
+    Integer userId();
+}
@@ -0,0 +1,19 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A report row with its linked records reduced to their ids, for exports
+ * that already carry the records themselves.
+ */
+public record ReportLink(
+        int id,
+        LocalDate reportDate,
+        Integer fullBloodCountId,
+        Integer liverProfileId,
+        Integer urineReportId,
+        Integer fastingBloodSugarId,
+        Integer lipidProfileId,
+        Integer bloodPressureId
+) {
+}
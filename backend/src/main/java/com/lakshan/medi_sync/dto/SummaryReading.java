@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * One record's readings keyed by metric code, e.g. {@code {"systolic": 120.0, "diastolic": 80.0}}.
+ */
+public record SummaryReading(int recordId, LocalDate testDate, Map<String, Double> values) {
+}
@@ -0,0 +1,35 @@
+package com.lakshan.medi_sync.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a user's change log: every change up to and including
+ * {@code seq} has been seen. The encoded form is opaque to clients, like
+ * {@link RecordCursor}.
+ */
+public record SyncToken(long seq) {
+
+    /** Before the first change, so syncing from it returns the whole history. */
+    public static final SyncToken START = new SyncToken(-1);
+
+    public String encode() {
+        String raw = "c" + seq;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith("c")) {
+                throw new IllegalArgumentException();
+            }
+            return new SyncToken(Long.parseLong(raw.substring(1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sync token: " + token);
+        }
+    }
+}
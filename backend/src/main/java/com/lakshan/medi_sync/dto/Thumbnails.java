@@ -0,0 +1,37 @@
+package com.lakshan.medi_sync.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The thumbnail sizes generated for uploaded images and their URLs. A
+ * thumbnail is the stored image's URL with {@code ?size=<px>}, the length of
+ * its longer edge.
+ */
+public final class Thumbnails {
+
+    public static final List<Integer> SIZES = List.of(128, 256, 512);
+
+    private Thumbnails() {
+    }
+
+    /** Whether thumbnails are made for an image URL: uploaded JPEG and PNG images. */
+    public static boolean hasThumbnails(String imageUrl) {
+        return imageUrl != null && imageUrl.startsWith("/images/")
+                && (imageUrl.endsWith(".jpg") || imageUrl.endsWith(".png"));
+    }
+
+    /** Thumbnail URLs by size, smallest first; empty when the image has none. */
+    public static Map<Integer, String> urlsFor(String imageUrl) {
+        if (!hasThumbnails(imageUrl)) {
+            return Map.of();
+        }
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            urls.put(size, imageUrl + "?size=" + size);
+        }
+        return Collections.unmodifiableMap(urls);
+    }
+}
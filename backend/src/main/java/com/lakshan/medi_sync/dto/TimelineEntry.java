@@ -0,0 +1,12 @@
+package com.lakshan.medi_sync.dto;
+
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.time.LocalDate;
+
+public record TimelineEntry(RecordType type, LocalDate testDate, RecordView record) {
+
+    public static TimelineEntry of(RecordType type, RecordView record) {
+        return new TimelineEntry(type, record.testDate(), record);
+    }
+}
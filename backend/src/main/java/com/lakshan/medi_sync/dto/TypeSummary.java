@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.dto;
+
+import com.lakshan.medi_sync.entity.RecordType;
+
+/**
+ * A user's record count for one type with the newest two readings.
+ * {@code previous} is null until the user has two records of the type.
+ */
+public record TypeSummary(RecordType type, int count, SummaryReading latest, SummaryReading previous) {
+}
@@ -0,0 +1,16 @@
+package com.lakshan.medi_sync.dto;
+
+import java.time.LocalDate;
+
+public record UrineReportView(
+        int id,
+        LocalDate testDate,
+        String color,
+        String appearance,
+        String protein,
+        String sugar,
+        double specificGravity,
+        String imageUrl,
+        Integer userId
+) implements RecordView {
+}
@@ -0,0 +1,17 @@
+package com.lakshan.medi_sync.dto;
+
+import java.util.List;
+
+/**
+ * Everything that changed in a user's history since a sync token: records
+ * and reports created or updated, in their current state, and ones deleted.
+ * {@code next} is the token for the following sync.
+ */
+public record UserChanges(
+        int userId,
+        List<TimelineEntry> records,
+        List<ReportLink> reports,
+        List<DeletedRecord> deleted,
+        String next
+) {
+}
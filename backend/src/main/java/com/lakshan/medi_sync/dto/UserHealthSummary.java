@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.dto;
+
+import java.util.List;
+
+/**
+ * The dashboard's view of a user: the newest readings of each record type
+ * they have.
+ */
+public record UserHealthSummary(int userId, List<TypeSummary> types) {
+}
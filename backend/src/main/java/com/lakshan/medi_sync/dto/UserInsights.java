@@ -0,0 +1,11 @@
+package com.lakshan.medi_sync.dto;
+
+import com.lakshan.medi_sync.analysis.RecordInsight;
+
+import java.util.List;
+
+/**
+ * Analysis of a user's most recent record of each type they have.
+ */
+public record UserInsights(int userId, List<RecordInsight> latest) {
+}
@@ -1,15 +1,22 @@
 package com.lakshan.medi_sync.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.lakshan.medi_sync.analysis.HealthAnalyzer;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "blood_pressure")
-public class BloodPressure {
+public class BloodPressure implements HealthRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blood_pressure_id_seq")
+    @SequenceGenerator(name = "blood_pressure_id_seq", sequenceName = "blood_pressure_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -19,13 +26,37 @@ public class BloodPressure {
     @Column(name = "bp_level")
     private String bpLevel;
 
+    /** Parsed from {@link #bpLevel} whenever it is set; null when that part does not read as a positive number. */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "systolic")
+    private Integer systolic;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "diastolic")
+    private Integer diastolic;
+
     @Column(name = "image_url")
     private String imageUrl;
 
+    /** The content hash {@link #imageUrl} ends in, kept with it so shared images are found by index. */
+    @JsonIgnore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     public int getId() {
         return id;
     }
@@ -48,6 +79,16 @@ public class BloodPressure {
 
     public void setBpLevel(String bpLevel) {
         this.bpLevel = bpLevel;
+        this.systolic = positiveOrNull(HealthAnalyzer.systolicOf(bpLevel));
+        this.diastolic = positiveOrNull(HealthAnalyzer.diastolicOf(bpLevel));
+    }
+
+    public Integer getSystolic() {
+        return systolic;
+    }
+
+    public Integer getDiastolic() {
+        return diastolic;
     }
 
     public String getImageUrl() {
@@ -56,6 +97,7 @@ public class BloodPressure {
 
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
+        this.imageHash = ImageHash.of(imageUrl);
     }
 
     public User getUser() {
@@ -65,4 +107,20 @@ public class BloodPressure {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    private static Integer positiveOrNull(int value) {
+        return value > 0 ? value : null;
+    }
 }
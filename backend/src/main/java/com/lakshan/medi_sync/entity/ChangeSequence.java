@@ -0,0 +1,35 @@
+package com.lakshan.medi_sync.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * The last number handed out from a user's change log. Every write to the
+ * user's records and reports takes the next one; see {@code ChangeLogService}.
+ */
+@Entity
+@Table(name = "change_sequences")
+public class ChangeSequence {
+
+    @Id
+    @Column(name = "user_id")
+    private int userId;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+}
@@ -0,0 +1,7 @@
+package com.lakshan.medi_sync.entity;
+
+public enum EmailStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
@@ -1,15 +1,21 @@
 package com.lakshan.medi_sync.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "fbc")
-public class FullBloodCount {
+public class FullBloodCount implements HealthRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fbc_id_seq")
+    @SequenceGenerator(name = "fbc_id_seq", sequenceName = "fbc_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
@@ -28,10 +34,25 @@ public class FullBloodCount {
     @Column(name = "image_url")
     private String imageUrl;
 
+    /** The content hash {@link #imageUrl} ends in, kept with it so shared images are found by index. */
+    @JsonIgnore
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     public int getId() {
         return id;
     }
@@ -78,6 +99,7 @@ public class FullBloodCount {
 
     public void setImageUrl(String imageUrl) {
         this.imageUrl = imageUrl;
+        this.imageHash = ImageHash.of(imageUrl);
     }
 
     public User getUser() {
@@ -87,4 +109,16 @@ public class FullBloodCount {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
@@ -0,0 +1,34 @@
+package com.lakshan.medi_sync.entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Fields shared by every lab record entity, so code that works across record
+ * types (timelines, exports, summaries) does not need a branch per type.
+ */
+public interface HealthRecord {
+
+    int getId();
+
+    void setId(int id);
+
+    LocalDate getTestDate();
+
+    void setTestDate(LocalDate testDate);
+
+    String getImageUrl();
+
+    void setImageUrl(String imageUrl);
+
+    User getUser();
+
+    void setUser(User user);
+
+    /** Position of the record's last write in its owner's change log; see {@code ChangeLogService}. */
+    long getChangeSeq();
+
+    void setChangeSeq(long changeSeq);
+
+    Instant getUpdatedAt();
+}
@@ -0,0 +1,148 @@
+package com.lakshan.medi_sync.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A user's two newest records of one type and how many they have, kept up to
+ * date as records are written so the dashboard does not have to load every
+ * record. The values are keyed by metric code, as in {@code metric_aggregates}.
+ */
+@Entity
+@Table(name = "user_health_summary")
+public class HealthSummary {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "record_count", nullable = false)
+    private int recordCount;
+
+    @Column(name = "latest_record_id")
+    private Integer latestRecordId;
+
+    @Column(name = "latest_test_date")
+    private LocalDate latestTestDate;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "latest_values")
+    private Map<String, Double> latestValues;
+
+    @Column(name = "previous_record_id")
+    private Integer previousRecordId;
+
+    @Column(name = "previous_test_date")
+    private LocalDate previousTestDate;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "previous_values")
+    private Map<String, Double> previousValues;
+
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public void setRecordCount(int recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public Integer getLatestRecordId() {
+        return latestRecordId;
+    }
+
+    public void setLatestRecordId(Integer latestRecordId) {
+        this.latestRecordId = latestRecordId;
+    }
+
+    public LocalDate getLatestTestDate() {
+        return latestTestDate;
+    }
+
+    public void setLatestTestDate(LocalDate latestTestDate) {
+        this.latestTestDate = latestTestDate;
+    }
+
+    public Map<String, Double> getLatestValues() {
+        return latestValues;
+    }
+
+    public void setLatestValues(Map<String, Double> latestValues) {
+        this.latestValues = latestValues;
+    }
+
+    public Integer getPreviousRecordId() {
+        return previousRecordId;
+    }
+
+    public void setPreviousRecordId(Integer previousRecordId) {
+        this.previousRecordId = previousRecordId;
+    }
+
+    public LocalDate getPreviousTestDate() {
+        return previousTestDate;
+    }
+
+    public void setPreviousTestDate(LocalDate previousTestDate) {
+        this.previousTestDate = previousTestDate;
+    }
+
+    public Map<String, Double> getPreviousValues() {
+        return previousValues;
+    }
+
+    public void setPreviousValues(Map<String, Double> previousValues) {
+        this.previousValues = previousValues;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id")
+        private int userId;
+
+        @Column(name = "record_type", length = 16)
+        private String recordType;
+
+        public Key() {
+        }
+
+        public Key(int userId, String recordType) {
+            this.userId = userId;
+            this.recordType = recordType;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getRecordType() {
+            return recordType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return userId == key.userId && Objects.equals(recordType, key.recordType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, recordType);
+        }
+    }
+}
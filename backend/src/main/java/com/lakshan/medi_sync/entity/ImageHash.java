@@ -0,0 +1,23 @@
+package com.lakshan.medi_sync.entity;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Reads the content hash out of the image URLs {@code ImageService} hands out. */
+final class ImageHash {
+
+    /** {@code /images/<type>/<record id>/<sha-256>.<extension>}; V12 backfills with the same pattern. */
+    private static final Pattern URL = Pattern.compile("/images/[a-z]+/[0-9]+/([0-9a-f]{64})\\.(jpg|png|webp|pdf)");
+
+    private ImageHash() {
+    }
+
+    /** The hash, or null for a URL of any other shape. */
+    static String of(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        Matcher matcher = URL.matcher(imageUrl);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
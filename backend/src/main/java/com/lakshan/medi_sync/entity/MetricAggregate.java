@@ -0,0 +1,141 @@
+package com.lakshan.medi_sync.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Running sums of one metric's readings for one user in one calendar month.
+ * {@code t} is the test date in days since 2000-01-01, so the sums are enough
+ * to get the mean, variance and least-squares slope of any range of months
+ * without reading the records.
+ */
+@Entity
+@Table(name = "metric_aggregates")
+public class MetricAggregate {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "n", nullable = false)
+    private long n;
+
+    @Column(name = "sum_x", nullable = false)
+    private double sumX;
+
+    @Column(name = "sum_xx", nullable = false)
+    private double sumXX;
+
+    @Column(name = "sum_t", nullable = false)
+    private double sumT;
+
+    @Column(name = "sum_tt", nullable = false)
+    private double sumTT;
+
+    @Column(name = "sum_tx", nullable = false)
+    private double sumTX;
+
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public void setN(long n) {
+        this.n = n;
+    }
+
+    public double getSumX() {
+        return sumX;
+    }
+
+    public void setSumX(double sumX) {
+        this.sumX = sumX;
+    }
+
+    public double getSumXX() {
+        return sumXX;
+    }
+
+    public void setSumXX(double sumXX) {
+        this.sumXX = sumXX;
+    }
+
+    public double getSumT() {
+        return sumT;
+    }
+
+    public void setSumT(double sumT) {
+        this.sumT = sumT;
+    }
+
+    public double getSumTT() {
+        return sumTT;
+    }
+
+    public void setSumTT(double sumTT) {
+        this.sumTT = sumTT;
+    }
+
+    public double getSumTX() {
+        return sumTX;
+    }
+
+    public void setSumTX(double sumTX) {
+        this.sumTX = sumTX;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id")
+        private int userId;
+
+        @Column(name = "metric", length = 32)
+        private String metric;
+
+        @Column(name = "bucket")
+        private LocalDate bucket;
+
+        public Key() {
+        }
+
+        public Key(int userId, String metric, LocalDate bucket) {
+            this.userId = userId;
+            this.metric = metric;
+            this.bucket = bucket;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public LocalDate getBucket() {
+            return bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return userId == key.userId && Objects.equals(metric, key.metric) && Objects.equals(bucket, key.bucket);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, metric, bucket);
+        }
+    }
+}
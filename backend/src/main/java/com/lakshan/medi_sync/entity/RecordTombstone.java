@@ -0,0 +1,59 @@
+package com.lakshan.medi_sync.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A record or report that left a user's history, either deleted or moved to
+ * another user, at a point in that user's change log. {@code recordType} is a
+ * {@link RecordType} code or {@code report}.
+ */
+@Entity
+@Table(name = "record_tombstones")
+public class RecordTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "record_type", nullable = false, length = 16)
+    private String recordType;
+
+    @Column(name = "record_id", nullable = false)
+    private int recordId;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getRecordType() {
+        return recordType;
+    }
+
+    public int getRecordId() {
+        return recordId;
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
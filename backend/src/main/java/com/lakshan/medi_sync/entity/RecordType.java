@@ -0,0 +1,69 @@
+package com.lakshan.medi_sync.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * The six kinds of lab record a user can store. The code is the short name
+ * used in API payloads and matches the path prefix of the record's controller
+ * where one exists.
+ */
+public enum RecordType {
+
+    FASTING_BLOOD_SUGAR("fbs", FastingBloodSugar.class, "fbs", "fasting blood sugar test"),
+    BLOOD_PRESSURE("bp", BloodPressure.class, "blood_pressure", "blood pressure check"),
+    FULL_BLOOD_COUNT("fbc", FullBloodCount.class, "fbc", "full blood count"),
+    LIPID_PROFILE("lipid", LipidProfile.class, "lipid_profile", "lipid profile"),
+    LIVER_PROFILE("liver", LiverProfile.class, "liver_profile", "liver profile"),
+    URINE_REPORT("urine", UrineReport.class, "urine_report", "urine report");
+
+    private final String code;
+    private final Class<? extends HealthRecord> entityClass;
+    private final String tableName;
+    private final String displayName;
+
+    RecordType(String code, Class<? extends HealthRecord> entityClass, String tableName, String displayName) {
+        this.code = code;
+        this.entityClass = entityClass;
+        this.tableName = tableName;
+        this.displayName = displayName;
+    }
+
+    @JsonValue
+    public String getCode() {
+        return code;
+    }
+
+    public Class<? extends HealthRecord> getEntityClass() {
+        return entityClass;
+    }
+
+    /** The entity's table, for the few queries written in native SQL. */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /** How the test is named in messages to the user. */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static RecordType of(HealthRecord record) {
+        for (RecordType type : values()) {
+            if (type.entityClass.isInstance(record)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown record type: " + record.getClass().getSimpleName());
+    }
+
+    @JsonCreator
+    public static RecordType fromCode(String code) {
+        for (RecordType type : values()) {
+            if (type.code.equalsIgnoreCase(code)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown record type: " + code);
+    }
+}
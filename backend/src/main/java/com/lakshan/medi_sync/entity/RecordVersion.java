@@ -0,0 +1,75 @@
+package com.lakshan.medi_sync.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * How many times a user's records of one type have changed. The count is the
+ * ETag of that user's record lists; see {@code RecordVersionService}.
+ */
+@Entity
+@Table(name = "record_versions")
+public class RecordVersion {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id")
+        private int userId;
+
+        @Column(name = "record_type", length = 16)
+        private String recordType;
+
+        public Key() {
+        }
+
+        public Key(int userId, String recordType) {
+            this.userId = userId;
+            this.recordType = recordType;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getRecordType() {
+            return recordType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return userId == key.userId && Objects.equals(recordType, key.recordType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, recordType);
+        }
+    }
+}
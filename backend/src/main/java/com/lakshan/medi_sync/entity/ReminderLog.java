@@ -0,0 +1,86 @@
+package com.lakshan.medi_sync.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One reminder already queued. A user is reminded once per latest test of a
+ * type; the unique key makes a rerun of the reminder job a no-op for anyone
+ * it already covered.
+ */
+@Entity
+@Table(name = "reminder_log", uniqueConstraints = @UniqueConstraint(
+        name = "reminder_log_user_type_test_key",
+        columnNames = {"user_id", "record_type", "last_test_date"}))
+public class ReminderLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "record_type", nullable = false)
+    private String recordType;
+
+    @Column(name = "last_test_date", nullable = false)
+    private LocalDate lastTestDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getRecordType() {
+        return recordType;
+    }
+
+    public void setRecordType(String recordType) {
+        this.recordType = recordType;
+    }
+
+    public LocalDate getLastTestDate() {
+        return lastTestDate;
+    }
+
+    public void setLastTestDate(LocalDate lastTestDate) {
+        this.lastTestDate = lastTestDate;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
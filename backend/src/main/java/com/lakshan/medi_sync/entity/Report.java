@@ -1,49 +1,109 @@
 package com.lakshan.medi_sync.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "reports")
+@NamedEntityGraph(name = Report.WITH_RECORDS, attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("fullBloodCount"),
+        @NamedAttributeNode("liverProfile"),
+        @NamedAttributeNode("urineReport"),
+        @NamedAttributeNode("fastingBloodSugar"),
+        @NamedAttributeNode("lipidProfile"),
+        @NamedAttributeNode("bloodPressure")
+})
 public class Report {
 
+    /**
+     * Loads a report together with its owner and every linked record in one
+     * joined select. Without it each eager association is fetched per row.
+     */
+    public static final String WITH_RECORDS = "Report.withRecords";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reports_id_seq")
+    @SequenceGenerator(name = "reports_id_seq", sequenceName = "reports_id_seq", allocationSize = 50)
     @Column(name = "id")
     private int id;
 
     @Column(name = "report_date")
     private LocalDate reportDate;
 
+    // A record's report is deleted with it by the foreign key, as in the migrations
+
     @OneToOne
     @JoinColumn(name = "fbc_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private FullBloodCount fullBloodCount;
 
     @OneToOne
     @JoinColumn(name = "liver_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private LiverProfile liverProfile;
 
     @OneToOne
     @JoinColumn(name = "urine_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private UrineReport urineReport;
 
     @OneToOne
     @JoinColumn(name = "fbs_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private FastingBloodSugar fastingBloodSugar;
 
     @OneToOne
     @JoinColumn(name = "lipid_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private LipidProfile lipidProfile;
 
     @OneToOne
     @JoinColumn(name = "bp_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private BloodPressure bloodPressure;
 
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    /**
+     * Creates the report row that accompanies a newly added record.
+     */
+    public static Report forRecord(HealthRecord record) {
+        Report report = new Report();
+        report.setUser(record.getUser());
+        report.setReportDate(record.getTestDate());
+        report.setChangeSeq(record.getChangeSeq());
+        switch (RecordType.of(record)) {
+            case FASTING_BLOOD_SUGAR -> report.setFastingBloodSugar((FastingBloodSugar) record);
+            case BLOOD_PRESSURE -> report.setBloodPressure((BloodPressure) record);
+            case FULL_BLOOD_COUNT -> report.setFullBloodCount((FullBloodCount) record);
+            case LIPID_PROFILE -> report.setLipidProfile((LipidProfile) record);
+            case LIVER_PROFILE -> report.setLiverProfile((LiverProfile) record);
+            case URINE_REPORT -> report.setUrineReport((UrineReport) record);
+        }
+        return report;
+    }
+
     public int getId() {
         return id;
     }
@@ -115,4 +175,16 @@ public class Report {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
@@ -0,0 +1,138 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.lakshan.medi_sync.entity.RecordType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The lab results that map onto record fields, by the LOINC codes labs send
+ * them under. Numeric results are converted to the unit the field is stored
+ * in; the first unit listed is that unit and a result without a unit is taken
+ * to be in it. Text results are stored as sent.
+ */
+public enum Analyte {
+
+    FASTING_GLUCOSE(RecordType.FASTING_BLOOD_SUGAR, List.of("1558-6"),
+            units("mg/dL", 1, "mmol/L", 18.016)),
+    SYSTOLIC(RecordType.BLOOD_PRESSURE, List.of("8480-6"),
+            units("mm[Hg]", 1, "mmHg", 1)),
+    DIASTOLIC(RecordType.BLOOD_PRESSURE, List.of("8462-4"),
+            units("mm[Hg]", 1, "mmHg", 1)),
+    HAEMOGLOBIN(RecordType.FULL_BLOOD_COUNT, List.of("718-7"),
+            units("g/dL", 1, "g/L", 0.1)),
+    TOTAL_LEUCOCYTE_COUNT(RecordType.FULL_BLOOD_COUNT, List.of("6690-2", "26464-8"),
+            units("/uL", 1, "{cells}/uL", 1, "10*3/uL", 1000, "10^3/uL", 1000, "10*9/L", 1000, "10^9/L", 1000)),
+    PLATELET_COUNT(RecordType.FULL_BLOOD_COUNT, List.of("777-3", "26515-7"),
+            units("/uL", 1, "{cells}/uL", 1, "10*3/uL", 1000, "10^3/uL", 1000, "10*9/L", 1000, "10^9/L", 1000)),
+    TOTAL_CHOLESTEROL(RecordType.LIPID_PROFILE, List.of("2093-3"),
+            units("mg/dL", 1, "mmol/L", 38.67)),
+    HDL(RecordType.LIPID_PROFILE, List.of("2085-9"),
+            units("mg/dL", 1, "mmol/L", 38.67)),
+    LDL(RecordType.LIPID_PROFILE, List.of("13457-7", "18262-6", "2089-1"),
+            units("mg/dL", 1, "mmol/L", 38.67)),
+    VLDL(RecordType.LIPID_PROFILE, List.of("13458-5"),
+            units("mg/dL", 1, "mmol/L", 38.67)),
+    TRIGLYCERIDES(RecordType.LIPID_PROFILE, List.of("2571-8"),
+            units("mg/dL", 1, "mmol/L", 88.57)),
+    PROTEIN_TOTAL_SERUM(RecordType.LIVER_PROFILE, List.of("2885-2"),
+            units("g/dL", 1, "g/L", 0.1)),
+    ALBUMIN_SERUM(RecordType.LIVER_PROFILE, List.of("1751-7"),
+            units("g/dL", 1, "g/L", 0.1)),
+    BILIRUBIN_TOTAL_SERUM(RecordType.LIVER_PROFILE, List.of("1975-2"),
+            units("mg/dL", 1, "umol/L", 0.0585)),
+    SGPT(RecordType.LIVER_PROFILE, List.of("1742-6"),
+            units("U/L", 1, "IU/L", 1)),
+    URINE_COLOR(RecordType.URINE_REPORT, List.of("5778-6"), null),
+    URINE_APPEARANCE(RecordType.URINE_REPORT, List.of("5767-9"), null),
+    URINE_PROTEIN(RecordType.URINE_REPORT, List.of("20454-5", "2888-6"), null),
+    URINE_SUGAR(RecordType.URINE_REPORT, List.of("25428-4", "2350-7"), null),
+    SPECIFIC_GRAVITY(RecordType.URINE_REPORT, List.of("5811-5", "2965-2"),
+            units("1", 1, "{SG}", 1));
+
+    private static final Map<String, Analyte> BY_LOINC = new HashMap<>();
+    private static final Map<RecordType, Set<Analyte>> NUMERIC_BY_TYPE = new HashMap<>();
+
+    static {
+        for (Analyte analyte : values()) {
+            for (String code : analyte.loincCodes) {
+                BY_LOINC.put(code, analyte);
+            }
+            if (analyte.isNumeric()) {
+                NUMERIC_BY_TYPE.computeIfAbsent(analyte.recordType, type -> EnumSet.noneOf(Analyte.class)).add(analyte);
+            }
+        }
+    }
+
+    private final RecordType recordType;
+    private final List<String> loincCodes;
+    private final Map<String, Double> factors;
+    private final String unit;
+
+    Analyte(RecordType recordType, List<String> loincCodes, Map<String, Double> factors) {
+        this.recordType = recordType;
+        this.loincCodes = loincCodes;
+        this.factors = factors;
+        this.unit = factors == null ? null : factors.keySet().iterator().next();
+    }
+
+    public RecordType getRecordType() {
+        return recordType;
+    }
+
+    public boolean isNumeric() {
+        return factors != null;
+    }
+
+    /** The result in the stored unit. */
+    public double toStoredUnit(String value, String unit) {
+        double number;
+        try {
+            number = Double.parseDouble(value.trim()) * factorOf(unit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(this + " result is not a number: " + value);
+        }
+        // parseDouble also takes "NaN", "Infinity" and overflows such as "1e400"
+        if (!Double.isFinite(number)) {
+            throw new IllegalArgumentException(this + " result is not a number: " + value);
+        }
+        return number;
+    }
+
+    private double factorOf(String unit) {
+        if (unit == null || unit.isBlank()) {
+            return 1;
+        }
+        String sent = unit.trim().replace('µ', 'u').replace('μ', 'u');
+        for (Map.Entry<String, Double> factor : factors.entrySet()) {
+            if (factor.getKey().equalsIgnoreCase(sent)) {
+                return factor.getValue();
+            }
+        }
+        throw new IllegalArgumentException(this + " in " + unit + " cannot be converted to " + this.unit);
+    }
+
+    /** The analyte a LOINC code is imported as, or null when it is not one we store. */
+    public static Analyte forLoinc(String code) {
+        return code == null ? null : BY_LOINC.get(code.trim());
+    }
+
+    /** The numeric results a record of the type needs before it is stored. */
+    public static Set<Analyte> requiredFor(RecordType type) {
+        return NUMERIC_BY_TYPE.getOrDefault(type, Set.of());
+    }
+
+    /** Units in pairs of name and factor to the first, in order. */
+    private static Map<String, Double> units(Object... pairs) {
+        Map<String, Double> units = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            units.put((String) pairs[i], ((Number) pairs[i + 1]).doubleValue());
+        }
+        return Collections.unmodifiableMap(units);
+    }
+}
@@ -0,0 +1,189 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+
+/**
+ * Reads FHIR R4 Observations from a Bundle, or from any number of resources
+ * one after another as in NDJSON bulk exports. A Bundle's entries are parsed
+ * one at a time as they stream in, so only the entry being read is held in
+ * memory however large the Bundle is.
+ * <p>
+ * The patient is the {@code subject} reference, which must be
+ * {@code Patient/<MediSync user id>}. Each Observation, and each of its
+ * components (a blood pressure panel carries both readings as components),
+ * coded in LOINC with a final, amended or corrected status and a value
+ * becomes an observation, dated by its effective time or else when it was
+ * issued. Resources other than Observations are skipped.
+ */
+public class FhirBundleReader {
+
+    private static final String LOINC = "http://loinc.org";
+    private static final String PATIENT = "Patient/";
+    private static final Set<String> FINAL = Set.of("final", "amended", "corrected");
+
+    private final JsonParser parser;
+    private final RecordAssembler assembler;
+    private final RecordSink sink;
+    private int entries;
+
+    /** The parser must have a codec, as one made by an {@code ObjectMapper} has. */
+    public FhirBundleReader(JsonParser parser, RecordAssembler assembler, RecordSink sink) {
+        this.parser = parser;
+        this.assembler = assembler;
+        this.sink = sink;
+    }
+
+    /**
+     * Reads to the end of the input and returns the number of entries and
+     * top-level resources. Reading stops at malformed JSON or a top-level
+     * value that is not an object, which is rejected at the entry it was
+     * found in.
+     */
+    public int read() throws IOException {
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    sink.reject(entries, "Expected a FHIR resource or Bundle, found " + token.asString());
+                    break;
+                }
+                readResource();
+            }
+        } catch (JsonProcessingException e) {
+            sink.reject(entries, "Invalid JSON at line " + e.getLocation().getLineNr() + ": " + e.getOriginalMessage());
+        } finally {
+            assembler.flush();
+        }
+        return entries;
+    }
+
+    /**
+     * Streams a top-level resource's entries; any other field is small and
+     * read whole. An entry that is not an object is rejected and skipped.
+     */
+    private void readResource() throws IOException {
+        ObjectNode resource = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.START_ARRAY && name.equals("entry")) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.START_OBJECT) {
+                        JsonNode entry = parser.readValueAsTree();
+                        handle(entry.path("resource"), entries++);
+                    } else {
+                        parser.skipChildren();
+                        sink.reject(entries++, "Bundle entry is not an object");
+                    }
+                }
+            } else {
+                JsonNode value = parser.readValueAsTree();
+                if (resource == null) {
+                    resource = (ObjectNode) parser.getCodec().createObjectNode();
+                }
+                resource.set(name, value);
+            }
+        }
+        if (resource != null && !resource.path("resourceType").asText().equals("Bundle")) {
+            handle(resource, entries++);
+        }
+    }
+
+    private void handle(JsonNode resource, int source) {
+        switch (resource.path("resourceType").asText()) {
+            case "Observation" -> observation(resource, source);
+            case "Bundle" -> {
+                for (JsonNode entry : resource.path("entry")) {
+                    handle(entry.path("resource"), source);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void observation(JsonNode observation, int source) {
+        if (!FINAL.contains(observation.path("status").asText())) {
+            return;
+        }
+        String subject = observation.path("subject").path("reference").asText();
+        int userId;
+        try {
+            if (!subject.startsWith(PATIENT)) {
+                throw new NumberFormatException();
+            }
+            userId = Integer.parseInt(subject.substring(PATIENT.length()));
+        } catch (NumberFormatException e) {
+            sink.reject(source, "Observation subject is not a MediSync user: " + subject);
+            return;
+        }
+        LocalDate date = date(observation);
+        if (date == null) {
+            sink.reject(source, "Observation without a date");
+            return;
+        }
+
+        add(source, userId, date, observation);
+        for (JsonNode component : observation.path("component")) {
+            add(source, userId, date, component);
+        }
+    }
+
+    private void add(int source, int userId, LocalDate date, JsonNode coded) {
+        String value;
+        String unit = null;
+        JsonNode quantity = coded.path("valueQuantity");
+        if (quantity.has("value")) {
+            value = quantity.get("value").asText();
+            unit = quantity.hasNonNull("code") ? quantity.get("code").asText() : quantity.path("unit").asText(null);
+        } else if (coded.has("valueString")) {
+            value = coded.get("valueString").asText();
+        } else if (coded.has("valueInteger")) {
+            value = coded.get("valueInteger").asText();
+        } else if (coded.has("valueCodeableConcept")) {
+            JsonNode concept = coded.get("valueCodeableConcept");
+            value = concept.hasNonNull("text") ? concept.get("text").asText()
+                    : concept.path("coding").path(0).path("display").asText();
+        } else {
+            return;
+        }
+        if (value.isBlank()) {
+            return;
+        }
+        assembler.add(new LabObservation(source, userId, date, loinc(coded.path("code")), value, unit));
+    }
+
+    private static String loinc(JsonNode concept) {
+        for (JsonNode coding : concept.path("coding")) {
+            if (LOINC.equals(coding.path("system").asText())) {
+                return coding.path("code").asText();
+            }
+        }
+        return null;
+    }
+
+    /** The day an observation was made; null when it has no valid date. */
+    private static LocalDate date(JsonNode observation) {
+        String value = observation.path("effectiveDateTime").asText(
+                observation.path("effectivePeriod").path("start").asText(
+                        observation.path("effectiveInstant").asText(
+                                observation.path("issued").asText(""))));
+        if (value.length() < 10) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
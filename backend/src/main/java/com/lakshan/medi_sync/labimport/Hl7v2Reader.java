@@ -0,0 +1,286 @@
+package com.lakshan.medi_sync.labimport;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads HL7 v2 ORU result messages one segment at a time, so a file of any
+ * size is never held in memory. Messages may be separated by blank lines or
+ * MLLP framing, and batch header segments are skipped.
+ * <p>
+ * The patient is the first identifier in PID-3, which must be the MediSync
+ * user id. Each OBX coded in LOINC (OBX-3, or its alternate identifier) with
+ * a final or corrected status becomes an observation, dated by OBX-14 or
+ * else the order's OBR-7. A message with a problem in its header or patient
+ * is rejected whole; a bad result only loses its own record.
+ */
+public class Hl7v2Reader {
+
+    /** Longest segment read. A lab result is far shorter; a longer one would otherwise be held whole. */
+    static final int MAX_SEGMENT_LENGTH = 64 * 1024;
+
+    private static final char START_BLOCK = 0x0b;
+    private static final char END_BLOCK = 0x1c;
+
+    private final Reader in;
+    private final RecordAssembler assembler;
+    private final RecordSink sink;
+    private final char[] buffer = new char[16 * 1024];
+    private int position;
+    private int limit;
+    private final StringBuilder segment = new StringBuilder(256);
+    private boolean truncated;
+
+    private char fieldSeparator = '|';
+    private char componentSeparator = '^';
+    private char repetitionSeparator = '~';
+    private char escapeCharacter = '\\';
+    private char subcomponentSeparator = '&';
+
+    private int messages;
+    private int source = -1;
+    private boolean skipping;
+    private Integer userId;
+    private LocalDate messageDate;
+    private LocalDate orderDate;
+
+    public Hl7v2Reader(Reader in, RecordAssembler assembler, RecordSink sink) {
+        this.in = in;
+        this.assembler = assembler;
+        this.sink = sink;
+    }
+
+    /** Reads to the end of the input and returns the number of messages. */
+    public int read() throws IOException {
+        String line;
+        while ((line = nextSegment()) != null) {
+            if (truncated) {
+                if (line.startsWith("MSH")) {
+                    // Still a new message, so its segments do not land in the one before
+                    newMessage();
+                    skip("Segment longer than " + MAX_SEGMENT_LENGTH + " characters");
+                } else if (source >= 0 && !skipping) {
+                    skip("Segment longer than " + MAX_SEGMENT_LENGTH + " characters");
+                }
+            } else {
+                handle(line);
+            }
+        }
+        assembler.flush();
+        return messages;
+    }
+
+    private void handle(String line) {
+        if (line.startsWith("MSH")) {
+            startMessage(line);
+            return;
+        }
+        if (source < 0 || skipping || line.length() < 3) {
+            return;
+        }
+        switch (line.substring(0, 3)) {
+            case "PID" -> patient(split(line, fieldSeparator));
+            case "OBR" -> {
+                assembler.flush();
+                orderDate = date(field(split(line, fieldSeparator), 7));
+            }
+            case "OBX" -> result(split(line, fieldSeparator));
+            default -> {
+            }
+        }
+    }
+
+    private void startMessage(String line) {
+        newMessage();
+        if (line.length() < 8) {
+            skip("Malformed MSH segment");
+            return;
+        }
+        fieldSeparator = line.charAt(3);
+        componentSeparator = line.charAt(4);
+        repetitionSeparator = line.charAt(5);
+        escapeCharacter = line.charAt(6);
+        subcomponentSeparator = line.charAt(7);
+
+        // MSH-1 is the separator itself, so MSH-n is field n - 1
+        List<String> fields = split(line, fieldSeparator);
+        String messageType = component(field(fields, 8), 0);
+        if (!"ORU".equals(messageType)) {
+            skip("Not a result message: " + field(fields, 8));
+            return;
+        }
+        messageDate = date(field(fields, 6));
+    }
+
+    private void newMessage() {
+        assembler.flush();
+        source = messages++;
+        skipping = false;
+        userId = null;
+        orderDate = null;
+        messageDate = null;
+    }
+
+    private void patient(List<String> fields) {
+        String identifier = component(repetition(field(fields, 3)), 0);
+        try {
+            userId = Integer.parseInt(identifier.trim());
+        } catch (NumberFormatException e) {
+            skip("Patient identifier is not a MediSync user id: " + identifier);
+        }
+    }
+
+    private void result(List<String> fields) {
+        if (userId == null) {
+            skip("Result before the PID segment");
+            return;
+        }
+        String status = field(fields, 11);
+        if (!status.isEmpty() && !status.equals("F") && !status.equals("C")) {
+            return;
+        }
+        String value = repetition(field(fields, 5));
+        if (value.isEmpty()) {
+            return;
+        }
+        String valueType = field(fields, 2);
+        if (valueType.equals("CE") || valueType.equals("CWE")) {
+            String text = component(value, 1);
+            value = text.isEmpty() ? component(value, 0) : text;
+        } else {
+            value = unescape(value);
+        }
+
+        LocalDate date = date(field(fields, 14));
+        if (date == null) {
+            date = orderDate != null ? orderDate : messageDate;
+        }
+        if (date == null) {
+            sink.reject(source, "Result without a date: " + field(fields, 3));
+            return;
+        }
+        assembler.add(new LabObservation(source, userId, date, loinc(field(fields, 3)), value,
+                component(field(fields, 6), 0)));
+    }
+
+    /** The LOINC code of an OBX-3 identifier, from its primary or alternate coding. */
+    private String loinc(String identifier) {
+        String system = component(identifier, 2);
+        if (system.isEmpty() || system.equals("LN")) {
+            return component(identifier, 0);
+        }
+        return component(identifier, 5).equals("LN") ? component(identifier, 3) : null;
+    }
+
+    private void skip(String message) {
+        sink.reject(source, message);
+        skipping = true;
+    }
+
+    /** The next non-empty segment, or null at the end of the input. */
+    private String nextSegment() throws IOException {
+        segment.setLength(0);
+        truncated = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return segment.isEmpty() ? null : segment.toString();
+                }
+            }
+            char c = buffer[position++];
+            if (c == '\r' || c == '\n') {
+                if (!segment.isEmpty() || truncated) {
+                    return segment.toString();
+                }
+            } else if (c != START_BLOCK && c != END_BLOCK) {
+                if (segment.length() < MAX_SEGMENT_LENGTH) {
+                    segment.append(c);
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+    }
+
+    /** An HL7 date or date-time as a date; null when absent or invalid. */
+    private static LocalDate date(String value) {
+        if (value.length() < 8) {
+            return null;
+        }
+        try {
+            return LocalDate.of(Integer.parseInt(value.substring(0, 4)),
+                    Integer.parseInt(value.substring(4, 6)), Integer.parseInt(value.substring(6, 8)));
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    private String unescape(String value) {
+        if (value.indexOf(escapeCharacter) < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            int end = c == escapeCharacter ? value.indexOf(escapeCharacter, i + 1) : -1;
+            if (end < 0) {
+                out.append(c);
+                i++;
+                continue;
+            }
+            switch (value.substring(i + 1, end)) {
+                case "F" -> out.append(fieldSeparator);
+                case "S" -> out.append(componentSeparator);
+                case "T" -> out.append(subcomponentSeparator);
+                case "R" -> out.append(repetitionSeparator);
+                case "E" -> out.append(escapeCharacter);
+                // Formatting and hex escapes carry nothing a stored result needs
+                default -> {
+                }
+            }
+            i = end + 1;
+        }
+        return out.toString();
+    }
+
+    private String repetition(String field) {
+        int end = field.indexOf(repetitionSeparator);
+        return end < 0 ? field : field.substring(0, end);
+    }
+
+    private String component(String field, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            start = field.indexOf(componentSeparator, start) + 1;
+            if (start == 0) {
+                return "";
+            }
+        }
+        int end = field.indexOf(componentSeparator, start);
+        return end < 0 ? field.substring(start) : field.substring(start, end);
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : "";
+    }
+
+    private static List<String> split(String line, char separator) {
+        List<String> fields = new ArrayList<>(24);
+        int start = 0;
+        int end;
+        while ((end = line.indexOf(separator, start)) >= 0) {
+            fields.add(line.substring(start, end));
+            start = end + 1;
+        }
+        fields.add(line.substring(start));
+        return fields;
+    }
+}
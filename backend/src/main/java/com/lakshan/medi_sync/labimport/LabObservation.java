@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.labimport;
+
+import java.time.LocalDate;
+
+/**
+ * One result read from a lab message, before it is placed in a record.
+ * {@code source} is the position of the message or bundle entry it came from.
+ */
+public record LabObservation(int source, int userId, LocalDate date, String loinc, String value, String unit) {
+}
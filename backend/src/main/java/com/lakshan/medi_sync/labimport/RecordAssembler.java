@@ -0,0 +1,161 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.lakshan.medi_sync.entity.*;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Collects the observations of one patient and test date into records, one
+ * per record type. Readers add observations as they parse them and call
+ * {@link #flush()} where an order or message ends; a change of patient or
+ * date flushes too, so at most six records are ever pending.
+ * <p>
+ * A record is only passed on once it has every numeric result of its type.
+ * The entities store missing readings as 0, which analysis and trends would
+ * take for a real value. Urine colour, appearance, protein and sugar may be
+ * missing. A record with a result that cannot be read is rejected once, for
+ * that result, and the rest of its results are dropped.
+ */
+public class RecordAssembler {
+
+    private final RecordSink sink;
+    private final Map<RecordType, Pending> pending = new EnumMap<>(RecordType.class);
+    private int userId;
+    private LocalDate date;
+    private long observations;
+    private long unmapped;
+
+    public RecordAssembler(RecordSink sink) {
+        this.sink = sink;
+    }
+
+    public void add(LabObservation observation) {
+        observations++;
+        Analyte analyte = Analyte.forLoinc(observation.loinc());
+        if (analyte == null) {
+            unmapped++;
+            return;
+        }
+        if (!pending.isEmpty() && (observation.userId() != userId || !observation.date().equals(date))) {
+            flush();
+        }
+        userId = observation.userId();
+        date = observation.date();
+
+        Pending record = pending.computeIfAbsent(analyte.getRecordType(), type -> new Pending(observation.source()));
+        if (record.rejected) {
+            return;
+        }
+        try {
+            record.values.put(analyte, analyte.isNumeric()
+                    ? (Object) analyte.toStoredUnit(observation.value(), observation.unit())
+                    : observation.value().trim());
+        } catch (IllegalArgumentException e) {
+            // The record cannot be stored without this result; reject it once, here
+            record.rejected = true;
+            sink.reject(observation.source(), e.getMessage());
+        }
+    }
+
+    /** Passes on or rejects every pending record. */
+    public void flush() {
+        for (Map.Entry<RecordType, Pending> entry : pending.entrySet()) {
+            RecordType type = entry.getKey();
+            Pending record = entry.getValue();
+            if (record.rejected) {
+                continue;
+            }
+            Set<Analyte> missing = new TreeSet<>(Analyte.requiredFor(type));
+            missing.removeAll(record.values.keySet());
+            if (missing.isEmpty()) {
+                sink.record(record.source, build(type, record.values));
+            } else {
+                sink.reject(record.source, "Incomplete " + type.getDisplayName() + " for " + date + ", missing " + missing);
+            }
+        }
+        pending.clear();
+    }
+
+    /** Observations read so far, including those of analytes we do not store. */
+    public long getObservations() {
+        return observations;
+    }
+
+    /** Observations skipped because their code is not one we store. */
+    public long getUnmapped() {
+        return unmapped;
+    }
+
+    private HealthRecord build(RecordType type, Map<Analyte, Object> values) {
+        HealthRecord record = switch (type) {
+            case FASTING_BLOOD_SUGAR -> {
+                FastingBloodSugar fbs = new FastingBloodSugar();
+                fbs.setFbsLevel(number(values, Analyte.FASTING_GLUCOSE));
+                yield fbs;
+            }
+            case BLOOD_PRESSURE -> {
+                BloodPressure bp = new BloodPressure();
+                bp.setBpLevel(Math.round(number(values, Analyte.SYSTOLIC)) + "/"
+                        + Math.round(number(values, Analyte.DIASTOLIC)));
+                yield bp;
+            }
+            case FULL_BLOOD_COUNT -> {
+                FullBloodCount fbc = new FullBloodCount();
+                fbc.setHaemoglobin(number(values, Analyte.HAEMOGLOBIN));
+                fbc.setTotalLeucocyteCount(number(values, Analyte.TOTAL_LEUCOCYTE_COUNT));
+                fbc.setPlateletCount(number(values, Analyte.PLATELET_COUNT));
+                yield fbc;
+            }
+            case LIPID_PROFILE -> {
+                LipidProfile lipid = new LipidProfile();
+                lipid.setTotalCholesterol(number(values, Analyte.TOTAL_CHOLESTEROL));
+                lipid.setHdl(number(values, Analyte.HDL));
+                lipid.setLdl(number(values, Analyte.LDL));
+                lipid.setVldl(number(values, Analyte.VLDL));
+                lipid.setTriglycerides(number(values, Analyte.TRIGLYCERIDES));
+                yield lipid;
+            }
+            case LIVER_PROFILE -> {
+                LiverProfile liver = new LiverProfile();
+                liver.setProteinTotalSerum(number(values, Analyte.PROTEIN_TOTAL_SERUM));
+                liver.setAlbuminSerum(number(values, Analyte.ALBUMIN_SERUM));
+                liver.setBilirubinTotalSerum(number(values, Analyte.BILIRUBIN_TOTAL_SERUM));
+                liver.setSgpt(number(values, Analyte.SGPT));
+                yield liver;
+            }
+            case URINE_REPORT -> {
+                UrineReport urine = new UrineReport();
+                urine.setColor((String) values.get(Analyte.URINE_COLOR));
+                urine.setAppearance((String) values.get(Analyte.URINE_APPEARANCE));
+                urine.setProtein((String) values.get(Analyte.URINE_PROTEIN));
+                urine.setSugar((String) values.get(Analyte.URINE_SUGAR));
+                urine.setSpecificGravity(number(values, Analyte.SPECIFIC_GRAVITY));
+                yield urine;
+            }
+        };
+        User user = new User();
+        user.setId(userId);
+        record.setUser(user);
+        record.setTestDate(date);
+        return record;
+    }
+
+    private static double number(Map<Analyte, Object> values, Analyte analyte) {
+        return (Double) values.get(analyte);
+    }
+
+    private static final class Pending {
+
+        private final int source;
+        private final Map<Analyte, Object> values = new EnumMap<>(Analyte.class);
+        private boolean rejected;
+
+        private Pending(int source) {
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.lakshan.medi_sync.entity.HealthRecord;
+
+/**
+ * Receives what an import produces, one record or rejection at a time.
+ * {@code source} is the position of the message or bundle entry in the file.
+ */
+public interface RecordSink {
+
+    void record(int source, HealthRecord record);
+
+    void reject(int source, String message);
+}
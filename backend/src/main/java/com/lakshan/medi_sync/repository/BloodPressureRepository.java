@@ -1,12 +1,70 @@
 package com.lakshan.medi_sync.repository;
 
+import com.lakshan.medi_sync.dto.BloodPressureView;
 import com.lakshan.medi_sync.entity.BloodPressure;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BloodPressureRepository extends JpaRepository<BloodPressure, Integer> {
+    String SELECT_VIEW = "select new com.lakshan.medi_sync.dto.BloodPressureView(" +
+            "r.id, r.testDate, r.bpLevel, r.systolic, r.diastolic, r.imageUrl, r.user.id) from BloodPressure r ";
+    String NEWEST_FIRST = " order by r.testDate desc nulls first, r.id desc";
+
+    @EntityGraph(attributePaths = "user")
     List<BloodPressure> findByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.testDate between :from and :to" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsByUserIdBetween(int userId, LocalDate from, LocalDate to);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.changeSeq > :after and r.changeSeq <= :upTo order by r.changeSeq")
+    List<BloodPressureView> findViewsChanged(int userId, long after, long upTo);
+
+    @Query(SELECT_VIEW + NEWEST_FIRST)
+    List<BloodPressureView> findViewsPage(Limit limit);
+
+    @Query(SELECT_VIEW + "where (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsBefore(LocalDate testDate, int id, Limit limit);
+
+    /** After an undated record: the undated ones with a lower id, then every dated one. */
+    @Query(SELECT_VIEW + "where (r.testDate is null and r.id < :id) or r.testDate is not null" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsBeforeUndated(int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsByUserIdPage(int userId, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsByUserIdBefore(int userId, LocalDate testDate, int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and ((r.testDate is null and r.id < :id) or r.testDate is not null)" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsByUserIdBeforeUndated(int userId, int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.systolic >= :minSystolic and r.testDate >= :since" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsBySystolicSince(int minSystolic, LocalDate since, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.systolic >= :minSystolic and r.testDate >= :since " +
+            "and (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<BloodPressureView> findViewsBySystolicSinceBefore(
+            int minSystolic, LocalDate since, LocalDate testDate, int id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<BloodPressure> streamByUserIdOrderByTestDateAscIdAsc(int userId);
 }
@@ -0,0 +1,30 @@
+package com.lakshan.medi_sync.repository;
+
+import com.lakshan.medi_sync.entity.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Locks the oldest due rows with {@code FOR UPDATE SKIP LOCKED} (lock
+     * timeout -2), so concurrent dispatchers each get a disjoint set instead
+     * of waiting on one another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from EmailOutbox e " +
+            "where e.status = com.lakshan.medi_sync.entity.EmailStatus.PENDING and e.nextAttemptAt <= :now " +
+            "order by e.nextAttemptAt, e.id")
+    List<EmailOutbox> lockDue(Instant now, Limit limit);
+}
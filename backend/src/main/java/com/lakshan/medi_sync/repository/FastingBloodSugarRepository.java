@@ -1,12 +1,62 @@
 package com.lakshan.medi_sync.repository;
 
+import com.lakshan.medi_sync.dto.FastingBloodSugarView;
 import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface FastingBloodSugarRepository extends JpaRepository<FastingBloodSugar, Integer> {
+    String SELECT_VIEW = "select new com.lakshan.medi_sync.dto.FastingBloodSugarView(" +
+            "r.id, r.testDate, r.fbsLevel, r.imageUrl, r.user.id) from FastingBloodSugar r ";
+    String NEWEST_FIRST = " order by r.testDate desc nulls first, r.id desc";
+
+    @EntityGraph(attributePaths = "user")
     List<FastingBloodSugar> findByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.testDate between :from and :to" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsByUserIdBetween(int userId, LocalDate from, LocalDate to);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.changeSeq > :after and r.changeSeq <= :upTo order by r.changeSeq")
+    List<FastingBloodSugarView> findViewsChanged(int userId, long after, long upTo);
+
+    @Query(SELECT_VIEW + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsPage(Limit limit);
+
+    @Query(SELECT_VIEW + "where (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsBefore(LocalDate testDate, int id, Limit limit);
+
+    /** After an undated record: the undated ones with a lower id, then every dated one. */
+    @Query(SELECT_VIEW + "where (r.testDate is null and r.id < :id) or r.testDate is not null" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsBeforeUndated(int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsByUserIdPage(int userId, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsByUserIdBefore(int userId, LocalDate testDate, int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and ((r.testDate is null and r.id < :id) or r.testDate is not null)" + NEWEST_FIRST)
+    List<FastingBloodSugarView> findViewsByUserIdBeforeUndated(int userId, int id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<FastingBloodSugar> streamByUserIdOrderByTestDateAscIdAsc(int userId);
 }
@@ -1,12 +1,62 @@
 package com.lakshan.medi_sync.repository;
 
+import com.lakshan.medi_sync.dto.FullBloodCountView;
 import com.lakshan.medi_sync.entity.FullBloodCount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface FullBloodCountRepository extends JpaRepository<FullBloodCount, Integer> {
+    String SELECT_VIEW = "select new com.lakshan.medi_sync.dto.FullBloodCountView(" +
+            "r.id, r.testDate, r.haemoglobin, r.totalLeucocyteCount, r.plateletCount, r.imageUrl, r.user.id) from FullBloodCount r ";
+    String NEWEST_FIRST = " order by r.testDate desc nulls first, r.id desc";
+
+    @EntityGraph(attributePaths = "user")
     List<FullBloodCount> findByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.testDate between :from and :to" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsByUserIdBetween(int userId, LocalDate from, LocalDate to);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.changeSeq > :after and r.changeSeq <= :upTo order by r.changeSeq")
+    List<FullBloodCountView> findViewsChanged(int userId, long after, long upTo);
+
+    @Query(SELECT_VIEW + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsPage(Limit limit);
+
+    @Query(SELECT_VIEW + "where (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsBefore(LocalDate testDate, int id, Limit limit);
+
+    /** After an undated record: the undated ones with a lower id, then every dated one. */
+    @Query(SELECT_VIEW + "where (r.testDate is null and r.id < :id) or r.testDate is not null" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsBeforeUndated(int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsByUserIdPage(int userId, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsByUserIdBefore(int userId, LocalDate testDate, int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and ((r.testDate is null and r.id < :id) or r.testDate is not null)" + NEWEST_FIRST)
+    List<FullBloodCountView> findViewsByUserIdBeforeUndated(int userId, int id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<FullBloodCount> streamByUserIdOrderByTestDateAscIdAsc(int userId);
 }
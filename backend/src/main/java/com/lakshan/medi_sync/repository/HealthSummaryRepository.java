@@ -0,0 +1,41 @@
+package com.lakshan.medi_sync.repository;
+
+import com.lakshan.medi_sync.entity.HealthSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HealthSummaryRepository extends JpaRepository<HealthSummary, HealthSummary.Key> {
+
+    /** A primary-key prefix read: one row per record type the user has. */
+    List<HealthSummary> findByIdUserIdOrderByIdRecordType(int userId);
+
+    /*
+     * Neither query can see the pending changes to other summary rows, so they
+     * skip the flush Hibernate would otherwise do before each one. Without
+     * that, locking a row for each of n users dirty-checks up to n summaries
+     * every time, which made bulk writes across many users quadratic.
+     */
+
+    /** Creates an empty row unless one exists, so there is always a row to lock. */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(value = "insert into user_health_summary (user_id, record_type, record_count) " +
+            "values (:userId, :recordType, 0) on conflict do nothing", nativeQuery = true)
+    void insertIfAbsent(int userId, String recordType);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("select s from HealthSummary s where s.id = :id")
+    Optional<HealthSummary> findForUpdate(HealthSummary.Key id);
+}
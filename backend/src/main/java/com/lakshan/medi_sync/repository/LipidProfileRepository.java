@@ -1,13 +1,62 @@
 package com.lakshan.medi_sync.repository;
 
+import com.lakshan.medi_sync.dto.LipidProfileView;
 import com.lakshan.medi_sync.entity.LipidProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface LipidProfileRepository extends JpaRepository<LipidProfile, Integer> {
+    String SELECT_VIEW = "select new com.lakshan.medi_sync.dto.LipidProfileView(" +
+            "r.id, r.testDate, r.totalCholesterol, r.hdl, r.ldl, r.vldl, r.triglycerides, r.imageUrl, r.user.id) from LipidProfile r ";
+    String NEWEST_FIRST = " order by r.testDate desc nulls first, r.id desc";
+
+    @EntityGraph(attributePaths = "user")
     List<LipidProfile> findByUserId(int userId);
-}
 
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.testDate between :from and :to" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsByUserIdBetween(int userId, LocalDate from, LocalDate to);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.changeSeq > :after and r.changeSeq <= :upTo order by r.changeSeq")
+    List<LipidProfileView> findViewsChanged(int userId, long after, long upTo);
+
+    @Query(SELECT_VIEW + NEWEST_FIRST)
+    List<LipidProfileView> findViewsPage(Limit limit);
+
+    @Query(SELECT_VIEW + "where (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsBefore(LocalDate testDate, int id, Limit limit);
+
+    /** After an undated record: the undated ones with a lower id, then every dated one. */
+    @Query(SELECT_VIEW + "where (r.testDate is null and r.id < :id) or r.testDate is not null" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsBeforeUndated(int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsByUserIdPage(int userId, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsByUserIdBefore(int userId, LocalDate testDate, int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and ((r.testDate is null and r.id < :id) or r.testDate is not null)" + NEWEST_FIRST)
+    List<LipidProfileView> findViewsByUserIdBeforeUndated(int userId, int id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LipidProfile> streamByUserIdOrderByTestDateAscIdAsc(int userId);
+}
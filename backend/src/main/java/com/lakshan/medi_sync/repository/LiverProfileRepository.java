@@ -1,12 +1,62 @@
 package com.lakshan.medi_sync.repository;
 
+import com.lakshan.medi_sync.dto.LiverProfileView;
 import com.lakshan.medi_sync.entity.LiverProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface LiverProfileRepository extends JpaRepository<LiverProfile, Integer> {
+    String SELECT_VIEW = "select new com.lakshan.medi_sync.dto.LiverProfileView(" +
+            "r.id, r.testDate, r.proteinTotalSerum, r.albuminSerum, r.bilirubinTotalSerum, r.sgpt, r.imageUrl, r.user.id) from LiverProfile r ";
+    String NEWEST_FIRST = " order by r.testDate desc nulls first, r.id desc";
+
+    @EntityGraph(attributePaths = "user")
     List<LiverProfile> findByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsByUserId(int userId);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.testDate between :from and :to" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsByUserIdBetween(int userId, LocalDate from, LocalDate to);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId and r.changeSeq > :after and r.changeSeq <= :upTo order by r.changeSeq")
+    List<LiverProfileView> findViewsChanged(int userId, long after, long upTo);
+
+    @Query(SELECT_VIEW + NEWEST_FIRST)
+    List<LiverProfileView> findViewsPage(Limit limit);
+
+    @Query(SELECT_VIEW + "where (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsBefore(LocalDate testDate, int id, Limit limit);
+
+    /** After an undated record: the undated ones with a lower id, then every dated one. */
+    @Query(SELECT_VIEW + "where (r.testDate is null and r.id < :id) or r.testDate is not null" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsBeforeUndated(int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsByUserIdPage(int userId, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and (r.testDate, r.id) < (:testDate, :id)" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsByUserIdBefore(int userId, LocalDate testDate, int id, Limit limit);
+
+    @Query(SELECT_VIEW + "where r.user.id = :userId " +
+            "and ((r.testDate is null and r.id < :id) or r.testDate is not null)" + NEWEST_FIRST)
+    List<LiverProfileView> findViewsByUserIdBeforeUndated(int userId, int id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LiverProfile> streamByUserIdOrderByTestDateAscIdAsc(int userId);
 }
@@ -1,24 +1,58 @@
 package com.lakshan.medi_sync.repository;
 
+import com.lakshan.medi_sync.dto.ReportLink;
 import com.lakshan.medi_sync.entity.Report;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReportRepository extends JpaRepository<Report, Integer> {
+    String SELECT_LINK = "select new com.lakshan.medi_sync.dto.ReportLink(r.id, r.reportDate, " +
+            "fbc.id, liver.id, urine.id, fbs.id, lipid.id, bp.id) " +
+            "from Report r " +
+            "left join r.fullBloodCount fbc left join r.liverProfile liver left join r.urineReport urine " +
+            "left join r.fastingBloodSugar fbs left join r.lipidProfile lipid left join r.bloodPressure bp ";
+
+    @EntityGraph(Report.WITH_RECORDS)
     List<Report> findByUserId(int userId);
 
+    @EntityGraph(Report.WITH_RECORDS)
+    List<Report> findByUserIdOrderByReportDateDescIdDesc(int userId);
+
+    @EntityGraph(Report.WITH_RECORDS)
+    List<Report> findByUserIdAndReportDateBetweenOrderByReportDateDescIdDesc(int userId, LocalDate from, LocalDate to);
+
+    @EntityGraph(Report.WITH_RECORDS)
     Report findByBloodPressureId(int id);
 
+    @EntityGraph(Report.WITH_RECORDS)
     Report findByFastingBloodSugarId(int id);
 
+    @EntityGraph(Report.WITH_RECORDS)
     Report findByFullBloodCountId(int id);
 
+    @EntityGraph(Report.WITH_RECORDS)
     Report findByLipidProfileId(int id);
 
+    @EntityGraph(Report.WITH_RECORDS)
     Report findByLiverProfileId(int id);
 
+    @EntityGraph(Report.WITH_RECORDS)
     Report findByUrineReportId(int id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_LINK + "where r.user.id = :userId order by r.reportDate asc, r.id asc")
+    Stream<ReportLink> streamLinksByUserId(int userId);
+
+    @Query(SELECT_LINK + "where r.user.id = :userId and r.changeSeq > :after and r.changeSeq <= :upTo order by r.changeSeq")
+    List<ReportLink> findLinksChanged(int userId, long after, long upTo);
 }
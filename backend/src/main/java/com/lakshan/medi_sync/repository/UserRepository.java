@@ -1,12 +1,33 @@
 package com.lakshan.medi_sync.repository;
 
 import com.lakshan.medi_sync.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
+
+    List<User> findAllByOrderByIdAsc(Limit limit);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+
+    /** The images of every record a user owns, which go with the user. */
+    @Query(value = "select image_url from fbs where user_id = :id and image_url is not null " +
+            "union all select image_url from blood_pressure where user_id = :id and image_url is not null " +
+            "union all select image_url from fbc where user_id = :id and image_url is not null " +
+            "union all select image_url from lipid_profile where user_id = :id and image_url is not null " +
+            "union all select image_url from liver_profile where user_id = :id and image_url is not null " +
+            "union all select image_url from urine_report where user_id = :id and image_url is not null",
+            nativeQuery = true)
+    List<String> findRecordImageUrls(int id);
 }
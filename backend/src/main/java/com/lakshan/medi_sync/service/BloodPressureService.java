@@ -1,40 +1,88 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.DateRange;
+import com.lakshan.medi_sync.dto.RecordCursor;
+import com.lakshan.medi_sync.dto.BloodPressureView;
 import com.lakshan.medi_sync.entity.BloodPressure;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.repository.BloodPressureRepository;
 import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class BloodPressureService {
 
     private final BloodPressureRepository bpRepository;
     private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public BloodPressureService(BloodPressureRepository bpRepository, ReportRepository reportRepository) {
+    public BloodPressureService(
+            BloodPressureRepository bpRepository,
+            ReportRepository reportRepository,
+            UserRepository userRepository,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ApplicationEventPublisher eventPublisher
+    ) {
         this.bpRepository = bpRepository;
         this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public void addNewBloodPressureRecord(BloodPressure bloodPressure) {
+        changeLog.stamp(bloodPressure);
         bpRepository.save(bloodPressure);
 
         Report report = new Report();
         report.setUser(bloodPressure.getUser());
         report.setBloodPressure(bloodPressure);
         report.setReportDate(bloodPressure.getTestDate());
+        report.setChangeSeq(bloodPressure.getChangeSeq());
         reportRepository.save(report);
+
+        trendService.add(bloodPressure);
+        summaryService.add(bloodPressure);
+        versionService.bump(bloodPressure);
     }
 
-    public List<BloodPressure> getAllBloodPressureRecords() {
-        return bpRepository.findAll();
+    public CursorPage<BloodPressureView> getBloodPressureRecordsPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<BloodPressureView> rows;
+        if (cursor == null) {
+            rows = bpRepository.findViewsPage(Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? bpRepository.findViewsBeforeUndated(after.id(), Limit.of(limit + 1))
+                    : bpRepository.findViewsBefore(after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     public BloodPressure getBloodPressureRecordById(int id) {
@@ -42,31 +90,101 @@ public class BloodPressureService {
                 new IllegalArgumentException("Record not found"));
     }
 
-    public List<BloodPressure> getBloodPressureRecordsByUserId(int userId) {
-        if (bpRepository.findByUserId(userId).isEmpty()) {
+    public List<BloodPressureView> getBloodPressureRecordsByUserId(int userId) {
+        List<BloodPressureView> records = bpRepository.findViewsByUserId(userId);
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return bpRepository.findByUserId(userId);
+        return records;
+    }
+
+    public List<BloodPressureView> getBloodPressureRecordsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getBloodPressureRecordsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<BloodPressureView> records = bpRepository.findViewsByUserIdBetween(userId, range.from(), range.to());
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return records;
+    }
+
+    public CursorPage<BloodPressureView> getBloodPressureRecordsPageByUserId(int userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<BloodPressureView> rows;
+        if (cursor == null) {
+            rows = bpRepository.findViewsByUserIdPage(userId, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? bpRepository.findViewsByUserIdBeforeUndated(userId, after.id(), Limit.of(limit + 1))
+                    : bpRepository.findViewsByUserIdBefore(userId, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
+    }
+
+    /**
+     * Readings across all users with a systolic pressure of at least
+     * {@code minSystolic}, taken within {@code window} before {@code today},
+     * newest first. Readings whose {@code bpLevel} could not be parsed are
+     * never returned.
+     */
+    public CursorPage<BloodPressureView> getBloodPressureRecordsBySystolic(
+            int minSystolic, Period window, LocalDate today, String cursor, Integer size
+    ) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        LocalDate since = today.minus(window);
+        int limit = CursorPage.clampSize(size);
+        List<BloodPressureView> rows;
+        if (cursor == null) {
+            rows = bpRepository.findViewsBySystolicSince(minSystolic, since, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = bpRepository.findViewsBySystolicSinceBefore(
+                    minSystolic, since, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     @Transactional
     public void updateBloodPressureRecord(BloodPressure bloodPressure) {
-        if (bpRepository.existsById(bloodPressure.getId())) {
+        Optional<BloodPressure> existing = bpRepository.findById(bloodPressure.getId());
+        if (existing.isPresent()) {
+            List<MetricSample> previous = trendService.samples(existing.get());
+            HealthSummaryService.Snapshot stored = summaryService.snapshot(existing.get());
+            changeLog.stampUpdate(existing.get(), bloodPressure);
+            versionService.bump(existing.get(), bloodPressure);
             bpRepository.save(bloodPressure);
 
             Report report = reportRepository.findByBloodPressureId(bloodPressure.getId());
             report.setUser(bloodPressure.getUser());
             report.setBloodPressure(bloodPressure);
             report.setReportDate(bloodPressure.getTestDate());
+            report.setChangeSeq(bloodPressure.getChangeSeq());
             reportRepository.save(report);
+
+            trendService.replace(previous, bloodPressure);
+            summaryService.replace(stored, bloodPressure);
         } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteBloodPressureRecord(int id) {
-        if (bpRepository.existsById(id))
-            bpRepository.deleteById(id);
-        else
+        Optional<BloodPressure> existing = bpRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.recordDeleted(existing.get());
+            bpRepository.delete(existing.get());
+            trendService.remove(existing.get());
+            summaryService.remove(existing.get());
+            versionService.bump(existing.get());
+            if (existing.get().getImageUrl() != null) {
+                eventPublisher.publishEvent(new RecordImagesDeleted(List.of(existing.get().getImageUrl())));
+            }
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
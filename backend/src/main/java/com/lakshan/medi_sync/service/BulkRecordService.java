@@ -0,0 +1,334 @@
+package com.lakshan.medi_sync.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.BulkIngestResult;
+import com.lakshan.medi_sync.dto.BulkItemError;
+import com.lakshan.medi_sync.dto.BulkRecordItem;
+import com.lakshan.medi_sync.entity.BloodPressure;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.FullBloodCount;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.LipidProfile;
+import com.lakshan.medi_sync.entity.LiverProfile;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.Report;
+import com.lakshan.medi_sync.entity.UrineReport;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+public class BulkRecordService {
+
+    public static final int MAX_ITEMS = 5000;
+
+    /** Matches hibernate.jdbc.batch_size and the id sequences' allocation size. */
+    static final int BATCH_SIZE = 50;
+
+    private static final String BUMP_REPORT =
+            "update reports set change_seq = ?1, updated_at = ?2 where %s_id = ?3";
+
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+
+    @Autowired
+    public BulkRecordService(
+            EntityManager entityManager,
+            UserRepository userRepository,
+            ObjectMapper objectMapper,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService
+    ) {
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+    }
+
+    /**
+     * Inserts every valid item and its report in one transaction. Items are
+     * validated up front and owners are checked with a single query, so a bad
+     * item is reported and skipped instead of failing the upload. Each owner's
+     * change log advances once for all of their records. The
+     * persistence context is flushed and cleared every {@link #BATCH_SIZE}
+     * items, which lets Hibernate send the inserts as JDBC batches grouped by
+     * table and keeps memory flat for large uploads. Trend aggregates are
+     * updated once per flush, with readings in the same month folded together,
+     * and each affected health summary row and record version is updated once
+     * at the end.
+     */
+    @Transactional
+    public BulkIngestResult ingest(List<BulkRecordItem> items) {
+        if (items.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("A bulk upload may contain at most " + MAX_ITEMS + " records");
+        }
+
+        List<BulkItemError> errors = new ArrayList<>();
+        List<HealthRecord> records = new ArrayList<>(items.size());
+        List<Integer> indexes = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                HealthRecord record = parse(items.get(i));
+                records.add(record);
+                indexes.add(i);
+            } catch (IllegalArgumentException e) {
+                errors.add(new BulkItemError(i, e.getMessage()));
+            }
+        }
+
+        int inserted = insert(records, indexes, errors);
+
+        errors.sort(Comparator.comparingInt(BulkItemError::index));
+        return new BulkIngestResult(items.size(), inserted, errors);
+    }
+
+    /**
+     * Inserts parsed records and their reports in the caller's transaction,
+     * as {@link #ingest} describes. A record whose owner does not exist is
+     * skipped and reported in {@code errors} under its entry in
+     * {@code indexes}. Returns how many were inserted.
+     */
+    int insert(List<HealthRecord> records, List<Integer> indexes, List<BulkItemError> errors) {
+        Set<Integer> userIds = new HashSet<>();
+        for (HealthRecord record : records) {
+            userIds.add(record.getUser().getId());
+        }
+        Set<Integer> existingUsers = userIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userRepository.findExistingIds(userIds));
+        changeLog.stampAll(records.stream()
+                .filter(record -> existingUsers.contains(record.getUser().getId()))
+                .toList());
+
+        int inserted = 0;
+        List<HealthRecord> batch = new ArrayList<>(BATCH_SIZE);
+        List<HealthRecord> saved = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            HealthRecord record = records.get(i);
+            int userId = record.getUser().getId();
+            if (!existingUsers.contains(userId)) {
+                errors.add(new BulkItemError(indexes.get(i), "User not found with id: " + userId));
+                continue;
+            }
+
+            record.setUser(entityManager.getReference(User.class, userId));
+            entityManager.persist(record);
+            entityManager.persist(Report.forRecord(record));
+            batch.add(record);
+            saved.add(record);
+
+            if (++inserted % BATCH_SIZE == 0) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+        summaryService.addAll(saved);
+        versionService.bumpAll(saved);
+        return inserted;
+    }
+
+    /**
+     * Writes records over the stored ones they replace, the newest of the same
+     * user, type and test date, and removes them from {@code records} and
+     * {@code indexes} so that the rest can be passed to {@link #insert}. Of
+     * several records for one stored record the last is written. The stored
+     * record keeps its id, image and report, takes the results the import
+     * sent, and changes as an edit would. Returns how many were replaced.
+     */
+    int replaceSameDay(List<HealthRecord> records, List<Integer> indexes) {
+        Map<SameDay, HealthRecord> stored = findSameDay(records);
+        if (stored.isEmpty()) {
+            return 0;
+        }
+        // Summary and version rows are locked in user and type order
+        Map<SameDay, HealthRecord> replacements = new TreeMap<>(SameDay.ORDER);
+        List<HealthRecord> unmatched = new ArrayList<>(records.size());
+        List<Integer> unmatchedIndexes = new ArrayList<>(records.size());
+        int replaced = 0;
+        for (int i = 0; i < records.size(); i++) {
+            SameDay day = SameDay.of(records.get(i));
+            if (stored.containsKey(day)) {
+                replacements.put(day, records.get(i));
+                replaced++;
+            } else {
+                unmatched.add(records.get(i));
+                unmatchedIndexes.add(indexes.get(i));
+            }
+        }
+        replacements.forEach((day, record) -> replace(stored.get(day), record));
+        records.clear();
+        records.addAll(unmatched);
+        indexes.clear();
+        indexes.addAll(unmatchedIndexes);
+        return replaced;
+    }
+
+    /** The newest stored record of each user, type and test date among {@code records}. */
+    private Map<SameDay, HealthRecord> findSameDay(List<HealthRecord> records) {
+        Map<RecordType, List<HealthRecord>> byType = new EnumMap<>(RecordType.class);
+        for (HealthRecord record : records) {
+            byType.computeIfAbsent(RecordType.of(record), type -> new ArrayList<>()).add(record);
+        }
+        Map<SameDay, HealthRecord> stored = new HashMap<>();
+        byType.forEach((type, ofType) -> {
+            Set<Integer> userIds = new HashSet<>();
+            Set<LocalDate> dates = new HashSet<>();
+            for (HealthRecord record : ofType) {
+                userIds.add(record.getUser().getId());
+                dates.add(record.getTestDate());
+            }
+            // Ascending ids, so the newest of several on one day is kept
+            entityManager.createQuery("select r from " + type.getEntityClass().getSimpleName() + " r " +
+                            "where r.user.id in :userIds and r.testDate in :dates order by r.id", type.getEntityClass())
+                    .setParameter("userIds", userIds)
+                    .setParameter("dates", dates)
+                    .getResultList()
+                    .forEach(record -> stored.put(SameDay.of(record), record));
+        });
+        return stored;
+    }
+
+    private void replace(HealthRecord stored, HealthRecord replacement) {
+        List<MetricSample> previous = trendService.samples(stored);
+        HealthSummaryService.Snapshot snapshot = summaryService.snapshot(stored);
+        copyResults(replacement, stored);
+        changeLog.stampUpdate(stored, stored);
+        versionService.bump(stored);
+
+        // The report carries the record's number, as on any other update
+        entityManager.createNativeQuery(BUMP_REPORT.formatted(RecordType.of(stored).getCode()))
+                .setParameter(1, stored.getChangeSeq())
+                .setParameter(2, Timestamp.from(Instant.now()))
+                .setParameter(3, stored.getId())
+                .executeUpdate();
+
+        trendService.replace(previous, stored);
+        summaryService.replace(snapshot, stored);
+    }
+
+    /**
+     * Copies the results an import sets onto a stored record of the same type.
+     * Numeric results always come in full; urine text results may be missing,
+     * and a missing one leaves the stored value as it was.
+     */
+    private static void copyResults(HealthRecord from, HealthRecord to) {
+        switch (RecordType.of(from)) {
+            case FASTING_BLOOD_SUGAR -> ((FastingBloodSugar) to).setFbsLevel(((FastingBloodSugar) from).getFbsLevel());
+            case BLOOD_PRESSURE -> ((BloodPressure) to).setBpLevel(((BloodPressure) from).getBpLevel());
+            case FULL_BLOOD_COUNT -> {
+                FullBloodCount fbc = (FullBloodCount) from;
+                FullBloodCount target = (FullBloodCount) to;
+                target.setHaemoglobin(fbc.getHaemoglobin());
+                target.setTotalLeucocyteCount(fbc.getTotalLeucocyteCount());
+                target.setPlateletCount(fbc.getPlateletCount());
+            }
+            case LIPID_PROFILE -> {
+                LipidProfile lipid = (LipidProfile) from;
+                LipidProfile target = (LipidProfile) to;
+                target.setTotalCholesterol(lipid.getTotalCholesterol());
+                target.setHdl(lipid.getHdl());
+                target.setLdl(lipid.getLdl());
+                target.setVldl(lipid.getVldl());
+                target.setTriglycerides(lipid.getTriglycerides());
+            }
+            case LIVER_PROFILE -> {
+                LiverProfile liver = (LiverProfile) from;
+                LiverProfile target = (LiverProfile) to;
+                target.setProteinTotalSerum(liver.getProteinTotalSerum());
+                target.setAlbuminSerum(liver.getAlbuminSerum());
+                target.setBilirubinTotalSerum(liver.getBilirubinTotalSerum());
+                target.setSgpt(liver.getSgpt());
+            }
+            case URINE_REPORT -> {
+                UrineReport urine = (UrineReport) from;
+                UrineReport target = (UrineReport) to;
+                if (urine.getColor() != null) {
+                    target.setColor(urine.getColor());
+                }
+                if (urine.getAppearance() != null) {
+                    target.setAppearance(urine.getAppearance());
+                }
+                if (urine.getProtein() != null) {
+                    target.setProtein(urine.getProtein());
+                }
+                if (urine.getSugar() != null) {
+                    target.setSugar(urine.getSugar());
+                }
+                target.setSpecificGravity(urine.getSpecificGravity());
+            }
+        }
+    }
+
+    private void flush(List<HealthRecord> batch) {
+        entityManager.flush();
+        entityManager.clear();
+        trendService.addAll(batch);
+        batch.clear();
+    }
+
+    private HealthRecord parse(BulkRecordItem item) {
+        if (item == null || item.type() == null || item.record() == null) {
+            throw new IllegalArgumentException("Each item needs a type and a record");
+        }
+        RecordType type = RecordType.fromCode(item.type());
+
+        HealthRecord record;
+        try {
+            record = objectMapper.treeToValue(item.record(), type.getEntityClass());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid " + type.getCode() + " record: " + e.getOriginalMessage());
+        }
+
+        if (record.getId() != 0) {
+            throw new IllegalArgumentException("New records must not have an id");
+        }
+        if (record.getTestDate() == null) {
+            throw new IllegalArgumentException("testDate is required");
+        }
+        if (record.getUser() == null || record.getUser().getId() == 0) {
+            throw new IllegalArgumentException("user.id is required");
+        }
+        return record;
+    }
+
+    /** A user's records of one type on one day, which an import treats as one. */
+    record SameDay(int userId, RecordType type, LocalDate testDate) {
+
+        static final Comparator<SameDay> ORDER = Comparator.comparingInt(SameDay::userId)
+                .thenComparing(day -> day.type().getCode())
+                .thenComparing(SameDay::testDate);
+
+        static SameDay of(HealthRecord record) {
+            return new SameDay(record.getUser().getId(), RecordType.of(record), record.getTestDate());
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.DeletedRecord;
+import com.lakshan.medi_sync.dto.RecordView;
+import com.lakshan.medi_sync.dto.ReportLink;
+import com.lakshan.medi_sync.dto.SyncToken;
+import com.lakshan.medi_sync.dto.TimelineEntry;
+import com.lakshan.medi_sync.dto.UserChanges;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.Report;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A change log per user for delta sync. Every write to a user's records and
+ * reports takes the next number from the user's row in
+ * {@code change_sequences} and stores it in the row's {@code change_seq};
+ * deletes store it in a tombstone instead. A sync reads the user's counter
+ * first and then every row numbered after the client's token up to it.
+ * <p>
+ * The write methods must run inside the write's transaction. The counter row
+ * stays locked until it commits, so a user's numbers are committed in order
+ * and once a sync has read the counter every change up to it is visible.
+ * Counters are always taken before the other per-user rows a write locks
+ * ({@code record_versions}, trends, summaries), in user id order.
+ */
+@Service
+public class ChangeLogService {
+
+    /** Tombstone type for a report deleted or moved on its own. */
+    public static final String REPORT = "report";
+
+    private static final String ADVANCE =
+            "update change_sequences set last_seq = last_seq + ? where user_id = ?";
+
+    private static final String ENSURE_ROW =
+            "insert into change_sequences (user_id, last_seq) values (?, 0) on conflict do nothing";
+
+    private static final String FIND_LAST =
+            "select last_seq from change_sequences where user_id = ?";
+
+    private static final String INSERT_TOMBSTONE =
+            "insert into record_tombstones (user_id, record_type, record_id, change_seq, deleted_at) values (?, ?, ?, ?, ?)";
+
+    /** The report of a record, by the record type code its column is named after. */
+    private static final String FIND_REPORT =
+            "select id, user_id from reports where %s_id = ?";
+
+    private static final String FIND_TOMBSTONES =
+            "select record_type, record_id from record_tombstones " +
+            "where user_id = ? and change_seq > ? and change_seq <= ? order by change_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final ReportRepository reportRepository;
+    private final FastingBloodSugarRepository fbsRepository;
+    private final BloodPressureRepository bpRepository;
+    private final FullBloodCountRepository fbcRepository;
+    private final LipidProfileRepository lipidRepository;
+    private final LiverProfileRepository liverRepository;
+    private final UrineReportRepository urineRepository;
+
+    @Autowired
+    public ChangeLogService(
+            JdbcTemplate jdbcTemplate,
+            UserRepository userRepository,
+            ReportRepository reportRepository,
+            FastingBloodSugarRepository fbsRepository,
+            BloodPressureRepository bpRepository,
+            FullBloodCountRepository fbcRepository,
+            LipidProfileRepository lipidRepository,
+            LiverProfileRepository liverRepository,
+            UrineReportRepository urineRepository
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.reportRepository = reportRepository;
+        this.fbsRepository = fbsRepository;
+        this.bpRepository = bpRepository;
+        this.fbcRepository = fbcRepository;
+        this.lipidRepository = lipidRepository;
+        this.liverRepository = liverRepository;
+        this.urineRepository = urineRepository;
+    }
+
+    /** Numbers a new record before it is saved. Its report takes the same number. */
+    public void stamp(HealthRecord record) {
+        Integer owner = ownerId(record.getUser());
+        if (owner != null) {
+            record.setChangeSeq(reserve(owner, 1));
+        }
+    }
+
+    /**
+     * Numbers new records before they are saved, with one counter update per
+     * user however many records the user has.
+     */
+    public void stampAll(Collection<? extends HealthRecord> records) {
+        Map<Integer, List<HealthRecord>> byOwner = new TreeMap<>();
+        for (HealthRecord record : records) {
+            Integer owner = ownerId(record.getUser());
+            if (owner != null) {
+                byOwner.computeIfAbsent(owner, id -> new ArrayList<>()).add(record);
+            }
+        }
+        byOwner.forEach((owner, owned) -> {
+            long seq = reserve(owner, owned.size());
+            for (HealthRecord record : owned) {
+                record.setChangeSeq(seq++);
+            }
+        });
+    }
+
+    /**
+     * Numbers an update before it is saved over {@code stored}. If the record
+     * moves to another user it leaves a tombstone in the old owner's log.
+     */
+    public void stampUpdate(HealthRecord stored, HealthRecord updated) {
+        updated.setChangeSeq(advance(ownerId(stored.getUser()), ownerId(updated.getUser()),
+                RecordType.of(stored).getCode(), stored.getId()));
+    }
+
+    public void stampUpdate(Report stored, Report updated) {
+        updated.setChangeSeq(advance(ownerId(stored.getUser()), ownerId(updated.getUser()),
+                REPORT, stored.getId()));
+    }
+
+    /**
+     * Leaves tombstones for a deleted record and for its report, which the
+     * foreign key deletes with it. Both take the same number.
+     */
+    public void recordDeleted(HealthRecord record) {
+        String type = RecordType.of(record).getCode();
+        Integer owner = ownerId(record.getUser());
+        List<Integer[]> reports = jdbcTemplate.query(FIND_REPORT.formatted(type),
+                (rs, row) -> new Integer[]{rs.getInt(1), (Integer) rs.getObject(2, Integer.class)}, record.getId());
+
+        // A report moved to another user on its own is that user's delete; counters are taken in user id order
+        List<Integer[]> elsewhere = new ArrayList<>();
+        for (Integer[] report : reports) {
+            if (report[1] != null && !report[1].equals(owner)) {
+                elsewhere.add(report);
+            }
+        }
+        for (Integer[] report : elsewhere) {
+            if (owner == null || report[1] < owner) {
+                tombstone(report[1], REPORT, report[0]);
+            }
+        }
+        if (owner != null) {
+            long seq = reserve(owner, 1);
+            insertTombstone(owner, type, record.getId(), seq);
+            for (Integer[] report : reports) {
+                if (owner.equals(report[1])) {
+                    insertTombstone(owner, REPORT, report[0], seq);
+                }
+            }
+            for (Integer[] report : elsewhere) {
+                if (report[1] > owner) {
+                    tombstone(report[1], REPORT, report[0]);
+                }
+            }
+        }
+    }
+
+    public void reportDeleted(Report report) {
+        Integer owner = ownerId(report.getUser());
+        if (owner != null) {
+            tombstone(owner, REPORT, report.getId());
+        }
+    }
+
+    /**
+     * What changed in a user's history after {@code token}; no token means
+     * from the beginning. When nothing has changed this reads only the user
+     * and the counter.
+     */
+    public UserChanges getChanges(int userId, String token) {
+        SyncToken since = SyncToken.decode(token);
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found with id: " + userId);
+        }
+
+        long upTo = current(userId);
+        long after = since.seq();
+        String next = new SyncToken(upTo).encode();
+        if (after >= upTo) {
+            return new UserChanges(userId, List.of(), List.of(), List.of(), next);
+        }
+
+        List<TimelineEntry> records = new ArrayList<>();
+        addAll(records, RecordType.FASTING_BLOOD_SUGAR, fbsRepository.findViewsChanged(userId, after, upTo));
+        addAll(records, RecordType.BLOOD_PRESSURE, bpRepository.findViewsChanged(userId, after, upTo));
+        addAll(records, RecordType.FULL_BLOOD_COUNT, fbcRepository.findViewsChanged(userId, after, upTo));
+        addAll(records, RecordType.LIPID_PROFILE, lipidRepository.findViewsChanged(userId, after, upTo));
+        addAll(records, RecordType.LIVER_PROFILE, liverRepository.findViewsChanged(userId, after, upTo));
+        addAll(records, RecordType.URINE_REPORT, urineRepository.findViewsChanged(userId, after, upTo));
+        List<ReportLink> reports = reportRepository.findLinksChanged(userId, after, upTo);
+        List<DeletedRecord> deleted = jdbcTemplate.query(FIND_TOMBSTONES,
+                (rs, row) -> new DeletedRecord(rs.getString(1), rs.getInt(2)), userId, after, upTo);
+
+        return new UserChanges(userId, records, reports, deleted, next);
+    }
+
+    /** The last number handed out to a user; 0 before their first write. */
+    long current(int userId) {
+        List<Long> last = jdbcTemplate.queryForList(FIND_LAST, Long.class, userId);
+        return last.isEmpty() ? 0 : last.get(0);
+    }
+
+    /** Takes {@code count} consecutive numbers from a user's counter and returns the first. */
+    private long reserve(int userId, int count) {
+        if (jdbcTemplate.update(ADVANCE, count, userId) == 0) {
+            jdbcTemplate.update(ENSURE_ROW, userId);
+            jdbcTemplate.update(ADVANCE, count, userId);
+        }
+        return current(userId) - count + 1;
+    }
+
+    private long advance(Integer from, Integer to, String type, int id) {
+        if (from == null || from.equals(to)) {
+            return to == null ? 0 : reserve(to, 1);
+        }
+        long seq = 0;
+        if (to != null && to < from) {
+            seq = reserve(to, 1);
+        }
+        tombstone(from, type, id);
+        if (to != null && to > from) {
+            seq = reserve(to, 1);
+        }
+        return seq;
+    }
+
+    private void tombstone(int userId, String type, int id) {
+        insertTombstone(userId, type, id, reserve(userId, 1));
+    }
+
+    private void insertTombstone(int userId, String type, int id, long seq) {
+        jdbcTemplate.update(INSERT_TOMBSTONE, userId, type, id, seq, Timestamp.from(Instant.now()));
+    }
+
+    private static Integer ownerId(User user) {
+        return user == null ? null : user.getId();
+    }
+
+    private static void addAll(List<TimelineEntry> entries, RecordType type, List<? extends RecordView> records) {
+        for (RecordView record : records) {
+            entries.add(TimelineEntry.of(type, record));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.EmailOutbox;
+import com.lakshan.medi_sync.entity.EmailStatus;
+import com.lakshan.medi_sync.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains {@code email_outbox}. Each run claims a batch of due rows and sends
+ * them on a fixed pool of sender threads, paced by a shared rate limiter to
+ * stay under the provider's request limit. With
+ * {@code spring.threads.virtual.enabled} each send gets its own virtual
+ * thread instead, still at most {@code concurrency} at a time.
+ * <p>
+ * Claiming locks the rows with {@code SKIP LOCKED} only long enough to move
+ * their {@code next_attempt_at} past the lease, then commits; the HTTP calls
+ * happen outside any transaction. If the process dies mid-send the lease
+ * expires and the row is picked up again, and the idempotency key stops the
+ * provider from delivering it twice.
+ * <p>
+ * Each provider call is timed as {@code email.send}, tagged with its outcome:
+ * {@code sent}, {@code retry} (failed, will be tried again) or {@code failed}
+ * (given up). The timer counts double as success and failure counters.
+ * Any other exception from a send counts as a retryable failure, so every
+ * attempt is recorded and {@code max-attempts} still ends it.
+ */
+@Component
+public class EmailDispatcher {
+
+    private final Logger logger = Logger.getLogger(EmailDispatcher.class.getName());
+
+    private final EmailOutboxRepository outboxRepository;
+    private final ResendClient resendClient;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor senders;
+    private final ExecutorService senderPool;
+    private final SendRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    @Autowired
+    public EmailDispatcher(
+            EmailOutboxRepository outboxRepository,
+            ResendClient resendClient,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${email.dispatch.batch-size:50}") int batchSize,
+            @Value("${email.dispatch.concurrency:4}") int concurrency,
+            @Value("${email.dispatch.rate-per-second:2}") double ratePerSecond,
+            @Value("${email.dispatch.max-attempts:8}") int maxAttempts,
+            @Value("${email.dispatch.lease:PT5M}") Duration lease,
+            @Value("${email.dispatch.initial-backoff:PT30S}") Duration initialBackoff,
+            @Value("${email.dispatch.max-backoff:PT6H}") Duration maxBackoff,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.resendClient = resendClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("email-sender-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(concurrency);
+            this.senderPool = null;
+            this.senders = executor;
+        } else {
+            this.senderPool = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("email-sender-"));
+            this.senders = new TaskExecutorAdapter(senderPool);
+        }
+        this.rateLimiter = new SendRateLimiter(ratePerSecond);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Sends one batch of due emails and waits for all of them to finish.
+     *
+     * @return the number of emails attempted
+     */
+    @Scheduled(fixedDelayString = "${email.dispatch.interval:PT5S}")
+    public int dispatch() {
+        List<EmailOutbox> claimed = transactionTemplate.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<?>> sends = new ArrayList<>(claimed.size());
+        for (EmailOutbox email : claimed) {
+            sends.add(senders.submit(() -> deliver(email)));
+        }
+        for (Future<?> send : sends) {
+            try {
+                send.get();
+            } catch (ExecutionException e) {
+                logger.log(Level.SEVERE, "Email dispatch failed: {0}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return claimed.size();
+    }
+
+    private List<EmailOutbox> claim() {
+        Instant now = Instant.now();
+        List<EmailOutbox> due = outboxRepository.lockDue(now, Limit.of(batchSize));
+        Instant leasedUntil = now.plus(lease);
+        for (EmailOutbox email : due) {
+            email.setNextAttemptAt(leasedUntil);
+        }
+        return due;
+    }
+
+    private void deliver(EmailOutbox email) {
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            // Left leased; it becomes due again when the lease runs out
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        email.setAttempts(email.getAttempts() + 1);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            resendClient.send("outbox-" + email.getId(), email.getRecipient(), email.getSubject(), email.getBody());
+            sample.stop(sendTimer("sent"));
+            email.setStatus(EmailStatus.SENT);
+            email.setSentAt(Instant.now());
+            email.setLastError(null);
+            logger.log(Level.INFO, "Email {0} sent to {1}", new Object[]{email.getId(), email.getRecipient()});
+        } catch (EmailSendException e) {
+            recordFailure(email, e.getMessage(), e.isRetryable(), e.getRetryAfter());
+            sample.stop(sendTimer(email.getStatus() == EmailStatus.FAILED ? "failed" : "retry"));
+        } catch (RuntimeException e) {
+            // Not an answer from the provider, so nothing says it is final; retried
+            // like one, it still stops at max-attempts instead of looping on the lease
+            recordFailure(email, e.toString(), true, null);
+            sample.stop(sendTimer(email.getStatus() == EmailStatus.FAILED ? "failed" : "retry"));
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.save(email));
+        }
+    }
+
+    private void recordFailure(EmailOutbox email, String error, boolean retryable, Duration retryAfter) {
+        email.setLastError(truncate(error));
+        if (!retryable || email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailStatus.FAILED);
+            logger.log(Level.SEVERE, "Email {0} failed after {1} attempts: {2}",
+                    new Object[]{email.getId(), email.getAttempts(), error});
+            return;
+        }
+
+        Duration delay = backoff(email.getAttempts());
+        if (retryAfter != null && retryAfter.compareTo(delay) > 0) {
+            delay = retryAfter;
+        }
+        email.setNextAttemptAt(Instant.now().plus(delay));
+        logger.log(Level.WARNING, "Email {0} will be retried in {1}: {2}",
+                new Object[]{email.getId(), delay, error});
+    }
+
+    private Timer sendTimer(String outcome) {
+        return Timer.builder("email.send")
+                .description("Calls to the email provider")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** Doubles from the initial backoff after each failed attempt, up to the maximum. */
+    Duration backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= 255) {
+            return message;
+        }
+        return message.substring(0, 255);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (senderPool != null) {
+            senderPool.shutdownNow();
+        }
+    }
+}
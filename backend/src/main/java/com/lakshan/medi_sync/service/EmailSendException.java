@@ -0,0 +1,28 @@
+package com.lakshan.medi_sync.service;
+
+import java.time.Duration;
+
+/**
+ * A failed send. {@code retryable} is false when the provider rejected the
+ * message itself (bad address, bad payload) and trying again cannot help.
+ * {@code retryAfter} is the provider's requested wait, when it gave one.
+ */
+public class EmailSendException extends RuntimeException {
+
+    private final boolean retryable;
+    private final Duration retryAfter;
+
+    public EmailSendException(String message, boolean retryable, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+        this.retryAfter = retryAfter;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,120 @@
+package com.lakshan.medi_sync.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.lakshan.medi_sync.dto.ReportLink;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a user's full history as gzip-compressed NDJSON: one {@code user}
+ * line, then one line per record oldest first, then one line per report.
+ * Rows are read through database cursors and detached once written, so
+ * memory use does not depend on how long the history is.
+ */
+@Service
+public class ExportService {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final EntityManager entityManager;
+    private final ObjectWriter lineWriter;
+    private final UserRepository userRepository;
+    private final FastingBloodSugarRepository fbsRepository;
+    private final BloodPressureRepository bpRepository;
+    private final FullBloodCountRepository fbcRepository;
+    private final LipidProfileRepository lipidRepository;
+    private final LiverProfileRepository liverRepository;
+    private final UrineReportRepository urineRepository;
+    private final ReportRepository reportRepository;
+
+    @Autowired
+    public ExportService(
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            UserRepository userRepository,
+            FastingBloodSugarRepository fbsRepository,
+            BloodPressureRepository bpRepository,
+            FullBloodCountRepository fbcRepository,
+            LipidProfileRepository lipidRepository,
+            LiverProfileRepository liverRepository,
+            UrineReportRepository urineRepository,
+            ReportRepository reportRepository
+    ) {
+        this.entityManager = entityManager;
+        ObjectMapper exportMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        for (RecordType type : RecordType.values()) {
+            // The owner is written once at the top, not repeated on every record line.
+            exportMapper.addMixIn(type.getEntityClass(), WithoutUser.class);
+        }
+        this.lineWriter = exportMapper.writer().withRootValueSeparator("\n");
+        this.userRepository = userRepository;
+        this.fbsRepository = fbsRepository;
+        this.bpRepository = bpRepository;
+        this.fbcRepository = fbcRepository;
+        this.lipidRepository = lipidRepository;
+        this.liverRepository = liverRepository;
+        this.urineRepository = urineRepository;
+        this.reportRepository = reportRepository;
+    }
+
+    @Transactional
+    public void writeExport(int userId, OutputStream out) throws IOException {
+        User user = userRepository.findById(userId).orElseThrow(() ->
+                new IllegalArgumentException("User not found with id: " + userId));
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        try (SequenceWriter lines = lineWriter.writeValues(gzip)) {
+            lines.write(new ExportLine("user", user));
+
+            writeRecords(lines, fbsRepository.streamByUserIdOrderByTestDateAscIdAsc(userId));
+            writeRecords(lines, bpRepository.streamByUserIdOrderByTestDateAscIdAsc(userId));
+            writeRecords(lines, fbcRepository.streamByUserIdOrderByTestDateAscIdAsc(userId));
+            writeRecords(lines, lipidRepository.streamByUserIdOrderByTestDateAscIdAsc(userId));
+            writeRecords(lines, liverRepository.streamByUserIdOrderByTestDateAscIdAsc(userId));
+            writeRecords(lines, urineRepository.streamByUserIdOrderByTestDateAscIdAsc(userId));
+
+            try (Stream<ReportLink> reports = reportRepository.streamLinksByUserId(userId)) {
+                Iterator<ReportLink> iterator = reports.iterator();
+                while (iterator.hasNext()) {
+                    lines.write(new ExportLine("report", iterator.next()));
+                }
+            }
+        }
+        gzip.finish();
+        gzip.flush();
+    }
+
+    private void writeRecords(SequenceWriter lines, Stream<? extends HealthRecord> records) throws IOException {
+        try (records) {
+            Iterator<? extends HealthRecord> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                HealthRecord record = iterator.next();
+                lines.write(new ExportLine(RecordType.of(record).getCode(), record));
+                entityManager.detach(record);
+            }
+        }
+    }
+
+    record ExportLine(String type, Object data) {
+    }
+
+    @JsonIgnoreProperties("user")
+    private interface WithoutUser {
+    }
+}
@@ -1,48 +1,87 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.DateRange;
+import com.lakshan.medi_sync.dto.RecordCursor;
+import com.lakshan.medi_sync.dto.FastingBloodSugarView;
 import com.lakshan.medi_sync.entity.FastingBloodSugar;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.repository.FastingBloodSugarRepository;
 import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class FastingBloodSugarService {
 
     private final FastingBloodSugarRepository fbsRepository;
     private final ReportRepository reportRepository;
-    private final EmailService emailService;
+    private final UserRepository userRepository;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public FastingBloodSugarService(
             FastingBloodSugarRepository fbsRepository,
             ReportRepository reportRepository,
-            EmailService emailService
+            UserRepository userRepository,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.fbsRepository = fbsRepository;
         this.reportRepository = reportRepository;
-        this.emailService = emailService;
+        this.userRepository = userRepository;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public void addNewFastingBloodSugarRecord(FastingBloodSugar fastingBloodSugar) {
+        changeLog.stamp(fastingBloodSugar);
         fbsRepository.save(fastingBloodSugar);
 
         Report report = new Report();
         report.setUser(fastingBloodSugar.getUser());
         report.setFastingBloodSugar(fastingBloodSugar);
         report.setReportDate(fastingBloodSugar.getTestDate());
+        report.setChangeSeq(fastingBloodSugar.getChangeSeq());
         reportRepository.save(report);
 
-        emailService.createEmailFormat(fastingBloodSugar);
+        trendService.add(fastingBloodSugar);
+        summaryService.add(fastingBloodSugar);
+        versionService.bump(fastingBloodSugar);
     }
 
-    public List<FastingBloodSugar> getAllFastingBloodSugarRecords() {
-        return fbsRepository.findAll();
+    public CursorPage<FastingBloodSugarView> getFastingBloodSugarRecordsPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<FastingBloodSugarView> rows;
+        if (cursor == null) {
+            rows = fbsRepository.findViewsPage(Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? fbsRepository.findViewsBeforeUndated(after.id(), Limit.of(limit + 1))
+                    : fbsRepository.findViewsBefore(after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     public FastingBloodSugar getFastingBloodSugarRecordById(int id) {
@@ -50,31 +89,76 @@ public class FastingBloodSugarService {
                 new IllegalArgumentException("Record not found"));
     }
 
-    public List<FastingBloodSugar> getFastingBloodSugarRecordsByUserId(int userId) {
-        if (fbsRepository.findByUserId(userId).isEmpty()) {
+    public List<FastingBloodSugarView> getFastingBloodSugarRecordsByUserId(int userId) {
+        List<FastingBloodSugarView> records = fbsRepository.findViewsByUserId(userId);
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return records;
+    }
+
+    public List<FastingBloodSugarView> getFastingBloodSugarRecordsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getFastingBloodSugarRecordsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<FastingBloodSugarView> records = fbsRepository.findViewsByUserIdBetween(userId, range.from(), range.to());
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return fbsRepository.findByUserId(userId);
+        return records;
+    }
+
+    public CursorPage<FastingBloodSugarView> getFastingBloodSugarRecordsPageByUserId(int userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<FastingBloodSugarView> rows;
+        if (cursor == null) {
+            rows = fbsRepository.findViewsByUserIdPage(userId, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? fbsRepository.findViewsByUserIdBeforeUndated(userId, after.id(), Limit.of(limit + 1))
+                    : fbsRepository.findViewsByUserIdBefore(userId, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     @Transactional
     public void updateFastingBloodSugarRecord(FastingBloodSugar fastingBloodSugar) {
-        if (fbsRepository.existsById(fastingBloodSugar.getId())) {
+        Optional<FastingBloodSugar> existing = fbsRepository.findById(fastingBloodSugar.getId());
+        if (existing.isPresent()) {
+            List<MetricSample> previous = trendService.samples(existing.get());
+            HealthSummaryService.Snapshot stored = summaryService.snapshot(existing.get());
+            changeLog.stampUpdate(existing.get(), fastingBloodSugar);
+            versionService.bump(existing.get(), fastingBloodSugar);
             fbsRepository.save(fastingBloodSugar);
 
             Report report = reportRepository.findByFastingBloodSugarId(fastingBloodSugar.getId());
             report.setUser(fastingBloodSugar.getUser());
             report.setFastingBloodSugar(fastingBloodSugar);
             report.setReportDate(fastingBloodSugar.getTestDate());
+            report.setChangeSeq(fastingBloodSugar.getChangeSeq());
             reportRepository.save(report);
+
+            trendService.replace(previous, fastingBloodSugar);
+            summaryService.replace(stored, fastingBloodSugar);
         } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteFastingBloodSugarRecord(int id) {
-        if (fbsRepository.existsById(id))
-            fbsRepository.deleteById(id);
-        else
+        Optional<FastingBloodSugar> existing = fbsRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.recordDeleted(existing.get());
+            fbsRepository.delete(existing.get());
+            trendService.remove(existing.get());
+            summaryService.remove(existing.get());
+            versionService.bump(existing.get());
+            if (existing.get().getImageUrl() != null) {
+                eventPublisher.publishEvent(new RecordImagesDeleted(List.of(existing.get().getImageUrl())));
+            }
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
@@ -1,40 +1,87 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.DateRange;
+import com.lakshan.medi_sync.dto.RecordCursor;
+import com.lakshan.medi_sync.dto.FullBloodCountView;
 import com.lakshan.medi_sync.entity.FullBloodCount;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.repository.FullBloodCountRepository;
 import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class FullBloodCountService {
 
     private final FullBloodCountRepository fbcRepository;
     private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public FullBloodCountService(FullBloodCountRepository fbcRepository, ReportRepository reportRepository) {
+    public FullBloodCountService(
+            FullBloodCountRepository fbcRepository,
+            ReportRepository reportRepository,
+            UserRepository userRepository,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ApplicationEventPublisher eventPublisher
+    ) {
         this.fbcRepository = fbcRepository;
         this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public void addNewFullBloodCount(FullBloodCount fullBloodCount) {
+        changeLog.stamp(fullBloodCount);
         fbcRepository.save(fullBloodCount);
 
         Report report = new Report();
         report.setUser(fullBloodCount.getUser());
         report.setFullBloodCount(fullBloodCount);
         report.setReportDate(fullBloodCount.getTestDate());
+        report.setChangeSeq(fullBloodCount.getChangeSeq());
         reportRepository.save(report);
+
+        trendService.add(fullBloodCount);
+        summaryService.add(fullBloodCount);
+        versionService.bump(fullBloodCount);
     }
 
-    public List<FullBloodCount> getAllFullBloodCountRecords() {
-        return fbcRepository.findAll();
+    public CursorPage<FullBloodCountView> getFullBloodCountRecordsPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<FullBloodCountView> rows;
+        if (cursor == null) {
+            rows = fbcRepository.findViewsPage(Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? fbcRepository.findViewsBeforeUndated(after.id(), Limit.of(limit + 1))
+                    : fbcRepository.findViewsBefore(after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     public FullBloodCount getFullBloodCountRecordById(int id) {
@@ -42,31 +89,76 @@ public class FullBloodCountService {
                 new IllegalArgumentException("Record not found"));
     }
 
-    public List<FullBloodCount> getFullBloodCountRecordsByUserId(int userId) {
-        if (fbcRepository.findByUserId(userId).isEmpty()) {
+    public List<FullBloodCountView> getFullBloodCountRecordsByUserId(int userId) {
+        List<FullBloodCountView> records = fbcRepository.findViewsByUserId(userId);
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return records;
+    }
+
+    public List<FullBloodCountView> getFullBloodCountRecordsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getFullBloodCountRecordsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<FullBloodCountView> records = fbcRepository.findViewsByUserIdBetween(userId, range.from(), range.to());
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return fbcRepository.findByUserId(userId);
+        return records;
+    }
+
+    public CursorPage<FullBloodCountView> getFullBloodCountRecordsPageByUserId(int userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<FullBloodCountView> rows;
+        if (cursor == null) {
+            rows = fbcRepository.findViewsByUserIdPage(userId, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? fbcRepository.findViewsByUserIdBeforeUndated(userId, after.id(), Limit.of(limit + 1))
+                    : fbcRepository.findViewsByUserIdBefore(userId, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     @Transactional
     public void updateFullBloodCountRecord(FullBloodCount fullBloodCount) {
-        if (fbcRepository.existsById(fullBloodCount.getId())) {
+        Optional<FullBloodCount> existing = fbcRepository.findById(fullBloodCount.getId());
+        if (existing.isPresent()) {
+            List<MetricSample> previous = trendService.samples(existing.get());
+            HealthSummaryService.Snapshot stored = summaryService.snapshot(existing.get());
+            changeLog.stampUpdate(existing.get(), fullBloodCount);
+            versionService.bump(existing.get(), fullBloodCount);
             fbcRepository.save(fullBloodCount);
 
             Report report = reportRepository.findByFullBloodCountId(fullBloodCount.getId());
             report.setUser(fullBloodCount.getUser());
             report.setFullBloodCount(fullBloodCount);
             report.setReportDate(fullBloodCount.getTestDate());
+            report.setChangeSeq(fullBloodCount.getChangeSeq());
             reportRepository.save(report);
+
+            trendService.replace(previous, fullBloodCount);
+            summaryService.replace(stored, fullBloodCount);
         } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteFullBloodCountRecord(int id) {
-        if (fbcRepository.existsById(id))
-            fbcRepository.deleteById(id);
-        else
+        Optional<FullBloodCount> existing = fbcRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.recordDeleted(existing.get());
+            fbcRepository.delete(existing.get());
+            trendService.remove(existing.get());
+            summaryService.remove(existing.get());
+            versionService.bump(existing.get());
+            if (existing.get().getImageUrl() != null) {
+                eventPublisher.publishEvent(new RecordImagesDeleted(List.of(existing.get().getImageUrl())));
+            }
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
@@ -0,0 +1,312 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.analysis.Metric;
+import com.lakshan.medi_sync.dto.SummaryReading;
+import com.lakshan.medi_sync.dto.TypeSummary;
+import com.lakshan.medi_sync.dto.UserHealthSummary;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.HealthSummary;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.repository.HealthSummaryRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@code user_health_summary} in step with the lab records and serves
+ * the dashboard summary from it.
+ * <p>
+ * The record services call {@link #add}, {@link #replace} and {@link #remove}
+ * inside their own transactions. Each call locks the summary rows it
+ * changes, in user and type order when there are two. Adding a record only
+ * compares it with the stored newest two; an update or delete that touches
+ * one of those two re-reads the newest two records of that type for the user.
+ */
+@Service
+public class HealthSummaryService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /** Locks rows in a fixed order so concurrent writers cannot deadlock. */
+    private static final Comparator<HealthSummary.Key> KEY_ORDER = Comparator
+            .comparingInt(HealthSummary.Key::getUserId)
+            .thenComparing(HealthSummary.Key::getRecordType);
+
+    private final Logger logger = Logger.getLogger(HealthSummaryService.class.getName());
+
+    private final HealthSummaryRepository summaryRepository;
+    private final EntityManager entityManager;
+    private final UserService userService;
+    private final TransactionTemplate rebuildTransaction;
+    private final boolean rebuildOnStartup;
+
+    @Autowired
+    public HealthSummaryService(
+            HealthSummaryRepository summaryRepository,
+            EntityManager entityManager,
+            UserService userService,
+            PlatformTransactionManager transactionManager,
+            @Value("${summary.rebuild-on-startup:false}") boolean rebuildOnStartup
+    ) {
+        this.summaryRepository = summaryRepository;
+        this.entityManager = entityManager;
+        this.userService = userService;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /** What an update needs to know about a record as it was stored. */
+    public record Snapshot(RecordType type, int userId, int recordId, LocalDate testDate) {
+    }
+
+    /**
+     * Call this before saving an update: the stored record is the same managed
+     * instance the update is merged into.
+     */
+    public Snapshot snapshot(HealthRecord record) {
+        if (record.getUser() == null || record.getTestDate() == null) {
+            return null;
+        }
+        return new Snapshot(RecordType.of(record), record.getUser().getId(), record.getId(), record.getTestDate());
+    }
+
+    public UserHealthSummary getSummary(int userId) {
+        List<HealthSummary> rows = summaryRepository.findByIdUserIdOrderByIdRecordType(userId);
+        if (rows.isEmpty()) {
+            // Throws for an unknown user; a known one just has no records yet
+            userService.getUserById(userId);
+        }
+
+        List<TypeSummary> types = new ArrayList<>(rows.size());
+        for (HealthSummary row : rows) {
+            if (row.getRecordCount() > 0 && row.getLatestRecordId() != null) {
+                types.add(new TypeSummary(
+                        RecordType.fromCode(row.getId().getRecordType()),
+                        row.getRecordCount(),
+                        new SummaryReading(row.getLatestRecordId(), row.getLatestTestDate(), row.getLatestValues()),
+                        row.getPreviousRecordId() == null ? null : new SummaryReading(
+                                row.getPreviousRecordId(), row.getPreviousTestDate(), row.getPreviousValues())
+                ));
+            }
+        }
+        types.sort(Comparator.comparing(TypeSummary::type));
+        return new UserHealthSummary(userId, types);
+    }
+
+    public void add(HealthRecord record) {
+        addAll(List.of(record));
+    }
+
+    /** Adds records in one pass, locking each affected row once. */
+    public void addAll(Collection<? extends HealthRecord> records) {
+        Map<HealthSummary.Key, List<HealthRecord>> byKey = new TreeMap<>(KEY_ORDER);
+        for (HealthRecord record : records) {
+            if (record.getUser() != null && record.getTestDate() != null) {
+                byKey.computeIfAbsent(keyOf(record), key -> new ArrayList<>()).add(record);
+            }
+        }
+        for (Map.Entry<HealthSummary.Key, List<HealthRecord>> entry : byKey.entrySet()) {
+            HealthSummary summary = lock(entry.getKey());
+            for (HealthRecord record : entry.getValue()) {
+                include(summary, record);
+            }
+        }
+    }
+
+    public void replace(Snapshot previous, HealthRecord updated) {
+        if (previous == null) {
+            add(updated);
+            return;
+        }
+        if (updated.getUser() == null || updated.getTestDate() == null
+                || updated.getUser().getId() != previous.userId()) {
+            // Moved to another user: take both rows in KEY_ORDER before changing either
+            Set<HealthSummary.Key> keys = new TreeSet<>(KEY_ORDER);
+            keys.add(new HealthSummary.Key(previous.userId(), previous.type().getCode()));
+            if (updated.getUser() != null && updated.getTestDate() != null) {
+                keys.add(keyOf(updated));
+            }
+            keys.forEach(this::lock);
+            remove(previous);
+            add(updated);
+            return;
+        }
+
+        HealthSummary summary = lock(keyOf(updated));
+        boolean wasShown = Objects.equals(summary.getLatestRecordId(), previous.recordId())
+                || Objects.equals(summary.getPreviousRecordId(), previous.recordId());
+        if (wasShown || summary.getPreviousRecordId() == null
+                || isNewer(updated, summary.getPreviousTestDate(), summary.getPreviousRecordId())) {
+            refreshNewest(summary, previous.type());
+        }
+    }
+
+    public void remove(HealthRecord record) {
+        Snapshot snapshot = snapshot(record);
+        if (snapshot != null) {
+            remove(snapshot);
+        }
+    }
+
+    private void remove(Snapshot removed) {
+        HealthSummary summary = lock(new HealthSummary.Key(removed.userId(), removed.type().getCode()));
+        summary.setRecordCount(summary.getRecordCount() - 1);
+        if (summary.getRecordCount() <= 0) {
+            summaryRepository.delete(summary);
+        } else if (Objects.equals(summary.getLatestRecordId(), removed.recordId())
+                || Objects.equals(summary.getPreviousRecordId(), removed.recordId())) {
+            refreshNewest(summary, removed.type());
+        }
+    }
+
+    private HealthSummary lock(HealthSummary.Key key) {
+        summaryRepository.insertIfAbsent(key.getUserId(), key.getRecordType());
+        return summaryRepository.findForUpdate(key).orElseThrow();
+    }
+
+    /** Counts a new record and moves it into the newest two if it belongs there. */
+    private static void include(HealthSummary summary, HealthRecord record) {
+        summary.setRecordCount(summary.getRecordCount() + 1);
+        if (summary.getLatestRecordId() == null
+                || isNewer(record, summary.getLatestTestDate(), summary.getLatestRecordId())) {
+            summary.setPreviousRecordId(summary.getLatestRecordId());
+            summary.setPreviousTestDate(summary.getLatestTestDate());
+            summary.setPreviousValues(summary.getLatestValues());
+            setLatest(summary, record);
+        } else if (summary.getPreviousRecordId() == null
+                || isNewer(record, summary.getPreviousTestDate(), summary.getPreviousRecordId())) {
+            setPrevious(summary, record);
+        }
+    }
+
+    private void refreshNewest(HealthSummary summary, RecordType type) {
+        List<? extends HealthRecord> newest = entityManager.createQuery(
+                        "select r from " + type.getEntityClass().getSimpleName() + " r " +
+                        "where r.user.id = :userId order by r.testDate desc, r.id desc", type.getEntityClass())
+                .setParameter("userId", summary.getId().getUserId())
+                .setMaxResults(2)
+                .getResultList();
+        if (newest.isEmpty()) {
+            summaryRepository.delete(summary);
+            return;
+        }
+        setLatest(summary, newest.get(0));
+        if (newest.size() > 1) {
+            setPrevious(summary, newest.get(1));
+        } else {
+            summary.setPreviousRecordId(null);
+            summary.setPreviousTestDate(null);
+            summary.setPreviousValues(null);
+        }
+    }
+
+    private static void setLatest(HealthSummary summary, HealthRecord record) {
+        summary.setLatestRecordId(record.getId());
+        summary.setLatestTestDate(record.getTestDate());
+        summary.setLatestValues(values(record));
+    }
+
+    private static void setPrevious(HealthSummary summary, HealthRecord record) {
+        summary.setPreviousRecordId(record.getId());
+        summary.setPreviousTestDate(record.getTestDate());
+        summary.setPreviousValues(values(record));
+    }
+
+    /** Same order as the record list endpoints: test date, then id. */
+    private static boolean isNewer(HealthRecord record, LocalDate testDate, int recordId) {
+        int byDate = record.getTestDate().compareTo(testDate);
+        return byDate > 0 || (byDate == 0 && record.getId() > recordId);
+    }
+
+    static Map<String, Double> values(HealthRecord record) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Metric metric : Metric.of(RecordType.of(record))) {
+            double value = metric.valueOf(record);
+            if (!Double.isNaN(value)) {
+                values.put(metric.getCode(), value);
+            }
+        }
+        return values;
+    }
+
+    private static HealthSummary.Key keyOf(HealthRecord record) {
+        return new HealthSummary.Key(record.getUser().getId(), RecordType.of(record).getCode());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            Map<RecordType, Integer> rebuilt = rebuild();
+            logger.log(Level.INFO, "Rebuilt health summaries: {0}", rebuilt);
+        }
+    }
+
+    /**
+     * Recomputes every summary row from the records, one transaction per type.
+     * For backfilling and repair; the write paths keep the table current.
+     *
+     * @return how many users have a summary row for each type
+     */
+    public Map<RecordType, Integer> rebuild() {
+        Map<RecordType, Integer> rebuilt = new EnumMap<>(RecordType.class);
+        for (RecordType type : RecordType.values()) {
+            rebuilt.put(type, rebuildTransaction.execute(status -> rebuild(type)));
+        }
+        return rebuilt;
+    }
+
+    private int rebuild(RecordType type) {
+        entityManager.createQuery("delete from HealthSummary s where s.id.recordType = :type")
+                .setParameter("type", type.getCode())
+                .executeUpdate();
+
+        // Newest first within each user, so the first two records seen are the ones to keep
+        Map<Integer, HealthSummary> summaries = new LinkedHashMap<>();
+        try (Stream<? extends HealthRecord> records = entityManager.createQuery(
+                        "select r from " + type.getEntityClass().getSimpleName() + " r join fetch r.user u " +
+                        "where r.testDate is not null " +
+                        "order by u.id, r.testDate desc, r.id desc", type.getEntityClass())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, REBUILD_BATCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            records.forEach(record -> {
+                int userId = record.getUser().getId();
+                HealthSummary summary = summaries.get(userId);
+                if (summary == null) {
+                    summary = new HealthSummary();
+                    summary.setId(new HealthSummary.Key(userId, type.getCode()));
+                    setLatest(summary, record);
+                    summaries.put(userId, summary);
+                } else if (summary.getPreviousRecordId() == null) {
+                    setPrevious(summary, record);
+                }
+                summary.setRecordCount(summary.getRecordCount() + 1);
+                entityManager.detach(record);
+            });
+        }
+
+        int written = 0;
+        for (HealthSummary summary : summaries.values()) {
+            entityManager.persist(summary);
+            if (++written % REBUILD_BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return written;
+    }
+}
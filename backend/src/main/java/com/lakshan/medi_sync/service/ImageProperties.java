@@ -0,0 +1,28 @@
+package com.lakshan.medi_sync.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for {@link ImageService} and {@link ThumbnailService}.
+ *
+ * @param dir              where uploaded images are stored, one directory per record
+ * @param thumbnailWorkers threads generating thumbnails; decoding a scan is CPU and memory heavy
+ * @param thumbnailQueue   images that may wait for a worker before uploads stop queueing more
+ */
+@ConfigurationProperties("images")
+public record ImageProperties(Path dir, Integer thumbnailWorkers, Integer thumbnailQueue) {
+
+    public ImageProperties {
+        if (dir == null) {
+            dir = Path.of("data", "images");
+        }
+        if (thumbnailWorkers == null) {
+            thumbnailWorkers = 2;
+        }
+        if (thumbnailQueue == null) {
+            thumbnailQueue = 100;
+        }
+    }
+}
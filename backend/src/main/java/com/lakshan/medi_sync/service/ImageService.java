@@ -0,0 +1,289 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.RecordType;
+import jakarta.persistence.EntityManager;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stores scans uploaded for records on the local filesystem and points the
+ * record's {@code imageUrl} at them.
+ * <p>
+ * Files are named by the SHA-256 of their content under
+ * {@code <dir>/<type>/<record id>/}, so an image URL never changes meaning and
+ * can be cached for good. The upload is streamed from the container's
+ * temporary part through the digest to disk, never held in memory whole.
+ * Once the record points at a new image its thumbnails are queued with
+ * {@link ThumbnailService}.
+ * <p>
+ * An image is deleted when its record stops pointing at it, or once the
+ * transaction deleting the record commits. Its thumbnails, which are shared
+ * by content, go too unless another record holds the same content.
+ */
+@Service
+public class ImageService {
+
+    private static final Logger logger = Logger.getLogger(ImageService.class.getName());
+
+    /** Accepted upload types and the extension each is stored under. */
+    static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/webp", "webp",
+            "application/pdf", "pdf");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "webp", "image/webp",
+            "pdf", "application/pdf");
+
+    /**
+     * How each stored type's content starts. The parts of a signature are
+     * four bytes apart, which only WebP needs: its file size sits between
+     * {@code RIFF} and {@code WEBP}.
+     */
+    private static final Map<String, byte[][]> SIGNATURES = Map.of(
+            "jpg", new byte[][]{{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}},
+            "png", new byte[][]{{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}},
+            "webp", new byte[][]{{'R', 'I', 'F', 'F'}, {'W', 'E', 'B', 'P'}},
+            "pdf", new byte[][]{{'%', 'P', 'D', 'F', '-'}});
+
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|webp|pdf)");
+
+    private static final String BUMP_REPORT =
+            "update reports set change_seq = ?, updated_at = ? where %s_id = ?";
+
+    private final Path root;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ThumbnailService thumbnailService;
+
+    @Autowired
+    public ImageService(
+            ImageProperties properties,
+            EntityManager entityManager,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ThumbnailService thumbnailService
+    ) {
+        this.root = properties.dir().toAbsolutePath().normalize();
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.thumbnailService = thumbnailService;
+    }
+
+    /**
+     * Stores an uploaded image and sets it as the record's {@code imageUrl},
+     * which is returned. The file is written before the record is touched,
+     * so no transaction stays open for the copy. The image it replaces is
+     * deleted once the record no longer points at it.
+     */
+    public String upload(RecordType type, int id, MultipartFile file) throws IOException {
+        String extension = file.getContentType() == null ? null : EXTENSIONS.get(file.getContentType());
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported image type: " + file.getContentType());
+        }
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Image is empty");
+        }
+        if (entityManager.find(type.getEntityClass(), id) == null) {
+            throw new IllegalArgumentException("Record not found");
+        }
+
+        Path directory = root.resolve(type.getCode()).resolve(Integer.toString(id));
+        Files.createDirectories(directory);
+        Path part = Files.createTempFile(directory, "upload-", ".part");
+        Path stored;
+        boolean existed;
+        try {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, part, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!hasSignature(part, extension)) {
+                throw new IllegalArgumentException("Image content is not " + file.getContentType());
+            }
+            stored = directory.resolve(Hex.encodeHexString(digest.digest()) + "." + extension);
+            existed = Files.exists(stored);
+            Files.move(part, stored, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+
+        String url = urlOf(type, id, stored.getFileName().toString());
+        String previous;
+        try {
+            previous = transactionTemplate.execute(status -> attach(type, id, url));
+        } catch (RuntimeException e) {
+            if (!existed) {
+                Files.deleteIfExists(stored);
+            }
+            throw e;
+        }
+        if (previous != null && !previous.equals(url)) {
+            deleteQuietly(previous);
+        }
+        thumbnailService.generate(stored);
+        return url;
+    }
+
+    /**
+     * The stored file behind an image URL's path segments, if there is one.
+     * Anything that is not a name this service produced is treated as missing.
+     */
+    public Optional<Path> find(String type, int id, String fileName) {
+        if (!FILE_NAME.matcher(fileName).matches() || !isRecordType(type)) {
+            return Optional.empty();
+        }
+        Path path = root.resolve(type).resolve(Integer.toString(id)).resolve(fileName);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public static String contentTypeOf(Path path) {
+        String name = path.getFileName().toString();
+        return CONTENT_TYPES.get(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /** The content hash a stored file is named by, which doubles as its ETag. */
+    public static String hashOf(Path path) {
+        String name = path.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    /** Whether a file starts the way files of its type do; the upload's declared type is not trusted alone. */
+    private static boolean hasSignature(Path path, String extension) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(path)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        byte[][] parts = SIGNATURES.get(extension);
+        int offset = 0;
+        for (byte[] part : parts) {
+            if (read < offset + part.length
+                    || !Arrays.equals(header, offset, offset + part.length, part, 0, part.length)) {
+                return false;
+            }
+            offset += part.length + 4;
+        }
+        return true;
+    }
+
+    private String attach(RecordType type, int id, String url) {
+        HealthRecord record = entityManager.find(type.getEntityClass(), id);
+        if (record == null) {
+            throw new IllegalArgumentException("Record not found");
+        }
+        String previous = record.getImageUrl();
+        changeLog.stampUpdate(record, record);
+        versionService.bump(record);
+        record.setImageUrl(url);
+        // The report carries the record's number, as on any other update
+        jdbcTemplate.update(BUMP_REPORT.formatted(type.getCode()),
+                record.getChangeSeq(), Timestamp.from(Instant.now()), id);
+        return previous;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void recordImagesDeleted(RecordImagesDeleted event) {
+        event.imageUrls().forEach(this::deleteQuietly);
+    }
+
+    private void deleteQuietly(String url) {
+        String prefix = "/images/";
+        if (!url.startsWith(prefix)) {
+            return;
+        }
+        String[] parts = url.substring(prefix.length()).split("/");
+        if (parts.length != 3) {
+            return;
+        }
+        try {
+            Optional<Path> path = find(parts[0], Integer.parseInt(parts[1]), parts[2]);
+            if (path.isPresent()) {
+                Files.delete(path.get());
+                deleteIfEmpty(path.get().getParent());
+                String hash = hashOf(path.get());
+                if (!isHeldByAnyRecord(hash)) {
+                    thumbnailService.evict(hash);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.log(Level.WARNING, "Could not delete image " + url, e);
+        }
+    }
+
+    /** An index lookup per table on the hash the records keep beside their URL. */
+    private boolean isHeldByAnyRecord(String hash) {
+        for (RecordType type : RecordType.values()) {
+            Integer holders = jdbcTemplate.queryForObject(
+                    "select count(*) from " + type.getTableName() + " where image_hash = ?",
+                    Integer.class, hash);
+            if (holders != null && holders > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void deleteIfEmpty(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            if (entries.findAny().isPresent()) {
+                return;
+            }
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (DirectoryNotEmptyException e) {
+            // An upload for the record started meanwhile
+        }
+    }
+
+    private static String urlOf(RecordType type, int id, String fileName) {
+        return "/images/" + type.getCode() + "/" + id + "/" + fileName;
+    }
+
+    private static boolean isRecordType(String code) {
+        for (RecordType type : RecordType.values()) {
+            if (type.getCode().equals(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.analysis.HealthAnalyzer;
+import com.lakshan.medi_sync.analysis.RecordInsight;
+import com.lakshan.medi_sync.dto.UserInsights;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class InsightService {
+
+    private static final Limit LATEST = Limit.of(1);
+
+    private final UserService userService;
+    private final FastingBloodSugarRepository fbsRepository;
+    private final BloodPressureRepository bpRepository;
+    private final FullBloodCountRepository fbcRepository;
+    private final LipidProfileRepository lipidRepository;
+    private final LiverProfileRepository liverRepository;
+    private final UrineReportRepository urineRepository;
+
+    @Autowired
+    public InsightService(
+            UserService userService,
+            FastingBloodSugarRepository fbsRepository,
+            BloodPressureRepository bpRepository,
+            FullBloodCountRepository fbcRepository,
+            LipidProfileRepository lipidRepository,
+            LiverProfileRepository liverRepository,
+            UrineReportRepository urineRepository
+    ) {
+        this.userService = userService;
+        this.fbsRepository = fbsRepository;
+        this.bpRepository = bpRepository;
+        this.fbcRepository = fbcRepository;
+        this.lipidRepository = lipidRepository;
+        this.liverRepository = liverRepository;
+        this.urineRepository = urineRepository;
+    }
+
+    /**
+     * Classifies the newest record of each type. The user comes from the user
+     * cache (the HDL and haemoglobin ranges depend on gender) and each type
+     * costs one single-row projection query.
+     */
+    public UserInsights getInsights(int userId) {
+        User user = userService.getUserById(userId);
+        String gender = user.getGender();
+
+        List<RecordInsight> latest = new ArrayList<>(6);
+        fbsRepository.findViewsByUserIdPage(userId, LATEST)
+                .forEach(record -> latest.add(HealthAnalyzer.analyze(record)));
+        bpRepository.findViewsByUserIdPage(userId, LATEST)
+                .forEach(record -> latest.add(HealthAnalyzer.analyze(record)));
+        fbcRepository.findViewsByUserIdPage(userId, LATEST)
+                .forEach(record -> latest.add(HealthAnalyzer.analyze(record, gender)));
+        lipidRepository.findViewsByUserIdPage(userId, LATEST)
+                .forEach(record -> latest.add(HealthAnalyzer.analyze(record, gender)));
+        liverRepository.findViewsByUserIdPage(userId, LATEST)
+                .forEach(record -> latest.add(HealthAnalyzer.analyze(record)));
+        urineRepository.findViewsByUserIdPage(userId, LATEST)
+                .forEach(record -> latest.add(HealthAnalyzer.analyze(record)));
+
+        return new UserInsights(userId, latest);
+    }
+}
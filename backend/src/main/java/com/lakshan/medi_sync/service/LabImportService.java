@@ -0,0 +1,141 @@
+package com.lakshan.medi_sync.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.dto.BulkItemError;
+import com.lakshan.medi_sync.dto.LabImportResult;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.labimport.FhirBundleReader;
+import com.lakshan.medi_sync.labimport.Hl7v2Reader;
+import com.lakshan.medi_sync.labimport.RecordAssembler;
+import com.lakshan.medi_sync.labimport.RecordSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Imports results sent by partner labs as HL7 v2 ORU messages or FHIR
+ * Bundles into the six record types, each record with its report.
+ * <p>
+ * The file is parsed as it is read from the request, and records are written
+ * {@link #CHUNK_SIZE} at a time through {@link BulkRecordService}, each chunk
+ * in its own transaction. Memory and transaction size stay the same for a
+ * file of any size. Chunks committed before a failure stay committed.
+ * <p>
+ * A user's results of one type on one day are one record, so a result that
+ * is sent again, corrected or amended replaces the stored record of that day
+ * instead of adding another. Within a file the last one read wins.
+ */
+@Service
+public class LabImportService {
+
+    private static final Logger logger = Logger.getLogger(LabImportService.class.getName());
+
+    /** Records per transaction; a multiple of {@link BulkRecordService#BATCH_SIZE}. */
+    static final int CHUNK_SIZE = 500;
+
+    private final BulkRecordService bulkRecordService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LabImportService(
+            BulkRecordService bulkRecordService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.bulkRecordService = bulkRecordService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public LabImportResult importHl7(InputStream in, Charset charset) throws IOException {
+        Chunks chunks = new Chunks();
+        RecordAssembler assembler = new RecordAssembler(chunks);
+        int messages = new Hl7v2Reader(new InputStreamReader(in, charset), assembler, chunks).read();
+        return chunks.finish(messages, assembler);
+    }
+
+    public LabImportResult importFhir(InputStream in) throws IOException {
+        Chunks chunks = new Chunks();
+        RecordAssembler assembler = new RecordAssembler(chunks);
+        int entries;
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            entries = new FhirBundleReader(parser, assembler, chunks).read();
+        }
+        return chunks.finish(entries, assembler);
+    }
+
+    /** Collects assembled records and writes them a chunk at a time. */
+    private class Chunks implements RecordSink {
+
+        private final List<HealthRecord> records = new ArrayList<>(CHUNK_SIZE);
+        private final List<Integer> sources = new ArrayList<>(CHUNK_SIZE);
+        private final Map<BulkRecordService.SameDay, Integer> positions = new HashMap<>();
+        private final List<BulkItemError> errors = new ArrayList<>();
+        private long inserted;
+        private long replaced;
+        private long rejected;
+
+        @Override
+        public void record(int source, HealthRecord record) {
+            Integer position = positions.putIfAbsent(BulkRecordService.SameDay.of(record), records.size());
+            if (position != null) {
+                records.set(position, record);
+                sources.set(position, source);
+                replaced++;
+                return;
+            }
+            records.add(record);
+            sources.add(source);
+            if (records.size() == CHUNK_SIZE) {
+                write();
+            }
+        }
+
+        @Override
+        public void reject(int source, String message) {
+            rejected++;
+            if (errors.size() < LabImportResult.MAX_ERRORS) {
+                errors.add(new BulkItemError(source, message));
+            }
+        }
+
+        private void write() {
+            if (records.isEmpty()) {
+                return;
+            }
+            List<BulkItemError> missingUsers = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                replaced += bulkRecordService.replaceSameDay(records, sources);
+                inserted += bulkRecordService.insert(records, sources, missingUsers);
+            });
+            missingUsers.forEach(error -> reject(error.index(), error.message()));
+            records.clear();
+            sources.clear();
+            positions.clear();
+        }
+
+        private LabImportResult finish(int messages, RecordAssembler assembler) {
+            write();
+            errors.sort(Comparator.comparingInt(BulkItemError::index));
+            logger.log(Level.INFO, "Imported {0} lab records and replaced {1} from {2} messages, {3} rejected",
+                    new Object[]{inserted, replaced, messages, rejected});
+            return new LabImportResult(messages, assembler.getObservations(), assembler.getUnmapped(),
+                    inserted, replaced, rejected, errors);
+        }
+    }
+}
@@ -1,40 +1,87 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.DateRange;
+import com.lakshan.medi_sync.dto.RecordCursor;
+import com.lakshan.medi_sync.dto.LipidProfileView;
 import com.lakshan.medi_sync.entity.LipidProfile;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.repository.LipidProfileRepository;
 import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class LipidProfileService {
 
     private final LipidProfileRepository lipidRepository;
     private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public LipidProfileService(LipidProfileRepository lipidRepository, ReportRepository reportRepository) {
+    public LipidProfileService(
+            LipidProfileRepository lipidRepository,
+            ReportRepository reportRepository,
+            UserRepository userRepository,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ApplicationEventPublisher eventPublisher
+    ) {
         this.lipidRepository = lipidRepository;
         this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public void addNewLipidProfile(LipidProfile lipidProfile) {
+        changeLog.stamp(lipidProfile);
         lipidRepository.save(lipidProfile);
 
         Report report = new Report();
         report.setUser(lipidProfile.getUser());
         report.setLipidProfile(lipidProfile);
         report.setReportDate(lipidProfile.getTestDate());
+        report.setChangeSeq(lipidProfile.getChangeSeq());
         reportRepository.save(report);
+
+        trendService.add(lipidProfile);
+        summaryService.add(lipidProfile);
+        versionService.bump(lipidProfile);
     }
 
-    public List<LipidProfile> getAllLipidProfileRecords() {
-        return lipidRepository.findAll();
+    public CursorPage<LipidProfileView> getLipidProfileRecordsPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<LipidProfileView> rows;
+        if (cursor == null) {
+            rows = lipidRepository.findViewsPage(Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? lipidRepository.findViewsBeforeUndated(after.id(), Limit.of(limit + 1))
+                    : lipidRepository.findViewsBefore(after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     public LipidProfile getLipidProfileRecordById(int id) {
@@ -42,31 +89,76 @@ public class LipidProfileService {
                 new IllegalArgumentException("Record not found"));
     }
 
-    public List<LipidProfile> getLipidProfileRecordsByUserId(int userId) {
-        if (lipidRepository.findByUserId(userId).isEmpty()) {
+    public List<LipidProfileView> getLipidProfileRecordsByUserId(int userId) {
+        List<LipidProfileView> records = lipidRepository.findViewsByUserId(userId);
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return records;
+    }
+
+    public List<LipidProfileView> getLipidProfileRecordsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getLipidProfileRecordsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<LipidProfileView> records = lipidRepository.findViewsByUserIdBetween(userId, range.from(), range.to());
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return lipidRepository.findByUserId(userId);
+        return records;
+    }
+
+    public CursorPage<LipidProfileView> getLipidProfileRecordsPageByUserId(int userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<LipidProfileView> rows;
+        if (cursor == null) {
+            rows = lipidRepository.findViewsByUserIdPage(userId, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? lipidRepository.findViewsByUserIdBeforeUndated(userId, after.id(), Limit.of(limit + 1))
+                    : lipidRepository.findViewsByUserIdBefore(userId, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     @Transactional
     public void updateLipidProfileRecord(LipidProfile lipidProfile) {
-        if (lipidRepository.existsById(lipidProfile.getId())) {
+        Optional<LipidProfile> existing = lipidRepository.findById(lipidProfile.getId());
+        if (existing.isPresent()) {
+            List<MetricSample> previous = trendService.samples(existing.get());
+            HealthSummaryService.Snapshot stored = summaryService.snapshot(existing.get());
+            changeLog.stampUpdate(existing.get(), lipidProfile);
+            versionService.bump(existing.get(), lipidProfile);
             lipidRepository.save(lipidProfile);
 
             Report report = reportRepository.findByLipidProfileId(lipidProfile.getId());
             report.setUser(lipidProfile.getUser());
             report.setLipidProfile(lipidProfile);
             report.setReportDate(lipidProfile.getTestDate());
+            report.setChangeSeq(lipidProfile.getChangeSeq());
             reportRepository.save(report);
+
+            trendService.replace(previous, lipidProfile);
+            summaryService.replace(stored, lipidProfile);
         } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteLipidProfileRecord(int id) {
-        if (lipidRepository.existsById(id))
-            lipidRepository.deleteById(id);
-        else
+        Optional<LipidProfile> existing = lipidRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.recordDeleted(existing.get());
+            lipidRepository.delete(existing.get());
+            trendService.remove(existing.get());
+            summaryService.remove(existing.get());
+            versionService.bump(existing.get());
+            if (existing.get().getImageUrl() != null) {
+                eventPublisher.publishEvent(new RecordImagesDeleted(List.of(existing.get().getImageUrl())));
+            }
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
@@ -1,40 +1,87 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.DateRange;
+import com.lakshan.medi_sync.dto.RecordCursor;
+import com.lakshan.medi_sync.dto.LiverProfileView;
 import com.lakshan.medi_sync.entity.LiverProfile;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.repository.LiverProfileRepository;
 import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class LiverProfileService {
 
     private final LiverProfileRepository liverRepository;
     private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public LiverProfileService(LiverProfileRepository liverRepository, ReportRepository reportRepository) {
+    public LiverProfileService(
+            LiverProfileRepository liverRepository,
+            ReportRepository reportRepository,
+            UserRepository userRepository,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ApplicationEventPublisher eventPublisher
+    ) {
         this.liverRepository = liverRepository;
         this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public void addNewLiverProfile(LiverProfile liverProfile) {
+        changeLog.stamp(liverProfile);
         liverRepository.save(liverProfile);
 
         Report report = new Report();
         report.setUser(liverProfile.getUser());
         report.setLiverProfile(liverProfile);
         report.setReportDate(liverProfile.getTestDate());
+        report.setChangeSeq(liverProfile.getChangeSeq());
         reportRepository.save(report);
+
+        trendService.add(liverProfile);
+        summaryService.add(liverProfile);
+        versionService.bump(liverProfile);
     }
 
-    public List<LiverProfile> getAllLiverProfileRecords() {
-        return liverRepository.findAll();
+    public CursorPage<LiverProfileView> getLiverProfileRecordsPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<LiverProfileView> rows;
+        if (cursor == null) {
+            rows = liverRepository.findViewsPage(Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? liverRepository.findViewsBeforeUndated(after.id(), Limit.of(limit + 1))
+                    : liverRepository.findViewsBefore(after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     public LiverProfile getLiverProfileRecordById(int id) {
@@ -42,31 +89,76 @@ public class LiverProfileService {
                 new IllegalArgumentException("Record not found"));
     }
 
-    public List<LiverProfile> getLiverProfileRecordsByUserId(int userId) {
-        if (liverRepository.findByUserId(userId).isEmpty()) {
+    public List<LiverProfileView> getLiverProfileRecordsByUserId(int userId) {
+        List<LiverProfileView> records = liverRepository.findViewsByUserId(userId);
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return records;
+    }
+
+    public List<LiverProfileView> getLiverProfileRecordsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getLiverProfileRecordsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<LiverProfileView> records = liverRepository.findViewsByUserIdBetween(userId, range.from(), range.to());
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return liverRepository.findByUserId(userId);
+        return records;
+    }
+
+    public CursorPage<LiverProfileView> getLiverProfileRecordsPageByUserId(int userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<LiverProfileView> rows;
+        if (cursor == null) {
+            rows = liverRepository.findViewsByUserIdPage(userId, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? liverRepository.findViewsByUserIdBeforeUndated(userId, after.id(), Limit.of(limit + 1))
+                    : liverRepository.findViewsByUserIdBefore(userId, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     @Transactional
     public void updateLiverProfileRecord(LiverProfile liverProfile) {
-        if (liverRepository.existsById(liverProfile.getId())) {
+        Optional<LiverProfile> existing = liverRepository.findById(liverProfile.getId());
+        if (existing.isPresent()) {
+            List<MetricSample> previous = trendService.samples(existing.get());
+            HealthSummaryService.Snapshot stored = summaryService.snapshot(existing.get());
+            changeLog.stampUpdate(existing.get(), liverProfile);
+            versionService.bump(existing.get(), liverProfile);
             liverRepository.save(liverProfile);
 
             Report report = reportRepository.findByLiverProfileId(liverProfile.getId());
             report.setUser(liverProfile.getUser());
             report.setLiverProfile(liverProfile);
             report.setReportDate(liverProfile.getTestDate());
+            report.setChangeSeq(liverProfile.getChangeSeq());
             reportRepository.save(report);
+
+            trendService.replace(previous, liverProfile);
+            summaryService.replace(stored, liverProfile);
         } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteLiverProfileRecord(int id) {
-        if (liverRepository.existsById(id))
-            liverRepository.deleteById(id);
-        else
+        Optional<LiverProfile> existing = liverRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.recordDeleted(existing.get());
+            liverRepository.delete(existing.get());
+            trendService.remove(existing.get());
+            summaryService.remove(existing.get());
+            versionService.bump(existing.get());
+            if (existing.get().getImageUrl() != null) {
+                eventPublisher.publishEvent(new RecordImagesDeleted(List.of(existing.get().getImageUrl())));
+            }
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
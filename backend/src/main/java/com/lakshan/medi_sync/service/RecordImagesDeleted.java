@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.service;
+
+import java.util.List;
+
+/**
+ * Published inside a transaction that deletes records with images, so that
+ * {@link ImageService} removes the files once it has committed.
+ */
+public record RecordImagesDeleted(List<String> imageUrls) {
+}
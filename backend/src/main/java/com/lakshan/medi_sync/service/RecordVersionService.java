@@ -0,0 +1,144 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.RecordVersion;
+import com.lakshan.medi_sync.entity.Report;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Keeps {@code record_versions} in step with the records and turns it into
+ * ETags for the per-user list endpoints.
+ * <p>
+ * The record services call {@link #bump} inside their own transactions, so a
+ * version only moves together with the records it describes. A conditional
+ * GET reads one row by primary key (or one user's six rows for the report
+ * list) and never touches the record tables.
+ */
+@Service
+public class RecordVersionService {
+
+    private static final String ENSURE_ROW =
+            "insert into record_versions (user_id, record_type, version) values (?, ?, 0) on conflict do nothing";
+
+    private static final String BUMP =
+            "update record_versions set version = version + 1 where user_id = ? and record_type = ?";
+
+    private static final String FIND_VERSION =
+            "select version from record_versions where user_id = ? and record_type = ?";
+
+    private static final String SUM_VERSIONS =
+            "select coalesce(sum(version), 0) from record_versions where user_id = ?";
+
+    /**
+     * Type of the row bumped for changes to the user itself. Only the report
+     * list's ETag sums it: reports embed their owner, the record lists do not.
+     */
+    static final String USER_TYPE = "user";
+
+    /** Locks rows in a fixed order so concurrent writers cannot deadlock. */
+    private static final Comparator<RecordVersion.Key> KEY_ORDER = Comparator
+            .comparingInt(RecordVersion.Key::getUserId)
+            .thenComparing(RecordVersion.Key::getRecordType);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RecordVersionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Bumps the version of each record's owner and type once. For an update,
+     * pass the stored record and the update before saving, so that both the
+     * old and the new owner are bumped if the record moved.
+     */
+    public void bump(HealthRecord... records) {
+        bumpAll(Arrays.asList(records));
+    }
+
+    public void bumpAll(Collection<? extends HealthRecord> records) {
+        Set<RecordVersion.Key> keys = new TreeSet<>(KEY_ORDER);
+        for (HealthRecord record : records) {
+            if (record.getUser() != null) {
+                keys.add(new RecordVersion.Key(record.getUser().getId(), RecordType.of(record).getCode()));
+            }
+        }
+        bumpKeys(keys);
+    }
+
+    /**
+     * Bumps the versions a report edit changes: its owner's, under the type of
+     * the record it is linked to. Pass the stored report and the edit.
+     */
+    public void bumpReports(Report... reports) {
+        Set<RecordVersion.Key> keys = new TreeSet<>(KEY_ORDER);
+        for (Report report : reports) {
+            if (report.getUser() != null) {
+                for (RecordType type : typesOf(report)) {
+                    keys.add(new RecordVersion.Key(report.getUser().getId(), type.getCode()));
+                }
+            }
+        }
+        bumpKeys(keys);
+    }
+
+    /** Bumps the report list's version after the user's own fields change. */
+    public void bumpUser(int userId) {
+        bumpKeys(Set.of(new RecordVersion.Key(userId, USER_TYPE)));
+    }
+
+    /**
+     * ETag of a user's records of one type, e.g. {@code W/"fbs-12"}. Tags are
+     * weak: the same version is served as JSON, CBOR or Smile, gzipped or not,
+     * and Tomcat does not compress responses that carry a strong tag.
+     */
+    public String etag(int userId, RecordType type) {
+        List<Long> versions = jdbcTemplate.queryForList(FIND_VERSION, Long.class, userId, type.getCode());
+        return weak(type.getCode() + "-" + (versions.isEmpty() ? 0 : versions.get(0)));
+    }
+
+    /**
+     * ETag of a user's reports, covering their records and the user row.
+     * Every version only grows, so the sum changes whenever any of them does.
+     */
+    public String reportsEtag(int userId) {
+        Long sum = jdbcTemplate.queryForObject(SUM_VERSIONS, Long.class, userId);
+        return weak("reports-" + sum);
+    }
+
+    private static String weak(String tag) {
+        return "W/\"" + tag + "\"";
+    }
+
+    private void bumpKeys(Set<RecordVersion.Key> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (RecordVersion.Key key : keys) {
+            args.add(new Object[]{key.getUserId(), key.getRecordType()});
+        }
+        jdbcTemplate.batchUpdate(ENSURE_ROW, args);
+        jdbcTemplate.batchUpdate(BUMP, args);
+    }
+
+    private static List<RecordType> typesOf(Report report) {
+        List<RecordType> types = new ArrayList<>(1);
+        if (report.getFastingBloodSugar() != null) types.add(RecordType.FASTING_BLOOD_SUGAR);
+        if (report.getBloodPressure() != null) types.add(RecordType.BLOOD_PRESSURE);
+        if (report.getFullBloodCount() != null) types.add(RecordType.FULL_BLOOD_COUNT);
+        if (report.getLipidProfile() != null) types.add(RecordType.LIPID_PROFILE);
+        if (report.getLiverProfile() != null) types.add(RecordType.LIVER_PROFILE);
+        if (report.getUrineReport() != null) types.add(RecordType.URINE_REPORT);
+        if (types.isEmpty()) {
+            // Not linked to any record; any bump moves the report list's ETag
+            types.add(RecordType.FASTING_BLOOD_SUGAR);
+        }
+        return types;
+    }
+}
@@ -0,0 +1,38 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.RecordType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Period;
+import java.util.Map;
+
+/**
+ * Settings for {@link ReminderService}.
+ *
+ * @param intervals how long after a test the next one is due, keyed by record type code;
+ *                  types without an entry get no reminders
+ * @param leadDays  how many days before the due date the reminder goes out
+ * @param chunkSize how many reminders are written per transaction, at most
+ *                  {@value #MAX_CHUNK_SIZE} so a chunk's log insert stays within
+ *                  PostgreSQL's bind parameter limit
+ */
+@ConfigurationProperties("reminders")
+public record ReminderProperties(Map<String, Period> intervals, int leadDays, int chunkSize) {
+
+    public static final int MAX_CHUNK_SIZE = 6000;
+
+    public ReminderProperties {
+        intervals = intervals == null ? Map.of() : Map.copyOf(intervals);
+        intervals.keySet().forEach(RecordType::fromCode);
+        if (chunkSize < 1) {
+            chunkSize = 1000;
+        }
+        if (chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("reminders.chunk-size must be at most " + MAX_CHUNK_SIZE);
+        }
+    }
+
+    public Period intervalFor(RecordType type) {
+        return intervals.get(type.getCode());
+    }
+}
@@ -0,0 +1,182 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.DueReminder;
+import com.lakshan.medi_sync.entity.RecordType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queues "your next test is due" emails for every user and record type.
+ * <p>
+ * Each type is handled with one set-based query: the latest {@code test_date}
+ * per user, kept when it is old enough that the next test falls due within
+ * {@code leadDays}, minus anyone already reminded about that test. The rows
+ * are streamed and written in chunks, each chunk in its own transaction with
+ * one multi-row insert into {@code reminder_log} and a batched insert into
+ * {@code email_outbox}. No per-user queries are made, so the cost is a scan of
+ * each record table plus the writes for the users who are actually due.
+ * <p>
+ * When several instances run the job at once, the unique key on
+ * {@code reminder_log} decides which of them logs each reminder, and only that
+ * one queues the email.
+ */
+@Service
+public class ReminderService {
+
+    private static final String INSERT_LOG =
+            "insert into reminder_log (user_id, record_type, last_test_date, due_date, created_at) values ";
+    private static final String LOG_ROW = "(?, ?, ?, ?, ?)";
+
+    private final Logger logger = Logger.getLogger(ReminderService.class.getName());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailService emailService;
+    private final ReminderProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate chunkTransaction;
+
+    @Autowired
+    public ReminderService(
+            JdbcTemplate jdbcTemplate,
+            EmailService emailService,
+            ReminderProperties properties,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailService = emailService;
+        this.properties = properties;
+
+        // PostgreSQL only streams with a fetch size inside a transaction
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Scheduled(cron = "${reminders.cron:0 0 2 * * *}")
+    public void queueDueReminders() {
+        Map<RecordType, Integer> queued = queueDueReminders(LocalDate.now());
+        logger.log(Level.INFO, "Queued test reminders: {0}", queued);
+    }
+
+    /**
+     * @return how many reminders were queued for each type that has an interval
+     */
+    public Map<RecordType, Integer> queueDueReminders(LocalDate today) {
+        Map<RecordType, Integer> queued = new EnumMap<>(RecordType.class);
+        for (RecordType type : RecordType.values()) {
+            Period interval = properties.intervalFor(type);
+            if (interval != null) {
+                queued.put(type, queueDueReminders(type, interval, today));
+            }
+        }
+        return queued;
+    }
+
+    private int queueDueReminders(RecordType type, Period interval, LocalDate today) {
+        // last_test + interval <= today + leadDays, rearranged so the bound is a constant
+        LocalDate cutoff = today.plusDays(properties.leadDays()).minus(interval);
+        String sql = "select l.user_id, u.email, l.last_test " +
+                "from (select user_id, max(test_date) as last_test from " + type.getTableName() + " " +
+                "      where user_id is not null and test_date is not null " +
+                "      group by user_id having max(test_date) <= ?) l " +
+                "join users u on u.id = l.user_id " +
+                "where u.email is not null " +
+                "and not exists (select 1 from reminder_log r " +
+                "                where r.user_id = l.user_id and r.record_type = ? and r.last_test_date = l.last_test)";
+
+        int chunkSize = properties.chunkSize();
+        List<DueReminder> chunk = new ArrayList<>(chunkSize);
+        int[] queued = {0};
+
+        readTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(chunkSize);
+            statement.setDate(1, Date.valueOf(cutoff));
+            statement.setString(2, type.getCode());
+            return statement;
+        }, rs -> {
+            LocalDate lastTest = rs.getDate(3).toLocalDate();
+            chunk.add(new DueReminder(rs.getInt(1), rs.getString(2), type, lastTest, lastTest.plus(interval)));
+            if (chunk.size() == chunkSize) {
+                queued[0] += write(chunk);
+                chunk.clear();
+            }
+        }));
+        if (!chunk.isEmpty()) {
+            queued[0] += write(chunk);
+        }
+        return queued[0];
+    }
+
+    private int write(List<DueReminder> chunk) {
+        Integer queued = chunkTransaction.execute(status -> {
+            List<DueReminder> logged = log(chunk);
+            if (!logged.isEmpty()) {
+                emailService.queueTestReminders(logged);
+            }
+            return logged.size();
+        });
+        return queued == null ? 0 : queued;
+    }
+
+    /**
+     * Logs the chunk and returns the reminders that were not logged already.
+     * Batched update counts cannot tell skipped rows from inserted ones once
+     * the driver rewrites the batch, so the chunk goes in as one statement and
+     * the inserted rows come back as its generated keys. A chunk is all of one
+     * type, so the user id identifies each reminder.
+     */
+    private List<DueReminder> log(List<DueReminder> chunk) {
+        String sql = INSERT_LOG + String.join(", ", Collections.nCopies(chunk.size(), LOG_ROW)) +
+                " on conflict do nothing";
+        Timestamp now = Timestamp.from(Instant.now());
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, new String[]{"user_id"});
+            int index = 1;
+            for (DueReminder reminder : chunk) {
+                statement.setInt(index++, reminder.userId());
+                statement.setString(index++, reminder.type().getCode());
+                statement.setDate(index++, Date.valueOf(reminder.lastTestDate()));
+                statement.setDate(index++, Date.valueOf(reminder.dueDate()));
+                statement.setTimestamp(index++, now);
+            }
+            return statement;
+        }, keys);
+
+        Set<Integer> inserted = new HashSet<>();
+        for (Map<String, Object> key : keys.getKeyList()) {
+            inserted.add(((Number) key.values().iterator().next()).intValue());
+        }
+        List<DueReminder> logged = new ArrayList<>(inserted.size());
+        for (DueReminder reminder : chunk) {
+            if (inserted.contains(reminder.userId())) {
+                logged.add(reminder);
+            }
+        }
+        return logged;
+    }
+}
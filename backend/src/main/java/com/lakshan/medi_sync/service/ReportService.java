@@ -1,40 +1,77 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.dto.DateRange;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.repository.ReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class ReportService {
 
     private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public ReportService(ReportRepository reportRepository) {
+    public ReportService(
+            ReportRepository reportRepository,
+            UserRepository userRepository,
+            ChangeLogService changeLog,
+            RecordVersionService versionService
+    ) {
         this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
     }
 
     public List<Report> getReportsByUserId(int userId) {
-        if (reportRepository.findByUserId(userId).isEmpty()) {
+        List<Report> reports = reportRepository.findByUserIdOrderByReportDateDescIdDesc(userId);
+        if (reports.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return reportRepository.findByUserId(userId);
+        return reports;
     }
 
+    public List<Report> getReportsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getReportsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<Report> reports = reportRepository.findByUserIdAndReportDateBetweenOrderByReportDateDescIdDesc(userId, range.from(), range.to());
+        if (reports.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return reports;
+    }
+
+    @Transactional
     public void updateReport(Report report) {
-        if (reportRepository.existsById(report.getId()))
+        Optional<Report> existing = reportRepository.findById(report.getId());
+        if (existing.isPresent()) {
+            changeLog.stampUpdate(existing.get(), report);
+            versionService.bumpReports(existing.get(), report);
             reportRepository.save(report);
-        else
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteReport(int id) {
-        if (reportRepository.existsById(id))
-            reportRepository.deleteById(id);
-        else
+        Optional<Report> existing = reportRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.reportDeleted(existing.get());
+            reportRepository.delete(existing.get());
+            versionService.bumpReports(existing.get());
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
@@ -0,0 +1,91 @@
+package com.lakshan.medi_sync.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sends mail through the Resend HTTP API. One JDK {@link HttpClient} is shared
+ * by all sends, so connections to the provider are kept alive and reused
+ * instead of being opened per email.
+ */
+@Component
+public class ResendClient {
+
+    private final RestClient restClient;
+    private final String from;
+
+    public ResendClient(
+            @Value("${resend.api.url:https://api.resend.com}") String apiUrl,
+            @Value("${resend.api.key}") String apiKey,
+            @Value("${resend.from:onboarding@resend.dev}") String from
+    ) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofSeconds(15));
+
+        this.restClient = RestClient.builder()
+                .baseUrl(apiUrl)
+                .requestFactory(requestFactory)
+                .defaultHeaders(headers -> {
+                    headers.setBearerAuth(apiKey);
+                    headers.setContentType(MediaType.APPLICATION_JSON);
+                })
+                .build();
+        this.from = from;
+    }
+
+    /**
+     * Sends one email. The idempotency key lets the provider drop a repeat of
+     * a send whose response was lost, so retrying after a timeout does not
+     * deliver the email twice.
+     *
+     * @throws EmailSendException if the provider did not accept the email
+     */
+    public void send(String idempotencyKey, String recipient, String subject, String body) {
+        try {
+            restClient.post()
+                    .uri("/emails")
+                    .header("Idempotency-Key", idempotencyKey)
+                    .body(Map.of(
+                            "from", from,
+                            "to", recipient,
+                            "subject", subject,
+                            "text", body
+                    ))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientResponseException e) {
+            HttpStatusCode status = e.getStatusCode();
+            boolean retryable = status.value() == 429 || status.is5xxServerError();
+            throw new EmailSendException("Email provider returned " + status.value(), retryable,
+                    retryAfter(e.getResponseHeaders()), e);
+        } catch (ResourceAccessException e) {
+            throw new EmailSendException("Email provider unreachable: " + e.getMessage(), true, null, e);
+        }
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.lakshan.medi_sync.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spaces calls evenly so that no more than {@code permitsPerSecond} start in
+ * any second, however many threads are sending. Uses a lock rather than
+ * {@code synchronized} so waiting senders never pin a virtual thread's carrier.
+ */
+class SendRateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long intervalNanos;
+    private long nextFreeAt = System.nanoTime();
+
+    SendRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    void acquire() throws InterruptedException {
+        long wait;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextFreeAt);
+            nextFreeAt = slot + intervalNanos;
+            wait = slot - now;
+        } finally {
+            lock.unlock();
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
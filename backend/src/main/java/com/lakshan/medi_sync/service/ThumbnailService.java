@@ -0,0 +1,276 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.Thumbnails;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Makes the {@link Thumbnails#SIZES sized copies} of uploaded JPEG and PNG
+ * images off the request thread. Thumbnails are JPEGs cached under
+ * {@code <dir>/thumbnails/<content hash>/<size>.jpg}, so an image uploaded
+ * for several records is scaled once.
+ * <p>
+ * The work runs on a small fixed pool with a bounded queue: decoding a large
+ * scan takes hundreds of megabytes, and a burst of uploads should wait for
+ * thumbnails rather than exhaust the heap. An image already being scaled is
+ * not queued again. Each image is decoded once, subsampled while it is read
+ * to about twice the largest size, and scaled down from one size to the next.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = Logger.getLogger(ThumbnailService.class.getName());
+
+    /** How long a request for a missing thumbnail waits for it to be made. */
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Path root;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ThumbnailService(ImageProperties properties) {
+        this.root = properties.dir().toAbsolutePath().normalize().resolve("thumbnails");
+        int threads = properties.thumbnailWorkers();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.thumbnailQueue()), new CustomizableThreadFactory("thumbnail-"));
+    }
+
+    /** Whether thumbnails are made for a stored image. */
+    public static boolean supports(Path image) {
+        String name = image.getFileName().toString();
+        return name.endsWith(".jpg") || name.endsWith(".png");
+    }
+
+    /**
+     * Queues thumbnails for a stored image unless they exist or are being
+     * made. The future fails if the image cannot be decoded or the queue is
+     * full.
+     */
+    public CompletableFuture<Void> generate(Path image) {
+        if (!supports(image)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String hash = ImageService.hashOf(image);
+        if (isComplete(hash)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(hash, created);
+        if (running != null) {
+            return running;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    render(image, hash);
+                    created.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.WARNING, "Thumbnails for {0} failed: {1}", new Object[]{image, e.getMessage()});
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(hash, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(hash, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * The thumbnail of a stored image at one of the configured sizes, made
+     * now if it is missing. An image that cannot be decoded gets the original
+     * back; empty means the thumbnail could not be made in time and the
+     * caller should ask again later.
+     */
+    public Optional<Path> thumbnail(Path image, int size) {
+        if (!Thumbnails.SIZES.contains(size)) {
+            throw new IllegalArgumentException("Unsupported thumbnail size: " + size);
+        }
+        if (!supports(image)) {
+            return Optional.of(image);
+        }
+        Path thumbnail = pathOf(ImageService.hashOf(image), size);
+        if (Files.isRegularFile(thumbnail)) {
+            return Optional.of(thumbnail);
+        }
+        try {
+            generate(image).get(WAIT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof RejectedExecutionException ? Optional.empty() : Optional.of(image);
+        } catch (TimeoutException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        return Files.isRegularFile(thumbnail) ? Optional.of(thumbnail) : Optional.empty();
+    }
+
+    /**
+     * Deletes the thumbnails of a content hash. Another record holding the
+     * same image gets them made again on its next request.
+     */
+    public void evict(String hash) {
+        Path directory = root.resolve(hash);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not delete thumbnails of " + hash, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private boolean isComplete(String hash) {
+        for (int size : Thumbnails.SIZES) {
+            if (!Files.isRegularFile(pathOf(hash, size))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path pathOf(String hash, int size) {
+        return root.resolve(hash).resolve(size + ".jpg");
+    }
+
+    private void render(Path image, String hash) throws IOException {
+        List<Integer> largestFirst = new ArrayList<>(Thumbnails.SIZES);
+        Collections.reverse(largestFirst);
+        BufferedImage scaled = decode(image, largestFirst.get(0));
+        Path directory = root.resolve(hash);
+        Files.createDirectories(directory);
+        for (int size : largestFirst) {
+            scaled = scale(scaled, size);
+            write(scaled, directory, pathOf(hash, size));
+        }
+    }
+
+    /** Reads an image, skipping pixels the largest thumbnail has no use for. */
+    private static BufferedImage decode(Path image, int largest) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Not a readable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int step = Math.max(reader.getWidth(0), reader.getHeight(0)) / (2 * largest);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image so its longer edge is at most {@code size}, halving
+     * first while it is more than twice that so bilinear filtering keeps its
+     * quality. Transparency is flattened onto white for JPEG.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        int longer = Math.max(image.getWidth(), image.getHeight());
+        double ratio = Math.min(1.0, (double) size / longer);
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current != image && current.getWidth() == width && current.getHeight() == height) {
+            return current;
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /** Writes through a temporary file so a request never sees half a thumbnail. */
+    private static void write(BufferedImage image, Path directory, Path target) throws IOException {
+        Path part = Files.createTempFile(directory, "thumbnail-", ".part");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(part.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.PatientTimeline;
+import com.lakshan.medi_sync.dto.RecordView;
+import com.lakshan.medi_sync.dto.TimelineEntry;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class TimelineService {
+
+    private static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator.comparing(
+            TimelineEntry::testDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final UserRepository userRepository;
+    private final FastingBloodSugarRepository fbsRepository;
+    private final BloodPressureRepository bpRepository;
+    private final FullBloodCountRepository fbcRepository;
+    private final LipidProfileRepository lipidRepository;
+    private final LiverProfileRepository liverRepository;
+    private final UrineReportRepository urineRepository;
+
+    @Autowired
+    public TimelineService(
+            UserRepository userRepository,
+            FastingBloodSugarRepository fbsRepository,
+            BloodPressureRepository bpRepository,
+            FullBloodCountRepository fbcRepository,
+            LipidProfileRepository lipidRepository,
+            LiverProfileRepository liverRepository,
+            UrineReportRepository urineRepository
+    ) {
+        this.userRepository = userRepository;
+        this.fbsRepository = fbsRepository;
+        this.bpRepository = bpRepository;
+        this.fbcRepository = fbcRepository;
+        this.lipidRepository = lipidRepository;
+        this.liverRepository = liverRepository;
+        this.urineRepository = urineRepository;
+    }
+
+    /**
+     * Runs one projection query per record type, so the whole timeline costs
+     * a fixed number of queries no matter how long the history is. The
+     * projections read the owner's id from the foreign key and never join
+     * {@code users}.
+     */
+    public PatientTimeline getTimeline(int userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found with id: " + userId);
+        }
+
+        List<TimelineEntry> entries = new ArrayList<>();
+        addAll(entries, RecordType.FASTING_BLOOD_SUGAR, fbsRepository.findViewsByUserId(userId));
+        addAll(entries, RecordType.BLOOD_PRESSURE, bpRepository.findViewsByUserId(userId));
+        addAll(entries, RecordType.FULL_BLOOD_COUNT, fbcRepository.findViewsByUserId(userId));
+        addAll(entries, RecordType.LIPID_PROFILE, lipidRepository.findViewsByUserId(userId));
+        addAll(entries, RecordType.LIVER_PROFILE, liverRepository.findViewsByUserId(userId));
+        addAll(entries, RecordType.URINE_REPORT, urineRepository.findViewsByUserId(userId));
+        entries.sort(NEWEST_FIRST);
+
+        return new PatientTimeline(userId, entries);
+    }
+
+    private void addAll(List<TimelineEntry> entries, RecordType type, List<? extends RecordView> records) {
+        for (RecordView record : records) {
+            entries.add(TimelineEntry.of(type, record));
+        }
+    }
+}
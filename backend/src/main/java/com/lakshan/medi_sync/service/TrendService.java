@@ -0,0 +1,242 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.analysis.Metric;
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.MetricTrend;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.MetricAggregate;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.repository.UserRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Keeps {@code metric_aggregates} in step with the lab records and answers
+ * trend queries from it.
+ * <p>
+ * The record services call {@link #add}, {@link #replace} and {@link #remove}
+ * inside their own transactions, so the sums always match the committed
+ * records. A write touches one row per metric of the record. A trend query
+ * reads one row per month of the window, however many records the user has.
+ */
+@Service
+public class TrendService {
+
+    static final LocalDate EPOCH = LocalDate.of(2000, 1, 1);
+    static final int MAX_MONTHS = 240;
+
+    private static final double DAYS_PER_MONTH = 365.25 / 12;
+
+    private static final String ENSURE_BUCKET =
+            "insert into metric_aggregates (user_id, metric, bucket, n, sum_x, sum_xx, sum_t, sum_tt, sum_tx) " +
+            "values (?, ?, ?, 0, 0, 0, 0, 0, 0) on conflict do nothing";
+
+    private static final String ADD_TO_BUCKET =
+            "update metric_aggregates set n = n + ?, sum_x = sum_x + ?, sum_xx = sum_xx + ?, " +
+            "sum_t = sum_t + ?, sum_tt = sum_tt + ?, sum_tx = sum_tx + ? " +
+            "where user_id = ? and metric = ? and bucket = ?";
+
+    /**
+     * A primary-key range read: one row per month with readings. Read through
+     * JDBC like the writes, so a caller's persistence context never serves
+     * stale buckets.
+     */
+    private static final String FIND_BUCKETS =
+            "select bucket, n, sum_x, sum_xx, sum_t, sum_tt, sum_tx from metric_aggregates " +
+            "where user_id = ? and metric = ? and bucket >= ? and bucket <= ? and n > 0";
+
+    /** Locks rows in a fixed order so concurrent writers cannot deadlock. */
+    private static final Comparator<MetricAggregate.Key> KEY_ORDER = Comparator
+            .comparingInt(MetricAggregate.Key::getUserId)
+            .thenComparing(MetricAggregate.Key::getMetric)
+            .thenComparing(MetricAggregate.Key::getBucket);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public TrendService(
+            JdbcTemplate jdbcTemplate,
+            UserRepository userRepository
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * The readings a record contributes. Call this before saving an update:
+     * the stored record is the same managed instance the update is merged into.
+     */
+    public List<MetricSample> samples(HealthRecord record) {
+        if (record.getUser() == null || record.getTestDate() == null) {
+            return List.of();
+        }
+        int userId = record.getUser().getId();
+        List<MetricSample> samples = new ArrayList<>();
+        for (Metric metric : Metric.of(RecordType.of(record))) {
+            double value = metric.valueOf(record);
+            if (!Double.isNaN(value)) {
+                samples.add(new MetricSample(userId, metric, record.getTestDate(), value));
+            }
+        }
+        return samples;
+    }
+
+    public void add(HealthRecord record) {
+        apply(samples(record), List.of());
+    }
+
+    public void addAll(Collection<? extends HealthRecord> records) {
+        List<MetricSample> samples = new ArrayList<>();
+        for (HealthRecord record : records) {
+            samples.addAll(samples(record));
+        }
+        apply(samples, List.of());
+    }
+
+    public void replace(List<MetricSample> previous, HealthRecord updated) {
+        apply(samples(updated), previous);
+    }
+
+    public void remove(HealthRecord record) {
+        apply(List.of(), samples(record));
+    }
+
+    private void apply(List<MetricSample> added, List<MetricSample> removed) {
+        Map<MetricAggregate.Key, double[]> deltas = new TreeMap<>(KEY_ORDER);
+        accumulate(deltas, added, 1);
+        accumulate(deltas, removed, -1);
+        // An update that changed nothing trended cancels out exactly
+        deltas.values().removeIf(d -> Arrays.stream(d).allMatch(v -> v == 0));
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> keys = new ArrayList<>(deltas.size());
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        for (Map.Entry<MetricAggregate.Key, double[]> entry : deltas.entrySet()) {
+            MetricAggregate.Key key = entry.getKey();
+            double[] d = entry.getValue();
+            Date bucket = Date.valueOf(key.getBucket());
+            keys.add(new Object[]{key.getUserId(), key.getMetric(), bucket});
+            updates.add(new Object[]{(long) d[0], d[1], d[2], d[3], d[4], d[5], key.getUserId(), key.getMetric(), bucket});
+        }
+        jdbcTemplate.batchUpdate(ENSURE_BUCKET, keys);
+        jdbcTemplate.batchUpdate(ADD_TO_BUCKET, updates);
+    }
+
+    private static void accumulate(Map<MetricAggregate.Key, double[]> deltas, List<MetricSample> samples, int sign) {
+        for (MetricSample sample : samples) {
+            MetricAggregate.Key key = new MetricAggregate.Key(
+                    sample.userId(), sample.metric().getCode(), sample.testDate().withDayOfMonth(1));
+            double x = sample.value();
+            double t = ChronoUnit.DAYS.between(EPOCH, sample.testDate());
+            double[] d = deltas.computeIfAbsent(key, k -> new double[6]);
+            d[0] += sign;
+            d[1] += sign * x;
+            d[2] += sign * x * x;
+            d[3] += sign * t;
+            d[4] += sign * t * t;
+            d[5] += sign * t * x;
+        }
+    }
+
+    /**
+     * Trend of one metric over the last {@code window} of whole calendar
+     * months, the current one included. A window with days is rounded up to
+     * the next month. One transaction, so the user check and the bucket read
+     * share a connection.
+     */
+    @Transactional
+    public MetricTrend getTrend(int userId, String metricCode, Period window, LocalDate today) {
+        Metric metric = Metric.fromCode(metricCode);
+        int months = (int) window.toTotalMonths() + (window.getDays() > 0 ? 1 : 0);
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("Window must be between 1 and " + MAX_MONTHS + " months");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found with id: " + userId);
+        }
+
+        LocalDate to = today.withDayOfMonth(1);
+        LocalDate from = to.minusMonths(months - 1);
+        LocalDate previousFrom = from.minusMonths(months);
+
+        Sums current = new Sums();
+        Sums previous = new Sums();
+        jdbcTemplate.query(FIND_BUCKETS, rs -> {
+            LocalDate bucket = rs.getDate("bucket").toLocalDate();
+            (bucket.isBefore(from) ? previous : current).add(
+                    rs.getLong("n"), rs.getDouble("sum_x"), rs.getDouble("sum_xx"),
+                    rs.getDouble("sum_t"), rs.getDouble("sum_tt"), rs.getDouble("sum_tx"));
+        }, userId, metric.getCode(), Date.valueOf(previousFrom), Date.valueOf(to));
+
+        Double mean = current.mean();
+        Double previousMean = previous.mean();
+        Double slope = current.slopePerDay();
+        Double slopePerMonth = slope == null ? null : slope * DAYS_PER_MONTH;
+        return new MetricTrend(
+                userId,
+                metric.getCode(),
+                months,
+                from,
+                to.plusMonths(1).minusDays(1),
+                current.n,
+                mean,
+                current.standardDeviation(),
+                slopePerMonth,
+                previousMean,
+                mean == null || previousMean == null ? null : mean - previousMean,
+                slopePerMonth == null ? null : slopePerMonth > 0 ? "up" : slopePerMonth < 0 ? "down" : "flat"
+        );
+    }
+
+    private static final class Sums {
+        long n;
+        double x;
+        double xx;
+        double t;
+        double tt;
+        double tx;
+
+        void add(long n, double x, double xx, double t, double tt, double tx) {
+            this.n += n;
+            this.x += x;
+            this.xx += xx;
+            this.t += t;
+            this.tt += tt;
+            this.tx += tx;
+        }
+
+        Double mean() {
+            return n > 0 ? x / n : null;
+        }
+
+        Double standardDeviation() {
+            if (n < 2) {
+                return null;
+            }
+            return Math.sqrt(Math.max(0, (xx - x * x / n) / (n - 1)));
+        }
+
+        /** Ordinary least-squares slope of value against day; null if every reading is on one day. */
+        Double slopePerDay() {
+            if (n < 2) {
+                return null;
+            }
+            double denominator = n * tt - t * t;
+            if (denominator <= 1e-9 * n * tt) {
+                return null;
+            }
+            return (n * tx - t * x) / denominator;
+        }
+    }
+}
@@ -1,40 +1,87 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.analysis.MetricSample;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.DateRange;
+import com.lakshan.medi_sync.dto.RecordCursor;
+import com.lakshan.medi_sync.dto.UrineReportView;
 import com.lakshan.medi_sync.entity.Report;
 import com.lakshan.medi_sync.entity.UrineReport;
 import com.lakshan.medi_sync.repository.ReportRepository;
 import com.lakshan.medi_sync.repository.UrineReportRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class UrineReportService {
 
     private final UrineReportRepository urineRepository;
     private final ReportRepository reportRepository;
+    private final UserRepository userRepository;
+    private final TrendService trendService;
+    private final HealthSummaryService summaryService;
+    private final ChangeLogService changeLog;
+    private final RecordVersionService versionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public UrineReportService(UrineReportRepository urineRepository, ReportRepository reportRepository) {
+    public UrineReportService(
+            UrineReportRepository urineRepository,
+            ReportRepository reportRepository,
+            UserRepository userRepository,
+            TrendService trendService,
+            HealthSummaryService summaryService,
+            ChangeLogService changeLog,
+            RecordVersionService versionService,
+            ApplicationEventPublisher eventPublisher
+    ) {
         this.urineRepository = urineRepository;
         this.reportRepository = reportRepository;
+        this.userRepository = userRepository;
+        this.trendService = trendService;
+        this.summaryService = summaryService;
+        this.changeLog = changeLog;
+        this.versionService = versionService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public void addNewUrineReport(UrineReport urineReport) {
+        changeLog.stamp(urineReport);
         urineRepository.save(urineReport);
 
         Report report = new Report();
         report.setUser(urineReport.getUser());
         report.setUrineReport(urineReport);
         report.setReportDate(urineReport.getTestDate());
+        report.setChangeSeq(urineReport.getChangeSeq());
         reportRepository.save(report);
+
+        trendService.add(urineReport);
+        summaryService.add(urineReport);
+        versionService.bump(urineReport);
     }
 
-    public List<UrineReport> getAllUrineReportRecords() {
-        return urineRepository.findAll();
+    public CursorPage<UrineReportView> getUrineReportRecordsPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<UrineReportView> rows;
+        if (cursor == null) {
+            rows = urineRepository.findViewsPage(Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? urineRepository.findViewsBeforeUndated(after.id(), Limit.of(limit + 1))
+                    : urineRepository.findViewsBefore(after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     public UrineReport getUrineReportRecordById(int id) {
@@ -42,31 +89,76 @@ public class UrineReportService {
                 new IllegalArgumentException("Record not found"));
     }
 
-    public List<UrineReport> getUrineReportRecordsByUserId(int userId) {
-        if (urineRepository.findByUserId(userId).isEmpty()) {
+    public List<UrineReportView> getUrineReportRecordsByUserId(int userId) {
+        List<UrineReportView> records = urineRepository.findViewsByUserId(userId);
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        return records;
+    }
+
+    public List<UrineReportView> getUrineReportRecordsByUserId(int userId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return getUrineReportRecordsByUserId(userId);
+        }
+        DateRange range = DateRange.of(from, to);
+        List<UrineReportView> records = urineRepository.findViewsByUserIdBetween(userId, range.from(), range.to());
+        if (records.isEmpty() && !userRepository.existsById(userId)) {
             throw new IllegalArgumentException("User not found");
         }
-        return urineRepository.findByUserId(userId);
+        return records;
+    }
+
+    public CursorPage<UrineReportView> getUrineReportRecordsPageByUserId(int userId, String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<UrineReportView> rows;
+        if (cursor == null) {
+            rows = urineRepository.findViewsByUserIdPage(userId, Limit.of(limit + 1));
+        } else {
+            RecordCursor after = RecordCursor.decode(cursor);
+            rows = after.testDate() == null
+                    ? urineRepository.findViewsByUserIdBeforeUndated(userId, after.id(), Limit.of(limit + 1))
+                    : urineRepository.findViewsByUserIdBefore(userId, after.testDate(), after.id(), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, record -> RecordCursor.of(record).encode());
     }
 
     @Transactional
     public void updateUrineReportRecord(UrineReport urineReport) {
-        if (urineRepository.existsById(urineReport.getId())) {
+        Optional<UrineReport> existing = urineRepository.findById(urineReport.getId());
+        if (existing.isPresent()) {
+            List<MetricSample> previous = trendService.samples(existing.get());
+            HealthSummaryService.Snapshot stored = summaryService.snapshot(existing.get());
+            changeLog.stampUpdate(existing.get(), urineReport);
+            versionService.bump(existing.get(), urineReport);
             urineRepository.save(urineReport);
 
             Report report = reportRepository.findByUrineReportId(urineReport.getId());
             report.setUser(urineReport.getUser());
             report.setUrineReport(urineReport);
             report.setReportDate(urineReport.getTestDate());
+            report.setChangeSeq(urineReport.getChangeSeq());
             reportRepository.save(report);
+
+            trendService.replace(previous, urineReport);
+            summaryService.replace(stored, urineReport);
         } else
             throw new IllegalArgumentException("Record not found");
     }
 
+    @Transactional
     public void deleteUrineReportRecord(int id) {
-        if (urineRepository.existsById(id))
-            urineRepository.deleteById(id);
-        else
+        Optional<UrineReport> existing = urineRepository.findById(id);
+        if (existing.isPresent()) {
+            changeLog.recordDeleted(existing.get());
+            urineRepository.delete(existing.get());
+            trendService.remove(existing.get());
+            summaryService.remove(existing.get());
+            versionService.bump(existing.get());
+            if (existing.get().getImageUrl() != null) {
+                eventPublisher.publishEvent(new RecordImagesDeleted(List.of(existing.get().getImageUrl())));
+            }
+        } else
             throw new IllegalArgumentException("Record not found");
     }
 }
@@ -0,0 +1,10 @@
+package com.lakshan.medi_sync.service;
+
+import java.util.List;
+
+/**
+ * A user was updated or deleted, so their cached copies by id and by each of
+ * {@code emails} are stale once the change commits.
+ */
+public record UserCacheEvicted(int id, List<String> emails) {
+}
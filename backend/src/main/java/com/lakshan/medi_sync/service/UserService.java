@@ -1,54 +1,155 @@
 package com.lakshan.medi_sync.service;
 
+import com.lakshan.medi_sync.dto.CursorPage;
 import com.lakshan.medi_sync.entity.User;
 import com.lakshan.medi_sync.repository.UserRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class UserService {
 
+    public static final String USERS_BY_ID = "usersById";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+
     private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecordVersionService versionService;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(
+            UserRepository userRepository,
+            CacheManager cacheManager,
+            ApplicationEventPublisher eventPublisher,
+            RecordVersionService versionService
+    ) {
         this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+        this.versionService = versionService;
     }
 
     public void addNewUser(User user) {
         userRepository.save(user);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getUsersPage(String cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<User> rows;
+        if (cursor == null) {
+            rows = userRepository.findAllByOrderByIdAsc(Limit.of(limit + 1));
+        } else {
+            rows = userRepository.findByIdGreaterThanOrderByIdAsc(parseUserCursor(cursor), Limit.of(limit + 1));
+        }
+        return CursorPage.of(rows, limit, user -> String.valueOf(user.getId()));
+    }
+
+    private int parseUserCursor(String cursor) {
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
 
+    /**
+     * Cached, as is {@link #getUserByEmail}. The cache holds a copy that no
+     * persistence context manages, so nothing a request does to its own
+     * entities reaches it, and it is shared: callers must not change it.
+     */
+    @Cacheable(cacheNames = USERS_BY_ID, key = "#id")
     public User getUserById(int id) {
-        return userRepository.findById(id).orElseThrow(() ->
+        return userRepository.findById(id).map(UserService::detachedCopy).orElseThrow(() ->
                 new IllegalArgumentException("User not found with id: " + id)
         );
     }
 
+    @Transactional
     public void updateUser(User user) {
-        if (userRepository.existsById(user.getId()))
-            userRepository.save(user);
-        else
-            throw new IllegalArgumentException("User not found with id: " + user.getId());
+        User existing = userRepository.findById(user.getId()).orElseThrow(() ->
+                new IllegalArgumentException("User not found with id: " + user.getId()));
+        // Read before saving: the save merges into this same managed instance.
+        String previousEmail = existing.getEmail();
+        userRepository.save(user);
+        // Every report embeds its owner, so a cached report list is stale now
+        versionService.bumpUser(user.getId());
+        evictAfterCommit(user.getId(), previousEmail, user.getEmail());
     }
 
+    @Transactional
     public void deleteUser(int id) {
-        if (userRepository.existsById(id))
-            userRepository.deleteById(id);
-        else
-            throw new IllegalArgumentException("User not found with id: " + id);
+        User existing = userRepository.findById(id).orElseThrow(() ->
+                new IllegalArgumentException("User not found with id: " + id));
+        // The records go with the user by cascade; their images are only known beforehand
+        List<String> imageUrls = userRepository.findRecordImageUrls(id);
+        userRepository.deleteById(id);
+        evictAfterCommit(id, existing.getEmail());
+        if (!imageUrls.isEmpty()) {
+            eventPublisher.publishEvent(new RecordImagesDeleted(imageUrls));
+        }
     }
 
+    @Cacheable(cacheNames = USERS_BY_EMAIL, key = "#email")
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElseThrow(() ->
+        return userRepository.findByEmail(email).map(UserService::detachedCopy).orElseThrow(() ->
                 new IllegalArgumentException("User not found with email: " + email)
         );
 
     }
+
+    /**
+     * Drops the id entry and every given email entry. Update passes both the
+     * stored and the incoming email so a changed address does not leave the
+     * old one pointing at stale data.
+     */
+    private void evictAfterCommit(int id, String... emails) {
+        List<String> stale = new ArrayList<>(emails.length);
+        for (String email : emails) {
+            if (email != null) {
+                stale.add(email);
+            }
+        }
+        eventPublisher.publishEvent(new UserCacheEvicted(id, stale));
+    }
+
+    /**
+     * Runs once the change has committed, so a read in between cannot cache
+     * the old row again; a rolled-back change leaves the cache as it was.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void evict(UserCacheEvicted event) {
+        Cache byId = cacheManager.getCache(USERS_BY_ID);
+        if (byId != null) {
+            byId.evict(event.id());
+        }
+        Cache byEmail = cacheManager.getCache(USERS_BY_EMAIL);
+        if (byEmail != null) {
+            event.emails().forEach(byEmail::evict);
+        }
+    }
+
+    private static User detachedCopy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setDateOfBirth(user.getDateOfBirth());
+        copy.setGender(user.getGender());
+        copy.setHeight(user.getHeight());
+        copy.setWeight(user.getWeight());
+        copy.setBloodGroup(user.getBloodGroup());
+        return copy;
+    }
 }
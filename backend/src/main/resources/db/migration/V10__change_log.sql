@@ -0,0 +1,39 @@
+-- Delta sync (GET /users/{id}/changes). Every write to a user's records or
+-- reports takes the next number from that user's counter and stores it in
+-- change_seq; deletes leave a tombstone carrying their number instead. A sync
+-- token is the counter value the client last saw. See ChangeLogService.
+CREATE TABLE change_sequences (
+    user_id  INT    PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    last_seq BIGINT NOT NULL
+);
+
+-- Rows written before this migration are at 0, which a first sync includes
+ALTER TABLE fbs            ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE blood_pressure ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE fbc            ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE lipid_profile  ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE liver_profile  ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE urine_report   ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE reports        ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0, ADD COLUMN updated_at TIMESTAMPTZ NOT NULL DEFAULT now();
+
+CREATE INDEX fbs_user_change_idx            ON fbs            (user_id, change_seq);
+CREATE INDEX blood_pressure_user_change_idx ON blood_pressure (user_id, change_seq);
+CREATE INDEX fbc_user_change_idx            ON fbc            (user_id, change_seq);
+CREATE INDEX lipid_profile_user_change_idx  ON lipid_profile  (user_id, change_seq);
+CREATE INDEX liver_profile_user_change_idx  ON liver_profile  (user_id, change_seq);
+CREATE INDEX urine_report_user_change_idx   ON urine_report   (user_id, change_seq);
+CREATE INDEX reports_user_change_idx        ON reports        (user_id, change_seq);
+
+-- One row per deleted record or report, and per record or report that moved
+-- to another user (a delete as far as the old owner is concerned).
+-- record_type is a RecordType code or 'report'.
+CREATE TABLE record_tombstones (
+    id          BIGSERIAL PRIMARY KEY,
+    user_id     INT         NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    record_type VARCHAR(16) NOT NULL,
+    record_id   INT         NOT NULL,
+    change_seq  BIGINT      NOT NULL,
+    deleted_at  TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX record_tombstones_user_change_idx ON record_tombstones (user_id, change_seq);
@@ -0,0 +1,10 @@
+-- The getAll* pages read every user's records newest first, ordered by
+-- test_date desc nulls first, id desc, which a backward scan of these gives.
+-- The cursor predicate is a row comparison on the same columns, so each page
+-- starts with a seek instead of sorting the whole table.
+CREATE INDEX fbs_date_idx            ON fbs            (test_date, id);
+CREATE INDEX blood_pressure_date_idx ON blood_pressure (test_date, id);
+CREATE INDEX fbc_date_idx            ON fbc            (test_date, id);
+CREATE INDEX lipid_profile_date_idx  ON lipid_profile  (test_date, id);
+CREATE INDEX liver_profile_date_idx  ON liver_profile  (test_date, id);
+CREATE INDEX urine_report_date_idx   ON urine_report   (test_date, id);
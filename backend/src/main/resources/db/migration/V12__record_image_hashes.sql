@@ -0,0 +1,26 @@
+-- The content hash each image URL ends in, set by the entities whenever
+-- image_url is. Deleting an image checks whether another record still holds
+-- the same content, and with the hash in its own column that check is an
+-- index lookup per table instead of a LIKE scan of every image URL.
+ALTER TABLE fbs            ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE blood_pressure ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE fbc            ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE lipid_profile  ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE liver_profile  ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE urine_report   ADD COLUMN image_hash VARCHAR(64);
+
+-- Only URLs of the shape ImageService hands out have a hash; others stay null
+UPDATE fbs            SET image_hash = substring(image_url from '^/images/[a-z]+/[0-9]+/([0-9a-f]{64})\.(?:jpg|png|webp|pdf)$') WHERE image_url IS NOT NULL;
+UPDATE blood_pressure SET image_hash = substring(image_url from '^/images/[a-z]+/[0-9]+/([0-9a-f]{64})\.(?:jpg|png|webp|pdf)$') WHERE image_url IS NOT NULL;
+UPDATE fbc            SET image_hash = substring(image_url from '^/images/[a-z]+/[0-9]+/([0-9a-f]{64})\.(?:jpg|png|webp|pdf)$') WHERE image_url IS NOT NULL;
+UPDATE lipid_profile  SET image_hash = substring(image_url from '^/images/[a-z]+/[0-9]+/([0-9a-f]{64})\.(?:jpg|png|webp|pdf)$') WHERE image_url IS NOT NULL;
+UPDATE liver_profile  SET image_hash = substring(image_url from '^/images/[a-z]+/[0-9]+/([0-9a-f]{64})\.(?:jpg|png|webp|pdf)$') WHERE image_url IS NOT NULL;
+UPDATE urine_report   SET image_hash = substring(image_url from '^/images/[a-z]+/[0-9]+/([0-9a-f]{64})\.(?:jpg|png|webp|pdf)$') WHERE image_url IS NOT NULL;
+
+-- Most records have no image, so the indexes leave those rows out
+CREATE INDEX fbs_image_hash_idx            ON fbs            (image_hash) WHERE image_hash IS NOT NULL;
+CREATE INDEX blood_pressure_image_hash_idx ON blood_pressure (image_hash) WHERE image_hash IS NOT NULL;
+CREATE INDEX fbc_image_hash_idx            ON fbc            (image_hash) WHERE image_hash IS NOT NULL;
+CREATE INDEX lipid_profile_image_hash_idx  ON lipid_profile  (image_hash) WHERE image_hash IS NOT NULL;
+CREATE INDEX liver_profile_image_hash_idx  ON liver_profile  (image_hash) WHERE image_hash IS NOT NULL;
+CREATE INDEX urine_report_image_hash_idx   ON urine_report   (image_hash) WHERE image_hash IS NOT NULL;
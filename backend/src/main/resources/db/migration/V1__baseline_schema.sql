@@ -0,0 +1,87 @@
+-- Schema as it existed before migrations were introduced. Existing databases
+-- are baselined at this version and skip it; fresh databases start here.
+
+CREATE TABLE users (
+    id          SERIAL PRIMARY KEY,
+    name        VARCHAR(255),
+    email       VARCHAR(255),
+    pwd         VARCHAR(255),
+    dob         DATE,
+    gender      VARCHAR(255),
+    height      DOUBLE PRECISION,
+    weight      DOUBLE PRECISION,
+    blood_group VARCHAR(255)
+);
+
+CREATE TABLE fbs (
+    id        SERIAL PRIMARY KEY,
+    test_date DATE,
+    fbs_level DOUBLE PRECISION,
+    image_url VARCHAR(255),
+    user_id   INT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE blood_pressure (
+    id        SERIAL PRIMARY KEY,
+    test_date DATE,
+    bp_level  VARCHAR(255),
+    image_url VARCHAR(255),
+    user_id   INT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE fbc (
+    id                    SERIAL PRIMARY KEY,
+    test_date             DATE,
+    haemoglobin           DOUBLE PRECISION,
+    total_leucocyte_count DOUBLE PRECISION,
+    platelet_count        DOUBLE PRECISION,
+    image_url             VARCHAR(255),
+    user_id               INT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE lipid_profile (
+    id                SERIAL PRIMARY KEY,
+    test_date         DATE,
+    total_cholesterol DOUBLE PRECISION,
+    hdl               DOUBLE PRECISION,
+    ldl               DOUBLE PRECISION,
+    vldl              DOUBLE PRECISION,
+    triglycerides     DOUBLE PRECISION,
+    image_url         VARCHAR(255),
+    user_id           INT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE liver_profile (
+    id                    SERIAL PRIMARY KEY,
+    test_date             DATE,
+    protein_total_serum   DOUBLE PRECISION,
+    albumin_serum         DOUBLE PRECISION,
+    bilirubin_total_serum DOUBLE PRECISION,
+    sgpt                  DOUBLE PRECISION,
+    image_url             VARCHAR(255),
+    user_id               INT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE urine_report (
+    id               SERIAL PRIMARY KEY,
+    test_date        DATE,
+    color            VARCHAR(255),
+    appearance       VARCHAR(255),
+    protein          VARCHAR(255),
+    sugar            VARCHAR(255),
+    specific_gravity DOUBLE PRECISION,
+    image_url        VARCHAR(255),
+    user_id          INT REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE reports (
+    id          SERIAL PRIMARY KEY,
+    report_date DATE,
+    user_id     INT REFERENCES users (id) ON DELETE CASCADE,
+    fbc_id      INT REFERENCES fbc (id) ON DELETE CASCADE,
+    liver_id    INT REFERENCES liver_profile (id) ON DELETE CASCADE,
+    urine_id    INT REFERENCES urine_report (id) ON DELETE CASCADE,
+    fbs_id      INT REFERENCES fbs (id) ON DELETE CASCADE,
+    lipid_id    INT REFERENCES lipid_profile (id) ON DELETE CASCADE,
+    bp_id       INT REFERENCES blood_pressure (id) ON DELETE CASCADE
+);
@@ -0,0 +1,15 @@
+-- Record and report ids are allocated by Hibernate's pooled optimizer in
+-- blocks of 50 (allocationSize on the entities), which lets inserts be
+-- batched. The backing sequences must step by the same amount. Works whether
+-- the id columns were created as SERIAL or as IDENTITY.
+
+DO $$
+DECLARE
+    t TEXT;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['fbs', 'blood_pressure', 'fbc', 'lipid_profile', 'liver_profile', 'urine_report', 'reports']
+    LOOP
+        EXECUTE 'ALTER SEQUENCE ' || pg_get_serial_sequence(t, 'id') || ' INCREMENT BY 50';
+    END LOOP;
+END
+$$;
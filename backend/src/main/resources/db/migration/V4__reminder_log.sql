@@ -0,0 +1,9 @@
+CREATE TABLE reminder_log (
+    id             BIGSERIAL PRIMARY KEY,
+    user_id        INT         NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    record_type    VARCHAR(16) NOT NULL,
+    last_test_date DATE        NOT NULL,
+    due_date       DATE        NOT NULL,
+    created_at     TIMESTAMPTZ NOT NULL DEFAULT now(),
+    CONSTRAINT reminder_log_user_type_test_key UNIQUE (user_id, record_type, last_test_date)
+);
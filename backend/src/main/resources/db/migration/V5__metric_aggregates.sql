@@ -0,0 +1,82 @@
+-- Per user, metric and calendar month running sums behind GET /users/{id}/trends.
+-- t is the test date in days since 2000-01-01. Kept up to date by TrendService.
+CREATE TABLE metric_aggregates (
+    user_id INT              NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    metric  VARCHAR(32)      NOT NULL,
+    bucket  DATE             NOT NULL,
+    n       BIGINT           NOT NULL,
+    sum_x   DOUBLE PRECISION NOT NULL,
+    sum_xx  DOUBLE PRECISION NOT NULL,
+    sum_t   DOUBLE PRECISION NOT NULL,
+    sum_tt  DOUBLE PRECISION NOT NULL,
+    sum_tx  DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (user_id, metric, bucket)
+);
+
+-- One part of "120/80" read the way HealthAnalyzer reads it: trimmed, an
+-- optionally signed integer, and null unless it is positive and fits an int.
+-- The inner CASE keeps the cast away from text that is not a number.
+CREATE FUNCTION pg_temp.bp_part(part TEXT) RETURNS INT LANGUAGE sql IMMUTABLE AS $$
+    SELECT CASE WHEN p ~ '^[+-]?[0-9]+$' THEN
+               CASE WHEN p::numeric BETWEEN 1 AND 2147483647 THEN p::numeric::int END
+           END
+    FROM (SELECT btrim(part, E' \t\n\r\f\v') AS p) t
+$$;
+
+-- Backfill from the existing records. Metric names are the Metric enum codes;
+-- systolic is the text before the first slash of bp_level and diastolic the
+-- text up to the next one, each read on its own and skipped when it does not
+-- parse, as they are when records are written.
+INSERT INTO metric_aggregates (user_id, metric, bucket, n, sum_x, sum_xx, sum_t, sum_tt, sum_tx)
+SELECT user_id,
+       metric,
+       date_trunc('month', test_date)::date,
+       count(*),
+       sum(v),
+       sum(v * v),
+       sum(t),
+       sum(t * t),
+       sum(t * v)
+FROM (
+    SELECT s.user_id, s.metric, s.test_date, s.v::double precision AS v,
+           (s.test_date - DATE '2000-01-01')::double precision AS t
+    FROM (
+        SELECT user_id, test_date, 'fbsLevel' AS metric, fbs_level AS v FROM fbs
+        UNION ALL
+        SELECT user_id, test_date, 'systolic', pg_temp.bp_part(split_part(bp_level, '/', 1))
+            FROM blood_pressure WHERE bp_level LIKE '%/%'
+        UNION ALL
+        SELECT user_id, test_date, 'diastolic', pg_temp.bp_part(split_part(bp_level, '/', 2))
+            FROM blood_pressure WHERE bp_level LIKE '%/%'
+        UNION ALL
+        SELECT user_id, test_date, 'haemoglobin', haemoglobin FROM fbc
+        UNION ALL
+        SELECT user_id, test_date, 'totalLeucocyteCount', total_leucocyte_count FROM fbc
+        UNION ALL
+        SELECT user_id, test_date, 'plateletCount', platelet_count FROM fbc
+        UNION ALL
+        SELECT user_id, test_date, 'totalCholesterol', total_cholesterol FROM lipid_profile
+        UNION ALL
+        SELECT user_id, test_date, 'hdl', hdl FROM lipid_profile
+        UNION ALL
+        SELECT user_id, test_date, 'ldl', ldl FROM lipid_profile
+        UNION ALL
+        SELECT user_id, test_date, 'vldl', vldl FROM lipid_profile
+        UNION ALL
+        SELECT user_id, test_date, 'triglycerides', triglycerides FROM lipid_profile
+        UNION ALL
+        SELECT user_id, test_date, 'proteinTotalSerum', protein_total_serum FROM liver_profile
+        UNION ALL
+        SELECT user_id, test_date, 'albuminSerum', albumin_serum FROM liver_profile
+        UNION ALL
+        SELECT user_id, test_date, 'bilirubinTotalSerum', bilirubin_total_serum FROM liver_profile
+        UNION ALL
+        SELECT user_id, test_date, 'sgpt', sgpt FROM liver_profile
+        UNION ALL
+        SELECT user_id, test_date, 'specificGravity', specific_gravity FROM urine_report
+    ) s
+    WHERE s.user_id IS NOT NULL AND s.test_date IS NOT NULL AND s.v IS NOT NULL
+) readings
+GROUP BY user_id, metric, date_trunc('month', test_date);
+
+DROP FUNCTION pg_temp.bp_part(TEXT);
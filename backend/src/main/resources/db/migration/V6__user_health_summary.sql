@@ -0,0 +1,77 @@
+-- Per user and record type: the record count and the newest two records' readings,
+-- behind GET /users/{id}/summary. Kept up to date by HealthSummaryService.
+CREATE TABLE user_health_summary (
+    user_id            INT         NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    record_type        VARCHAR(16) NOT NULL,
+    record_count       INT         NOT NULL,
+    latest_record_id   INT,
+    latest_test_date   DATE,
+    latest_values      JSONB,
+    previous_record_id INT,
+    previous_test_date DATE,
+    previous_values    JSONB,
+    PRIMARY KEY (user_id, record_type)
+);
+
+-- One part of "120/80" read the way HealthAnalyzer reads it: trimmed, an
+-- optionally signed integer, and null unless it is positive and fits an int.
+-- The inner CASE keeps the cast away from text that is not a number.
+CREATE FUNCTION pg_temp.bp_part(part TEXT) RETURNS INT LANGUAGE sql IMMUTABLE AS $$
+    SELECT CASE WHEN p ~ '^[+-]?[0-9]+$' THEN
+               CASE WHEN p::numeric BETWEEN 1 AND 2147483647 THEN p::numeric::int END
+           END
+    FROM (SELECT btrim(part, E' \t\n\r\f\v') AS p) t
+$$;
+
+-- Backfill from the existing records. Values are keyed by the Metric enum codes;
+-- missing readings and blood pressure parts that are not positive numbers are
+-- left out, each part on its own, as they are when records are written.
+WITH readings AS (
+    SELECT 'fbs' AS record_type, id, user_id, test_date,
+           jsonb_build_object('fbsLevel', fbs_level) AS v
+    FROM fbs
+    UNION ALL
+    SELECT 'bp', id, user_id, test_date,
+           CASE WHEN bp_level LIKE '%/%' THEN jsonb_build_object(
+               'systolic', pg_temp.bp_part(split_part(bp_level, '/', 1))::double precision,
+               'diastolic', pg_temp.bp_part(split_part(bp_level, '/', 2))::double precision)
+           ELSE '{}'::jsonb END
+    FROM blood_pressure
+    UNION ALL
+    SELECT 'fbc', id, user_id, test_date,
+           jsonb_build_object('haemoglobin', haemoglobin, 'totalLeucocyteCount', total_leucocyte_count,
+                              'plateletCount', platelet_count)
+    FROM fbc
+    UNION ALL
+    SELECT 'lipid', id, user_id, test_date,
+           jsonb_build_object('totalCholesterol', total_cholesterol, 'hdl', hdl, 'ldl', ldl,
+                              'vldl', vldl, 'triglycerides', triglycerides)
+    FROM lipid_profile
+    UNION ALL
+    SELECT 'liver', id, user_id, test_date,
+           jsonb_build_object('proteinTotalSerum', protein_total_serum, 'albuminSerum', albumin_serum,
+                              'bilirubinTotalSerum', bilirubin_total_serum, 'sgpt', sgpt)
+    FROM liver_profile
+    UNION ALL
+    SELECT 'urine', id, user_id, test_date,
+           jsonb_build_object('specificGravity', specific_gravity)
+    FROM urine_report
+),
+ranked AS (
+    SELECT record_type, id, user_id, test_date, jsonb_strip_nulls(v) AS v,
+           row_number() OVER (PARTITION BY user_id, record_type ORDER BY test_date DESC, id DESC) AS rn,
+           count(*) OVER (PARTITION BY user_id, record_type) AS n
+    FROM readings
+    WHERE user_id IS NOT NULL AND test_date IS NOT NULL
+)
+INSERT INTO user_health_summary (user_id, record_type, record_count,
+                                 latest_record_id, latest_test_date, latest_values,
+                                 previous_record_id, previous_test_date, previous_values)
+SELECT l.user_id, l.record_type, l.n,
+       l.id, l.test_date, l.v,
+       p.id, p.test_date, p.v
+FROM ranked l
+LEFT JOIN ranked p ON p.user_id = l.user_id AND p.record_type = l.record_type AND p.rn = 2
+WHERE l.rn = 1;
+
+DROP FUNCTION pg_temp.bp_part(TEXT);
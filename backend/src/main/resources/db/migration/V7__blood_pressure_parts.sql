@@ -0,0 +1,28 @@
+-- Systolic and diastolic as numbers, parsed from bp_level by BloodPressure on
+-- every write, so readings can be filtered and indexed on the server.
+ALTER TABLE blood_pressure ADD COLUMN systolic INT;
+ALTER TABLE blood_pressure ADD COLUMN diastolic INT;
+
+-- One part of "120/80" read the way HealthAnalyzer reads it: trimmed, an
+-- optionally signed integer, and null unless it is positive and fits an int.
+-- The inner CASE keeps the cast away from text that is not a number.
+CREATE FUNCTION pg_temp.bp_part(part TEXT) RETURNS INT LANGUAGE sql IMMUTABLE AS $$
+    SELECT CASE WHEN p ~ '^[+-]?[0-9]+$' THEN
+               CASE WHEN p::numeric BETWEEN 1 AND 2147483647 THEN p::numeric::int END
+           END
+    FROM (SELECT btrim(part, E' \t\n\r\f\v') AS p) t
+$$;
+
+-- Backfill the existing readings. Systolic is the text before the first slash
+-- and diastolic the text up to the next one; each is read on its own, as it is
+-- when records are written.
+UPDATE blood_pressure
+SET systolic  = pg_temp.bp_part(split_part(bp_level, '/', 1)),
+    diastolic = pg_temp.bp_part(split_part(bp_level, '/', 2))
+WHERE bp_level LIKE '%/%';
+
+DROP FUNCTION pg_temp.bp_part(TEXT);
+
+-- Screening ("systolic >= 140 in the last 90 days") scans the date range and
+-- checks systolic in the index, newest first.
+CREATE INDEX blood_pressure_test_date_systolic_idx ON blood_pressure (test_date, systolic);
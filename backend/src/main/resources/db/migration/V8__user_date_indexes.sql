@@ -0,0 +1,19 @@
+-- Every per-user read filters on user_id and orders or ranges on the date,
+-- newest first with id as the tie-breaker (see the *Repository queries).
+-- Without these, each of them scanned the whole table.
+CREATE INDEX fbs_user_date_idx            ON fbs            (user_id, test_date, id);
+CREATE INDEX blood_pressure_user_date_idx ON blood_pressure (user_id, test_date, id);
+CREATE INDEX fbc_user_date_idx            ON fbc            (user_id, test_date, id);
+CREATE INDEX lipid_profile_user_date_idx  ON lipid_profile  (user_id, test_date, id);
+CREATE INDEX liver_profile_user_date_idx  ON liver_profile  (user_id, test_date, id);
+CREATE INDEX urine_report_user_date_idx   ON urine_report   (user_id, test_date, id);
+CREATE INDEX reports_user_date_idx        ON reports        (user_id, report_date, id);
+
+-- Deleting a record cascades to its report, and updating one looks the report
+-- up, by these columns
+CREATE INDEX reports_fbs_idx   ON reports (fbs_id);
+CREATE INDEX reports_bp_idx    ON reports (bp_id);
+CREATE INDEX reports_fbc_idx   ON reports (fbc_id);
+CREATE INDEX reports_lipid_idx ON reports (lipid_id);
+CREATE INDEX reports_liver_idx ON reports (liver_id);
+CREATE INDEX reports_urine_idx ON reports (urine_id);
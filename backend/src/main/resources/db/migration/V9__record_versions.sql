@@ -0,0 +1,9 @@
+-- Per user and record type: a counter bumped by every write to that user's
+-- records of that type, used as the ETag of their record and report lists.
+-- Kept up to date by RecordVersionService. Users without a row are at 0.
+CREATE TABLE record_versions (
+    user_id     INT         NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    record_type VARCHAR(16) NOT NULL,
+    version     BIGINT      NOT NULL,
+    PRIMARY KEY (user_id, record_type)
+);
@@ -0,0 +1,221 @@
+package com.lakshan.medi_sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.entity.BloodPressure;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.FastingBloodSugarRepository;
+import com.lakshan.medi_sync.repository.UserRepository;
+import com.lakshan.medi_sync.service.BloodPressureService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations on PostgreSQL over rows as they stood before migrations
+ * existed, then starts the application on the result with
+ * {@code ddl-auto=validate}. Every other test builds its schema from the
+ * entities on H2, so this is the only one that runs the migrations' SQL.
+ * Needs Docker; without it the test is skipped.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MigrationTest {
+
+    private static final String[] SEQUENCE_TABLES =
+            {"fbs", "blood_pressure", "fbc", "lipid_profile", "liver_profile", "urine_report", "reports"};
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /** The highest id each table held before the application wrote to it. */
+    private static final Map<String, Integer> baselineMax = new HashMap<>();
+
+    private static JdbcTemplate jdbcTemplate;
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        DataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-data.sql"));
+        }
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        for (String table : SEQUENCE_TABLES) {
+            baselineMax.put(table, max(table));
+        }
+
+        context = new SpringApplicationBuilder(MediSyncApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword(),
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--reminders.cron=-",
+                        "--spring.main.banner-mode=off");
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void sequencesStepByTheAllocationSizeAndContinuePastExistingRows() {
+        for (String table : SEQUENCE_TABLES) {
+            assertEquals(50, jdbcTemplate.queryForObject(
+                    "select increment_by from pg_sequences where sequencename = ?", Long.class, table + "_id_seq"), table);
+        }
+        // Past one block of 50, so the pooled optimizer goes back to the sequence. The
+        // filler user's rows are not checked elsewhere, so writing them is harmless.
+        User user = context.getBean(UserRepository.class).findById(2).orElseThrow();
+        List<FastingBloodSugar> records = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            FastingBloodSugar fbs = new FastingBloodSugar();
+            fbs.setUser(user);
+            fbs.setTestDate(LocalDate.of(2025, 1, 1).plusDays(i));
+            fbs.setFbsLevel(95);
+            records.add(fbs);
+        }
+        context.getBean(FastingBloodSugarRepository.class).saveAll(records);
+        assertTrue(records.stream().allMatch(fbs -> fbs.getId() > baselineMax.get("fbs")));
+        assertEquals(60, records.stream().mapToInt(FastingBloodSugar::getId).distinct().count());
+
+        BloodPressure bp = new BloodPressure();
+        bp.setUser(user);
+        bp.setTestDate(LocalDate.of(2025, 3, 1));
+        bp.setBpLevel("125/82");
+        context.getBean(BloodPressureService.class).addNewBloodPressureRecord(bp);
+        assertTrue(bp.getId() > baselineMax.get("blood_pressure"));
+        assertTrue(jdbcTemplate.queryForObject("select id from reports where bp_id = ?", Integer.class, bp.getId()) > baselineMax.get("reports"));
+    }
+
+    @Test
+    void bloodPressurePartsAreBackfilledOnePartAtATime() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select systolic, diastolic from blood_pressure where user_id = 1 and id <= 8 order by id");
+        assertEquals(Arrays.asList(120, 130, null, null, null, null, null, 140),
+                rows.stream().map(row -> row.get("systolic")).toList());
+        assertEquals(Arrays.asList(80, 85, 70, 90, null, null, null, 90),
+                rows.stream().map(row -> row.get("diastolic")).toList());
+    }
+
+    @Test
+    void trendAggregatesAreBackfilledPerMonth() {
+        Map<String, Object> january = aggregate("fbsLevel", "2024-01-01");
+        assertEquals(2L, january.get("n"));
+        assertEquals(210.0, january.get("sum_x"));
+        assertEquals(100.0 * 100 + 110.0 * 110, january.get("sum_xx"));
+        assertEquals((double) (t("2024-01-10") + t("2024-01-20")), january.get("sum_t"));
+        assertEquals(100.0 * t("2024-01-10") + 110.0 * t("2024-01-20"), january.get("sum_tx"));
+        assertEquals(90.0, aggregate("fbsLevel", "2024-02-01").get("sum_x"));
+
+        assertEquals(250.0, aggregate("systolic", "2024-03-01").get("sum_x"));
+        assertEquals(165.0, aggregate("diastolic", "2024-03-01").get("sum_x"));
+        // Each part is read on its own: April has diastolic readings but no systolic one
+        assertNull(aggregate("systolic", "2024-04-01"));
+        assertEquals(2L, aggregate("diastolic", "2024-04-01").get("n"));
+        assertEquals(160.0, aggregate("diastolic", "2024-04-01").get("sum_x"));
+        assertEquals(140.0, aggregate("systolic", "2024-05-01").get("sum_x"));
+
+        assertEquals(13.5, aggregate("haemoglobin", "2024-02-01").get("sum_x"));
+        assertNull(aggregate("plateletCount", "2024-02-01"));
+    }
+
+    @Test
+    void summariesHoldTheNewestTwoDatedRecords() throws Exception {
+        Map<String, Object> fbs = summary("fbs");
+        assertEquals(3, fbs.get("record_count"));
+        assertEquals(3, fbs.get("latest_record_id"));
+        assertJson("{\"fbsLevel\":90}", fbs.get("latest_values"));
+        assertEquals(2, fbs.get("previous_record_id"));
+        assertJson("{\"fbsLevel\":110}", fbs.get("previous_values"));
+
+        Map<String, Object> bp = summary("bp");
+        assertEquals(8, bp.get("record_count"));
+        assertEquals(8, bp.get("latest_record_id"));
+        assertJson("{\"systolic\":140,\"diastolic\":90}", bp.get("latest_values"));
+        assertEquals(7, bp.get("previous_record_id"));
+        assertJson("{}", bp.get("previous_values"));
+
+        Map<String, Object> fbc = summary("fbc");
+        assertEquals(1, fbc.get("record_count"));
+        assertJson("{\"haemoglobin\":13.5,\"totalLeucocyteCount\":7000}", fbc.get("latest_values"));
+        assertNull(fbc.get("previous_record_id"));
+    }
+
+    @Test
+    void imageHashesAreReadFromTheUrls() {
+        assertEquals("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+                jdbcTemplate.queryForObject("select image_hash from fbc where id = 1", String.class));
+        assertNull(jdbcTemplate.queryForObject("select image_hash from blood_pressure where id = 1", String.class));
+    }
+
+    @Test
+    void existingRowsStartTheChangeLogAtZero() {
+        for (String table : SEQUENCE_TABLES) {
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "select count(*) from " + table + " where id <= ? and (change_seq <> 0 or updated_at is null)",
+                    Integer.class, baselineMax.get(table)), table);
+        }
+    }
+
+    private static int max(String table) {
+        return jdbcTemplate.queryForObject("select max(id) from " + table, Integer.class);
+    }
+
+    private Map<String, Object> aggregate(String metric, String bucket) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select * from metric_aggregates where user_id = 1 and metric = ? and bucket = ?",
+                metric, LocalDate.parse(bucket));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private Map<String, Object> summary(String recordType) {
+        return jdbcTemplate.queryForMap(
+                "select record_count, latest_record_id, latest_values::text as latest_values, " +
+                        "previous_record_id, previous_values::text as previous_values " +
+                        "from user_health_summary where user_id = 1 and record_type = ?", recordType);
+    }
+
+    private static void assertJson(String expected, Object actual) throws Exception {
+        assertEquals(objectMapper.readTree(expected), objectMapper.readTree((String) actual));
+    }
+
+    /** Days since 2000-01-01, the time axis of the trend sums. */
+    private static long t(String date) {
+        return ChronoUnit.DAYS.between(LocalDate.of(2000, 1, 1), LocalDate.parse(date));
+    }
+}
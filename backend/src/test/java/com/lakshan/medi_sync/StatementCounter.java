@@ -0,0 +1,120 @@
+package com.lakshan.medi_sync;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements a block of code sends to the database, whether
+ * they come from Hibernate or from a {@code JdbcTemplate}. Import it into a
+ * test context and wrap the code under test in {@link #record}:
+ * <pre>{@code
+ * List<String> sql = StatementCounter.record(() -> mockMvc.perform(get(...)));
+ * }</pre>
+ * The application's {@link DataSource} is wrapped so that every prepared
+ * statement and every plain statement execution is counted. Only statements
+ * issued by the recording thread are counted, so scheduled jobs running in
+ * the background do not disturb the result; a MockMvc request runs on the
+ * calling thread.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class StatementCounter {
+
+    private static final ThreadLocal<List<String>> recorded = new ThreadLocal<>();
+
+    public interface Block {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs the block and returns the statements it issued, in order.
+     */
+    public static List<String> record(Block block) throws Exception {
+        List<String> statements = new ArrayList<>();
+        recorded.set(statements);
+        try {
+            block.run();
+        } finally {
+            recorded.remove();
+        }
+        return statements;
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                        ? new CountingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    private static void count(String sql) {
+        List<String> statements = recorded.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+    }
+
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return proxy(Connection.class, super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return proxy(Connection.class, super.getConnection(username, password));
+        }
+    }
+
+    /**
+     * A prepared statement is counted when it is prepared, like Hibernate's own
+     * statistics do, so a batch counts once. A plain {@link Statement} is
+     * counted per execution.
+     */
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (type == Connection.class && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                count((String) args[0]);
+            } else if (type == Statement.class && name.startsWith("execute") && args != null && args.length > 0) {
+                count((String) args[0]);
+            }
+            Object result = invoke(method, target, args);
+            if (type == Connection.class && name.equals("createStatement")) {
+                return proxy(Statement.class, (Statement) result);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
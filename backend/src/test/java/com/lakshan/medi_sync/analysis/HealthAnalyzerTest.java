@@ -0,0 +1,71 @@
+package com.lakshan.medi_sync.analysis;
+
+import com.lakshan.medi_sync.dto.BloodPressureView;
+import com.lakshan.medi_sync.dto.LipidProfileView;
+import com.lakshan.medi_sync.dto.UrineReportView;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static com.lakshan.medi_sync.analysis.HealthStatus.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HealthAnalyzerTest {
+
+    @Test
+    void boundariesMatchTheAppRules() {
+        // < 90 low, <= 120 normal, <= 139 high, else abnormal
+        assertEquals(LOW, HealthRules.analyzeSystolic(89).status());
+        assertEquals(NORMAL, HealthRules.analyzeSystolic(90).status());
+        assertEquals(NORMAL, HealthRules.analyzeSystolic(120).status());
+        assertEquals(HIGH, HealthRules.analyzeSystolic(139).status());
+        assertEquals(ABNORMAL, HealthRules.analyzeSystolic(140).status());
+
+        assertEquals(LOW, HealthRules.analyzeFBS(69.9).status());
+        assertEquals(NORMAL, HealthRules.analyzeFBS(100).status());
+        assertEquals(HIGH, HealthRules.analyzeFBS(100.5).status());
+        assertEquals(ABNORMAL, HealthRules.analyzeFBS(126).status());
+
+        assertEquals(NORMAL, HealthRules.analyzeBilirubin(1.2).status());
+        assertEquals(HIGH, HealthRules.analyzeBilirubin(1.3).status());
+
+        assertEquals("Triglyceride level is normal.", HealthRules.analyzeTriglycerides(149).recommendation());
+    }
+
+    @Test
+    void genderSelectsTheHaemoglobinAndHdlRanges() {
+        assertEquals(LOW, HealthRules.analyzeHaemoglobin(13.0, "Male").status());
+        assertEquals(NORMAL, HealthRules.analyzeHaemoglobin(13.0, "Female").status());
+        assertEquals(HIGH, HealthRules.analyzeHaemoglobin(16.0, "female").status());
+
+        assertEquals(NORMAL, HealthRules.analyzeHDL(45, "male").status());
+        assertEquals(LOW, HealthRules.analyzeHDL(45, "female").status());
+        assertEquals(LOW, HealthRules.analyzeHDL(45, null).status());
+    }
+
+    @Test
+    void recordStatusIsTheWorstOfItsMetrics() {
+        RecordInsight lipid = HealthAnalyzer.analyze(
+                new LipidProfileView(1, LocalDate.of(2024, 5, 1), 180, 65, 195, 30, 120, null, 7), "male");
+        assertEquals(ABNORMAL, lipid.status());
+        assertEquals(4, lipid.metrics().size());
+
+        RecordInsight bp = HealthAnalyzer.analyze(
+                new BloodPressureView(2, LocalDate.of(2024, 5, 1), "118/85", 118, 85, null, 7));
+        assertEquals(HIGH, bp.status());
+        assertEquals("Blood pressure is elevated at 118/85. Monitor and consider lifestyle changes.",
+                bp.metrics().get(0).result().recommendation());
+
+        RecordInsight urine = HealthAnalyzer.analyze(
+                new UrineReportView(3, LocalDate.of(2024, 5, 1), "Yellow", "Clear", "Trace", "Nil", 1.010, null, 7));
+        assertEquals(NORMAL, urine.status());
+    }
+
+    @Test
+    void unreadableBloodPressureIsTreatedAsZeroLikeTheApp() {
+        assertEquals(0, HealthAnalyzer.systolicOf("high"));
+        assertEquals(120, HealthAnalyzer.systolicOf(" 120 / 80"));
+        assertEquals(80, HealthAnalyzer.diastolicOf(" 120 / 80"));
+        assertEquals(0, HealthAnalyzer.diastolicOf("120/"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.lakshan.medi_sync.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.service.FastingBloodSugarService;
+import com.lakshan.medi_sync.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ContentNegotiationTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private FastingBloodSugarService fbsService;
+
+    @Test
+    void binaryFormatsCarryTheSameReportsAsJson() throws Exception {
+        User user = new User();
+        user.setName("Negotiating User");
+        user.setEmail("negotiating@example.com");
+        userService.addNewUser(user);
+        FastingBloodSugar fbs = new FastingBloodSugar();
+        fbs.setUser(user);
+        fbs.setTestDate(LocalDate.of(2024, 3, 1));
+        fbs.setFbsLevel(98);
+        fbsService.addNewFastingBloodSugarRecord(fbs);
+
+        String path = "/reports/getReportsByUserId/" + user.getId();
+        JsonNode json = objectMapper.readTree(body(path, MediaType.APPLICATION_JSON));
+        assertEquals("2024-03-01", json.get(0).get("reportDate").asText());
+        assertEquals(json, new CBORMapper().readTree(body(path, CBOR)));
+        assertEquals(json, new SmileMapper().readTree(body(path, SMILE)));
+    }
+
+    @Test
+    void reportsAreRevalidatedPerFormatAndAfterTheUserChanges() throws Exception {
+        User user = new User();
+        user.setName("Renamed User");
+        user.setEmail("renamed@example.com");
+        userService.addNewUser(user);
+        FastingBloodSugar fbs = new FastingBloodSugar();
+        fbs.setUser(user);
+        fbs.setTestDate(LocalDate.of(2024, 3, 1));
+        fbs.setFbsLevel(98);
+        fbsService.addNewFastingBloodSugarRecord(fbs);
+
+        String path = "/reports/getReportsByUserId/" + user.getId();
+        String etag = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+
+        user.setName("New Name");
+        userService.updateUser(user);
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].user.name").value("New Name"));
+    }
+
+    private byte[] body(String path, MediaType accept) throws Exception {
+        MvcResult result = mockMvc.perform(get(path).accept(accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept))
+                .andReturn();
+        return result.getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,227 @@
+package com.lakshan.medi_sync.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.service.ChangeLogService;
+import com.lakshan.medi_sync.service.FastingBloodSugarService;
+import com.lakshan.medi_sync.service.ImageProperties;
+import com.lakshan.medi_sync.service.ImageService;
+import com.lakshan.medi_sync.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageControllerTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    private static final byte[] SCAN = pngHeaderAnd("not a whole png, but the bytes are what matter");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private FastingBloodSugarService fbsService;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageProperties imageProperties;
+
+    @Autowired
+    private ChangeLogService changeLog;
+
+    private FastingBloodSugar record;
+
+    @BeforeEach
+    void addRecord() {
+        User user = new User();
+        user.setName("Scanning User");
+        user.setEmail("scanning" + USERS.incrementAndGet() + "@example.com");
+        userService.addNewUser(user);
+        record = new FastingBloodSugar();
+        record.setUser(user);
+        record.setTestDate(LocalDate.of(2024, 5, 1));
+        record.setFbsLevel(101);
+        fbsService.addNewFastingBloodSugarRecord(record);
+    }
+
+    @Test
+    void uploadedImageIsServedWithRangesAndCacheHeaders() throws Exception {
+        String imageUrl = upload(SCAN);
+        assertTrue(imageUrl.matches("/images/fbs/" + record.getId() + "/[0-9a-f]{64}\\.png"), imageUrl);
+        assertEquals(imageUrl, fbsService.getFastingBloodSugarRecordById(record.getId()).getImageUrl());
+
+        byte[] whole = mockMvc.perform(get(imageUrl))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(SCAN, whole);
+
+        byte[] part = mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=4-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-9/" + SCAN.length))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(Arrays.copyOfRange(SCAN, 4, 10), part);
+
+        mockMvc.perform(get(imageUrl).header(HttpHeaders.RANGE, "bytes=" + SCAN.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+
+        String etag = imageUrl.substring(imageUrl.lastIndexOf('/') + 1, imageUrl.lastIndexOf('.'));
+        mockMvc.perform(get(imageUrl).header(HttpHeaders.IF_NONE_MATCH, "\"" + etag + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void replacedImageIsDeleted() throws Exception {
+        String first = upload(SCAN);
+        String second = upload(pngHeaderAnd("a rescan"));
+
+        mockMvc.perform(get(second)).andExpect(status().isOk());
+        mockMvc.perform(get(first)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deletedRecordTakesItsImageAndUnsharedThumbnails() throws Exception {
+        byte[] content = png(300, 200);
+        String token = changeLog.getChanges(record.getUser().getId(), null).next();
+        String imageUrl = upload(record.getId(), content);
+        assertEquals(1, changeLog.getChanges(record.getUser().getId(), token).reports().size());
+        mockMvc.perform(get(imageUrl).param("size", "128")).andExpect(status().isOk());
+        String hash = imageUrl.substring(imageUrl.lastIndexOf('/') + 1, imageUrl.lastIndexOf('.'));
+        Path thumbnails = imageProperties.dir().resolve("thumbnails").resolve(hash);
+        assertTrue(Files.isDirectory(thumbnails));
+
+        FastingBloodSugar other = new FastingBloodSugar();
+        other.setUser(record.getUser());
+        other.setTestDate(LocalDate.of(2024, 6, 1));
+        other.setFbsLevel(99);
+        fbsService.addNewFastingBloodSugarRecord(other);
+        String sameContent = upload(other.getId(), content);
+
+        fbsService.deleteFastingBloodSugarRecord(record.getId());
+        mockMvc.perform(get(imageUrl)).andExpect(status().isNotFound());
+        assertFalse(Files.exists(imageProperties.dir().resolve("fbs").resolve(Integer.toString(record.getId()))));
+        assertTrue(Files.isDirectory(thumbnails));
+
+        fbsService.deleteFastingBloodSugarRecord(other.getId());
+        mockMvc.perform(get(sameContent)).andExpect(status().isNotFound());
+        assertFalse(Files.exists(thumbnails));
+    }
+
+    @Test
+    void contentMustMatchTheDeclaredType() throws Exception {
+        byte[] text = "not an image at all".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "scan.png", "image/png", text);
+        assertThrows(IllegalArgumentException.class,
+                () -> imageService.upload(RecordType.FASTING_BLOOD_SUGAR, record.getId(), file));
+        MockMultipartFile pdf = new MockMultipartFile("file", "scan.pdf", "application/pdf", SCAN);
+        assertThrows(IllegalArgumentException.class,
+                () -> imageService.upload(RecordType.FASTING_BLOOD_SUGAR, record.getId(), pdf));
+        assertNull(fbsService.getFastingBloodSugarRecordById(record.getId()).getImageUrl());
+
+        MockMultipartFile webp = new MockMultipartFile("file", "scan.webp", "image/webp",
+                "RIFF\u0024\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1));
+        assertTrue(imageService.upload(RecordType.FASTING_BLOOD_SUGAR, record.getId(), webp).endsWith(".webp"));
+    }
+
+    @Test
+    void onlyStoredFileNamesAreServed() throws Exception {
+        mockMvc.perform(get("/images/fbs/" + record.getId() + "/application.properties"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/images/users/" + record.getId() + "/" + "0".repeat(64) + ".png"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void thumbnailsAreServedBySizeAndListed() throws Exception {
+        String imageUrl = upload(png(1000, 500));
+
+        byte[] small = mockMvc.perform(get(imageUrl).param("size", "128"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-128\"")))
+                .andReturn().getResponse().getContentAsByteArray();
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(small));
+        assertEquals(128, thumbnail.getWidth());
+        assertEquals(64, thumbnail.getHeight());
+
+        mockMvc.perform(get(imageUrl).param("size", "100"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/fbs/getFastingBloodSugarRecordsByUserId/{id}", record.getUser().getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].thumbnailUrls.256").value(imageUrl + "?size=256"));
+    }
+
+    private static byte[] pngHeaderAnd(String text) {
+        byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[] content = Arrays.copyOf(header, header.length + bytes.length);
+        System.arraycopy(bytes, 0, content, header.length, bytes.length);
+        return content;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x * height / width, 0xFF336699);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private String upload(byte[] content) throws Exception {
+        return upload(record.getId(), content);
+    }
+
+    private String upload(int recordId, byte[] content) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "scan.png", "image/png", content);
+        String body = mockMvc.perform(multipart("/records/fbs/{id}/image", recordId).file(file))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("imageUrl").asText();
+    }
+}
@@ -0,0 +1,204 @@
+package com.lakshan.medi_sync.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LabImportControllerTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    private int userId;
+
+    @BeforeEach
+    void addUser() {
+        User user = new User();
+        user.setName("Lab Patient");
+        user.setEmail("lab" + USERS.incrementAndGet() + "@example.com");
+        userService.addNewUser(user);
+        userId = user.getId();
+    }
+
+    @Test
+    void hl7ResultsBecomeRecordsWithReports() throws Exception {
+        String file = String.join("\r",
+                "MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|20240315083000||ORU^R01|M1|P|2.5.1",
+                "PID|1||" + userId + "^^^MEDISYNC^MR||Perera^Nimal",
+                "OBR|1|||57021-8^CBC panel^LN|||20240315080000",
+                "OBX|1|NM|718-7^Hemoglobin^LN||13.8|g/dL|13.0-17.0|N|||F",
+                "OBX|2|NM|6690-2^Leukocytes^LN||7.2|10*3/uL|4.0-11.0|N|||F",
+                "OBX|3|NM|777-3^Platelets^LN||250|10*3/uL|150-400|N|||F",
+                "OBX|4|NM|789-8^Erythrocytes^LN||4.9|10*6/uL|4.5-5.9|N|||F",
+                "OBR|2|||24331-1^Lipid panel^LN|||20240315080000",
+                "OBX|1|NM|2093-3^Cholesterol^LN||5.2|mmol/L|||||F",
+                "OBX|2|NM|2085-9^HDL^LN||52|mg/dL|||||F",
+                "OBX|3|NM|13457-7^LDL^LN||120|mg/dL|||||F",
+                "OBX|4|NM|13458-5^VLDL^LN||25|mg/dL|||||F",
+                "OBX|5|NM|2571-8^Triglycerides^LN||1.5|mmol/L|||||F",
+                "",
+                "MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|20240315090000||ADT^A01|M2|P|2.5.1",
+                "PID|1||" + userId,
+                "MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|20240315090000||ORU^R01|M3|P|2.5.1",
+                "PID|1||999999",
+                "OBR|1|||1558-6^Glucose fasting^LN|||20240315",
+                "OBX|1|NM|1558-6^Glucose fasting^LN||98|mg/dL|||||F",
+                "MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|20240315090000||ORU^R01|M4|P|2.5.1",
+                "PID|1||" + userId,
+                "OBR|1|||24325-3^Hepatic panel^LN|||20240316",
+                "OBX|1|NM|1742-6^ALT^LN||31|U/L|||||F",
+                "OBX|2|NM|1975-2^Bilirubin^LN||0.8|mg/dL|||||P");
+
+        mockMvc.perform(post("/records/import").contentType("x-application/hl7-v2+er7").content(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages").value(4))
+                .andExpect(jsonPath("$.observations").value(11))
+                .andExpect(jsonPath("$.ignored").value(1))
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[*].index").value(contains(1, 2, 3)))
+                .andExpect(jsonPath("$.errors[1].message").value("User not found with id: 999999"));
+
+        mockMvc.perform(get("/fbc/getFullBloodCountRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$[0].testDate").value("2024-03-15"))
+                .andExpect(jsonPath("$[0].totalLeucocyteCount").value(7200.0))
+                .andExpect(jsonPath("$[0].plateletCount").value(250000.0));
+        mockMvc.perform(get("/lipid_profile/getLipidProfileRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$[0].totalCholesterol").value(closeTo(201.1, 0.1)))
+                .andExpect(jsonPath("$[0].triglycerides").value(closeTo(132.9, 0.1)));
+        mockMvc.perform(get("/reports/getReportsByUserId/{id}", userId))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void resentAndCorrectedResultsReplaceTheRecordOfThatDay() throws Exception {
+        String message = String.join("\r",
+                "MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|20240601083000||ORU^R01|M1|P|2.5.1",
+                "PID|1||" + userId,
+                "OBR|1|||1558-6^Glucose fasting^LN|||20240601",
+                "OBX|1|NM|1558-6^Glucose fasting^LN||104|mg/dL|||||F") + "\r";
+
+        mockMvc.perform(post("/records/import").contentType("x-application/hl7-v2+er7").content(message + message))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.replaced").value(1));
+        mockMvc.perform(post("/records/import").contentType("x-application/hl7-v2+er7").content(message))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(0))
+                .andExpect(jsonPath("$.replaced").value(1));
+        int recordId = JsonPath.read(mockMvc.perform(get("/fbs/getFastingBloodSugarRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andReturn().getResponse().getContentAsString(), "$[0].id");
+
+        String correction = message.replace("|M1|", "|M2|").replace("||104|", "||96|").replace("|||||F", "|||||C");
+        mockMvc.perform(post("/records/import").contentType("x-application/hl7-v2+er7").content(correction))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(0))
+                .andExpect(jsonPath("$.replaced").value(1));
+        mockMvc.perform(get("/fbs/getFastingBloodSugarRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(recordId))
+                .andExpect(jsonPath("$[0].fbsLevel").value(96.0));
+        mockMvc.perform(get("/reports/getReportsByUserId/{id}", userId))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/users/{id}/summary", userId))
+                .andExpect(jsonPath("$.types[0].count").value(1))
+                .andExpect(jsonPath("$.types[0].latest.values.fbsLevel").value(96.0));
+    }
+
+    @Test
+    void fhirBundleEntriesAreStreamedIntoRecords() throws Exception {
+        String bundle = """
+                {
+                  "resourceType": "Bundle",
+                  "type": "collection",
+                  "entry": [
+                    {"resource": {"resourceType": "Patient", "id": "%1$d"}},
+                    {"resource": {"resourceType": "Observation", "status": "final",
+                      "code": {"coding": [{"system": "http://loinc.org", "code": "85354-9"}]},
+                      "subject": {"reference": "Patient/%1$d"},
+                      "effectiveDateTime": "2024-04-02T09:15:00+05:30",
+                      "component": [
+                        {"code": {"coding": [{"system": "http://loinc.org", "code": "8480-6"}]},
+                         "valueQuantity": {"value": 128, "unit": "mmHg", "code": "mm[Hg]"}},
+                        {"code": {"coding": [{"system": "http://loinc.org", "code": "8462-4"}]},
+                         "valueQuantity": {"value": 84, "unit": "mmHg", "code": "mm[Hg]"}}
+                      ]}},
+                    {"resource": {"resourceType": "Observation", "status": "final",
+                      "code": {"coding": [{"system": "http://loinc.org", "code": "5778-6"}]},
+                      "subject": {"reference": "Patient/%1$d"},
+                      "effectiveDateTime": "2024-04-02",
+                      "valueCodeableConcept": {"text": "Yellow"}}},
+                    {"resource": {"resourceType": "Observation", "status": "final",
+                      "code": {"coding": [{"system": "http://loinc.org", "code": "5811-5"}]},
+                      "subject": {"reference": "Patient/%1$d"},
+                      "effectiveDateTime": "2024-04-02",
+                      "valueQuantity": {"value": 1.020}}},
+                    {"resource": {"resourceType": "Observation", "status": "preliminary",
+                      "code": {"coding": [{"system": "http://loinc.org", "code": "1558-6"}]},
+                      "subject": {"reference": "Patient/%1$d"},
+                      "effectiveDateTime": "2024-04-02",
+                      "valueQuantity": {"value": 140, "code": "mg/dL"}}},
+                    {"resource": {"resourceType": "Observation", "status": "final",
+                      "code": {"coding": [{"system": "http://loinc.org", "code": "1558-6"}]},
+                      "subject": {"reference": "urn:uuid:5b1c"},
+                      "effectiveDateTime": "2024-04-02",
+                      "valueQuantity": {"value": 99, "code": "mg/dL"}}}
+                  ]
+                }
+                """.formatted(userId);
+
+        mockMvc.perform(post("/records/import").contentType("application/fhir+json").content(bundle))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages").value(6))
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(5));
+
+        mockMvc.perform(get("/blood_pressure/getBloodPressureRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$[0].bpLevel").value("128/84"))
+                .andExpect(jsonPath("$[0].testDate").value("2024-04-02"));
+        mockMvc.perform(get("/urine_report/getUrineReportRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$[0].color").value("Yellow"))
+                .andExpect(jsonPath("$[0].specificGravity").value(1.02));
+    }
+
+    @Test
+    void ndjsonObservationsAreReadOneLineAtATime() throws Exception {
+        String lines = """
+                {"resourceType": "Observation", "status": "final", "subject": {"reference": "Patient/%1$d"}, "effectiveDateTime": "2024-05-01", "code": {"coding": [{"system": "http://loinc.org", "code": "1558-6"}]}, "valueQuantity": {"value": 5.5, "code": "mmol/L"}}
+                {"resourceType": "Observation", "status": "final", "subject": {"reference": "Patient/%1$d"}, "effectiveDateTime": "2024-05-02", "code": {"coding": [{"system": "http://loinc.org", "code": "1558-6"}]}, "valueQuantity": {"value": 101, "code": "mg/dL"}}
+                {"resourceType": "Observation", "status": "final",
+                """.formatted(userId);
+
+        mockMvc.perform(post("/records/import").contentType("application/fhir+ndjson").content(lines))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.errors[0].index").value(2));
+        mockMvc.perform(get("/fbs/getFastingBloodSugarRecordsByUserId/{id}", userId))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+}
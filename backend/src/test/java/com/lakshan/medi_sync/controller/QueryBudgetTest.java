@@ -0,0 +1,201 @@
+package com.lakshan.medi_sync.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshan.medi_sync.StatementCounter;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.service.UserService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets per endpoint. Each read is issued for a user with one
+ * record of each type and for a user with many, and must stay within its
+ * budget and issue the same number of statements for both, so an N+1 from an
+ * eager association fails here instead of in production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StatementCounter.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+
+    private static final int MANY = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    private User few;
+    private User many;
+
+    @BeforeAll
+    void seed() throws Exception {
+        few = seedUser("few@example.com", 1);
+        many = seedUser("many@example.com", MANY);
+    }
+
+    @Test
+    void reportsByUser() throws Exception {
+        // The version for the ETag, then the reports
+        assertReadBudget(2, "/reports/getReportsByUserId/%d");
+        assertReadBudget(2, "/reports/getReportsByUserId/%d?from=2024-01-01");
+    }
+
+    @Test
+    void recordsByUser() throws Exception {
+        for (RecordType type : RecordType.values()) {
+            String entity = type.getEntityClass().getSimpleName();
+            assertReadBudget(2, "/" + type.getTableName() + "/get" + entity + "RecordsByUserId/%d");
+            assertReadBudget(2, "/" + type.getTableName() + "/get" + entity + "RecordsByUserId/%d?from=2024-01-01&to=2024-03-31");
+            assertReadBudget(2, "/" + type.getTableName() + "/get" + entity + "RecordsPageByUserId/%d?size=5");
+        }
+    }
+
+    @Test
+    void notModified() throws Exception {
+        String path = "/fbs/getFastingBloodSugarRecordsByUserId/" + few.getId();
+        String etag = mockMvc.perform(get(path)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        List<String> statements = StatementCounter.record(() -> mockMvc.perform(get(path)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()));
+        assertWithin(1, statements, "a revalidated " + path);
+
+        mockMvc.perform(post("/fbs/addFastingBloodSugarRecord")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                record(few.getId(), LocalDate.of(2025, 7, 1)).put("fbsLevel", 95))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/reports/getReportsByUserId/" + few.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void userViews() throws Exception {
+        assertReadBudget(1, "/users/getUser/%d");
+        assertReadBudget(1, "/users/%d/summary");
+        // The user check, then the trend buckets
+        assertReadBudget(2, "/users/%d/trends?metric=fbsLevel");
+        // One query per record type
+        assertReadBudget(6, "/users/%d/insights");
+        assertReadBudget(7, "/users/%d/timeline");
+        // The user check, the change counter, then one query per record type,
+        // the reports and the tombstones
+        assertReadBudget(10, "/users/%d/changes");
+    }
+
+    @Test
+    void login() throws Exception {
+        List<String> statements = StatementCounter.record(() -> mockMvc.perform(post("/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"many@example.com\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk()));
+        assertWithin(1, statements, "login");
+    }
+
+    @Test
+    void addRecord() throws Exception {
+        ObjectNode record = record(many.getId(), LocalDate.of(2025, 6, 1)).put("fbsLevel", 101);
+        List<String> statements = StatementCounter.record(() -> mockMvc.perform(post("/fbs/addFastingBloodSugarRecord")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(record)))
+                .andExpect(status().isCreated()));
+        // The change counter, the record, its report, the trend bucket upsert, the
+        // summary update and the version upsert; two more when a sequence hands
+        // out a new block of ids
+        assertWithin(13, statements, "addFastingBloodSugarRecord");
+    }
+
+    private void assertReadBudget(int budget, String path) throws Exception {
+        List<String> forFew = statements(get(path.formatted(few.getId())));
+        List<String> forMany = statements(get(path.formatted(many.getId())));
+        assertWithin(budget, forMany, path);
+        assertEquals(forFew.size(), forMany.size(),
+                () -> path + " issues more statements for more rows: " + forMany);
+    }
+
+    private List<String> statements(RequestBuilder request) throws Exception {
+        return StatementCounter.record(() -> mockMvc.perform(request).andExpect(status().isOk()));
+    }
+
+    private static void assertWithin(int budget, List<String> statements, String what) {
+        assertTrue(statements.size() <= budget,
+                () -> what + " issued " + statements.size() + " statements, budget " + budget + ": " + statements);
+    }
+
+    private User seedUser(String email, int perType) throws Exception {
+        User user = new User();
+        user.setName("Budget User");
+        user.setEmail(email);
+        user.setPassword(DigestUtils.sha256Hex("secret"));
+        user.setGender("Female");
+        userService.addNewUser(user);
+
+        ArrayNode items = objectMapper.createArrayNode();
+        for (int i = 0; i < perType; i++) {
+            LocalDate testDate = LocalDate.of(2024, 1, 1).plusWeeks(i);
+            items.addObject().put("type", "fbs")
+                    .set("record", record(user.getId(), testDate).put("fbsLevel", 90 + i));
+            items.addObject().put("type", "bp")
+                    .set("record", record(user.getId(), testDate).put("bpLevel", "12" + i % 10 + "/80"));
+            items.addObject().put("type", "fbc")
+                    .set("record", record(user.getId(), testDate)
+                            .put("haemoglobin", 13.5).put("totalLeucocyteCount", 7000).put("plateletCount", 250000));
+            items.addObject().put("type", "lipid")
+                    .set("record", record(user.getId(), testDate)
+                            .put("totalCholesterol", 190).put("hdl", 50).put("ldl", 110)
+                            .put("vldl", 25).put("triglycerides", 140));
+            items.addObject().put("type", "liver")
+                    .set("record", record(user.getId(), testDate)
+                            .put("proteinTotalSerum", 7).put("albuminSerum", 4.2)
+                            .put("bilirubinTotalSerum", 0.8).put("sgpt", 30));
+            items.addObject().put("type", "urine")
+                    .set("record", record(user.getId(), testDate)
+                            .put("color", "Pale yellow").put("appearance", "Clear")
+                            .put("protein", "Nil").put("sugar", "Nil").put("specificGravity", 1.015));
+        }
+        mockMvc.perform(post("/records/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk());
+        return user;
+    }
+
+    private ObjectNode record(int userId, LocalDate testDate) {
+        ObjectNode record = objectMapper.createObjectNode().put("testDate", testDate.toString());
+        record.putObject("user").put("id", userId);
+        return record;
+    }
+}
@@ -0,0 +1,55 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.lakshan.medi_sync.entity.RecordType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AnalyteTest {
+
+    @Test
+    void resultsAreConvertedToTheStoredUnit() {
+        assertEquals(99.088, Analyte.FASTING_GLUCOSE.toStoredUnit("5.5", "mmol/L"), 1e-9);
+        assertEquals(201.084, Analyte.TOTAL_CHOLESTEROL.toStoredUnit("5.2", "mmol/L"), 1e-9);
+        assertEquals(132.855, Analyte.TRIGLYCERIDES.toStoredUnit(" 1.5 ", "MMOL/L"), 1e-9);
+        assertEquals(13.8, Analyte.HAEMOGLOBIN.toStoredUnit("138", "g/L"), 1e-9);
+        assertEquals(7200, Analyte.TOTAL_LEUCOCYTE_COUNT.toStoredUnit("7.2", "10*3/uL"), 1e-9);
+        assertEquals(250000, Analyte.PLATELET_COUNT.toStoredUnit("250", "10^9/L"), 1e-9);
+        assertEquals(0.702, Analyte.BILIRUBIN_TOTAL_SERUM.toStoredUnit("12", "µmol/L"), 1e-9);
+        assertEquals(0.702, Analyte.BILIRUBIN_TOTAL_SERUM.toStoredUnit("12", "μmol/L"), 1e-9);
+        assertEquals(128, Analyte.SYSTOLIC.toStoredUnit("128", "mmHg"), 1e-9);
+    }
+
+    @Test
+    void resultWithoutAUnitIsInTheStoredUnit() {
+        assertEquals(98, Analyte.FASTING_GLUCOSE.toStoredUnit("98", null), 1e-9);
+        assertEquals(1.02, Analyte.SPECIFIC_GRAVITY.toStoredUnit("1.020", " "), 1e-9);
+    }
+
+    @Test
+    void unknownUnitsAreRefused() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Analyte.FASTING_GLUCOSE.toStoredUnit("98", "mg/L"));
+        assertEquals("FASTING_GLUCOSE in mg/L cannot be converted to mg/dL", e.getMessage());
+    }
+
+    @Test
+    void resultsThatAreNotFiniteNumbersAreRefused() {
+        for (String value : new String[]{"NaN", "Infinity", "-Infinity", "1e400"}) {
+            assertThrows(IllegalArgumentException.class, () -> Analyte.FASTING_GLUCOSE.toStoredUnit(value, "mg/dL"), value);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Analyte.PLATELET_COUNT.toStoredUnit("1e306", "10^9/L"));
+    }
+
+    @Test
+    void codesAndRequiredResults() {
+        assertEquals(Analyte.LDL, Analyte.forLoinc(" 18262-6 "));
+        assertNull(Analyte.forLoinc("789-8"));
+        assertEquals(Set.of(Analyte.SPECIFIC_GRAVITY), Analyte.requiredFor(RecordType.URINE_REPORT));
+        assertEquals(Set.of(Analyte.SYSTOLIC, Analyte.DIASTOLIC), Analyte.requiredFor(RecordType.BLOOD_PRESSURE));
+    }
+}
@@ -0,0 +1,115 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FhirBundleReaderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void entriesThatAreNotObjectsAreRejectedAndReadingGoesOn() throws IOException {
+        Collected collected = read("""
+                {"resourceType": "Bundle", "entry": [
+                  1,
+                  ["not", "an", "entry"],
+                  {"resource": %s},
+                  null,
+                  {"fullUrl": "urn:uuid:no-resource"}
+                ], "type": "collection"}
+                """.formatted(glucose(7, "\"effectiveDateTime\": \"2024-05-01\"")));
+
+        assertEquals(5, collected.entries);
+        assertEquals(List.of("0: Bundle entry is not an object", "1: Bundle entry is not an object",
+                "3: Bundle entry is not an object"), collected.rejections);
+        assertEquals(1, collected.records.size());
+    }
+
+    @Test
+    void nestedBundlesAreReadUnderTheirOuterEntry() throws IOException {
+        Collected collected = read("""
+                {"resourceType": "Bundle", "entry": [
+                  {"resource": {"resourceType": "Patient", "id": "7"}},
+                  {"resource": {"resourceType": "Bundle", "entry": [
+                    {"resource": %s},
+                    {"resource": {"resourceType": "Bundle", "entry": [{"resource": %s}]}}
+                  ]}}
+                ]}
+                """.formatted(glucose(7, "\"effectiveDateTime\": \"2024-05-01\""),
+                glucose(8, "\"effectiveDateTime\": \"2024-05-02\"")));
+
+        assertEquals(2, collected.entries);
+        assertEquals(List.of(7, 8), collected.records.stream().map(record -> record.getUser().getId()).toList());
+        assertEquals(List.of(1, 1), collected.sources);
+    }
+
+    @Test
+    void observationsAreDatedByPeriodStartOrElseWhenIssued() throws IOException {
+        Collected collected = read(String.join("\n",
+                glucose(7, "\"effectivePeriod\": {\"start\": \"2024-06-01T07:30:00Z\", \"end\": \"2024-06-02\"}, "
+                        + "\"issued\": \"2024-06-03T10:00:00Z\""),
+                glucose(8, "\"issued\": \"2024-06-04T10:00:00.000+05:30\""),
+                glucose(9, "\"effectivePeriod\": {\"end\": \"2024-06-05\"}"),
+                glucose(10, "\"effectiveDateTime\": \"June\"")));
+
+        assertEquals(List.of(LocalDate.of(2024, 6, 1), LocalDate.of(2024, 6, 4)),
+                collected.records.stream().map(HealthRecord::getTestDate).toList());
+        assertEquals(List.of("2: Observation without a date", "3: Observation without a date"), collected.rejections);
+    }
+
+    @Test
+    void quantityCodeIsPreferredToItsDisplayUnit() throws IOException {
+        Collected collected = read("""
+                {"resourceType": "Observation", "status": "amended",
+                 "subject": {"reference": "Patient/7"}, "effectiveDateTime": "2024-05-01",
+                 "code": {"coding": [{"system": "urn:local", "code": "GLU"}, {"system": "http://loinc.org", "code": "1558-6"}]},
+                 "valueQuantity": {"value": 5, "unit": "mg/dL", "code": "mmol/L"}}
+                """);
+
+        assertEquals(5 * 18.016, ((FastingBloodSugar) collected.records.get(0)).getFbsLevel(), 1e-9);
+        assertTrue(collected.rejections.isEmpty());
+    }
+
+    private static String glucose(int userId, String date) {
+        return """
+                {"resourceType": "Observation", "status": "final", "subject": {"reference": "Patient/%d"}, %s,
+                 "code": {"coding": [{"system": "http://loinc.org", "code": "1558-6"}]},
+                 "valueQuantity": {"value": 98, "code": "mg/dL"}}""".formatted(userId, date);
+    }
+
+    private static Collected read(String json) throws IOException {
+        Collected collected = new Collected();
+        collected.entries = new FhirBundleReader(MAPPER.createParser(json), new RecordAssembler(collected), collected)
+                .read();
+        return collected;
+    }
+
+    private static final class Collected implements RecordSink {
+
+        private final List<HealthRecord> records = new ArrayList<>();
+        private final List<Integer> sources = new ArrayList<>();
+        private final List<String> rejections = new ArrayList<>();
+        private int entries;
+
+        @Override
+        public void record(int source, HealthRecord record) {
+            records.add(record);
+            sources.add(source);
+        }
+
+        @Override
+        public void reject(int source, String message) {
+            rejections.add(source + ": " + message);
+        }
+    }
+}
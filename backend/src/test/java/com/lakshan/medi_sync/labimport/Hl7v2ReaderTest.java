@@ -0,0 +1,151 @@
+package com.lakshan.medi_sync.labimport;
+
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.UrineReport;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Hl7v2ReaderTest {
+
+    private static final String MSH = "MSH|^~\\&|LIS|ACME LAB|MEDISYNC|MEDISYNC|20240315083000||ORU^R01|M1|P|2.5.1";
+
+    @Test
+    void unreadableResultRejectsItsRecordOnce() throws IOException {
+        Collected collected = read(
+                MSH,
+                "PID|1||7",
+                "OBX|1|NM|2093-3^Cholesterol^LN||abc|mg/dL|||||F",
+                "OBX|2|NM|2085-9^HDL^LN||52|mg/dL|||||F",
+                "OBX|3|NM|13457-7^LDL^LN||oops|mg/dL|||||F",
+                "OBX|4|NM|1558-6^Glucose^LN||NaN|mg/dL|||||F");
+
+        assertTrue(collected.records.isEmpty());
+        assertEquals(List.of("0: TOTAL_CHOLESTEROL result is not a number: abc",
+                "0: FASTING_GLUCOSE result is not a number: NaN"), collected.rejections);
+    }
+
+    @Test
+    void truncatedHeaderStartsASkippedMessage() throws IOException {
+        Collected collected = read(
+                MSH,
+                "PID|1||7",
+                "OBX|1|NM|1558-6^Glucose^LN||98|mg/dL|||||F",
+                MSH + "|" + "x".repeat(Hl7v2Reader.MAX_SEGMENT_LENGTH),
+                "PID|1||8",
+                "OBX|1|NM|1558-6^Glucose^LN||140|mg/dL|||||F");
+
+        assertEquals(2, collected.messages);
+        assertEquals(1, collected.records.size());
+        assertEquals(98, ((FastingBloodSugar) collected.records.get(0)).getFbsLevel());
+        assertEquals(List.of("1: Segment longer than " + Hl7v2Reader.MAX_SEGMENT_LENGTH + " characters"),
+                collected.rejections);
+    }
+
+    @Test
+    void separatorsAreTakenFromTheHeader() throws IOException {
+        Collected collected = read(
+                "MSH#@*$%#LIS#ACME LAB#MEDISYNC#MEDISYNC#20240315083000##ORU@R01#M1#P#2.5.1",
+                "PID#1##7@@@MEDISYNC@MR*9",
+                "OBX#1#NM#1558-6@Glucose@LN##5.5*6.0#mmol/L@millimole per litre#####F");
+
+        FastingBloodSugar fbs = (FastingBloodSugar) collected.records.get(0);
+        assertEquals(7, fbs.getUser().getId());
+        assertEquals(5.5 * 18.016, fbs.getFbsLevel(), 1e-9);
+        assertEquals(LocalDate.of(2024, 3, 15), fbs.getTestDate());
+    }
+
+    @Test
+    void textResultsAreUnescapedAndCodedResultsUseTheirText() throws IOException {
+        Collected collected = read(
+                MSH,
+                "PID|1||7",
+                "OBX|1|ST|5778-6^Color^LN||Yellow\\S\\Amber \\F\\ pale \\E\\ \\.br\\ \\T\\\\R\\||||||F",
+                "OBX|2|CWE|5767-9^Appearance^LN||CLR^Clear^L||||||F",
+                "OBX|3|CE|20454-5^Protein^LN||NEG||||||F",
+                "OBX|4|NM|5811-5^Specific gravity^LN||1.015||||||F");
+
+        UrineReport urine = (UrineReport) collected.records.get(0);
+        assertEquals("Yellow^Amber | pale \\  &~", urine.getColor());
+        assertEquals("Clear", urine.getAppearance());
+        assertEquals("NEG", urine.getProtein());
+        assertNull(urine.getSugar());
+    }
+
+    @Test
+    void mllpFramedMessagesAreReadOneAfterAnother() throws IOException {
+        String first = String.join("\r", MSH, "PID|1||7", "OBX|1|NM|1558-6^Glucose^LN||98|mg/dL|||||F|||20240301");
+        String second = String.join("\r", MSH, "PID|1||8", "OBX|1|NM|1558-6^Glucose^LN||101|mg/dL|||||F");
+        Collected collected = new Collected();
+        String framed = "\u000b" + first + "\r\u001c\r\u000b" + second + "\r\u001c\r";
+        collected.messages = new Hl7v2Reader(new StringReader(framed), new RecordAssembler(collected), collected).read();
+
+        assertEquals(2, collected.messages);
+        assertEquals(List.of(7, 8), collected.records.stream().map(record -> record.getUser().getId()).toList());
+        assertEquals(LocalDate.of(2024, 3, 1), collected.records.get(0).getTestDate());
+        assertTrue(collected.rejections.isEmpty());
+    }
+
+    @Test
+    void loincIsReadFromTheAlternateCoding() throws IOException {
+        Collected collected = read(
+                MSH,
+                "PID|1||7",
+                "OBX|1|NM|GLU^Glucose^L^1558-6^Glucose fasting^LN||98|mg/dL|||||F",
+                "OBX|2|NM|GLU2^Glucose^L^9999-9^Unknown^99ZZZ||120|mg/dL|||||F");
+
+        assertEquals(1, collected.records.size());
+        assertEquals(98, ((FastingBloodSugar) collected.records.get(0)).getFbsLevel());
+    }
+
+    @Test
+    void longSegmentSkipsTheRestOfItsMessageOnly() throws IOException {
+        Collected collected = read(
+                MSH,
+                "PID|1||7",
+                "NTE|1||" + "x".repeat(Hl7v2Reader.MAX_SEGMENT_LENGTH + 1),
+                "OBX|1|NM|1558-6^Glucose^LN||98|mg/dL|||||F",
+                MSH,
+                "PID|1||8",
+                "OBX|1|NM|1558-6^Glucose^LN||101|mg/dL|||||F");
+
+        assertEquals(2, collected.messages);
+        assertEquals(1, collected.records.size());
+        assertEquals(8, collected.records.get(0).getUser().getId());
+        assertEquals(List.of("0: Segment longer than " + Hl7v2Reader.MAX_SEGMENT_LENGTH + " characters"),
+                collected.rejections);
+    }
+
+    private static Collected read(String... segments) throws IOException {
+        Collected collected = new Collected();
+        collected.messages = new Hl7v2Reader(new StringReader(String.join("\r", segments)),
+                new RecordAssembler(collected), collected).read();
+        return collected;
+    }
+
+    private static final class Collected implements RecordSink {
+
+        private final List<HealthRecord> records = new ArrayList<>();
+        private final List<String> rejections = new ArrayList<>();
+        private int messages;
+
+        @Override
+        public void record(int source, HealthRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void reject(int source, String message) {
+            rejections.add(source + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.lakshan.medi_sync.repository;
+
+import com.lakshan.medi_sync.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class ReportRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private FastingBloodSugarRepository fbsRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void findByUserIdStatementCountDoesNotGrowWithReports() {
+        User few = persistUserWithReports("few@example.com", 3);
+        User many = persistUserWithReports("many@example.com", 60);
+
+        long fewStatements = countStatements(() -> assertEquals(6, reportRepository.findByUserId(few.getId()).size()));
+        long manyStatements = countStatements(() -> assertEquals(120, reportRepository.findByUserId(many.getId()).size()));
+
+        assertEquals(1, fewStatements);
+        assertEquals(fewStatements, manyStatements);
+    }
+
+    @Test
+    void recordFindByUserIdStatementCountDoesNotGrowWithRecords() {
+        User user = persistUserWithReports("records@example.com", 40);
+
+        long statements = countStatements(() -> {
+            List<FastingBloodSugar> records = fbsRepository.findByUserId(user.getId());
+            assertEquals(40, records.size());
+            records.forEach(record -> assertEquals(user.getId(), record.getUser().getId()));
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void reportsAreNewestFirstWithOrWithoutARange() {
+        User user = persistUserWithReports("range@example.com", 5);
+
+        List<Report> reports = reportRepository.findByUserIdAndReportDateBetweenOrderByReportDateDescIdDesc(
+                user.getId(), LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 4));
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 3),
+                        LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 2)),
+                reports.stream().map(Report::getReportDate).toList());
+        assertTrue(reports.get(0).getId() > reports.get(1).getId());
+
+        List<Report> all = reportRepository.findByUserIdOrderByReportDateDescIdDesc(user.getId());
+        assertEquals(10, all.size());
+        assertEquals(LocalDate.of(2024, 1, 5), all.get(0).getReportDate());
+        assertEquals(LocalDate.of(2024, 1, 1), all.get(9).getReportDate());
+    }
+
+    private long countStatements(Runnable query) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUserWithReports(String email, int count) {
+        User user = new User();
+        user.setName("Test User");
+        user.setEmail(email);
+        entityManager.persist(user);
+
+        for (int i = 0; i < count; i++) {
+            LocalDate testDate = LocalDate.of(2024, 1, 1).plusDays(i);
+
+            FastingBloodSugar fbs = new FastingBloodSugar();
+            fbs.setUser(user);
+            fbs.setTestDate(testDate);
+            fbs.setFbsLevel(90 + i);
+            entityManager.persist(fbs);
+
+            BloodPressure bp = new BloodPressure();
+            bp.setUser(user);
+            bp.setTestDate(testDate);
+            bp.setBpLevel("120/80");
+            entityManager.persist(bp);
+
+            entityManager.persist(report(user, testDate, fbs, null));
+            entityManager.persist(report(user, testDate, null, bp));
+        }
+        entityManager.flush();
+        return user;
+    }
+
+    private Report report(User user, LocalDate date, FastingBloodSugar fbs, BloodPressure bp) {
+        Report report = new Report();
+        report.setUser(user);
+        report.setReportDate(date);
+        report.setFastingBloodSugar(fbs);
+        report.setBloodPressure(bp);
+        return report;
+    }
+}
@@ -0,0 +1,94 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.BloodPressureView;
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.entity.BloodPressure;
+import com.lakshan.medi_sync.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({BloodPressureService.class, TrendService.class, HealthSummaryService.class, UserService.class, RecordVersionService.class, ChangeLogService.class})
+class BloodPressureServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 30);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BloodPressureService bpService;
+
+    @Test
+    void readingIsParsedWhenWritten() {
+        User user = persistUser("parsed@example.com");
+        BloodPressure bp = persistRecord(user, TODAY, " 142 / 91");
+        BloodPressure unreadable = persistRecord(user, TODAY, "high");
+        entityManager.flush();
+        entityManager.clear();
+
+        BloodPressure stored = bpService.getBloodPressureRecordById(bp.getId());
+        assertEquals(142, stored.getSystolic());
+        assertEquals(91, stored.getDiastolic());
+        assertNull(bpService.getBloodPressureRecordById(unreadable.getId()).getSystolic());
+    }
+
+    @Test
+    void screeningReturnsHighReadingsInTheWindowAcrossUsersNewestFirst() {
+        User first = persistUser("first@example.com");
+        User second = persistUser("second@example.com");
+        persistRecord(first, TODAY.minusDays(10), "150/95");
+        persistRecord(first, TODAY.minusDays(20), "120/80");
+        persistRecord(first, TODAY.minusDays(120), "170/100");
+        persistRecord(second, TODAY.minusDays(5), "140/85");
+        persistRecord(second, TODAY.minusDays(30), "139/99");
+        persistRecord(second, TODAY.minusDays(60), "165/90");
+        persistRecord(second, TODAY.minusDays(1), "unreadable");
+        entityManager.flush();
+        entityManager.clear();
+
+        List<BloodPressureView> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<BloodPressureView> page =
+                    bpService.getBloodPressureRecordsBySystolic(140, Period.ofDays(90), TODAY, cursor, 2);
+            seen.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+
+        assertEquals(List.of(140, 150, 165), seen.stream().map(BloodPressureView::systolic).toList());
+        assertEquals(List.of(TODAY.minusDays(5), TODAY.minusDays(10), TODAY.minusDays(60)),
+                seen.stream().map(BloodPressureView::testDate).toList());
+    }
+
+    @Test
+    void windowMustBePositive() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bpService.getBloodPressureRecordsBySystolic(140, Period.ZERO, TODAY, null, null));
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setName("Test User");
+        user.setEmail(email);
+        return entityManager.persist(user);
+    }
+
+    private BloodPressure persistRecord(User user, LocalDate testDate, String bpLevel) {
+        BloodPressure bp = new BloodPressure();
+        bp.setUser(user);
+        bp.setTestDate(testDate);
+        bp.setBpLevel(bpLevel);
+        return entityManager.persist(bp);
+    }
+}
@@ -0,0 +1,160 @@
+package com.lakshan.medi_sync.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshan.medi_sync.dto.BulkIngestResult;
+import com.lakshan.medi_sync.dto.BulkItemError;
+import com.lakshan.medi_sync.dto.BulkRecordItem;
+import com.lakshan.medi_sync.entity.HealthRecord;
+import com.lakshan.medi_sync.entity.Report;
+import com.lakshan.medi_sync.entity.UrineReport;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.BloodPressureRepository;
+import com.lakshan.medi_sync.repository.FastingBloodSugarRepository;
+import com.lakshan.medi_sync.repository.ReportRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({BulkRecordService.class, TrendService.class, HealthSummaryService.class, UserService.class, RecordVersionService.class, ChangeLogService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class BulkRecordServiceTest {
+
+    @Autowired
+    private BulkRecordService bulkRecordService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FastingBloodSugarRepository fbsRepository;
+
+    @Autowired
+    private BloodPressureRepository bpRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ChangeLogService changeLog;
+
+    @Test
+    void insertsValidItemsInBatchesAndReportsTheRest() {
+        User user = new User();
+        user.setName("Bulk User");
+        user.setEmail("bulk@example.com");
+        entityManager.persist(user);
+        entityManager.flush();
+
+        List<BulkRecordItem> items = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            ObjectNode fbs = record(user.getId(), LocalDate.of(2024, 1, 1).plusDays(i));
+            fbs.put("fbsLevel", 90 + i % 20);
+            items.add(new BulkRecordItem("fbs", fbs));
+
+            ObjectNode bp = record(user.getId(), LocalDate.of(2024, 1, 1).plusDays(i));
+            bp.put("bpLevel", "120/80");
+            items.add(new BulkRecordItem("bp", bp));
+        }
+        items.add(new BulkRecordItem("ecg", record(user.getId(), LocalDate.of(2024, 6, 1))));
+        items.add(new BulkRecordItem("fbs", record(user.getId() + 1000, LocalDate.of(2024, 6, 1))));
+        items.add(new BulkRecordItem("fbs", objectMapper.createObjectNode().put("fbsLevel", 100)));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BulkIngestResult result = bulkRecordService.ingest(items);
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(303, result.received());
+        assertEquals(300, result.inserted());
+        assertEquals(List.of(300, 301, 302), result.errors().stream().map(BulkItemError::index).toList());
+        assertEquals("User not found with id: " + (user.getId() + 1000), result.errors().get(1).message());
+
+        assertEquals(600, statistics.getEntityInsertCount());
+        assertTrue(statements < 60, "expected batched inserts but prepared " + statements + " statements");
+
+        assertEquals(150, fbsRepository.findViewsByUserId(user.getId()).size());
+        assertEquals(150, bpRepository.findViewsByUserId(user.getId()).size());
+        assertEquals(300, reportRepository.findByUserId(user.getId()).size());
+    }
+
+    @Test
+    void sameDayRecordsReplaceOnlyTheResultsSentAndOnlyOnce() {
+        User user = new User();
+        user.setName("Replaced User");
+        user.setEmail("replaced@example.com");
+        entityManager.persist(user);
+        UrineReport stored = new UrineReport();
+        stored.setUser(user);
+        stored.setTestDate(LocalDate.of(2024, 5, 1));
+        stored.setColor("Yellow");
+        stored.setAppearance("Clear");
+        stored.setProtein("Nil");
+        stored.setSugar("Nil");
+        stored.setSpecificGravity(1.015);
+        stored.setImageUrl("/images/urine/1/scan.png");
+        entityManager.persist(stored);
+        entityManager.persist(Report.forRecord(stored));
+        entityManager.flush();
+
+        List<HealthRecord> records = new ArrayList<>(List.of(
+                urine(user.getId(), stored.getTestDate(), "Amber", 1.020),
+                urine(user.getId(), stored.getTestDate(), null, 1.025)));
+        List<Integer> indexes = new ArrayList<>(List.of(0, 1));
+        long before = changeLog.current(user.getId());
+
+        assertEquals(2, bulkRecordService.replaceSameDay(records, indexes));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(records.isEmpty());
+        assertTrue(indexes.isEmpty());
+        // The last of the two is written, once, and what it left out stays as stored
+        assertEquals(before + 1, changeLog.current(user.getId()));
+        UrineReport replaced = entityManager.find(UrineReport.class, stored.getId());
+        assertEquals(1.025, replaced.getSpecificGravity());
+        assertEquals("Yellow", replaced.getColor());
+        assertEquals("Clear", replaced.getAppearance());
+        assertEquals("/images/urine/1/scan.png", replaced.getImageUrl());
+        assertEquals(before + 1, replaced.getChangeSeq());
+    }
+
+    private static UrineReport urine(int userId, LocalDate testDate, String color, double specificGravity) {
+        User user = new User();
+        user.setId(userId);
+        UrineReport urine = new UrineReport();
+        urine.setUser(user);
+        urine.setTestDate(testDate);
+        urine.setColor(color);
+        urine.setSpecificGravity(specificGravity);
+        return urine;
+    }
+
+    private ObjectNode record(int userId, LocalDate testDate) {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("testDate", testDate.toString());
+        record.putObject("user").put("id", userId);
+        return record;
+    }
+}
@@ -0,0 +1,153 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.DeletedRecord;
+import com.lakshan.medi_sync.dto.TimelineEntry;
+import com.lakshan.medi_sync.dto.UserChanges;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.ReportRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ChangeLogService.class, FastingBloodSugarService.class, TrendService.class, HealthSummaryService.class,
+        UserService.class, RecordVersionService.class})
+class ChangeLogServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChangeLogService changeLog;
+
+    @Autowired
+    private FastingBloodSugarService fbsService;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void syncReturnsOnlyWhatChangedSinceTheToken() {
+        User user = persistUser("sync@example.com");
+        FastingBloodSugar kept = addRecord(user, LocalDate.of(2024, 1, 1), 90);
+        FastingBloodSugar edited = addRecord(user, LocalDate.of(2024, 2, 1), 95);
+        // Without a report, and at 0 as rows from before the change log are, which a first sync includes.
+        FastingBloodSugar deleted = new FastingBloodSugar();
+        deleted.setUser(user);
+        deleted.setTestDate(LocalDate.of(2024, 3, 1));
+        entityManager.persist(deleted);
+        clear();
+
+        UserChanges first = changeLog.getChanges(user.getId(), null);
+        assertEquals(List.of(deleted.getId(), kept.getId(), edited.getId()), recordIds(first));
+        assertEquals(2, first.reports().size());
+        assertTrue(first.deleted().isEmpty());
+
+        UserChanges idle = changeLog.getChanges(user.getId(), first.next());
+        assertTrue(idle.records().isEmpty());
+        assertEquals(first.next(), idle.next());
+
+        fbsService.updateFastingBloodSugarRecord(copy(edited, user, 97));
+        fbsService.deleteFastingBloodSugarRecord(deleted.getId());
+        clear();
+        FastingBloodSugar added = addRecord(user, LocalDate.of(2024, 4, 1), 92);
+
+        UserChanges second = changeLog.getChanges(user.getId(), first.next());
+        assertEquals(List.of(edited.getId(), added.getId()), recordIds(second));
+        assertEquals(2, second.reports().size());
+        assertEquals(List.of(new DeletedRecord(RecordType.FASTING_BLOOD_SUGAR.getCode(), deleted.getId())),
+                second.deleted());
+    }
+
+    @Test
+    void recordMovedToAnotherUserIsDeletedForTheOldOwner() {
+        User from = persistUser("from@example.com");
+        User to = persistUser("to@example.com");
+        FastingBloodSugar record = addRecord(from, LocalDate.of(2024, 1, 1), 90);
+        clear();
+        String fromToken = changeLog.getChanges(from.getId(), null).next();
+        String toToken = changeLog.getChanges(to.getId(), null).next();
+
+        fbsService.updateFastingBloodSugarRecord(copy(record, to, 90));
+        clear();
+
+        UserChanges oldOwner = changeLog.getChanges(from.getId(), fromToken);
+        assertTrue(oldOwner.records().isEmpty());
+        assertEquals(List.of(new DeletedRecord("fbs", record.getId())), oldOwner.deleted());
+        assertEquals(List.of(record.getId()), recordIds(changeLog.getChanges(to.getId(), toToken)));
+    }
+
+    @Test
+    void deletingARecordAlsoDeletesItsReportForSync() {
+        User user = persistUser("cascade@example.com");
+        FastingBloodSugar record = addRecord(user, LocalDate.of(2024, 1, 1), 90);
+        clear();
+        int reportId = reportRepository.findByFastingBloodSugarId(record.getId()).getId();
+        String token = changeLog.getChanges(user.getId(), null).next();
+
+        fbsService.deleteFastingBloodSugarRecord(record.getId());
+        clear();
+
+        UserChanges changes = changeLog.getChanges(user.getId(), token);
+        assertEquals(List.of(new DeletedRecord("fbs", record.getId()), new DeletedRecord(ChangeLogService.REPORT, reportId)),
+                changes.deleted());
+        assertTrue(changes.reports().isEmpty());
+        assertEquals(List.of(changeLog.current(user.getId())), jdbcTemplate.queryForList(
+                "select distinct change_seq from record_tombstones where user_id = ?", Long.class, user.getId()));
+    }
+
+    @Test
+    void tokenMustBeOneWeIssued() {
+        User user = persistUser("token@example.com");
+        assertThrows(IllegalArgumentException.class, () -> changeLog.getChanges(user.getId(), "not-a-token"));
+    }
+
+    private static List<Integer> recordIds(UserChanges changes) {
+        return changes.records().stream().map(TimelineEntry::record).map(r -> r.id()).toList();
+    }
+
+    /** Updates arrive as detached copies of the stored record, as from a request body. */
+    private static FastingBloodSugar copy(FastingBloodSugar stored, User user, double level) {
+        FastingBloodSugar update = new FastingBloodSugar();
+        update.setId(stored.getId());
+        update.setUser(user);
+        update.setTestDate(stored.getTestDate());
+        update.setFbsLevel(level);
+        return update;
+    }
+
+    /** Writes are flushed and forgotten between steps, as between requests. */
+    private void clear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setName("Test User");
+        user.setEmail(email);
+        return entityManager.persist(user);
+    }
+
+    private FastingBloodSugar addRecord(User user, LocalDate testDate, double level) {
+        FastingBloodSugar fbs = new FastingBloodSugar();
+        fbs.setUser(user);
+        fbs.setTestDate(testDate);
+        fbs.setFbsLevel(level);
+        fbsService.addNewFastingBloodSugarRecord(fbs);
+        return fbs;
+    }
+}
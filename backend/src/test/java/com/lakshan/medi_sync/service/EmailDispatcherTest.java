@@ -0,0 +1,233 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.EmailOutbox;
+import com.lakshan.medi_sync.entity.EmailStatus;
+import com.lakshan.medi_sync.repository.EmailOutboxRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EmailService.class, EmailDispatcher.class, ResendClient.class, SimpleMeterRegistry.class})
+class EmailDispatcherTest {
+
+    private static final HttpServer stub = startStub();
+    private static final List<String> requests = new CopyOnWriteArrayList<>();
+    private static final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private static final String BROKEN = "broken@example.com";
+
+    @DynamicPropertySource
+    static void stubProperties(DynamicPropertyRegistry registry) {
+        registry.add("resend.api.url", () -> "http://localhost:" + stub.getAddress().getPort());
+        registry.add("email.dispatch.rate-per-second", () -> "1000");
+        registry.add("email.dispatch.max-attempts", () -> "3");
+    }
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry.clear();
+        outboxRepository.deleteAll();
+        requests.clear();
+        failuresLeft.clear();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.stop(0);
+    }
+
+    @Test
+    void sendsDueEmailsAndRetriesTransientFailures() {
+        failuresLeft.put("flaky@example.com", new AtomicInteger(1));
+        emailService.queueEmail("a@example.com", "Reminder", "body a");
+        emailService.queueEmail("b@example.com", "Reminder", "body b");
+        emailService.queueEmail("flaky@example.com", "Reminder", "body c");
+
+        assertEquals(3, emailDispatcher.dispatch());
+        assertEquals(3, requests.size());
+        assertTrue(requests.stream().allMatch(r -> r.startsWith("Bearer test-key|outbox-")));
+
+        EmailOutbox flaky = find("flaky@example.com");
+        assertEquals(EmailStatus.PENDING, flaky.getStatus());
+        assertEquals(1, flaky.getAttempts());
+        assertTrue(flaky.getNextAttemptAt().isAfter(Instant.now()));
+        assertEquals(EmailStatus.SENT, find("a@example.com").getStatus());
+
+        // Not due yet, so nothing is claimed
+        assertEquals(0, emailDispatcher.dispatch());
+
+        flaky.setNextAttemptAt(Instant.now().minusSeconds(1));
+        outboxRepository.save(flaky);
+        assertEquals(1, emailDispatcher.dispatch());
+
+        EmailOutbox retried = find("flaky@example.com");
+        assertEquals(EmailStatus.SENT, retried.getStatus());
+        assertEquals(2, retried.getAttempts());
+        assertNotNull(retried.getSentAt());
+        assertEquals(3, sends("sent"));
+        assertEquals(1, sends("retry"));
+    }
+
+    @Test
+    void givesUpOnRejectedEmailsAndAfterMaxAttempts() {
+        failuresLeft.put("rejected@example.com", new AtomicInteger(-1));
+        failuresLeft.put("down@example.com", new AtomicInteger(10));
+        emailService.queueEmail("rejected@example.com", "Reminder", "body");
+        emailService.queueEmail("down@example.com", "Reminder", "body");
+
+        emailDispatcher.dispatch();
+        assertEquals(EmailStatus.FAILED, find("rejected@example.com").getStatus());
+        assertEquals(1, find("rejected@example.com").getAttempts());
+
+        for (int i = 0; i < 2; i++) {
+            EmailOutbox down = find("down@example.com");
+            down.setNextAttemptAt(Instant.now().minusSeconds(1));
+            outboxRepository.save(down);
+            emailDispatcher.dispatch();
+        }
+        EmailOutbox down = find("down@example.com");
+        assertEquals(EmailStatus.FAILED, down.getStatus());
+        assertEquals(3, down.getAttempts());
+        assertEquals("Email provider returned 503", down.getLastError());
+        assertEquals(2, sends("failed"));
+        assertEquals(2, sends("retry"));
+    }
+
+    @Test
+    void unexpectedSendErrorsCountAsAttempts() {
+        emailService.queueEmail(BROKEN, "Reminder", "body");
+
+        for (int i = 0; i < 3; i++) {
+            EmailOutbox broken = find(BROKEN);
+            broken.setNextAttemptAt(Instant.now().minusSeconds(1));
+            outboxRepository.save(broken);
+            assertEquals(1, emailDispatcher.dispatch());
+        }
+        EmailOutbox broken = find(BROKEN);
+        assertEquals(EmailStatus.FAILED, broken.getStatus());
+        assertEquals(3, broken.getAttempts());
+        assertEquals("java.lang.IllegalStateException: Unreadable response", broken.getLastError());
+        assertEquals(2, sends("retry"));
+        assertEquals(1, sends("failed"));
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(30, emailDispatcher.backoff(1).toSeconds());
+        assertEquals(60, emailDispatcher.backoff(2).toSeconds());
+        assertEquals(240, emailDispatcher.backoff(4).toSeconds());
+        assertEquals(6 * 3600, emailDispatcher.backoff(20).toSeconds());
+    }
+
+    private long sends(String outcome) {
+        return meterRegistry.get("email.send").tag("outcome", outcome).timer().count();
+    }
+
+    private EmailOutbox find(String recipient) {
+        return outboxRepository.findAll().stream()
+                .filter(e -> e.getRecipient().equals(recipient))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /** Fails sends to {@link #BROKEN} the way no provider answer does. */
+    @TestConfiguration
+    static class BrokenClient {
+
+        @Bean
+        @Primary
+        ResendClient brokenResendClient(@Value("${resend.api.url}") String apiUrl, @Value("${resend.api.key}") String apiKey) {
+            return new ResendClient(apiUrl, apiKey, "onboarding@resend.dev") {
+                @Override
+                public void send(String idempotencyKey, String recipient, String subject, String body) {
+                    if (recipient.equals(BROKEN)) {
+                        throw new IllegalStateException("Unreadable response");
+                    }
+                    super.send(idempotencyKey, recipient, subject, body);
+                }
+            };
+        }
+    }
+
+    /**
+     * Answers like the Resend API. A recipient mapped to a positive count gets
+     * that many 503s before succeeding; one mapped to a negative count is
+     * always rejected with 422.
+     */
+    private static HttpServer startStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/emails", exchange -> {
+                String body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                requests.add(exchange.getRequestHeaders().getFirst("Authorization") + "|"
+                        + exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+
+                int status = 200;
+                for (Map.Entry<String, AtomicInteger> entry : failuresLeft.entrySet()) {
+                    if (body.contains(entry.getKey())) {
+                        int left = entry.getValue().get();
+                        if (left < 0) {
+                            status = 422;
+                        } else if (left > 0) {
+                            entry.getValue().decrementAndGet();
+                            status = 503;
+                        }
+                    }
+                }
+
+                byte[] response = "{\"id\":\"stub\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
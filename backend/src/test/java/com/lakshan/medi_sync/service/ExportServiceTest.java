@@ -0,0 +1,96 @@
+package com.lakshan.medi_sync.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.LipidProfile;
+import com.lakshan.medi_sync.entity.Report;
+import com.lakshan.medi_sync.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ExportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void writesUserThenRecordsThenReportsAsGzippedNdjson() throws Exception {
+        User user = new User();
+        user.setName("Export User");
+        user.setEmail("export@example.com");
+        user.setPassword("hash");
+        entityManager.persist(user);
+
+        FastingBloodSugar fbs = new FastingBloodSugar();
+        fbs.setUser(user);
+        fbs.setTestDate(LocalDate.of(2024, 2, 1));
+        fbs.setFbsLevel(101);
+        entityManager.persist(fbs);
+
+        LipidProfile lipid = new LipidProfile();
+        lipid.setUser(user);
+        lipid.setTestDate(LocalDate.of(2024, 1, 1));
+        lipid.setLdl(130);
+        entityManager.persist(lipid);
+
+        Report report = new Report();
+        report.setUser(user);
+        report.setReportDate(fbs.getTestDate());
+        report.setFastingBloodSugar(fbs);
+        entityManager.persist(report);
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeExport(user.getId(), out);
+
+        List<JsonNode> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8))) {
+            lines = reader.lines().map(this::parse).toList();
+        }
+
+        assertEquals(List.of("user", "fbs", "lipid", "report"),
+                lines.stream().map(line -> line.get("type").asText()).toList());
+        assertEquals("export@example.com", lines.get(0).at("/data/email").asText());
+        assertFalse(lines.get(0).get("data").has("password"));
+        assertFalse(lines.get(1).get("data").has("user"));
+        assertEquals(130, lines.get(2).at("/data/ldl").asDouble());
+        assertEquals(fbs.getId(), lines.get(3).at("/data/fastingBloodSugarId").asInt());
+        assertTrue(lines.get(3).at("/data/bloodPressureId").isNull());
+    }
+
+    private JsonNode parse(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.CursorPage;
+import com.lakshan.medi_sync.dto.FastingBloodSugarView;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({FastingBloodSugarService.class, TrendService.class, HealthSummaryService.class, UserService.class, RecordVersionService.class, ChangeLogService.class})
+class FastingBloodSugarServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FastingBloodSugarService fbsService;
+
+    @Test
+    void pagesWalkEveryRecordNewestFirstWithoutGapsOrRepeats() {
+        User user = persistUser("paging@example.com");
+        User other = persistUser("other@example.com");
+        // Several records share a test date so the id tie-breaker is exercised.
+        for (int i = 0; i < 23; i++) {
+            persistRecord(user, LocalDate.of(2024, 1, 1).plusDays(i / 3));
+        }
+        persistRecord(other, LocalDate.of(2024, 1, 5));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<FastingBloodSugarView> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<FastingBloodSugarView> page = fbsService.getFastingBloodSugarRecordsPageByUserId(user.getId(), cursor, 5);
+            assertTrue(page.items().size() <= 5);
+            seen.addAll(page.items());
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(5, pages);
+        assertEquals(23, seen.size());
+        assertEquals(23, seen.stream().mapToInt(FastingBloodSugarView::id).distinct().count());
+        for (int i = 1; i < seen.size(); i++) {
+            FastingBloodSugarView previous = seen.get(i - 1);
+            FastingBloodSugarView current = seen.get(i);
+            int byDate = current.testDate().compareTo(previous.testDate());
+            assertTrue(byDate < 0 || (byDate == 0 && current.id() < previous.id()));
+        }
+    }
+
+    @Test
+    void undatedRecordsArePagedFirst() {
+        User user = persistUser("undated@example.com");
+        for (int i = 0; i < 8; i++) {
+            persistRecord(user, i % 2 == 0 ? null : LocalDate.of(2024, 3, 1).plusDays(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<FastingBloodSugarView> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<FastingBloodSugarView> page = fbsService.getFastingBloodSugarRecordsPageByUserId(user.getId(), cursor, 3);
+            seen.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+
+        assertEquals(8, seen.stream().mapToInt(FastingBloodSugarView::id).distinct().count());
+        assertEquals(List.of(LocalDate.of(2024, 3, 8), LocalDate.of(2024, 3, 6), LocalDate.of(2024, 3, 4),
+                LocalDate.of(2024, 3, 2)), seen.subList(4, 8).stream().map(FastingBloodSugarView::testDate).toList());
+        for (int i = 0; i < 4; i++) {
+            assertNull(seen.get(i).testDate());
+            assertTrue(i == 0 || seen.get(i).id() < seen.get(i - 1).id());
+        }
+
+        // The cursor of the last undated record on the whole-table listing too
+        CursorPage<FastingBloodSugarView> first = fbsService.getFastingBloodSugarRecordsPage(null, 4);
+        assertNull(first.items().get(3).testDate());
+        assertEquals(LocalDate.of(2024, 3, 8), fbsService.getFastingBloodSugarRecordsPage(first.next(), 1)
+                .items().get(0).testDate());
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        User user = persistUser("cap@example.com");
+        for (int i = 0; i < CursorPage.MAX_SIZE + 1; i++) {
+            persistRecord(user, LocalDate.of(2020, 1, 1).plusDays(i));
+        }
+        entityManager.flush();
+
+        CursorPage<FastingBloodSugarView> page = fbsService.getFastingBloodSugarRecordsPage(null, 10_000);
+
+        assertEquals(CursorPage.MAX_SIZE, page.items().size());
+        assertNotNull(page.next());
+    }
+
+    @Test
+    void recordsWithoutAnOwnerArePaged() {
+        persistRecord(null, LocalDate.of(2024, 7, 1));
+        entityManager.flush();
+
+        CursorPage<FastingBloodSugarView> page = fbsService.getFastingBloodSugarRecordsPage(null, 1);
+
+        assertEquals(LocalDate.of(2024, 7, 1), page.items().get(0).testDate());
+        assertNull(page.items().get(0).userId());
+    }
+
+    @Test
+    void dateRangeIsInclusiveAndEitherEndMayBeOpen() {
+        User user = persistUser("range@example.com");
+        User other = persistUser("range-other@example.com");
+        for (int month = 1; month <= 12; month++) {
+            persistRecord(user, LocalDate.of(2024, month, 15));
+        }
+        persistRecord(other, LocalDate.of(2024, 6, 15));
+        entityManager.flush();
+
+        List<FastingBloodSugarView> window = fbsService.getFastingBloodSugarRecordsByUserId(
+                user.getId(), LocalDate.of(2024, 4, 15), LocalDate.of(2024, 6, 15));
+        assertEquals(List.of(LocalDate.of(2024, 6, 15), LocalDate.of(2024, 5, 15), LocalDate.of(2024, 4, 15)),
+                window.stream().map(FastingBloodSugarView::testDate).toList());
+
+        assertEquals(3, fbsService.getFastingBloodSugarRecordsByUserId(user.getId(), LocalDate.of(2024, 10, 1), null).size());
+        assertEquals(2, fbsService.getFastingBloodSugarRecordsByUserId(user.getId(), null, LocalDate.of(2024, 2, 28)).size());
+        assertTrue(fbsService.getFastingBloodSugarRecordsByUserId(user.getId(), LocalDate.of(2025, 1, 1), null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> fbsService.getFastingBloodSugarRecordsByUserId(
+                user.getId(), LocalDate.of(2024, 6, 1), LocalDate.of(2024, 5, 1)));
+        assertThrows(IllegalArgumentException.class, () -> fbsService.getFastingBloodSugarRecordsByUserId(
+                other.getId() + 1000, LocalDate.of(2024, 1, 1), null));
+        User empty = persistUser("range-empty@example.com");
+        assertTrue(fbsService.getFastingBloodSugarRecordsByUserId(empty.getId()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> fbsService.getFastingBloodSugarRecordsByUserId(
+                other.getId() + 1000));
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setName("Test User");
+        user.setEmail(email);
+        return entityManager.persist(user);
+    }
+
+    private void persistRecord(User user, LocalDate testDate) {
+        FastingBloodSugar fbs = new FastingBloodSugar();
+        fbs.setUser(user);
+        fbs.setTestDate(testDate);
+        fbs.setFbsLevel(95);
+        entityManager.persist(fbs);
+    }
+}
@@ -0,0 +1,133 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.TypeSummary;
+import com.lakshan.medi_sync.dto.UserHealthSummary;
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.RecordType;
+import com.lakshan.medi_sync.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({HealthSummaryService.class, FastingBloodSugarService.class, TrendService.class, UserService.class, RecordVersionService.class, ChangeLogService.class})
+class HealthSummaryServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private HealthSummaryService summaryService;
+
+    @Autowired
+    private FastingBloodSugarService fbsService;
+
+    @Test
+    void summaryFollowsAddsUpdatesAndDeletes() {
+        User user = persistUser("summary@example.com");
+
+        // Added out of date order; the summary keeps the newest two
+        FastingBloodSugar march = fbs(user, LocalDate.of(2024, 3, 1), 110);
+        FastingBloodSugar january = fbs(user, LocalDate.of(2024, 1, 1), 90);
+        FastingBloodSugar february = fbs(user, LocalDate.of(2024, 2, 1), 100);
+        fbsService.addNewFastingBloodSugarRecord(march);
+        fbsService.addNewFastingBloodSugarRecord(january);
+        fbsService.addNewFastingBloodSugarRecord(february);
+        entityManager.flush();
+
+        TypeSummary fbs = onlyType(summaryService.getSummary(user.getId()));
+        assertEquals(RecordType.FASTING_BLOOD_SUGAR, fbs.type());
+        assertEquals(3, fbs.count());
+        assertEquals(march.getId(), fbs.latest().recordId());
+        assertEquals(Map.of("fbsLevel", 110.0), fbs.latest().values());
+        assertEquals(february.getId(), fbs.previous().recordId());
+
+        // Moving the newest record back in time promotes the next one
+        FastingBloodSugar corrected = fbs(user, LocalDate.of(2023, 12, 1), 105);
+        corrected.setId(march.getId());
+        fbsService.updateFastingBloodSugarRecord(corrected);
+        entityManager.flush();
+        entityManager.clear();
+
+        fbs = onlyType(summaryService.getSummary(user.getId()));
+        assertEquals(3, fbs.count());
+        assertEquals(february.getId(), fbs.latest().recordId());
+        assertEquals(january.getId(), fbs.previous().recordId());
+
+        // Deleting the record is not possible on H2 while its report still points at it
+        entityManager.getEntityManager()
+                .createQuery("delete from Report r where r.fastingBloodSugar.id = :id")
+                .setParameter("id", february.getId())
+                .executeUpdate();
+        fbsService.deleteFastingBloodSugarRecord(february.getId());
+        entityManager.flush();
+
+        fbs = onlyType(summaryService.getSummary(user.getId()));
+        assertEquals(2, fbs.count());
+        assertEquals(january.getId(), fbs.latest().recordId());
+        assertEquals(LocalDate.of(2024, 1, 1), fbs.latest().testDate());
+        assertEquals(march.getId(), fbs.previous().recordId());
+        assertEquals(Map.of("fbsLevel", 105.0), fbs.previous().values());
+
+        UserHealthSummary maintained = summaryService.getSummary(user.getId());
+        entityManager.clear();
+        assertEquals(1, summaryService.rebuild().get(RecordType.FASTING_BLOOD_SUGAR));
+        assertEquals(maintained, summaryService.getSummary(user.getId()));
+    }
+
+    @Test
+    void recordMovedToAnotherUserMovesBetweenSummaries() {
+        User first = persistUser("first@example.com");
+        User second = persistUser("second@example.com");
+        FastingBloodSugar record = fbs(first, LocalDate.of(2024, 4, 1), 95);
+        fbsService.addNewFastingBloodSugarRecord(record);
+        fbsService.addNewFastingBloodSugarRecord(fbs(second, LocalDate.of(2024, 2, 1), 120));
+        entityManager.flush();
+
+        FastingBloodSugar moved = fbs(second, record.getTestDate(), 95);
+        moved.setId(record.getId());
+        fbsService.updateFastingBloodSugarRecord(moved);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(summaryService.getSummary(first.getId()).types().isEmpty());
+        TypeSummary fbs = onlyType(summaryService.getSummary(second.getId()));
+        assertEquals(2, fbs.count());
+        assertEquals(record.getId(), fbs.latest().recordId());
+    }
+
+    @Test
+    void userWithoutRecordsHasAnEmptySummary() {
+        User user = persistUser("nothing@example.com");
+
+        assertTrue(summaryService.getSummary(user.getId()).types().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> summaryService.getSummary(user.getId() + 1000));
+    }
+
+    private static TypeSummary onlyType(UserHealthSummary summary) {
+        assertEquals(1, summary.types().size());
+        return summary.types().get(0);
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setName("Summary User");
+        user.setEmail(email);
+        return entityManager.persist(user);
+    }
+
+    private static FastingBloodSugar fbs(User user, LocalDate testDate, double level) {
+        FastingBloodSugar record = new FastingBloodSugar();
+        record.setUser(user);
+        record.setTestDate(testDate);
+        record.setFbsLevel(level);
+        return record;
+    }
+}
@@ -0,0 +1,173 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.*;
+import com.lakshan.medi_sync.repository.EmailOutboxRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ReminderService.class, EmailService.class})
+@EnableConfigurationProperties(ReminderProperties.class)
+@TestPropertySource(properties = {
+        "reminders.lead-days=7",
+        "reminders.chunk-size=2",
+        "reminders.intervals.fbs=P6M",
+        "reminders.intervals.bp=P3M"
+})
+class ReminderServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    @Autowired
+    private ReminderService reminderService;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (String table : List.of("reminder_log", "email_outbox", "reports", "fbs", "blood_pressure", "fbc", "users")) {
+                jdbcTemplate.update("delete from " + table);
+            }
+        });
+    }
+
+    @Test
+    void queuesOneReminderPerUserAndTypeThatIsDue() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User overdue = persistUser("overdue@example.com");
+            persistFbs(overdue, TODAY.minusMonths(9));
+            persistFbs(overdue, TODAY.minusMonths(7));
+            persistBp(overdue, TODAY.minusMonths(1));
+
+            User dueSoon = persistUser("due-soon@example.com");
+            persistFbs(dueSoon, TODAY.minusMonths(6).plusDays(5));
+
+            User recent = persistUser("recent@example.com");
+            persistFbs(recent, TODAY.minusMonths(2));
+
+            User bpOnly = persistUser("bp@example.com");
+            persistBp(bpOnly, TODAY.minusMonths(4));
+
+            // No interval is configured for fbc, so this never produces a reminder
+            User fbcOnly = persistUser("fbc@example.com");
+            FullBloodCount fbc = new FullBloodCount();
+            fbc.setUser(fbcOnly);
+            fbc.setTestDate(TODAY.minusYears(3));
+            entityManager.persist(fbc);
+        });
+
+        Map<RecordType, Integer> queued = reminderService.queueDueReminders(TODAY);
+
+        assertEquals(Map.of(RecordType.FASTING_BLOOD_SUGAR, 2, RecordType.BLOOD_PRESSURE, 1), queued);
+        List<EmailOutbox> emails = outboxRepository.findAll();
+        assertEquals(3, emails.size());
+        assertEquals(
+                List.of("bp@example.com", "due-soon@example.com", "overdue@example.com"),
+                emails.stream().map(EmailOutbox::getRecipient).sorted().toList());
+
+        EmailOutbox overdueEmail = emails.stream()
+                .filter(e -> e.getRecipient().equals("overdue@example.com"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(overdueEmail.getBody().contains("fasting blood sugar test on " + TODAY.minusMonths(1)));
+        assertEquals(EmailStatus.PENDING, overdueEmail.getStatus());
+
+        // A second run finds everyone already reminded
+        assertEquals(Map.of(RecordType.FASTING_BLOOD_SUGAR, 0, RecordType.BLOOD_PRESSURE, 0),
+                reminderService.queueDueReminders(TODAY));
+        assertEquals(3, outboxRepository.count());
+    }
+
+    @Test
+    void concurrentRunsQueueEachReminderOnce() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                persistFbs(persistUser("concurrent" + i + "@example.com"), TODAY.minusMonths(7));
+            }
+        });
+
+        int runs = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(runs);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Map<RecordType, Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return reminderService.queueDueReminders(TODAY);
+                }));
+            }
+            start.countDown();
+            int queued = 0;
+            for (Future<Map<RecordType, Integer>> result : results) {
+                queued += result.get(30, TimeUnit.SECONDS).get(RecordType.FASTING_BLOOD_SUGAR);
+            }
+            assertEquals(5, queued);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(5, outboxRepository.count());
+        assertEquals(5, jdbcTemplate.queryForObject("select count(*) from reminder_log", Integer.class));
+        assertEquals(5, outboxRepository.findAll().stream().map(EmailOutbox::getRecipient).distinct().count());
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setName("Reminder User");
+        user.setEmail(email);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private void persistFbs(User user, LocalDate testDate) {
+        FastingBloodSugar fbs = new FastingBloodSugar();
+        fbs.setUser(user);
+        fbs.setTestDate(testDate);
+        fbs.setFbsLevel(100);
+        entityManager.persist(fbs);
+    }
+
+    private void persistBp(User user, LocalDate testDate) {
+        BloodPressure bp = new BloodPressure();
+        bp.setUser(user);
+        bp.setTestDate(testDate);
+        bp.setBpLevel("120/80");
+        entityManager.persist(bp);
+    }
+}
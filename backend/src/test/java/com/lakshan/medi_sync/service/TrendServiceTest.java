@@ -0,0 +1,119 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.dto.MetricTrend;
+import com.lakshan.medi_sync.entity.LipidProfile;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.LipidProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({TrendService.class, LipidProfileService.class, HealthSummaryService.class, UserService.class, RecordVersionService.class, ChangeLogService.class})
+class TrendServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private LipidProfileService lipidService;
+
+    @Autowired
+    private LipidProfileRepository lipidRepository;
+
+    @Test
+    void aggregatesFollowAddsUpdatesAndDeletes() {
+        User user = new User();
+        user.setName("Trend User");
+        user.setEmail("trend@example.com");
+        entityManager.persist(user);
+
+        // LDL rising by 5 a month over the last six months
+        for (int i = 0; i < 6; i++) {
+            lipidService.addNewLipidProfile(lipid(user, TODAY.minusMonths(5 - i), 120 + 5 * i));
+        }
+        // An older reading that only falls in the previous window
+        lipidService.addNewLipidProfile(lipid(user, TODAY.minusMonths(8), 100));
+        entityManager.flush();
+
+        MetricTrend trend = trendService.getTrend(user.getId(), "ldl", Period.ofMonths(6), TODAY);
+        assertEquals(6, trend.count());
+        assertEquals(132.5, trend.mean(), 1e-9);
+        assertEquals(5.0, trend.slopePerMonth(), 0.2);
+        assertEquals("up", trend.direction());
+        assertEquals(100.0, trend.previousMean(), 1e-9);
+        assertEquals(32.5, trend.change(), 1e-9);
+        assertEquals(LocalDate.of(2025, 1, 1), trend.from());
+        assertEquals(LocalDate.of(2025, 6, 30), trend.to());
+
+        LipidProfile newest = lipidRepository.findViewsByUserIdPage(user.getId(), org.springframework.data.domain.Limit.of(1))
+                .stream()
+                .map(view -> lipidRepository.findById(view.id()).orElseThrow())
+                .findFirst()
+                .orElseThrow();
+        entityManager.detach(newest);
+        int newestId = newest.getId();
+
+        LipidProfile corrected = lipid(user, newest.getTestDate(), 85);
+        corrected.setId(newestId);
+        lipidService.updateLipidProfileRecord(corrected);
+        entityManager.flush();
+
+        MetricTrend updated = trendService.getTrend(user.getId(), "ldl", Period.ofMonths(6), TODAY);
+        assertEquals(6, updated.count());
+        assertEquals((120 + 125 + 130 + 135 + 140 + 85) / 6.0, updated.mean(), 1e-9);
+
+        // Deleting the record is not possible on H2 while its report still points at it
+        entityManager.getEntityManager()
+                .createQuery("delete from Report r where r.lipidProfile.id = :id")
+                .setParameter("id", newestId)
+                .executeUpdate();
+        lipidService.deleteLipidProfileRecord(newestId);
+        entityManager.flush();
+
+        MetricTrend deleted = trendService.getTrend(user.getId(), "ldl", Period.ofMonths(6), TODAY);
+        assertEquals(5, deleted.count());
+        assertEquals(130.0, deleted.mean(), 1e-9);
+        assertEquals(Math.sqrt(62.5), deleted.standardDeviation(), 1e-9);
+    }
+
+    @Test
+    void emptyWindowHasNoStatistics() {
+        User user = new User();
+        user.setName("Empty User");
+        user.setEmail("empty@example.com");
+        entityManager.persist(user);
+
+        MetricTrend trend = trendService.getTrend(user.getId(), "hdl", Period.ofYears(1), TODAY);
+        assertEquals(0, trend.count());
+        assertNull(trend.mean());
+        assertNull(trend.slopePerMonth());
+        assertNull(trend.direction());
+        assertThrows(IllegalArgumentException.class,
+                () -> trendService.getTrend(user.getId(), "cholesterol", Period.ofYears(1), TODAY));
+    }
+
+    private static LipidProfile lipid(User user, LocalDate testDate, double ldl) {
+        LipidProfile lipid = new LipidProfile();
+        lipid.setUser(user);
+        lipid.setTestDate(testDate);
+        lipid.setTotalCholesterol(190);
+        lipid.setHdl(50);
+        lipid.setLdl(ldl);
+        lipid.setVldl(20);
+        lipid.setTriglycerides(140);
+        return lipid;
+    }
+}
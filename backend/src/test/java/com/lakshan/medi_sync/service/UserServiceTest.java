@@ -0,0 +1,122 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserService.class, RecordVersionService.class})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@EnableCaching
+@TestPropertySource(properties = {
+        "spring.cache.cache-names=usersById,usersByEmail",
+        "spring.cache.caffeine.spec=maximumSize=100"
+})
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromCache() {
+        User user = newUser("cached@example.com");
+        userService.addNewUser(user);
+        statistics.clear();
+
+        userService.getUserById(user.getId());
+        userService.getUserById(user.getId());
+        userService.getUserByEmail("cached@example.com");
+        userService.getUserByEmail("cached@example.com");
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateEvictsOldAndNewEntries() {
+        User user = newUser("before@example.com");
+        userService.addNewUser(user);
+        userService.getUserById(user.getId());
+        userService.getUserByEmail("before@example.com");
+
+        User changed = newUser("after@example.com");
+        changed.setId(user.getId());
+        changed.setName("Renamed");
+        userService.updateUser(changed);
+
+        assertEquals("Renamed", userService.getUserById(user.getId()).getName());
+        assertEquals(user.getId(), userService.getUserByEmail("after@example.com").getId());
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserByEmail("before@example.com"));
+    }
+
+    @Test
+    void deleteEvictsEntries() {
+        User user = newUser("deleted@example.com");
+        userService.addNewUser(user);
+        userService.getUserById(user.getId());
+        userService.getUserByEmail("deleted@example.com");
+
+        userService.deleteUser(user.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserById(user.getId()));
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserByEmail("deleted@example.com"));
+    }
+
+    @Test
+    void changesToTheManagedUserDoNotReachTheCache() {
+        User user = newUser("managed@example.com");
+        userService.addNewUser(user);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            userService.getUserById(user.getId());
+            userRepository.findById(user.getId()).orElseThrow().setName("Never saved");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("Cache User", userService.getUserById(user.getId()).getName());
+    }
+
+    private User newUser(String email) {
+        User user = new User();
+        user.setName("Cache User");
+        user.setEmail(email);
+        return user;
+    }
+}
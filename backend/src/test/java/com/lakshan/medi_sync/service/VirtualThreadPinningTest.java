@@ -0,0 +1,92 @@
+package com.lakshan.medi_sync.service;
+
+import com.lakshan.medi_sync.entity.FastingBloodSugar;
+import com.lakshan.medi_sync.entity.User;
+import com.lakshan.medi_sync.repository.UserRepository;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the record write and read path on many more virtual threads than there
+ * are pooled connections, and fails if any of them parks while pinned to its
+ * carrier (blocking inside {@code synchronized}), which would quietly cap
+ * concurrency at the carrier count under the virtual-threads profile.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FastingBloodSugarService.class, TrendService.class, HealthSummaryService.class, UserService.class, RecordVersionService.class, ChangeLogService.class})
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=2")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadPinningTest {
+
+    private static final int CALLERS = 64;
+
+    @Autowired
+    private FastingBloodSugarService fbsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void recordPathDoesNotPinCarrierThreads() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            User user = new User();
+            user.setName("Virtual " + i);
+            user.setEmail("virtual" + i + "@example.com");
+            users.add(userRepository.save(user));
+        }
+
+        Path dump = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("pinning-");
+            List<Future<?>> calls = new ArrayList<>();
+            for (User user : users) {
+                calls.add(executor.submit(() -> {
+                    FastingBloodSugar record = new FastingBloodSugar();
+                    record.setUser(user);
+                    record.setTestDate(LocalDate.of(2024, 1, 1));
+                    record.setFbsLevel(95);
+                    fbsService.addNewFastingBloodSugarRecord(record);
+                    fbsService.getFastingBloodSugarRecordsByUserId(user.getId());
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .toList();
+        Files.deleteIfExists(dump);
+        assertTrue(pinned.isEmpty(), () -> "Virtual threads were pinned:\n" + pinned.get(0));
+    }
+}
@@ -0,0 +1,54 @@
+-- Rows as a database created before migrations would hold them, loaded at V1
+-- by MigrationTest. Ids come from the SERIAL sequences, as they did then.
+
+-- height and weight map to primitives, so the app never wrote them as null
+INSERT INTO users (name, email, height, weight) VALUES
+    ('Trend User', 'trend@example.com', 170, 65),
+    ('Filler User', 'filler@example.com', 160, 55);
+
+-- User 1: a few readings per type whose backfilled aggregates and summaries
+-- are checked one by one. The undated reading is left out of both.
+INSERT INTO fbs (test_date, fbs_level, user_id) VALUES
+    ('2024-01-10', 100, 1),
+    ('2024-01-20', 110, 1),
+    ('2024-02-05', 90, 1),
+    (NULL, 300, 1);
+
+-- Every way bp_level was found written: spaced, overflowing, not a number,
+-- without a slash, not positive, with a third part and missing
+INSERT INTO blood_pressure (test_date, bp_level, user_id) VALUES
+    ('2024-03-01', '120/80', 1),
+    ('2024-03-15', ' 130 / 85 ', 1),
+    ('2024-04-01', '99999999999/70', 1),
+    ('2024-04-10', 'abc/90', 1),
+    ('2024-04-20', '120', 1),
+    ('2024-04-22', NULL, 1),
+    ('2024-04-25', '0/-5', 1),
+    ('2024-05-01', '140/90/1', 1);
+
+INSERT INTO fbc (test_date, haemoglobin, total_leucocyte_count, platelet_count, user_id, image_url) VALUES
+    ('2024-02-01', 13.5, 7000, NULL, 1,
+     '/images/fbc/1/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.png');
+
+-- An image URL from before images were stored by content hash
+UPDATE blood_pressure SET image_url = '/uploads/bp-scan.png' WHERE id = 1;
+
+-- User 2: enough rows that the sequences are well past one block of 50
+INSERT INTO fbs (test_date, fbs_level, user_id)
+SELECT DATE '2023-01-01' + x, 80 + x % 40, 2 FROM generate_series(1, 120) x;
+INSERT INTO blood_pressure (test_date, bp_level, user_id)
+SELECT DATE '2023-01-01' + x, (110 + x % 30) || '/' || (70 + x % 20), 2 FROM generate_series(1, 60) x;
+INSERT INTO lipid_profile (test_date, total_cholesterol, hdl, ldl, vldl, triglycerides, user_id)
+SELECT DATE '2023-01-01' + x, 180, 50, 100, 20, 120, 2 FROM generate_series(1, 3) x;
+INSERT INTO liver_profile (test_date, protein_total_serum, albumin_serum, bilirubin_total_serum, sgpt, user_id)
+SELECT DATE '2023-01-01' + x, 7, 4, 0.8, 30, 2 FROM generate_series(1, 3) x;
+INSERT INTO urine_report (test_date, color, appearance, protein, sugar, specific_gravity, user_id)
+SELECT DATE '2023-01-01' + x, 'Yellow', 'Clear', 'Nil', 'Nil', 1.015, 2 FROM generate_series(1, 3) x;
+
+-- One report per record, as the record services write them
+INSERT INTO reports (report_date, user_id, fbs_id) SELECT test_date, user_id, id FROM fbs ORDER BY id;
+INSERT INTO reports (report_date, user_id, bp_id) SELECT test_date, user_id, id FROM blood_pressure ORDER BY id;
+INSERT INTO reports (report_date, user_id, fbc_id) SELECT test_date, user_id, id FROM fbc ORDER BY id;
+INSERT INTO reports (report_date, user_id, lipid_id) SELECT test_date, user_id, id FROM lipid_profile ORDER BY id;
+INSERT INTO reports (report_date, user_id, liver_id) SELECT test_date, user_id, id FROM liver_profile ORDER BY id;
+INSERT INTO reports (report_date, user_id, urine_id) SELECT test_date, user_id, id FROM urine_report ORDER BY id;
@@ -9,6 +9,7 @@ class BloodPressure {
   final String bpLevel; // Format: "systolic/diastolic" e.g., "120/80"
   final String? imageUrl;
   final User? user;
+  final int? userId; // List endpoints return the owner id instead of the full user
 
   BloodPressure({
     required this.id,
@@ -16,8 +17,12 @@ class BloodPressure {
     required this.bpLevel,
     this.imageUrl,
     this.user,
+    this.userId,
   });
 
+  /// Owner id from either the embedded user or the list payload's userId
+  int? get ownerId => user?.id ?? userId;
+
   /// Parse systolic value from bpLevel string
   int get systolic {
     if (bpLevel.isEmpty || !bpLevel.contains('/')) return 0;
@@ -43,6 +48,9 @@ class BloodPressure {
       user: json['user'] != null
           ? User.fromJson(json['user'] as Map<String, dynamic>)
           : null,
+      userId:
+          json['userId'] as int? ??
+          (json['user'] as Map<String, dynamic>?)?['id'] as int?,
     );
   }
 
@@ -76,7 +84,7 @@ class BloodPressure {
       'testDate': testDate,
       'bpLevel': bpLevel,
       'imageUrl': imageUrl,
-      'user': user != null ? {'id': user!.id} : null,
+      'user': ownerId != null ? {'id': ownerId} : null,
     };
   }
 
@@ -111,6 +119,7 @@ class BloodPressure {
       bpLevel: bpLevel ?? this.bpLevel,
       imageUrl: imageUrl ?? this.imageUrl,
       user: user ?? this.user,
+      userId: userId,
     );
   }
 
@@ -9,6 +9,7 @@ class FastingBloodSugar {
   final double fbsLevel; // Blood sugar level in mg/dL
   final String? imageUrl;
   final User? user;
+  final int? userId; // List endpoints return the owner id instead of the full user
 
   FastingBloodSugar({
     required this.id,
@@ -16,8 +17,12 @@ class FastingBloodSugar {
     required this.fbsLevel,
     this.imageUrl,
     this.user,
+    this.userId,
   });
 
+  /// Owner id from either the embedded user or the list payload's userId
+  int? get ownerId => user?.id ?? userId;
+
   factory FastingBloodSugar.fromJson(Map<String, dynamic> json) {
     return FastingBloodSugar(
       id: json['id'] as int,
@@ -27,6 +32,9 @@ class FastingBloodSugar {
       user: json['user'] != null
           ? User.fromJson(json['user'] as Map<String, dynamic>)
           : null,
+      userId:
+          json['userId'] as int? ??
+          (json['user'] as Map<String, dynamic>?)?['id'] as int?,
     );
   }
 
@@ -60,7 +68,7 @@ class FastingBloodSugar {
       'testDate': testDate,
       'fbsLevel': fbsLevel,
       'imageUrl': imageUrl,
-      'user': user != null ? {'id': user!.id} : null,
+      'user': ownerId != null ? {'id': ownerId} : null,
     };
   }
 
@@ -77,6 +85,7 @@ class FastingBloodSugar {
       fbsLevel: fbsLevel ?? this.fbsLevel,
       imageUrl: imageUrl ?? this.imageUrl,
       user: user ?? this.user,
+      userId: userId,
     );
   }
 
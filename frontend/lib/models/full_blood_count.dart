@@ -10,6 +10,7 @@ class FullBloodCount {
   final double plateletCount; // Platelet count in cells/mcL
   final String? imageUrl;
   final User? user;
+  final int? userId; // List endpoints return the owner id instead of the full user
 
   FullBloodCount({
     required this.id,
@@ -19,8 +20,12 @@ class FullBloodCount {
     required this.plateletCount,
     this.imageUrl,
     this.user,
+    this.userId,
   });
 
+  /// Owner id from either the embedded user or the list payload's userId
+  int? get ownerId => user?.id ?? userId;
+
   factory FullBloodCount.fromJson(Map<String, dynamic> json) {
     return FullBloodCount(
       id: json['id'] as int,
@@ -32,6 +37,9 @@ class FullBloodCount {
       user: json['user'] != null
           ? User.fromJson(json['user'] as Map<String, dynamic>)
           : null,
+      userId:
+          json['userId'] as int? ??
+          (json['user'] as Map<String, dynamic>?)?['id'] as int?,
     );
   }
 
@@ -71,7 +79,7 @@ class FullBloodCount {
       'totalLeucocyteCount': totalLeucocyteCount,
       'plateletCount': plateletCount,
       'imageUrl': imageUrl,
-      'user': user != null ? {'id': user!.id} : null,
+      'user': ownerId != null ? {'id': ownerId} : null,
     };
   }
 
@@ -92,6 +100,7 @@ class FullBloodCount {
       plateletCount: plateletCount ?? this.plateletCount,
       imageUrl: imageUrl ?? this.imageUrl,
       user: user ?? this.user,
+      userId: userId,
     );
   }
 
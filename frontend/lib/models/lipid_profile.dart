@@ -12,6 +12,7 @@ class LipidProfile {
   final double triglycerides; // Triglycerides in mg/dL
   final String? imageUrl;
   final User? user;
+  final int? userId; // List endpoints return the owner id instead of the full user
 
   LipidProfile({
     required this.id,
@@ -23,8 +24,12 @@ class LipidProfile {
     required this.triglycerides,
     this.imageUrl,
     this.user,
+    this.userId,
   });
 
+  /// Owner id from either the embedded user or the list payload's userId
+  int? get ownerId => user?.id ?? userId;
+
   factory LipidProfile.fromJson(Map<String, dynamic> json) {
     return LipidProfile(
       id: json['id'] as int,
@@ -38,6 +43,9 @@ class LipidProfile {
       user: json['user'] != null
           ? User.fromJson(json['user'] as Map<String, dynamic>)
           : null,
+      userId:
+          json['userId'] as int? ??
+          (json['user'] as Map<String, dynamic>?)?['id'] as int?,
     );
   }
 
@@ -83,7 +91,7 @@ class LipidProfile {
       'vldl': vldl,
       'triglycerides': triglycerides,
       'imageUrl': imageUrl,
-      'user': user != null ? {'id': user!.id} : null,
+      'user': ownerId != null ? {'id': ownerId} : null,
     };
   }
 
@@ -108,6 +116,7 @@ class LipidProfile {
       triglycerides: triglycerides ?? this.triglycerides,
       imageUrl: imageUrl ?? this.imageUrl,
       user: user ?? this.user,
+      userId: userId,
     );
   }
 
@@ -11,6 +11,7 @@ class LiverProfile {
   final double sgpt; // SGPT/ALT in U/L
   final String? imageUrl;
   final User? user;
+  final int? userId; // List endpoints return the owner id instead of the full user
 
   LiverProfile({
     required this.id,
@@ -21,8 +22,12 @@ class LiverProfile {
     required this.sgpt,
     this.imageUrl,
     this.user,
+    this.userId,
   });
 
+  /// Owner id from either the embedded user or the list payload's userId
+  int? get ownerId => user?.id ?? userId;
+
   factory LiverProfile.fromJson(Map<String, dynamic> json) {
     return LiverProfile(
       id: json['id'] as int,
@@ -35,6 +40,9 @@ class LiverProfile {
       user: json['user'] != null
           ? User.fromJson(json['user'] as Map<String, dynamic>)
           : null,
+      userId:
+          json['userId'] as int? ??
+          (json['user'] as Map<String, dynamic>?)?['id'] as int?,
     );
   }
 
@@ -77,7 +85,7 @@ class LiverProfile {
       'bilirubinTotalSerum': bilirubinTotalSerum,
       'sgpt': sgpt,
       'imageUrl': imageUrl,
-      'user': user != null ? {'id': user!.id} : null,
+      'user': ownerId != null ? {'id': ownerId} : null,
     };
   }
 
@@ -100,6 +108,7 @@ class LiverProfile {
       sgpt: sgpt ?? this.sgpt,
       imageUrl: imageUrl ?? this.imageUrl,
       user: user ?? this.user,
+      userId: userId,
     );
   }
 
@@ -12,6 +12,7 @@ class UrineReport {
   final double specificGravity; // Normal: 1.005-1.030
   final String? imageUrl;
   final User? user;
+  final int? userId; // List endpoints return the owner id instead of the full user
 
   UrineReport({
     required this.id,
@@ -23,8 +24,12 @@ class UrineReport {
     required this.specificGravity,
     this.imageUrl,
     this.user,
+    this.userId,
   });
 
+  /// Owner id from either the embedded user or the list payload's userId
+  int? get ownerId => user?.id ?? userId;
+
   factory UrineReport.fromJson(Map<String, dynamic> json) {
     return UrineReport(
       id: json['id'] as int,
@@ -38,6 +43,9 @@ class UrineReport {
       user: json['user'] != null
           ? User.fromJson(json['user'] as Map<String, dynamic>)
           : null,
+      userId:
+          json['userId'] as int? ??
+          (json['user'] as Map<String, dynamic>?)?['id'] as int?,
     );
   }
 
@@ -83,7 +91,7 @@ class UrineReport {
       'sugar': sugar,
       'specificGravity': specificGravity,
       'imageUrl': imageUrl,
-      'user': user != null ? {'id': user!.id} : null,
+      'user': ownerId != null ? {'id': ownerId} : null,
     };
   }
 
@@ -108,6 +116,7 @@ class UrineReport {
       specificGravity: specificGravity ?? this.specificGravity,
       imageUrl: imageUrl ?? this.imageUrl,
       user: user ?? this.user,
+      userId: userId,
     );
   }
 